@@ -15,6 +15,7 @@ import org.aion.crypto.HashUtil;
 import org.aion.mcf.types.AbstractBlockHeader;
 import org.aion.rlp.RLP;
 import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPReader;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.zero.exceptions.HeaderStructureException;
 import org.json.JSONObject;
@@ -65,77 +66,72 @@ public class A0BlockHeader extends AbstractBlockHeader implements PowBlockHeader
     }
 
     public A0BlockHeader(byte[] encoded) {
-        this((RLPList) RLP.decode2(encoded).get(0));
+        this(new RLPReader(encoded).readList());
     }
 
     public A0BlockHeader(RLPList rlpHeader) {
+        this(new RLPReader(rlpHeader.getRLPData()).readList());
+    }
+
+    /**
+     * Decodes a block header from a cursor over the elements of its encoding, which are read in the
+     * order of their {@code RPL_BH_} indices.
+     */
+    public A0BlockHeader(RLPReader rlpHeader) {
 
         // Version
-        byte[] versionBytes = rlpHeader.get(RPL_BH_VERSION).getRLPData();
+        byte[] versionBytes = rlpHeader.readBytes();
         this.version = versionBytes.length == 1 ? versionBytes[0] : 1;
 
         // Number
-        byte[] nrBytes = rlpHeader.get(RPL_BH_NUMBER).getRLPData();
-        this.number = nrBytes == null ? 0 : (new BigInteger(1, nrBytes)).longValue();
+        byte[] nrBytes = rlpHeader.readBytes();
+        this.number = (new BigInteger(1, nrBytes)).longValue();
 
         // ParentHash
-        this.parentHash = rlpHeader.get(RPL_BH_PARENTHASH).getRLPData();
+        this.parentHash = rlpHeader.readBytes();
 
         // CoinBase
-        byte[] data = rlpHeader.get(RPL_BH_COINBASE).getRLPData();
-        if (data == null || data.length != Address.SIZE) {
+        byte[] data = rlpHeader.readBytes();
+        if (data.length != Address.SIZE) {
             throw new IllegalArgumentException("Coinbase can not be null!");
         }
         this.coinbase = Address.wrap(data);
 
         // StateRoot
-        this.stateRoot = rlpHeader.get(RPL_BH_STATEROOT).getRLPData();
+        this.stateRoot = rlpHeader.readBytes();
 
         // TxTrieRoot
-        this.txTrieRoot = rlpHeader.get(RPL_BH_TXTRIE).getRLPData();
-        if (this.txTrieRoot == null) {
-            this.txTrieRoot = EMPTY_TRIE_HASH;
-        }
+        this.txTrieRoot = rlpHeader.readBytes();
 
         // ReceiptTrieRoot
-        this.receiptTrieRoot = rlpHeader.get(RPL_BH_RECEIPTTRIE).getRLPData();
-        if (this.receiptTrieRoot == null) {
-            this.receiptTrieRoot = EMPTY_TRIE_HASH;
-        }
+        this.receiptTrieRoot = rlpHeader.readBytes();
 
         // LogsBloom
-        this.logsBloom = rlpHeader.get(RPL_BH_LOGSBLOOM).getRLPData();
+        this.logsBloom = rlpHeader.readBytes();
 
         // Difficulty
-        this.difficulty = rlpHeader.get(RPL_BH_DIFFICULTY).getRLPData();
+        this.difficulty = rlpHeader.readBytes();
 
         // ExtraData
-        this.extraData = rlpHeader.get(RPL_BH_EXTRADATA).getRLPData();
+        this.extraData = rlpHeader.readBytes();
 
         // Energy Consumed
-        byte[] energyConsumedBytes = rlpHeader.get(RPL_BH_NRG_CONSUMED).getRLPData();
-        this.energyConsumed =
-                energyConsumedBytes == null
-                        ? 0
-                        : (new BigInteger(1, energyConsumedBytes).longValue());
+        this.energyConsumed = new BigInteger(1, rlpHeader.readBytes()).longValue();
 
         // Energy Limit
-        byte[] energyLimitBytes = rlpHeader.get(RPL_BH_NRG_LIMIT).getRLPData();
-        this.energyLimit =
-                energyLimitBytes == null ? 0 : (new BigInteger(1, energyLimitBytes).longValue());
+        this.energyLimit = new BigInteger(1, rlpHeader.readBytes()).longValue();
 
         // Timestamp
-        byte[] tsBytes = rlpHeader.get(RPL_BH_TIMESTAMP).getRLPData();
 
         // TODO: not a huge concern, but how should we handle possible
         // overflows?
-        this.timestamp = tsBytes == null ? 0 : (new BigInteger(1, tsBytes)).longValue();
+        this.timestamp = new BigInteger(1, rlpHeader.readBytes()).longValue();
 
         // Nonce
-        this.nonce = rlpHeader.get(RPL_BH_NONCE).getRLPData();
+        this.nonce = rlpHeader.readBytes();
 
         // Solution
-        this.solution = rlpHeader.get(RPL_BH_SOLUTION).getRLPData();
+        this.solution = rlpHeader.readBytes();
     }
 
     /**
@@ -476,85 +472,71 @@ public class A0BlockHeader extends AbstractBlockHeader implements PowBlockHeader
     }
 
     public static A0BlockHeader fromRLP(byte[] rawData, boolean isUnsafe) throws Exception {
-        return fromRLP((RLPList) RLP.decode2(rawData).get(0), isUnsafe);
+        return fromRLP(new RLPReader(rawData).readList(), isUnsafe);
+    }
+
+    public static A0BlockHeader fromRLP(RLPList rlpHeader, boolean isUnsafe) throws Exception {
+        return fromRLP(new RLPReader(rlpHeader.getRLPData()).readList(), isUnsafe);
     }
 
     /**
      * Construct a block header from RLP
      *
-     * @param rlpHeader
+     * @param rlpHeader cursor over the elements of the header encoding
      * @param isUnsafe
      * @return
      */
-    public static A0BlockHeader fromRLP(RLPList rlpHeader, boolean isUnsafe) throws Exception {
+    public static A0BlockHeader fromRLP(RLPReader rlpHeader, boolean isUnsafe) throws Exception {
         Builder builder = new Builder();
         if (isUnsafe) {
             builder.fromUnsafeSource();
         }
 
         // Version
-        byte[] version = rlpHeader.get(RPL_BH_VERSION).getRLPData();
-        if (version != null && version.length == 1) builder.withVersion(version[0]);
+        byte[] version = rlpHeader.readBytes();
+        if (version.length == 1) builder.withVersion(version[0]);
 
         // Number
-        byte[] nrBytes = rlpHeader.get(RPL_BH_NUMBER).getRLPData();
-        if (nrBytes != null) {
-            builder.withNumber(nrBytes);
-        }
+        builder.withNumber(rlpHeader.readBytes());
 
         // Parent Hash
-        builder.withParentHash(rlpHeader.get(RPL_BH_PARENTHASH).getRLPData());
+        builder.withParentHash(rlpHeader.readBytes());
 
         // Coinbase (miner)
-        builder.withCoinbase(new Address(rlpHeader.get(RPL_BH_COINBASE).getRLPData()));
+        builder.withCoinbase(new Address(rlpHeader.readBytes()));
 
         // State root
-        builder.withStateRoot(rlpHeader.get(RPL_BH_STATEROOT).getRLPData());
+        builder.withStateRoot(rlpHeader.readBytes());
 
         // TxTrie root
-        byte[] txTrieRoot = rlpHeader.get(RPL_BH_TXTRIE).getRLPData();
-        if (txTrieRoot != null) {
-            builder.withTxTrieRoot(txTrieRoot);
-        }
+        builder.withTxTrieRoot(rlpHeader.readBytes());
 
         // Receipt Trie root
-        byte[] receiptTrieRoot = rlpHeader.get(RPL_BH_RECEIPTTRIE).getRLPData();
-        if (receiptTrieRoot != null) {
-            builder.withReceiptTrieRoot(receiptTrieRoot);
-        }
+        builder.withReceiptTrieRoot(rlpHeader.readBytes());
 
         // LogsBloom
-        builder.withLogsBloom(rlpHeader.get(RPL_BH_LOGSBLOOM).getRLPData());
+        builder.withLogsBloom(rlpHeader.readBytes());
 
         // Difficulty
-        builder.withDifficulty(rlpHeader.get(RPL_BH_DIFFICULTY).getRLPData());
+        builder.withDifficulty(rlpHeader.readBytes());
 
         // ExtraData
-        builder.withExtraData(rlpHeader.get(RPL_BH_EXTRADATA).getRLPData());
+        builder.withExtraData(rlpHeader.readBytes());
 
         // Energy Consumed
-        byte[] energyConsumedBytes = rlpHeader.get(RPL_BH_NRG_CONSUMED).getRLPData();
-        if (energyConsumedBytes != null) {
-            builder.withEnergyConsumed(energyConsumedBytes);
-        }
+        builder.withEnergyConsumed(rlpHeader.readBytes());
 
         // Energy limit
-        byte[] energyLimitBytes = rlpHeader.get(RPL_BH_NRG_LIMIT).getRLPData();
-        if (energyLimitBytes != null) {
-            builder.withEnergyLimit(energyLimitBytes);
-        }
+        builder.withEnergyLimit(rlpHeader.readBytes());
 
         // Timestamp
-        byte[] tsBytes = rlpHeader.get(RPL_BH_TIMESTAMP).getRLPData();
-        if (tsBytes != null) {
-            builder.withTimestamp(tsBytes);
-        }
+        builder.withTimestamp(rlpHeader.readBytes());
 
         // Nonce
-        builder.withNonce(rlpHeader.get(RPL_BH_NONCE).getRLPData());
+        builder.withNonce(rlpHeader.readBytes());
 
         // Solution
-        builder.withSolution(rlpHeader.get(RPL_BH_SOLUTION).getRLPData());
+        builder.withSolution(rlpHeader.readBytes());
 
         return builder.build();
     }
@@ -14,7 +14,7 @@ import org.aion.crypto.SignatureFac;
 import org.aion.mcf.types.AbstractTransaction;
 import org.aion.mcf.vm.Constants;
 import org.aion.rlp.RLP;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPReader;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.util.time.TimeInstant;
 
@@ -127,26 +127,26 @@ public class AionTransaction extends AbstractTransaction {
 
     public void rlpParse() {
 
-        RLPList decodedTxList = RLP.decode2(rlpEncoded);
-        RLPList tx = (RLPList) decodedTxList.get(0);
+        // the fields are read in the order of their RLP_TX_ indices
+        RLPReader tx = new RLPReader(rlpEncoded).readList();
 
-        this.nonce = tx.get(RLP_TX_NONCE).getRLPData();
-        this.value = tx.get(RLP_TX_VALUE).getRLPData();
-        this.data = tx.get(RLP_TX_DATA).getRLPData();
+        this.nonce = tx.readBytes();
 
-        byte[] rlpTo = tx.get(RLP_TX_TO).getRLPData();
-        if (rlpTo == null || rlpTo.length == 0) {
+        byte[] rlpTo = tx.readBytes();
+        if (rlpTo.length == 0) {
             this.to = null;
         } else {
-            this.to = Address.wrap(tx.get(RLP_TX_TO).getRLPData());
+            this.to = Address.wrap(rlpTo);
         }
 
-        this.timeStamp = tx.get(RLP_TX_TIMESTAMP).getRLPData();
-        this.nrg = new BigInteger(1, tx.get(RLP_TX_NRG).getRLPData()).longValue();
-        this.nrgPrice = new BigInteger(1, tx.get(RLP_TX_NRGPRICE).getRLPData()).longValue();
-        this.type = new BigInteger(1, tx.get(RLP_TX_TYPE).getRLPData()).byteValue();
+        this.value = tx.readBytes();
+        this.data = tx.readBytes();
+        this.timeStamp = tx.readBytes();
+        this.nrg = new BigInteger(1, tx.readBytes()).longValue();
+        this.nrgPrice = new BigInteger(1, tx.readBytes()).longValue();
+        this.type = new BigInteger(1, tx.readBytes()).byteValue();
 
-        byte[] sigs = tx.get(RLP_TX_SIG).getRLPData();
+        byte[] sigs = tx.readBytes();
         if (sigs != null) {
             // Singature Factory will decode the signature based on the algo
             // presetted in main() entry.
@@ -13,9 +13,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import org.aion.interfaces.tx.TxExecSummary;
 import org.aion.interfaces.tx.TxReceipt;
 import org.aion.mcf.vm.types.DataWordImpl;
@@ -307,6 +309,62 @@ public class AionTxExecSummary implements TxExecSummary {
         return this.receipt;
     }
 
+    /**
+     * Returns the accounts whose state may have been modified by the transaction: the sender, the
+     * destination or created contract, the parties to the internal transactions, the deleted
+     * accounts and the sources of the logs. The block coinbase is not included.
+     */
+    public Set<Address> getTouchedAccounts() {
+        Set<Address> accounts = new HashSet<>();
+        addTouchedAccounts(getTransaction(), accounts);
+
+        for (InternalTransactionInterface itx : getInternalTransactions()) {
+            if (itx instanceof AionTransaction) {
+                addTouchedAccounts((AionTransaction) itx, accounts);
+            } else {
+                accounts.add(itx.getSenderAddress());
+                if (itx.getDestinationAddress() != null) {
+                    accounts.add(itx.getDestinationAddress());
+                }
+            }
+        }
+
+        accounts.addAll(getDeletedAccounts());
+
+        if (getLogs() != null) {
+            for (IExecutionLog log : getLogs()) {
+                accounts.add(log.getSourceAddress());
+            }
+        }
+
+        accounts.remove(null);
+        return accounts;
+    }
+
+    /**
+     * Indicates whether the result of the transaction is independent of the block it is executed
+     * in. This is the case when it succeeded using only its intrinsic energy, without internal
+     * transactions, so that no code reading the block number, timestamp or difficulty was run.
+     * Any contract code that runs uses more energy, so contract calls are considered dependent.
+     */
+    public boolean isIndependentOfBlock() {
+        if (!parsed) {
+            rlpParse();
+        }
+        return !isFailed()
+                && getInternalTransactions().isEmpty()
+                && getReceipt().getEnergyUsed() == getTransaction().getTransactionCost();
+    }
+
+    private static void addTouchedAccounts(AionTransaction tx, Set<Address> accounts) {
+        accounts.add(tx.getSenderAddress());
+        if (tx.getDestinationAddress() != null) {
+            accounts.add(tx.getDestinationAddress());
+        } else {
+            accounts.add(tx.getContractAddress());
+        }
+    }
+
     public BigInteger getRefund() {
         if (!parsed) {
             rlpParse();
@@ -3,15 +3,28 @@ package org.aion.equihash;
 import static org.aion.util.bytes.ByteUtil.intToBytesLE;
 import static org.aion.util.bytes.ByteUtil.merge;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import org.aion.crypto.HashUtil;
 import org.aion.crypto.hash.Blake2b;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
+import org.aion.types.ByteArrayWrapper;
+import org.apache.commons.collections4.map.LRUMap;
 import org.slf4j.Logger;
 
 public class OptimizedEquiValidator {
+    /**
+     * Solutions that were already found valid, shared by all validators such that a header
+     * received both as a new block and during sync is only verified once. The key is made of the
+     * Equihash parameters, the header bytes and the nonce.
+     */
+    private static final Map<ByteArrayWrapper, byte[]> validSolutions =
+            Collections.synchronizedMap(new LRUMap<>(4096));
+
     private final int n;
     private final int k;
     private final int indicesPerHashOutput;
@@ -22,6 +35,7 @@ public class OptimizedEquiValidator {
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.CONS.name());
 
     private final Blake2b.Param initState;
+    private final byte[] personalization;
 
     public OptimizedEquiValidator(int n, int k) {
         this.n = n;
@@ -32,6 +46,8 @@ public class OptimizedEquiValidator {
         this.collisionBitLength = n / (k + 1);
         // int collisionByteLength = (collisionBitLength + 7) / 8;
         this.solutionWidth = (1 << k) * (collisionBitLength + 1) / 8;
+        this.personalization =
+                merge("AION0PoW".getBytes(), merge(intToBytesLE(n), intToBytesLE(k)));
         this.initState = this.InitialiseState();
         // byte[][] hashes = new byte[512][indicesHashLength];
         // this.indexSet = new HashSet<>();
@@ -45,8 +61,6 @@ public class OptimizedEquiValidator {
      */
     private Blake2b.Param InitialiseState() {
         Blake2b.Param p = new Blake2b.Param();
-        byte[] personalization =
-                merge("AION0PoW".getBytes(), merge(intToBytesLE(n), intToBytesLE(k)));
         p.setPersonal(personalization);
         p.setDigestLength(hashOutput);
 
@@ -79,6 +93,11 @@ public class OptimizedEquiValidator {
             return false;
         }
 
+        ByteArrayWrapper key = cacheKey(blockHeader, nonce);
+        if (isCached(key, solution)) {
+            return true;
+        }
+
         Blake2b blake = Blake2b.Digest.newInstance(initState);
 
         int[] indices = EquiUtils.getIndicesFromMinimal(solution, collisionBitLength);
@@ -90,7 +109,11 @@ public class OptimizedEquiValidator {
 
         byte[] hash = new byte[indicesHashLength];
 
-        return verify(blockHeader, nonce, blake, indices, 0, hash, k);
+        boolean valid = verify(blockHeader, nonce, blake, indices, 0, hash, k);
+        if (valid) {
+            validSolutions.put(key, solution.clone());
+        }
+        return valid;
     }
 
     /** @throws NullPointerException when given null input */
@@ -111,6 +134,11 @@ public class OptimizedEquiValidator {
             return false;
         }
 
+        ByteArrayWrapper key = cacheKey(blockHeader, nonce);
+        if (isCached(key, solution)) {
+            return true;
+        }
+
         int[] indices = EquiUtils.getIndicesFromMinimal(solution, collisionBitLength);
 
         if (hasDuplicate(indices)) {
@@ -121,13 +149,23 @@ public class OptimizedEquiValidator {
         byte[] hash = new byte[indicesHashLength];
 
         byte[][] nativeHash =
-                HashUtil.getSolutionHash(
-                        merge("AION0PoW".getBytes(), merge(intToBytesLE(n), intToBytesLE(k))),
-                        nonce,
-                        indices,
-                        blockHeader);
+                HashUtil.getSolutionHash(personalization, nonce, indices, blockHeader);
+
+        boolean valid = verifyNative(indices, 0, hash, k, nativeHash);
+        if (valid) {
+            validSolutions.put(key, solution.clone());
+        }
+        return valid;
+    }
+
+    private ByteArrayWrapper cacheKey(byte[] blockHeader, byte[] nonce) {
+        return ByteArrayWrapper.wrap(merge(personalization, blockHeader, nonce));
+    }
 
-        return verifyNative(indices, 0, hash, k, nativeHash);
+    /** Checks if the given solution was already found valid for the same header and nonce. */
+    private static boolean isCached(ByteArrayWrapper key, byte[] solution) {
+        byte[] valid = validSolutions.get(key);
+        return valid != null && Arrays.equals(valid, solution);
     }
 
     /**
@@ -38,4 +38,7 @@ public interface A0BCConfig {
 
     /** Flag for enabling AVM use. */
     boolean isAvmEnabled();
+
+    /** Flag for enabling the speculative parallel execution of FVM transactions. */
+    boolean isParallelExecutionEnabled();
 }
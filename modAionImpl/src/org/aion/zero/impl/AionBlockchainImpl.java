@@ -16,6 +16,7 @@ import java.math.BigInteger;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
@@ -41,15 +42,13 @@ import org.aion.mcf.core.ImportResult;
 import org.aion.mcf.db.IBlockStorePow;
 import org.aion.mcf.db.TransactionStore;
 import org.aion.mcf.manager.ChainStatistics;
-import org.aion.mcf.trie.Trie;
-import org.aion.mcf.trie.TrieImpl;
+import org.aion.mcf.trie.OrderedTrieRoot;
 import org.aion.mcf.trie.TrieNodeResult;
 import org.aion.mcf.types.BlockIdentifierImpl;
 import org.aion.mcf.valid.BlockHeaderValidator;
 import org.aion.mcf.valid.GrandParentBlockHeaderValidator;
 import org.aion.mcf.valid.ParentBlockHeaderValidator;
 import org.aion.mcf.vm.types.Bloom;
-import org.aion.rlp.RLP;
 import org.aion.types.Address;
 import org.aion.types.ByteArrayWrapper;
 import org.aion.types.Hash256;
@@ -68,6 +67,7 @@ import org.aion.zero.impl.core.energy.AbstractEnergyStrategyLimit;
 import org.aion.zero.impl.core.energy.EnergyStrategies;
 import org.aion.zero.impl.db.AionBlockStore;
 import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.BloomBitsIndex;
 import org.aion.zero.impl.sync.DatabaseType;
 import org.aion.zero.impl.sync.SyncMgr;
 import org.aion.zero.impl.types.AionBlock;
@@ -83,6 +83,7 @@ import org.aion.zero.types.AionTransaction;
 import org.aion.zero.types.AionTxExecSummary;
 import org.aion.zero.types.AionTxReceipt;
 import org.aion.zero.types.IAionBlock;
+import org.apache.commons.collections4.map.LRUMap;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -137,6 +138,12 @@ public class AionBlockchainImpl implements IAionBlockchain {
     private final GrandParentBlockHeaderValidator<A0BlockHeader> grandParentBlockHeaderValidator;
     private final ParentBlockHeaderValidator<A0BlockHeader> parentHeaderValidator;
     private final BlockHeaderValidator<A0BlockHeader> blockHeaderValidator;
+    // headers that passed the parent and grandparent checks ahead of their import
+    private final Map<ByteArrayWrapper, Boolean> prevalidatedHeaders =
+            Collections.synchronizedMap(new LRUMap<>(1024));
+    // the contexts of the templates built by this node, by the hash their blocks are mined on
+    private final Map<ByteArrayWrapper, BlockContext> sealableTemplates =
+            Collections.synchronizedMap(new LRUMap<>(16));
     private AtomicReference<BlockIdentifierImpl> bestKnownBlock =
             new AtomicReference<BlockIdentifierImpl>();
 
@@ -146,6 +153,8 @@ public class AionBlockchainImpl implements IAionBlockchain {
     private byte[] minerExtraData;
 
     private Stack<State> stateStack = new Stack<>();
+    // the execution of the last block template, extended by the next one when possible
+    private BlockTemplate lastTemplate = null;
     private IEventMgr evtMgr = null;
 
     private AbstractEnergyStrategyLimit energyLimitStrategy;
@@ -212,6 +221,11 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
                 return true;
             }
+
+            @Override
+            public boolean isParallelExecutionEnabled() {
+                return cfgAion.getVm().isParallelExecution();
+            }
         };
     }
 
@@ -234,6 +248,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
         this.chainConfiguration = chainConfig;
         TransactionTypeValidator.enableAvmCheck(config.isAvmEnabled());
         BulkExecutor.enabledAvmCheck(config.isAvmEnabled());
+        BulkExecutor.enableParallelExecution(config.isParallelExecutionEnabled());
 
         this.grandParentBlockHeaderValidator =
                 this.chainConfiguration.createGrandParentHeaderValidator();
@@ -427,17 +442,17 @@ public class AionBlockchainImpl implements IAionBlockchain {
             return HashUtil.EMPTY_TRIE_HASH;
         }
 
-        Trie txsState = new TrieImpl(null);
+        List<byte[]> txsEncoded = new ArrayList<>(transactions.size());
 
-        for (int i = 0; i < transactions.size(); i++) {
-            byte[] txEncoding = transactions.get(i).getEncoded();
+        for (AionTransaction tx : transactions) {
+            byte[] txEncoding = tx.getEncoded();
             if (txEncoding != null) {
-                txsState.update(RLP.encodeInt(i), txEncoding);
+                txsEncoded.add(txEncoding);
             } else {
                 return HashUtil.EMPTY_TRIE_HASH;
             }
         }
-        return txsState.getRootHash();
+        return OrderedTrieRoot.calculate(txsEncoded);
     }
 
     public AionRepositoryImpl getRepository() {
@@ -453,6 +468,15 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return push;
     }
 
+    /** Saves the current state and continues from the given block, on the given repository. */
+    private State pushState(byte[] bestBlockHash, AionRepositoryImpl repository) {
+        State push = stateStack.push(new State());
+        this.bestBlock = getBlockStore().getBlockByHash(bestBlockHash);
+        this.totalDifficulty = getBlockStore().getTotalDifficultyForHash(bestBlockHash);
+        this.repository = repository;
+        return push;
+    }
+
     private void popState() {
         State state = stateStack.pop();
         this.repository = state.savedRepo;
@@ -503,6 +527,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
             // The main repository rebranch
             this.repository = savedState.savedRepo;
             this.repository.syncToRoot(block.getStateRoot());
+            this.repository.publishSnapshot(block.getStateRoot());
 
             // flushing
             flush();
@@ -550,6 +575,30 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return repository.importTrieNode(key, value, dbType);
     }
 
+    /**
+     * Imports multiple trie nodes to the indicated blockchain database with a single write.
+     *
+     * @param nodes the key-value pairs of the trie nodes to be imported
+     * @param dbType the database where the key-value pairs should be stored
+     * @return the {@link TrieNodeResult} of the import operation for each of the given keys
+     */
+    public Map<ByteArrayWrapper, TrieNodeResult> importTrieNodes(
+            Map<ByteArrayWrapper, byte[]> nodes, DatabaseType dbType) {
+        return repository.importTrieNodes(nodes, dbType);
+    }
+
+    /**
+     * Returns the keys that are not present in the indicated blockchain database.
+     *
+     * @param keys the keys to be checked
+     * @param dbType the database where the keys should be found
+     * @return the subset of the given keys that are missing from the database
+     */
+    public Set<ByteArrayWrapper> getMissingTrieNodes(
+            Collection<ByteArrayWrapper> keys, DatabaseType dbType) {
+        return repository.getMissingTrieNodes(keys, dbType);
+    }
+
     /**
      * If using TOP pruning we need to check the pruning restriction for the block. Otherwise, there
      * is not prune restriction.
@@ -758,7 +807,8 @@ public class AionBlockchainImpl implements IAionBlockchain {
                         LOG.trace("IMPORTED_BEST");
                     }
                     IEvent evtOnBest = new EventBlock(EventBlock.CALLBACK.ONBEST0);
-                    evtOnBest.setFuncArgs(Arrays.asList(block, summary.getReceipts()));
+                    evtOnBest.setFuncArgs(
+                            Arrays.asList(block, summary.getReceipts(), getTouchedAccounts(summary)));
                     evts.add(evtOnBest);
                 }
 
@@ -767,6 +817,12 @@ public class AionBlockchainImpl implements IAionBlockchain {
         }
 
         if (ret == IMPORTED_BEST) {
+            BloomBitsIndex bloomBitsIndex = repository.getBloomBitsIndex();
+            if (bloomBitsIndex != null) {
+                // index the log blooms of the sections that became final
+                bloomBitsIndex.update(block.getNumber());
+            }
+
             if (TX_LOG.isDebugEnabled()) {
                 for (AionTxReceipt receipt : summary.getReceipts()) {
                     if (receipt != null) {
@@ -833,21 +889,29 @@ public class AionBlockchainImpl implements IAionBlockchain {
             boolean waitUntilBlockTime,
             long currTimeSeconds) {
         long time = currTimeSeconds;
+        long energyLimit = this.energyLimitStrategy.getEnergyLimit(parent.getHeader());
 
-        if (parent.getTimestamp() >= time) {
-            time = parent.getTimestamp() + 1;
-            while (waitUntilBlockTime && System.currentTimeMillis() / THOUSAND_MS <= time) {
-                try {
-                    Thread.sleep(500);
-                } catch (InterruptedException e) {
-                    break;
+        BlockTemplate template = lastTemplate;
+        if (template != null && template.isExtendedBy(parent, txs, energyLimit, time)) {
+            // the executed transactions have the same results at the current time
+            template.timestamp = time;
+        } else {
+            template = null;
+            if (parent.getTimestamp() >= time) {
+                time = parent.getTimestamp() + 1;
+                while (waitUntilBlockTime && System.currentTimeMillis() / THOUSAND_MS <= time) {
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
                 }
             }
         }
-        long energyLimit = this.energyLimitStrategy.getEnergyLimit(parent.getHeader());
 
         AionBlock block;
         try {
+            // the transaction trie is set when the block is sealed with the included transactions
             A0BlockHeader.Builder headerBuilder =
                     new A0BlockHeader.Builder()
                             .withVersion((byte) 1)
@@ -856,7 +920,6 @@ public class AionBlockchainImpl implements IAionBlockchain {
                             .withNumber(parent.getNumber() + 1)
                             .withTimestamp(time)
                             .withExtraData(minerExtraData)
-                            .withTxTrieRoot(calcTxTrie(txs))
                             .withEnergyLimit(energyLimit);
             block = new AionBlock(headerBuilder.build(), txs);
         } catch (HeaderStructureException e) {
@@ -878,11 +941,23 @@ public class AionBlockchainImpl implements IAionBlockchain {
         /*
          * Begin execution phase
          */
-        pushState(parent.getHash());
+        if (template == null) {
+            template =
+                    new BlockTemplate(
+                            parent.getHash(),
+                            energyLimit,
+                            time,
+                            repository.getUnprunedSnapshotTo(parent.getStateRoot()));
+        } else {
+            // resume from the state left by the transactions of the previous template
+            template.repository.syncToRoot(template.stateRoot);
+        }
+        pushState(parent.getHash(), template.repository);
 
         track = repository.startTracking();
+        RepositoryCache stateDelta = repository.startTracking();
 
-        RetValidPreBlock preBlock = generatePreBlock(block);
+        RetValidPreBlock preBlock = generatePreBlock(block, template, stateDelta);
 
         /*
          * Calculate the gas used for the included transactions
@@ -897,6 +972,8 @@ public class AionBlockchainImpl implements IAionBlockchain {
         byte[] stateRoot = getRepository().getRoot();
         popState();
 
+        lastTemplate = template;
+
         /*
          * End execution phase
          */
@@ -916,7 +993,16 @@ public class AionBlockchainImpl implements IAionBlockchain {
         // derive base block reward
         BigInteger baseBlockReward =
                 this.chainConfiguration.getRewardsCalculator().calculateReward(block.getHeader());
-        return new BlockContext(block, baseBlockReward, totalTransactionFee);
+        BlockContext context =
+                new BlockContext(
+                        block,
+                        baseBlockReward,
+                        totalTransactionFee,
+                        stateDelta,
+                        new AionBlockSummary(
+                                block, preBlock.rewards, preBlock.receipts, preBlock.summaries));
+        sealableTemplates.put(sealingKey(block), context);
+        return context;
     }
 
     @Override
@@ -954,7 +1040,10 @@ public class AionBlockchainImpl implements IAionBlockchain {
             return null;
         }
 
-        AionBlockSummary summary = processBlock(block);
+        AionBlockSummary summary = rebuild ? null : applySealedTemplate(block);
+        if (summary == null) {
+            summary = processBlock(block);
+        }
         List<AionTxReceipt> receipts = summary.getReceipts();
 
         // Sanity checks
@@ -1063,11 +1152,11 @@ public class AionBlockchainImpl implements IAionBlockchain {
             return HashUtil.EMPTY_TRIE_HASH;
         }
 
-        Trie receiptsTrie = new TrieImpl(null);
-        for (int i = 0; i < receipts.size(); i++) {
-            receiptsTrie.update(RLP.encodeInt(i), receipts.get(i).getReceiptTrieEncoded());
+        List<byte[]> receiptsEncoded = new ArrayList<>(receipts.size());
+        for (AionTxReceipt receipt : receipts) {
+            receiptsEncoded.add(receipt.getReceiptTrieEncoded());
         }
-        return receiptsTrie.getRootHash();
+        return OrderedTrieRoot.calculate(receiptsEncoded);
     }
 
     private static byte[] calcLogBloom(List<AionTxReceipt> receipts) {
@@ -1087,7 +1176,46 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return getBlockStore().getBlockByHash(header.getParentHash());
     }
 
+    /**
+     * Runs the header checks that depend on the parent and grandparent headers ahead of the import
+     * of the block, e.g. on a different thread while the preceding blocks are executed. A header
+     * that passes the checks is not validated again by the import. The checks only depend on the
+     * given headers, which are identified by the parent hash of the validated header.
+     *
+     * @param header the header to validate
+     * @param parent the parent header or {@code null} to load it from the block store
+     * @param grandParent the grandparent header or {@code null} to load it from the block store
+     * @return {@code true} if the header is valid, {@code false} if it is invalid or its parent is
+     *     not known
+     */
+    public boolean prevalidate(
+            A0BlockHeader header, A0BlockHeader parent, A0BlockHeader grandParent) {
+        if (parent == null || !Arrays.equals(parent.getHash(), header.getParentHash())) {
+            IAionBlock block = getParent(header);
+            if (block == null) {
+                return false;
+            }
+            parent = block.getHeader();
+        }
+
+        if (grandParent == null || !Arrays.equals(grandParent.getHash(), parent.getParentHash())) {
+            IAionBlock block = getParent(parent);
+            grandParent = block == null ? null : block.getHeader();
+        }
+
+        if (this.parentHeaderValidator.validate(header, parent, LOG)
+                && this.grandParentBlockHeaderValidator.validate(
+                        grandParent, parent, header, LOG)) {
+            prevalidatedHeaders.put(ByteArrayWrapper.wrap(header.getHash()), true);
+            return true;
+        }
+        return false;
+    }
+
     public boolean isValid(A0BlockHeader header) {
+        if (prevalidatedHeaders.remove(ByteArrayWrapper.wrap(header.getHash())) != null) {
+            return true;
+        }
 
         /*
          * Header should already be validated at this point, no need to check again
@@ -1134,13 +1262,16 @@ public class AionBlockchainImpl implements IAionBlockchain {
             byte[] trieHash = block.getTxTrieRoot();
             List<AionTransaction> txs = block.getTransactionsList();
 
-            byte[] trieListHash = calcTxTrie(txs);
-            if (!Arrays.equals(trieHash, trieListHash)) {
-                LOG.warn(
-                        "Block's given Trie Hash doesn't match: {} != {}",
-                        toHexString(trieHash),
-                        toHexString(trieListHash));
-                return false;
+            // blocks assembled from the network were checked on arrival
+            if (!block.isTxTrieRootValidated()) {
+                byte[] trieListHash = calcTxTrie(txs);
+                if (!Arrays.equals(trieHash, trieListHash)) {
+                    LOG.warn(
+                            "Block's given Trie Hash doesn't match: {} != {}",
+                            toHexString(trieHash),
+                            toHexString(trieListHash));
+                    return false;
+                }
             }
 
             if (txs != null && !txs.isEmpty()) {
@@ -1221,6 +1352,54 @@ public class AionBlockchainImpl implements IAionBlockchain {
         return ret;
     }
 
+    /**
+     * Commits the state changes of the block kept from when this node built its template, instead
+     * of executing its transactions again.
+     *
+     * <p>The template that the block was sealed from computed its state root from the same changes,
+     * so they lead to it whenever the repository is at the state of the parent. The usual receipt
+     * and state root checks still apply to the returned summary.
+     *
+     * @return the summary of the block, or {@code null} if the block was not built by this node or
+     *     the repository is not at the state of its parent, in which case it must be executed
+     */
+    private AionBlockSummary applySealedTemplate(AionBlock block) {
+        BlockContext context = sealableTemplates.remove(sealingKey(block));
+        if (context == null || context.stateDelta == null) {
+            return null;
+        }
+
+        // the kept changes lead to the state root of the block only from the state of its parent,
+        // which is checked before they are written since the contract details cannot be undone
+        if (!Arrays.equals(repository.getRoot(), bestBlock.getStateRoot())) {
+            LOG.warn(
+                    "Sealed block #{} does not extend the current state, executing it.",
+                    block.getNumber());
+            return null;
+        }
+        context.stateDelta.flushCopiesTo(repository, false);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(
+                    "Imported sealed block #{} without executing its {} transactions.",
+                    block.getNumber(),
+                    block.getTransactionsList().size());
+        }
+        return new AionBlockSummary(
+                block,
+                context.summary.getRewards(),
+                context.summary.getReceipts(),
+                context.summary.getSummaries());
+    }
+
+    /**
+     * Returns the hash of the block header without its nonce and solution, computed from the
+     * current fields of the header, which identifies the template the block was sealed from.
+     */
+    private static ByteArrayWrapper sealingKey(AionBlock block) {
+        return ByteArrayWrapper.wrap(HashUtil.h256(block.getHeader().getHeaderBytes(true)));
+    }
+
     private AionBlockSummary processBlock(AionBlock block) {
 
         if (!block.isGenesis()) {
@@ -1232,21 +1411,25 @@ public class AionBlockchainImpl implements IAionBlockchain {
     }
 
     /**
-     * For generating the necessary transactions for a block
+     * For generating the necessary transactions for a block. Only the transactions that the
+     * template has not executed yet are run, on top of the state left by the ones it has.
      *
      * @param block
+     * @param template
+     * @param stateDelta collects the state changes of the block, to commit on its import
      * @return
      */
-    private RetValidPreBlock generatePreBlock(IAionBlock block) {
+    private RetValidPreBlock generatePreBlock(
+            IAionBlock block, BlockTemplate template, RepositoryCache stateDelta) {
 
         long saveTime = System.nanoTime();
 
-        List<AionTxReceipt> receipts = new ArrayList<>();
-        List<AionTxExecSummary> summaries = new ArrayList<>();
-        List<AionTransaction> transactions = new ArrayList<>();
+        List<AionTransaction> txs = block.getTransactionsList();
+        if (txs.size() > template.executed.size()) {
+            List<AionTransaction> pending =
+                    new ArrayList<>(txs.subList(template.executed.size(), txs.size()));
 
-        if (!block.getTransactionsList().isEmpty()) {
-            ExecutionBatch batch = new ExecutionBatch(block, block.getTransactionsList());
+            ExecutionBatch batch = new ExecutionBatch(block, pending);
             BulkExecutor executor =
                     new BulkExecutor(
                             batch,
@@ -1254,9 +1437,9 @@ public class AionBlockchainImpl implements IAionBlockchain {
                             track,
                             false,
                             true,
-                            block.getNrgLimit(),
+                            block.getNrgLimit() - template.energyUsed,
                             LOGGER_VM,
-                            getPostExecutionWorkForGeneratePreBlock());
+                            getPostExecutionWorkForGeneratePreBlock(template.stateDelta));
 
             List<AionTxExecSummary> executionSummaries = null;
             try {
@@ -1266,18 +1449,33 @@ public class AionBlockchainImpl implements IAionBlockchain {
                 System.exit(-1);
             }
 
+            template.executed.addAll(pending);
             for (AionTxExecSummary summary : executionSummaries) {
                 if (!summary.isRejected()) {
-                    transactions.add(summary.getTransaction());
-                    receipts.add(summary.getReceipt());
-                    summaries.add(summary);
+                    template.summaries.add(summary);
+                    template.energyUsed += summary.getReceipt().getEnergyUsed();
+                    template.dependsOnBlock |= !summary.isIndependentOfBlock();
                 }
             }
+            template.stateRoot = repository.getRoot();
+        }
+
+        List<AionTxReceipt> receipts = new ArrayList<>();
+        List<AionTxExecSummary> summaries = new ArrayList<>(template.summaries);
+        List<AionTransaction> transactions = new ArrayList<>();
+        for (AionTxExecSummary summary : summaries) {
+            transactions.add(summary.getTransaction());
+            receipts.add(summary.getReceipt());
         }
 
+        // the reward is added on top of the changes of the transactions
+        template.stateDelta.flushCopiesTo(stateDelta, false);
+        RepositoryCache txTrack = track;
+        track = stateDelta.startTracking();
         Map<Address, BigInteger> rewards = addReward(block);
+        track = txTrack;
 
-        track.flush();
+        stateDelta.flushCopiesTo(repository, false);
 
         long totalTime = System.nanoTime() - saveTime;
         chainStats.addBlockExecTime(totalTime);
@@ -1289,16 +1487,20 @@ public class AionBlockchainImpl implements IAionBlockchain {
      * run the provided logic defined in this method. This work is to be applied after each
      * transaction has been run.
      *
-     * <p>This "work" is specific to the {@link AionBlockchainImpl#generatePreBlock(IAionBlock)}
-     * method.
+     * <p>This "work" is specific to the {@link AionBlockchainImpl#generatePreBlock(IAionBlock,
+     * BlockTemplate, RepositoryCache)} method.
+     *
+     * @param stateDelta collects copies of the state changes of the transactions
      */
-    private static PostExecutionWork getPostExecutionWorkForGeneratePreBlock() {
+    private static PostExecutionWork getPostExecutionWorkForGeneratePreBlock(
+            RepositoryCache stateDelta) {
         return (topRepository,
                 childRepository,
                 transactionSummary,
                 transaction,
                 blockEnergyLeft) -> {
             if (!transactionSummary.isRejected()) {
+                childRepository.flushCopiesTo(stateDelta, false);
                 childRepository.flush();
 
                 AionTxReceipt receipt = transactionSummary.getReceipt();
@@ -1312,6 +1514,32 @@ public class AionBlockchainImpl implements IAionBlockchain {
         };
     }
 
+    /** Returns the accounts whose state may have been modified by importing the block. */
+    private static Set<Address> getTouchedAccounts(AionBlockSummary summary) {
+        Set<Address> accounts = new HashSet<>(summary.getRewards().keySet());
+        accounts.add(summary.getBlock().getCoinbase());
+        for (AionTxExecSummary txSummary : summary.getSummaries()) {
+            accounts.addAll(txSummary.getTouchedAccounts());
+        }
+        return accounts;
+    }
+
+    /**
+     * Loads the state of the coinbase and of the senders and recipients of the block transactions
+     * into memory ahead of their serial access during execution.
+     */
+    private void prefetchAccounts(IAionBlock block) {
+        Set<Address> accounts = new HashSet<>();
+        accounts.add(block.getCoinbase());
+        for (AionTransaction tx : block.getTransactionsList()) {
+            accounts.add(tx.getSenderAddress());
+            if (tx.getDestinationAddress() != null) {
+                accounts.add(tx.getDestinationAddress());
+            }
+        }
+        repository.prefetchAccounts(accounts);
+    }
+
     private AionBlockSummary applyBlock(IAionBlock block) {
         long saveTime = System.nanoTime();
 
@@ -1319,6 +1547,8 @@ public class AionBlockchainImpl implements IAionBlockchain {
         List<AionTxExecSummary> summaries = new ArrayList<>();
 
         if (!block.getTransactionsList().isEmpty()) {
+            prefetchAccounts(block);
+
             ExecutionBatch batch = new ExecutionBatch(block, block.getTransactionsList());
             BulkExecutor executor =
                     new BulkExecutor(
@@ -1794,17 +2024,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
 
     @Override
     public List<byte[]> getListOfBodiesByHashes(List<byte[]> hashes) {
-        List<byte[]> bodies = new ArrayList<>(hashes.size());
-
-        for (byte[] hash : hashes) {
-            AionBlock block = getBlockStore().getBlockByHash(hash);
-            if (block == null) {
-                break;
-            }
-            bodies.add(block.getEncodedBody());
-        }
-
-        return bodies;
+        return getBlockStore().getBodiesByHashes(hashes);
     }
 
     private class State {
@@ -1814,6 +2034,69 @@ public class AionBlockchainImpl implements IAionBlockchain {
         BigInteger savedTD = totalDifficulty;
     }
 
+    /**
+     * The transactions executed for a block template and the state they left, before the block
+     * reward. A new template on the same parent whose transactions start with the executed ones
+     * only has to run the transactions that were added since.
+     *
+     * <p>The template executes on a snapshot of the parent state that does not prune its world
+     * state, since the reward of each block built from it replaces nodes of the state it resumes
+     * from.
+     */
+    private class BlockTemplate {
+
+        final byte[] parentHash;
+        final Address coinbase = minerCoinbase;
+        final long energyLimit;
+        long timestamp;
+        final AionRepositoryImpl repository;
+        // the state changes of the executed transactions
+        final RepositoryCache stateDelta;
+        final List<AionTransaction> executed = new ArrayList<>();
+        final List<AionTxExecSummary> summaries = new ArrayList<>();
+        long energyUsed = 0;
+        byte[] stateRoot;
+        // whether an executed transaction may have read the block timestamp
+        boolean dependsOnBlock = false;
+
+        BlockTemplate(
+                byte[] parentHash,
+                long energyLimit,
+                long timestamp,
+                AionRepositoryImpl repository) {
+            this.parentHash = parentHash;
+            this.energyLimit = energyLimit;
+            this.timestamp = timestamp;
+            this.repository = repository;
+            this.stateDelta = repository.startTracking();
+            this.stateRoot = repository.getRoot();
+        }
+
+        /**
+         * Returns {@code true} if a block with the given transactions and timestamp can be built
+         * by extending this template. A later timestamp is only allowed when the results of the
+         * executed transactions do not depend on the block they are executed in.
+         */
+        boolean isExtendedBy(
+                AionBlock parent, List<AionTransaction> txs, long energyLimit, long time) {
+            if (!Arrays.equals(parentHash, parent.getHash())
+                    || !Objects.equals(coinbase, minerCoinbase)
+                    || this.energyLimit != energyLimit
+                    || time < timestamp
+                    || (time != timestamp && dependsOnBlock)
+                    || txs.size() < executed.size()) {
+                return false;
+            }
+            for (int i = 0; i < executed.size(); i++) {
+                if (!Arrays.equals(
+                        executed.get(i).getTransactionHash(), txs.get(i).getTransactionHash())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     private void updateBestKnownBlock(AionBlock block) {
         updateBestKnownBlock(block.getHeader());
     }
@@ -2003,6 +2286,7 @@ public class AionBlockchainImpl implements IAionBlockchain {
                 }
                 getBlockStore().reBranch(block);
                 repo.syncToRoot(block.getStateRoot());
+                repo.publishSnapshot(block.getStateRoot());
                 repo.flush();
             } else {
                 if (mainChain.getNumber() > block.getNumber()) {
@@ -476,6 +476,7 @@ public class AionHub {
 
         if (!Arrays.equals(blockchain.getBestBlock().getStateRoot(), EMPTY_TRIE_HASH)) {
             this.repository.syncToRoot(blockchain.getBestBlock().getStateRoot());
+            this.repository.publishSnapshot(blockchain.getBestBlock().getStateRoot());
         }
 
         //        this.repository.getBlockStore().load();
@@ -1,7 +1,9 @@
 package org.aion.zero.impl;
 
 import java.math.BigInteger;
+import org.aion.interfaces.db.RepositoryCache;
 import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.types.AionBlockSummary;
 
 /**
  * Wraps contextual / metadata about the block that are not part of the block itself (not associated
@@ -12,15 +14,36 @@ public class BlockContext {
     public final BigInteger baseBlockReward;
     public final BigInteger transactionFee;
 
+    /**
+     * The state changes of the block and the results of its transactions, from when the block was
+     * built. Once the block is sealed they are committed on import instead of executing it again.
+     */
+    public final RepositoryCache stateDelta;
+
+    public final AionBlockSummary summary;
+
     public BlockContext(AionBlock block, BigInteger baseBlockReward, BigInteger transactionFee) {
+        this(block, baseBlockReward, transactionFee, null, null);
+    }
+
+    public BlockContext(
+            AionBlock block,
+            BigInteger baseBlockReward,
+            BigInteger transactionFee,
+            RepositoryCache stateDelta,
+            AionBlockSummary summary) {
         this.block = block;
         this.baseBlockReward = baseBlockReward;
         this.transactionFee = transactionFee;
+        this.stateDelta = stateDelta;
+        this.summary = summary;
     }
 
     public BlockContext(BlockContext context) {
         this.block = new AionBlock(context.block);
         this.baseBlockReward = context.baseBlockReward;
         this.transactionFee = context.transactionFee;
+        this.stateDelta = context.stateDelta;
+        this.summary = context.summary;
     }
 }
@@ -262,6 +262,11 @@ public class StandaloneBlockchain extends AionBlockchainImpl {
                                 public boolean isAvmEnabled() {
                                     return enableAvm;
                                 }
+
+                                @Override
+                                public boolean isParallelExecutionEnabled() {
+                                    return false;
+                                }
                             }
                             : this.a0Config;
 
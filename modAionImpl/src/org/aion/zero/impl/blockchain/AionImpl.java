@@ -24,6 +24,7 @@ import org.aion.vm.PostExecutionWork;
 import org.aion.vm.exception.VMException;
 import org.aion.zero.impl.AionHub;
 import org.aion.zero.impl.config.CfgAion;
+import org.aion.zero.impl.db.AionRepositoryImpl;
 import org.aion.zero.impl.tx.TxCollector;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.types.A0BlockHeader;
@@ -194,6 +195,11 @@ public class AionImpl implements IAionChain {
         return aionHub.getRepository();
     }
 
+    @Override
+    public Repository<?, ?> getCommittedSnapshot() {
+        return ((AionRepositoryImpl) aionHub.getRepository()).getCommittedSnapshot();
+    }
+
     @Override
     public Repository<?, ?> getPendingState() {
         return aionHub.getPendingState().getRepository();
@@ -1,5 +1,6 @@
 package org.aion.zero.impl.blockchain;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -7,6 +8,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -17,6 +19,7 @@ import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -42,6 +45,7 @@ import org.aion.p2p.IP2pMgr;
 import org.aion.txpool.ITxPool;
 import org.aion.txpool.TxPoolModule;
 import org.aion.types.Address;
+import org.aion.types.ByteArrayWrapper;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.util.conversions.Hex;
 import org.aion.vm.BulkExecutor;
@@ -51,6 +55,7 @@ import org.aion.vm.exception.VMException;
 import org.aion.zero.impl.AionBlockchainImpl;
 import org.aion.zero.impl.config.CfgAion;
 import org.aion.zero.impl.core.IAionBlockchain;
+import org.aion.zero.impl.db.AionRepositoryCache;
 import org.aion.zero.impl.db.AionRepositoryImpl;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.impl.types.AionTxInfo;
@@ -92,6 +97,12 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
 
     private final int MAX_TXCACHE_FLUSH_SIZE = MAX_VALIDATED_PENDING_TXS >> 2;
 
+    /**
+     * Number of consecutive best blocks after which the pending state is rebuilt from scratch
+     * instead of being rebased incrementally.
+     */
+    private static final int FULL_UPDATE_INTERVAL = 64;
+
     private IAionBlockchain blockchain;
 
     private TransactionStore<AionTransaction, AionTxReceipt, AionTxInfo> transactionStore;
@@ -120,6 +131,9 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
 
     private boolean loadPendingTx;
 
+    // transactions are not broadcast when testing
+    private boolean testing;
+
     private boolean poolBackUp;
 
     private Map<byte[], byte[]> backupPendingPoolAdd;
@@ -130,6 +144,27 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
 
     private boolean closeToNetworkBest = true;
 
+    /** The effects of the execution of each pool transaction on the pending state. */
+    private final Map<ByteArrayWrapper, PendingTxEffects> pendingTxEffects = new HashMap<>();
+
+    /** The effects of a pool transaction that are needed to rebase the pending state. */
+    private static final class PendingTxEffects {
+        // the accounts read or modified by the transaction
+        final Set<Address> accounts;
+        // the fee paid to the coinbase of the best block
+        final BigInteger fee;
+        // whether the transaction may have a different result in another block
+        final boolean dependsOnBlock;
+
+        PendingTxEffects(Set<Address> accounts, BigInteger fee, boolean dependsOnBlock) {
+            this.accounts = accounts;
+            this.fee = fee;
+            this.dependsOnBlock = dependsOnBlock;
+        }
+    }
+
+    private int blocksSinceFullUpdate = 0;
+
     private static long NRGPRICE_MIN = 10_000_000_000L; // 10 PLAT  (10 * 10 ^ -9 AION)
     private static long NRGPRICE_MAX = 9_000_000_000_000_000_000L; //  9 AION
 
@@ -172,7 +207,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                             summary.getReceipt(), PendingTransactionState.NEW_PENDING, best.get());
                 }
 
-                if (!txs.isEmpty() && !loadPendingTx) {
+                if (!txs.isEmpty() && !loadPendingTx && !testing) {
                     if (LOGGER_TX.isDebugEnabled()) {
                         LOGGER_TX.debug("processTxBuffer tx#{}", txs.size());
                     }
@@ -208,7 +243,10 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                 if (e.getEventType() == IHandler.TYPE.BLOCK0.getValue()
                         && e.getCallbackType() == EventBlock.CALLBACK.ONBEST0.getValue()) {
                     long t1 = System.currentTimeMillis();
-                    processBest((AionBlock) e.getFuncArgs().get(0), (List) e.getFuncArgs().get(1));
+                    processBest(
+                            (AionBlock) e.getFuncArgs().get(0),
+                            (List) e.getFuncArgs().get(1),
+                            e.getFuncArgs().size() > 2 ? (Set) e.getFuncArgs().get(2) : null);
 
                     if (LOGGER_TX.isDebugEnabled()) {
                         long t2 = System.currentTimeMillis();
@@ -324,6 +362,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
     public void init(final AionBlockchainImpl blockchain, boolean test) {
         if (!this.isSeed) {
             this.blockchain = blockchain;
+            this.testing = test;
             this.best = new AtomicReference<>();
             this.transactionStore = blockchain.getTransactionStore();
 
@@ -599,7 +638,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             this.evtMgr.newEvent(evtChange);
         }
 
-        if (!loadPendingTx) {
+        if (!loadPendingTx && !testing) {
             if (bufferEnable) {
                 if (!newLargeNonceTx.isEmpty()) {
                     AionImpl.inst().broadcastTransactions(newLargeNonceTx);
@@ -793,12 +832,33 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
 
     @Override
     public synchronized void processBest(AionBlock newBlock, List receipts) {
+        processBest(newBlock, receipts, null);
+    }
+
+    /**
+     * Updates the pending state to the new best block.
+     *
+     * @param touchedAccounts the accounts whose state may have been modified by the new block; when
+     *     given and the block extends the previous best, only the pool transactions that depend on
+     *     these accounts are re-executed, otherwise the whole pool is re-executed
+     */
+    @SuppressWarnings("unchecked")
+    @VisibleForTesting
+    synchronized void processBest(AionBlock newBlock, List receipts, Set<Address> touchedAccounts) {
 
         if (isSeed) {
             // seed mode doesn't need to update the pendingState
             return;
         }
 
+        AionBlock previousBest = best.get();
+        boolean rebase =
+                touchedAccounts != null
+                        && previousBest != null
+                        && previousBest.isParentOf(newBlock)
+                        && pendingState instanceof AionRepositoryCache
+                        && blocksSinceFullUpdate < FULL_UPDATE_INTERVAL;
+
         if (best.get() != null && !best.get().isParentOf(newBlock)) {
 
             // need to switch the state to another fork
@@ -864,7 +924,17 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                     "PendingStateImpl.processBest: closeToNetworkBest[{}]", closeToNetworkBest);
         }
 
-        updateState(best.get());
+        if (rebase) {
+            // the fees of the pending transactions were credited to the previous coinbase
+            Set<Address> dirtyAccounts = new HashSet<>(touchedAccounts);
+            dirtyAccounts.add(previousBest.getCoinbase());
+            dirtyAccounts.add(newBlock.getCoinbase());
+            rebaseState(best.get(), dirtyAccounts);
+            blocksSinceFullUpdate++;
+        } else {
+            updateState(best.get());
+            blocksSinceFullUpdate = 0;
+        }
 
         txPool.updateBlkNrgLimit(best.get().getNrgLimit());
 
@@ -1014,6 +1084,7 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
     private List<AionTransaction> updateState(IAionBlock block) {
 
         pendingState = repository.startTracking();
+        pendingTxEffects.clear();
 
         processTxBuffer();
         List<AionTransaction> pendingTxl = this.txPool.snapshotAll();
@@ -1022,33 +1093,138 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
             LOGGER_TX.info("updateState - snapshotAll tx[{}]", pendingTxl.size());
         }
         for (AionTransaction tx : pendingTxl) {
-            if (LOGGER_TX.isTraceEnabled()) {
-                LOGGER_TX.trace("updateState - loop: " + tx.toString());
+            if (reExecutePendingTx(tx, block)) {
+                rtn.add(tx);
             }
+        }
 
-            AionTxExecSummary txSum = executeTx(tx, false);
-            AionTxReceipt receipt = txSum.getReceipt();
-            receipt.setTransaction(tx);
+        return rtn;
+    }
 
-            if (txSum.isRejected()) {
-                if (LOGGER_TX.isDebugEnabled()) {
-                    LOGGER_TX.debug("Invalid transaction in txpool: {}", tx);
-                }
-                txPool.remove(Collections.singletonList(tx));
+    /**
+     * Moves the pending state on top of the new best block by re-executing only the pool
+     * transactions that depend on the given accounts or on the block context. The other
+     * transactions keep their effects from the previous execution and their fees are credited to
+     * the new coinbase, giving the same state as {@link #updateState(IAionBlock)}.
+     *
+     * <p>The pending state tracks the main repository, so discarding its local changes to an
+     * account makes the account reflect the state after the new block. The set of dirty accounts
+     * is extended with the accounts read or modified by transactions that left the pool and by
+     * each re-executed transaction, until no further transaction is affected.
+     *
+     * @param block the new best block
+     * @param dirtyAccounts the accounts modified by the new block; the set is modified
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    private List<AionTransaction> rebaseState(IAionBlock block, Set<Address> dirtyAccounts) {
 
-                if (poolBackUp) {
-                    backupPendingPoolRemove.add(tx.getTransactionHash().clone());
+        processTxBuffer();
+        List<AionTransaction> pendingTxl = this.txPool.snapshotAll();
+
+        // the effects of transactions that left the pool must be discarded
+        Set<ByteArrayWrapper> pooled = new HashSet<>();
+        for (AionTransaction tx : pendingTxl) {
+            pooled.add(ByteArrayWrapper.wrap(tx.getTransactionHash()));
+        }
+        Iterator<Map.Entry<ByteArrayWrapper, PendingTxEffects>> it =
+                pendingTxEffects.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<ByteArrayWrapper, PendingTxEffects> entry = it.next();
+            if (!pooled.contains(entry.getKey())) {
+                dirtyAccounts.addAll(entry.getValue().accounts);
+                it.remove();
+            }
+        }
+
+        PendingTxEffects[] effects = new PendingTxEffects[pendingTxl.size()];
+        boolean[] dirty = new boolean[pendingTxl.size()];
+        for (int i = 0; i < pendingTxl.size(); i++) {
+            AionTransaction tx = pendingTxl.get(i);
+            effects[i] = pendingTxEffects.get(ByteArrayWrapper.wrap(tx.getTransactionHash()));
+            if (effects[i] == null) {
+                // not executed on the current pending state
+                dirty[i] = true;
+                dirtyAccounts.add(tx.getSenderAddress());
+            } else if (effects[i].dependsOnBlock) {
+                dirty[i] = true;
+                dirtyAccounts.addAll(effects[i].accounts);
+            }
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < pendingTxl.size(); i++) {
+                if (!dirty[i] && !Collections.disjoint(effects[i].accounts, dirtyAccounts)) {
+                    dirty[i] = true;
+                    changed |= dirtyAccounts.addAll(effects[i].accounts);
                 }
-                fireTxUpdate(receipt, PendingTransactionState.DROPPED, block);
-            } else {
-                fireTxUpdate(receipt, PendingTransactionState.PENDING, block);
+            }
+        }
+
+        ((AionRepositoryCache) pendingState).evict(dirtyAccounts);
+
+        List<AionTransaction> rtn = new ArrayList<>();
+        int reExecuted = 0;
+        for (int i = 0; i < pendingTxl.size(); i++) {
+            AionTransaction tx = pendingTxl.get(i);
+            if (!dirty[i]) {
+                // the coinbase was discarded with its fees from the previous block context
+                pendingState.addBalance(block.getCoinbase(), effects[i].fee);
+                rtn.add(tx);
+                continue;
+            }
+
+            pendingTxEffects.remove(ByteArrayWrapper.wrap(tx.getTransactionHash()));
+            reExecuted++;
+            if (reExecutePendingTx(tx, block)) {
                 rtn.add(tx);
             }
         }
 
+        if (LOGGER_TX.isInfoEnabled()) {
+            LOGGER_TX.info(
+                    "rebaseState - snapshotAll tx[{}] reExecuted tx[{}] dirtyAccounts[{}]",
+                    pendingTxl.size(),
+                    reExecuted,
+                    dirtyAccounts.size());
+        }
+
         return rtn;
     }
 
+    /**
+     * Executes a pool transaction on the pending state, removing it from the pool if it is no
+     * longer valid.
+     *
+     * @return {@code true} if the transaction remains pending, {@code false} if it was dropped
+     */
+    private boolean reExecutePendingTx(AionTransaction tx, IAionBlock block) {
+        if (LOGGER_TX.isTraceEnabled()) {
+            LOGGER_TX.trace("updateState - loop: " + tx.toString());
+        }
+
+        AionTxExecSummary txSum = executeTx(tx, false);
+        AionTxReceipt receipt = txSum.getReceipt();
+        receipt.setTransaction(tx);
+
+        if (txSum.isRejected()) {
+            if (LOGGER_TX.isDebugEnabled()) {
+                LOGGER_TX.debug("Invalid transaction in txpool: {}", tx);
+            }
+            txPool.remove(Collections.singletonList(tx));
+
+            if (poolBackUp) {
+                backupPendingPoolRemove.add(tx.getTransactionHash().clone());
+            }
+            fireTxUpdate(receipt, PendingTransactionState.DROPPED, block);
+            return false;
+        } else {
+            fireTxUpdate(receipt, PendingTransactionState.PENDING, block);
+            return true;
+        }
+    }
+
     private Set<Address> getTxsAccounts(List<AionTransaction> txn) {
         Set<Address> rtn = new HashSet<>();
         for (AionTransaction tx : txn) {
@@ -1074,8 +1250,23 @@ public class AionPendingStateImpl implements IPendingStateInternal<AionBlock, Ai
                         bestBlk.getNrgLimit(),
                         LOGGER_VM,
                         getPostExecutionWork());
+        Set<Address> accessedAccounts = ConcurrentHashMap.newKeySet();
+        txExe.trackAccessedAccounts(accessedAccounts);
         try {
-            return txExe.execute().get(0);
+            AionTxExecSummary txSum = txExe.execute().get(0);
+            if (!txSum.isRejected()) {
+                // the code run by the transaction may read the block context or other accounts
+                boolean dependsOnBlock =
+                        !txSum.isIndependentOfBlock() || txExe.hasUntrackedAccess();
+                Set<Address> accounts = txSum.getTouchedAccounts();
+                if (dependsOnBlock) {
+                    accounts.addAll(accessedAccounts);
+                }
+                pendingTxEffects.put(
+                        ByteArrayWrapper.wrap(tx.getTransactionHash()),
+                        new PendingTxEffects(accounts, txSum.getFee(), dependsOnBlock));
+            }
+            return txSum;
         } catch (VMException e) {
             LOGGER_VM.error("Shutdown due to a VM fatal error.", e);
             System.exit(-1);
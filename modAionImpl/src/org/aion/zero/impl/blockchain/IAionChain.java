@@ -29,6 +29,12 @@ public interface IAionChain extends IChainInstancePOW, QueryInterface {
 
     Repository<?, ?> getRepository();
 
+    /**
+     * Returns a read-only view of the world state at the last committed block which can be queried
+     * without waiting for concurrent block imports.
+     */
+    Repository<?, ?> getCommittedSnapshot();
+
     Repository<?, ?> getPendingState();
 
     Repository<?, ?> getSnapshotTo(byte[] root);
@@ -3,6 +3,7 @@ package org.aion.zero.impl.db;
 import static java.math.BigInteger.ZERO;
 import static org.aion.crypto.HashUtil.shortHash;
 
+import com.google.common.cache.CacheStats;
 import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -20,18 +21,20 @@ import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.aion.crypto.HashUtil;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.mcf.db.AbstractPowBlockstore;
+import org.aion.mcf.ds.CachedObjectDataSource;
 import org.aion.mcf.ds.DataSourceArray;
-import org.aion.mcf.ds.ObjectDataSource;
 import org.aion.mcf.ds.Serializer;
 import org.aion.rlp.RLP;
-import org.aion.rlp.RLPElement;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPReader;
+import org.aion.rlp.RLPWriter;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.util.conversions.Hex;
 import org.aion.zero.impl.types.AionBlock;
@@ -44,10 +47,24 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
     private static final Logger LOG_CONS = AionLoggerFactory.getLogger(LogEnum.CONS.name());
 
+    /** Maximum size in bytes of the encoded blocks retained decoded in memory. */
+    private static final long BLOCK_CACHE_SIZE = 64L * 1024 * 1024;
+    /** Maximum size in bytes of the encoded index levels retained decoded in memory. */
+    private static final long INDEX_CACHE_SIZE = 8L * 1024 * 1024;
+    /** Main chain blocks at least this far below the best block are moved to the archive. */
+    private static final long ARCHIVE_DEPTH = 128;
+    /** Maximum number of blocks moved to the archive on each flush. */
+    private static final long ARCHIVE_BATCH_SIZE = 256;
+
     protected ReadWriteLock lock = new ReentrantReadWriteLock();
 
     private DataSourceArray<List<BlockInfo>> index;
-    private ObjectDataSource<AionBlock> blocks;
+    private CachedObjectDataSource<List<BlockInfo>> indexSource;
+    private CachedObjectDataSource<AionBlock> blocks;
+    private ByteArrayKeyValueDatabase blocksDatabase;
+
+    /** Optional file store for the main chain blocks below {@link #ARCHIVE_DEPTH}. */
+    private BlockArchive archive = null;
 
     private boolean checkIntegrity = true;
 
@@ -67,12 +84,39 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         this.checkIntegrity = checkIntegrity;
     }
 
+    /**
+     * Creates a block store that additionally keeps the main chain blocks below {@link
+     * #ARCHIVE_DEPTH} in a {@link BlockArchive} located in the given directory. Lookups by number
+     * and body requests for the archived blocks are served from the archive without accessing the
+     * databases. The store works without the archive if it cannot be opened.
+     */
+    public AionBlockStore(
+            ByteArrayKeyValueDatabase index,
+            ByteArrayKeyValueDatabase blocks,
+            boolean checkIntegrity,
+            File archivePath) {
+        this(index, blocks, checkIntegrity);
+        try {
+            this.archive = new BlockArchive(archivePath);
+            verifyArchive();
+        } catch (IOException e) {
+            LOG.error("Unable to open the block archive, continuing without it.", e);
+            closeArchive();
+        }
+    }
+
     private void init(ByteArrayKeyValueDatabase index, ByteArrayKeyValueDatabase blocks) {
+        this.blocksDatabase = blocks;
 
-        this.index = new DataSourceArray<>(new ObjectDataSource<>(index, BLOCK_INFO_SERIALIZER));
+        // the block infos are modified in place by the callers, so the cache returns copies
+        this.indexSource =
+                new CachedObjectDataSource<>(
+                        index, BLOCK_INFO_SERIALIZER, INDEX_CACHE_SIZE, BlockInfo::copyOf);
+        this.index = new DataSourceArray<>(indexSource);
 
+        // the blocks are also modified by the callers, e.g. with their total difficulty
         this.blocks =
-                new ObjectDataSource<>(
+                new CachedObjectDataSource<>(
                         blocks,
                         new Serializer<AionBlock, byte[]>() {
                             @Override
@@ -84,7 +128,19 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
                             public AionBlock deserialize(byte[] bytes) {
                                 return new AionBlock(bytes);
                             }
-                        });
+                        },
+                        BLOCK_CACHE_SIZE,
+                        AionBlock::copyOf);
+    }
+
+    /** Returns the hit, miss and eviction statistics of the decoded block cache. */
+    public CacheStats getBlockCacheStats() {
+        return blocks.getStats();
+    }
+
+    /** Returns the hit, miss and eviction statistics of the decoded index cache. */
+    public CacheStats getIndexCacheStats() {
+        return indexSource.getStats();
     }
 
     public AionBlock getBestBlock() {
@@ -140,11 +196,167 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         try {
             blocks.flush();
             index.flush();
+            archiveBlocks();
         } finally {
             lock.writeLock().unlock();
         }
     }
 
+    /**
+     * Appends to the archive the main chain blocks that are deep enough below the best block.
+     *
+     * @implNote The method calling this method must handle the locking. The blocks are read from
+     *     the database, therefore any pending writes must be flushed beforehand.
+     */
+    private void archiveBlocks() {
+        if (archive == null) {
+            return;
+        }
+
+        long last =
+                Math.min(getMaxNumber() - ARCHIVE_DEPTH, archive.size() + ARCHIVE_BATCH_SIZE - 1);
+        try {
+            for (long number = archive.size(); number <= last; number++) {
+                byte[] hash = getBlockHashByNumber(number);
+                Optional<byte[]> encoding =
+                        hash == null ? Optional.empty() : blocksDatabase.get(hash);
+                if (!encoding.isPresent()) {
+                    LOG.error("Unable to archive block #{}: missing main chain block.", number);
+                    break;
+                }
+                archive.append(encoding.get());
+            }
+            archive.flush();
+        } catch (IOException e) {
+            LOG.error("Unable to write to the block archive.", e);
+        }
+    }
+
+    /**
+     * Ensures the last archived block is still on the main chain, otherwise the archive is
+     * truncated after the last block that matches the main chain, such that the remaining blocks
+     * are archived again from the databases.
+     */
+    private void verifyArchive() throws IOException {
+        long size = archive.size();
+        if (size > 0 && !isArchivedOnMainChain(size - 1)) {
+            // the archived blocks match the main chain up to the first mismatch
+            long first = 0;
+            long last = size - 1;
+            while (first < last) {
+                long middle = (first + last) >>> 1;
+                if (isArchivedOnMainChain(middle)) {
+                    first = middle + 1;
+                } else {
+                    last = middle;
+                }
+            }
+            LOG.warn(
+                    "The block archive does not match the main chain from block #{}. Rebuilding"
+                            + " archive.",
+                    first);
+            archive.truncate(first);
+        }
+    }
+
+    /** Checks if the archived block with the given number can be read and is on the main chain. */
+    private boolean isArchivedOnMainChain(long number) {
+        byte[] hash = getBlockHashByNumber(number);
+        try {
+            RLPReader block = new RLPReader(archive.getEncoded(number)).readList();
+            return hash != null && Arrays.equals(hash, readHeaderHash(block));
+        } catch (RuntimeException e) {
+            LOG.warn("Unable to decode the archived block #{}.", number);
+            return false;
+        }
+    }
+
+    /** Reads the header of an encoded block and computes its hash without decoding it. */
+    private static byte[] readHeaderHash(RLPReader block) {
+        block.next();
+        return HashUtil.h256(
+                block.getData(), block.getEncodedOffset(), block.getEncodedLength());
+    }
+
+    /**
+     * Returns the encoded bodies of the blocks with the given hashes, stopping at the first block
+     * that is not stored. Blocks that follow a found block on the main chain are read from the
+     * archive when available, without decoding their transactions.
+     */
+    public List<byte[]> getBodiesByHashes(List<byte[]> hashes) {
+        lock.readLock().lock();
+
+        try {
+            List<byte[]> bodies = new ArrayList<>(hashes.size());
+            // the number of the block following the last one found
+            long next = -1L;
+            for (byte[] hash : hashes) {
+                byte[] body = getArchivedBody(next, hash);
+                if (body == null) {
+                    AionBlock block = blocks.get(hash);
+                    if (block == null) {
+                        break;
+                    }
+                    body = block.getEncodedBody();
+                    next = block.getNumber();
+                }
+                bodies.add(body);
+                next++;
+            }
+            return bodies;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the body of the archived block with the given number if the block has the given
+     * hash, or {@code null} otherwise.
+     *
+     * @implNote The method calling this method must handle the locking.
+     */
+    private byte[] getArchivedBody(long number, byte[] hash) {
+        if (archive == null || number < 0L || number >= archive.size()) {
+            return null;
+        }
+
+        RLPReader block = new RLPReader(archive.getEncoded(number)).readList();
+        if (!Arrays.equals(readHeaderHash(block), hash)) {
+            return null;
+        }
+        return RLP.encodeList(block.readEncoded());
+    }
+
+    /**
+     * Removes from the archive the blocks starting from the given level, after a change to the
+     * main chain at that level.
+     *
+     * @implNote The method calling this method must handle the locking.
+     */
+    private void truncateArchive(long level) {
+        if (archive != null && level < archive.size()) {
+            try {
+                archive.truncate(level);
+            } catch (IOException e) {
+                LOG.error("Unable to truncate the block archive.", e);
+                // stop using the inconsistent archive
+                closeArchive();
+            }
+        }
+    }
+
+    /** @implNote The method calling this method must handle the locking. */
+    private void closeArchive() {
+        if (archive != null) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                LOG.error("Not able to close the block archive:", e);
+            }
+            archive = null;
+        }
+    }
+
     @Override
     public void saveBlock(AionBlock block, BigInteger cummDifficulty, boolean mainChain) {
         lock.writeLock().lock();
@@ -178,6 +390,9 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         // that level
 
         blockInfos.add(blockInfo);
+        if (mainChain) {
+            truncateArchive(blockNumber);
+        }
 
         blocks.put(block.getHash(), block);
         index.set(block.getNumber(), blockInfos);
@@ -218,6 +433,10 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         lock.readLock().lock();
 
         try {
+            if (archive != null && number >= 0L && number < archive.size()) {
+                return new AionBlock(archive.getEncoded(number));
+            }
+
             long size = index.size();
             if (number < 0L || number >= size) {
                 return null;
@@ -264,6 +483,16 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         lock.readLock().lock();
 
         try {
+            if (archive != null && last > 0L && Math.max(first, last) < archive.size()) {
+                // sequential read from the archive
+                List<AionBlock> blocks = new ArrayList<>((int) Math.abs(last - first) + 1);
+                long step = first <= last ? 1 : -1;
+                for (long i = first; i != last + step; i += step) {
+                    blocks.add(new AionBlock(archive.getEncoded(i)));
+                }
+                return blocks;
+            }
+
             AionBlock block = getChainBlockByNumber(first);
             if (block == null) {
                 // invalid request
@@ -696,6 +925,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
 
                 // remove the level
                 index.remove(currentLevel);
+                truncateArchive(currentLevel);
                 if (bestLine != null) {
                     bestLine = getBlockByHash(bestLine.getParentHash());
                 } else {
@@ -1054,21 +1284,33 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
 
         public BlockInfo() {}
 
+        public BlockInfo(BlockInfo other) {
+            this.hash = other.hash;
+            this.cummDifficulty = other.cummDifficulty;
+            this.mainChain = other.mainChain;
+        }
+
         public BlockInfo(byte[] ser) {
-            RLPList outerList = RLP.decode2(ser);
+            RLPReader reader = new RLPReader(ser);
 
             // should we throw?
-            if (outerList.isEmpty()) {
+            if (!reader.hasNext()) {
                 return;
             }
 
-            RLPList list = (RLPList) outerList.get(0);
-            this.hash = list.get(0).getRLPData();
-            this.cummDifficulty = ByteUtil.bytesToBigInteger(list.get(1).getRLPData());
+            decode(reader.readList());
+        }
+
+        private BlockInfo(RLPReader list) {
+            decode(list);
+        }
+
+        private void decode(RLPReader list) {
+            this.hash = list.readBytes();
+            this.cummDifficulty = list.readBigInteger();
 
-            byte[] boolData = list.get(2).getRLPData();
-            this.mainChain =
-                    !(boolData == null || boolData.length == 0) && boolData[0] == (byte) 0x1;
+            list.readItem();
+            this.mainChain = list.getLength() > 0 && list.getData()[list.getOffset()] == (byte) 0x1;
         }
 
         private static final long serialVersionUID = 7279277944605144671L;
@@ -1103,11 +1345,33 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
             this.mainChain = mainChain;
         }
 
+        /** Creates a copy of the given block information list that can be modified safely. */
+        public static List<BlockInfo> copyOf(List<BlockInfo> infos) {
+            List<BlockInfo> copy = new ArrayList<>(infos.size());
+            for (BlockInfo info : infos) {
+                copy.add(new BlockInfo(info));
+            }
+            return copy;
+        }
+
         public byte[] getEncoded() {
-            byte[] hashElement = RLP.encodeElement(hash);
-            byte[] cumulativeDiffElement = RLP.encodeElement(cummDifficulty.toByteArray());
-            byte[] mainChainElement = RLP.encodeByte(mainChain ? (byte) 0x1 : (byte) 0x0);
-            return RLP.encodeList(hashElement, cumulativeDiffElement, mainChainElement);
+            byte[] difficulty = cummDifficulty.toByteArray();
+            RLPWriter writer = new RLPWriter(RLPWriter.sizeOfList(payloadSize(difficulty)));
+            encode(writer, difficulty);
+            return writer.getEncoded();
+        }
+
+        private int payloadSize(byte[] difficulty) {
+            return RLPWriter.sizeOfElement(hash)
+                    + RLPWriter.sizeOfElement(difficulty)
+                    + RLPWriter.sizeOfByte(mainChain ? (byte) 0x1 : (byte) 0x0);
+        }
+
+        private void encode(RLPWriter writer, byte[] difficulty) {
+            writer.writeListHeader(payloadSize(difficulty))
+                    .writeElement(hash)
+                    .writeElement(difficulty)
+                    .writeByte(mainChain ? (byte) 0x1 : (byte) 0x0);
         }
     }
 
@@ -1135,22 +1399,30 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
             new Serializer<>() {
                 @Override
                 public byte[] serialize(List<BlockInfo> object) {
-                    byte[][] infoList = new byte[object.size()][];
-                    int i = 0;
-                    for (BlockInfo b : object) {
-                        infoList[i] = b.getEncoded();
-                        i++;
+                    // the infos are written directly into the encoding of the list
+                    byte[][] difficulties = new byte[object.size()][];
+                    int size = 0;
+                    for (int i = 0; i < difficulties.length; i++) {
+                        BlockInfo b = object.get(i);
+                        difficulties[i] = b.cummDifficulty.toByteArray();
+                        size += RLPWriter.sizeOfList(b.payloadSize(difficulties[i]));
+                    }
+
+                    RLPWriter writer = new RLPWriter(RLPWriter.sizeOfList(size));
+                    writer.writeListHeader(size);
+                    for (int i = 0; i < difficulties.length; i++) {
+                        object.get(i).encode(writer, difficulties[i]);
                     }
-                    return RLP.encodeList(infoList);
+                    return writer.getEncoded();
                 }
 
                 @Override
                 public List<BlockInfo> deserialize(byte[] stream) {
-                    RLPList list = (RLPList) RLP.decode2(stream).get(0);
-                    List<BlockInfo> res = new ArrayList<>(list.size());
+                    RLPReader list = new RLPReader(stream).readList();
+                    List<BlockInfo> res = new ArrayList<>();
 
-                    for (RLPElement aList : list) {
-                        res.add(new BlockInfo(aList.getRLPData()));
+                    while (list.hasNext()) {
+                        res.add(new BlockInfo(list.readList()));
                     }
                     return res;
                 }
@@ -1219,6 +1491,8 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
     private void setBlockInfoForLevel(long level, List<BlockInfo> infos) {
         // locks acquired by calling method
         index.set(level, infos);
+        // the main chain may have changed at this level
+        truncateArchive(level);
     }
 
     /**
@@ -1383,6 +1657,7 @@ public class AionBlockStore extends AbstractPowBlockstore<AionBlock, A0BlockHead
         lock.writeLock().lock();
 
         try {
+            closeArchive();
             index.close();
         } catch (Exception e) {
             LOG.error("Not able to close the index database:", e);
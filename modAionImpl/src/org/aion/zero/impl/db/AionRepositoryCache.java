@@ -352,6 +352,22 @@ public class AionRepositoryCache implements RepositoryCache<AccountState, IBlock
         }
     }
 
+    /**
+     * Discards the local changes to the given accounts, such that their state is loaded again from
+     * the tracked repository when next accessed.
+     */
+    public void evict(Collection<Address> addresses) {
+        fullyWriteLock();
+        try {
+            for (Address address : addresses) {
+                cachedAccounts.remove(address);
+                cachedDetails.remove(address);
+            }
+        } finally {
+            fullyWriteUnlock();
+        }
+    }
+
     @Override
     public Repository getSnapshotTo(byte[] root) {
         return repository.getSnapshotTo(root);
@@ -1,28 +1,43 @@
 package org.aion.zero.impl.db;
 
+import static org.aion.crypto.HashUtil.EMPTY_DATA_HASH;
 import static org.aion.crypto.HashUtil.EMPTY_TRIE_HASH;
 import static org.aion.util.bytes.ByteUtil.EMPTY_BYTE_ARRAY;
 import static org.aion.zero.impl.AionHub.INIT_ERROR_EXIT_CODE;
 
+import java.io.File;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.aion.db.impl.MultiGetDatabase;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
 import org.aion.interfaces.db.ContractDetails;
+import org.aion.interfaces.db.PersistenceMethod;
 import org.aion.interfaces.db.Repository;
 import org.aion.interfaces.db.RepositoryCache;
 import org.aion.interfaces.db.RepositoryConfig;
 import org.aion.mcf.core.AccountState;
 import org.aion.mcf.db.AbstractRepository;
 import org.aion.mcf.db.TransactionStore;
+import org.aion.mcf.db.exception.InvalidFilePathException;
 import org.aion.mcf.ds.ObjectDataSource;
+import org.aion.mcf.trie.Cache;
 import org.aion.mcf.trie.SecureTrie;
 import org.aion.mcf.trie.Trie;
 import org.aion.mcf.trie.TrieImpl;
@@ -44,14 +59,44 @@ import org.aion.zero.types.AionTxReceipt;
 public class AionRepositoryImpl
         extends AbstractRepository<AionBlock, A0BlockHeader, AionBlockStore> {
 
+    // directory of the block archive within the database path
+    private static final String BLOCK_ARCHIVE = "block_archive";
+
+    // reads account data concurrently ahead of block execution
+    private static final ExecutorService PREFETCH_EXECUTOR =
+            Executors.newFixedThreadPool(
+                    Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors())),
+                    new ThreadFactory() {
+
+                        private AtomicInteger cnt = new AtomicInteger(0);
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread t = new Thread(r, "db-prefetch-" + cnt.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        }
+                    });
+
     private TransactionStore<AionTransaction, AionTxReceipt, AionTxInfo> transactionStore;
 
     // pending block store
     private PendingBlockStore pendingStore;
 
+    // transposed log blooms of the main chain
+    private BloomBitsIndex bloomBitsIndex;
+
     // inferred contract information not used for consensus
     private ObjectDataSource<ContractInformation> contractInfoSource;
 
+    /**
+     * Read-only view of the world state at the last published root. Replaced atomically each time
+     * a block is committed or the best block changes, such that readers never block on the
+     * repository lock.
+     */
+    private final AtomicReference<AionRepositoryImpl> committedSnapshot =
+            new AtomicReference<>();
+
     /**
      * used by getSnapShotTo
      *
@@ -83,7 +128,20 @@ public class AionRepositoryImpl
                             transactionDatabase, AionTransactionStoreSerializer.serializer);
 
             // Setup block store.
-            this.blockStore = new AionBlockStore(indexDatabase, blockDatabase, checkIntegrity);
+            if (blockArchive
+                    && blockDatabase.getPersistenceMethod() == PersistenceMethod.FILE_BASED) {
+                // finalized main chain blocks are also kept in memory mapped files
+                this.blockStore =
+                        new AionBlockStore(
+                                indexDatabase,
+                                blockDatabase,
+                                checkIntegrity,
+                                new File(cfg.getDbPath(), BLOCK_ARCHIVE));
+            } else {
+                this.blockStore = new AionBlockStore(indexDatabase, blockDatabase, checkIntegrity);
+            }
+
+            this.bloomBitsIndex = new BloomBitsIndex(bloomBitsDatabase, blockStore);
 
             this.pendingStore = new PendingBlockStore(pendingStoreProperties);
             this.contractInfoSource =
@@ -100,6 +158,11 @@ public class AionRepositoryImpl
         }
     }
 
+    /** Returns the index of the main chain log blooms used by range log queries. */
+    public BloomBitsIndex getBloomBitsIndex() {
+        return this.bloomBitsIndex;
+    }
+
     public PendingBlockStore getPendingBlockStore() {
         return this.pendingStore;
     }
@@ -110,7 +173,10 @@ public class AionRepositoryImpl
     }
 
     private Trie createStateTrie() {
-        return new SecureTrie(stateDSPrune).withPruningEnabled(pruneEnabled);
+        // snapshots are short-lived and use the default node cache size
+        Cache cache =
+                isSnapshot ? new Cache(stateDSPrune) : new Cache(stateDSPrune, stateCacheSize);
+        return new SecureTrie(cache, "").withPruningEnabled(pruneEnabled);
     }
 
     @Override
@@ -289,6 +355,38 @@ public class AionRepositoryImpl
         }
     }
 
+    /**
+     * Returns a read-only repository pinned to the world state root that was last published on
+     * this repository. Queries on the returned repository do not acquire the lock of this
+     * repository and are therefore not delayed by concurrent block imports. The returned
+     * repository does not reflect the changes of a block that is being imported, until the block
+     * is committed.
+     *
+     * @return a snapshot of the last committed world state, or this repository if no root was
+     *     published since it was initialized
+     */
+    public AionRepositoryImpl getCommittedSnapshot() {
+        AionRepositoryImpl snapshot = committedSnapshot.get();
+        return snapshot == null ? this : snapshot;
+    }
+
+    /**
+     * Replaces the committed snapshot with one pinned at the given root. Must be called only with
+     * the root of a committed block or of the best block, since the roots set temporarily while
+     * importing forks or recovering the state must not be visible to readers.
+     */
+    public void publishSnapshot(byte[] root) {
+        rwLock.writeLock().lock();
+        try {
+            // snapshots are not shared with readers, no need to maintain another view
+            if (!isSnapshot) {
+                committedSnapshot.set(createSnapshot(root, this.pruneEnabled));
+            }
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
     @Override
     public RepositoryCache startTracking() {
         return new AionRepositoryCache(this);
@@ -467,6 +565,69 @@ public class AionRepositoryImpl
         return getAccountState(address) != null;
     }
 
+    /**
+     * Reads the state of the given accounts in parallel and waits for the reads to complete. The
+     * world state trie nodes on the path to each account are retained by the trie cache and the
+     * contract details are loaded into the database caches with a batched read, such that the
+     * serial reads performed while executing a block are served from memory.
+     *
+     * @param addresses the accounts that will be accessed, e.g. the senders and recipients of the
+     *     transactions in a block
+     */
+    public void prefetchAccounts(Collection<Address> addresses) {
+        if (isSnapshot || addresses.isEmpty()) {
+            return;
+        }
+
+        List<Future<Boolean>> tasks = new ArrayList<>(addresses.size());
+        for (Address address : addresses) {
+            tasks.add(PREFETCH_EXECUTOR.submit(() -> prefetchAccount(address)));
+        }
+
+        // the contract details are read with a single batched lookup
+        List<byte[]> contracts = new ArrayList<>();
+        Iterator<Address> it = addresses.iterator();
+        for (Future<Boolean> task : tasks) {
+            Address address = it.next();
+            try {
+                if (task.get()) {
+                    contracts.add(address.toBytes());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // the data will be read again during execution
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Failed to prefetch account state.", e);
+                }
+            }
+        }
+
+        if (!contracts.isEmpty()) {
+            rwLock.readLock().lock();
+            try {
+                MultiGetDatabase.getAll(detailsDatabase, contracts);
+            } finally {
+                rwLock.readLock().unlock();
+            }
+        }
+    }
+
+    /** @return {@code true} if the account exists and has code, {@code false} otherwise */
+    private boolean prefetchAccount(Address address) {
+        rwLock.readLock().lock();
+        try {
+            byte[] accountData = worldState.get(address.toBytes());
+
+            return accountData.length != 0
+                    && !Arrays.equals(
+                            new AccountState(accountData).getCodeHash(), EMPTY_DATA_HASH);
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
     /**
      * @implNote The loaded objects are fresh copies of the original account state and contract
      *     details.
@@ -529,6 +690,8 @@ public class AionRepositoryImpl
                         .storeBlockChanges(blockHeader.getHash(), blockHeader.getNumber());
                 pruneBlocks(blockHeader);
             }
+
+            publishSnapshot(worldState.getRootHash());
         } finally {
             rwLock.writeLock().unlock();
         }
@@ -567,34 +730,54 @@ public class AionRepositoryImpl
         rwLock.readLock().lock();
 
         try {
-            AionRepositoryImpl repo = new AionRepositoryImpl();
-            repo.blockStore = blockStore;
-            repo.contractInfoSource = contractInfoSource;
-            repo.cfg = cfg;
-            repo.stateDatabase = this.stateDatabase;
-            repo.stateWithArchive = this.stateWithArchive;
-            repo.stateDSPrune = this.stateDSPrune;
-
-            // pruning config
-            repo.pruneEnabled = this.pruneEnabled;
-            repo.pruneBlockCount = this.pruneBlockCount;
-            repo.archiveRate = this.archiveRate;
-
-            repo.detailsDS = this.detailsDS;
-            repo.isSnapshot = true;
-
-            repo.worldState = repo.createStateTrie();
-            repo.worldState.setRoot(root);
+            return createSnapshot(root, this.pruneEnabled);
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
 
-            // gives snapshots access to the pending store
-            repo.pendingStore = this.pendingStore;
+    /**
+     * Returns a snapshot of the repository at the given root whose world state does not remove the
+     * nodes that its updates replace, so that it can be synced back to any root it has been at.
+     */
+    public AionRepositoryImpl getUnprunedSnapshotTo(byte[] root) {
+        rwLock.readLock().lock();
 
-            return repo;
+        try {
+            return createSnapshot(root, false);
         } finally {
             rwLock.readLock().unlock();
         }
     }
 
+    /** @implNote The method calling this method must handle the locking. */
+    private AionRepositoryImpl createSnapshot(byte[] root, boolean pruneEnabled) {
+        AionRepositoryImpl repo = new AionRepositoryImpl();
+        repo.blockStore = blockStore;
+        repo.bloomBitsIndex = bloomBitsIndex;
+        repo.contractInfoSource = contractInfoSource;
+        repo.cfg = cfg;
+        repo.stateDatabase = this.stateDatabase;
+        repo.stateWithArchive = this.stateWithArchive;
+        repo.stateDSPrune = this.stateDSPrune;
+
+        // pruning config
+        repo.pruneEnabled = pruneEnabled;
+        repo.pruneBlockCount = this.pruneBlockCount;
+        repo.archiveRate = this.archiveRate;
+
+        repo.detailsDS = this.detailsDS;
+        repo.isSnapshot = true;
+
+        repo.worldState = repo.createStateTrie();
+        repo.worldState.setRoot(root);
+
+        // gives snapshots access to the pending store
+        repo.pendingStore = this.pendingStore;
+
+        return repo;
+    }
+
     @Override
     public void addTxBatch(Map<byte[], byte[]> pendingTx, boolean isPool) {
 
@@ -668,6 +851,16 @@ public class AionRepositoryImpl
                 LOGGEN.error("Exception occurred while closing the state archive database.", e);
             }
 
+            try {
+                if (fastSyncDatabase != null) {
+                    fastSyncDatabase.close();
+                    LOGGEN.info("Fast sync database closed.");
+                    fastSyncDatabase = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while closing the fast sync database.", e);
+            }
+
             try {
                 if (transactionDatabase != null) {
                     transactionDatabase.close();
@@ -678,6 +871,20 @@ public class AionRepositoryImpl
                 LOGGEN.error("Exception occurred while closing the transaction database.", e);
             }
 
+            try {
+                if (bloomBitsIndex != null) {
+                    bloomBitsIndex.close();
+                    bloomBitsIndex = null;
+                }
+                if (bloomBitsDatabase != null) {
+                    bloomBitsDatabase.close();
+                    LOGGEN.info("Bloom bits database closed.");
+                    bloomBitsDatabase = null;
+                }
+            } catch (Exception e) {
+                LOGGEN.error("Exception occurred while closing the bloom bits database.", e);
+            }
+
             try {
                 if (blockStore != null) {
                     blockStore.close();
@@ -753,6 +960,24 @@ public class AionRepositoryImpl
         return this.detailsDatabase;
     }
 
+    /**
+     * Returns the database storing the progress of the fast sync process. The database is opened
+     * on the first call, such that it is only created by nodes that use fast sync.
+     */
+    public ByteArrayKeyValueDatabase getFastSyncDatabase() {
+        rwLock.writeLock().lock();
+        try {
+            if (fastSyncDatabase == null) {
+                openFastSyncDatabase();
+            }
+            return this.fastSyncDatabase;
+        } catch (InvalidFilePathException e) {
+            throw new IllegalStateException("Unable to open the fast sync database.", e);
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
     /** For testing. */
     public ByteArrayKeyValueDatabase getBlockDatabase() {
         return this.blockDatabase;
@@ -893,6 +1118,128 @@ public class AionRepositoryImpl
         return TrieNodeResult.IMPORTED;
     }
 
+    /**
+     * Imports multiple trie nodes to the indicated blockchain database with a single batch write.
+     *
+     * @param nodes the key-value pairs of the trie nodes to be imported
+     * @param dbType the database where the key-value pairs should be stored
+     * @return the {@link TrieNodeResult} of the import operation for each of the given keys
+     * @throws IllegalArgumentException if the database type is not supported
+     */
+    public Map<ByteArrayWrapper, TrieNodeResult> importTrieNodes(
+            Map<ByteArrayWrapper, byte[]> nodes, DatabaseType dbType) {
+        ByteArrayKeyValueDatabase db = selectDatabase(dbType);
+        Map<ByteArrayWrapper, TrieNodeResult> results = new HashMap<>();
+
+        List<byte[]> keys = new ArrayList<>();
+        for (Map.Entry<ByteArrayWrapper, byte[]> e : nodes.entrySet()) {
+            byte[] key = e.getKey().getData();
+            byte[] value = e.getValue();
+
+            if (key.length != V1Constants.HASH_SIZE) {
+                results.put(e.getKey(), TrieNodeResult.INVALID_KEY);
+            } else if (value == null || value.length == 0) {
+                // not allowing deletions to be imported
+                results.put(e.getKey(), TrieNodeResult.INVALID_VALUE);
+            } else {
+                keys.add(key);
+            }
+        }
+
+        Map<ByteArrayWrapper, byte[]> stored = MultiGetDatabase.getAll(db, keys);
+        Map<byte[], byte[]> batch = new HashMap<>();
+        for (byte[] key : keys) {
+            ByteArrayWrapper wrappedKey = ByteArrayWrapper.wrap(key);
+            byte[] value = nodes.get(wrappedKey);
+            byte[] storedValue = stored.get(wrappedKey);
+
+            if (storedValue == null) {
+                batch.put(key, value);
+                results.put(wrappedKey, TrieNodeResult.IMPORTED);
+            } else if (Arrays.equals(storedValue, value)) {
+                results.put(wrappedKey, TrieNodeResult.KNOWN);
+            } else {
+                results.put(wrappedKey, TrieNodeResult.INCONSISTENT);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            db.putBatch(batch);
+        }
+        return results;
+    }
+
+    /**
+     * Returns the keys that are not present in the indicated blockchain database.
+     *
+     * @param keys the keys to be checked
+     * @param dbType the database where the keys should be found
+     * @return the subset of the given keys that are missing from the database
+     * @throws IllegalArgumentException if the database type is not supported
+     */
+    public Set<ByteArrayWrapper> getMissingTrieNodes(
+            Collection<ByteArrayWrapper> keys, DatabaseType dbType) {
+        ByteArrayKeyValueDatabase db = selectDatabase(dbType);
+
+        List<byte[]> rawKeys = new ArrayList<>(keys.size());
+        for (ByteArrayWrapper key : keys) {
+            rawKeys.add(key.getData());
+        }
+        Map<ByteArrayWrapper, byte[]> stored = MultiGetDatabase.getAll(db, rawKeys);
+
+        Set<ByteArrayWrapper> missing = new HashSet<>();
+        for (ByteArrayWrapper key : keys) {
+            if (!stored.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Returns the number of contract accounts in the world state with the given root.
+     *
+     * @implNote Walks the whole trie, which must be complete in the database.
+     */
+    public long countContracts(byte[] stateRoot) {
+        long[] count = new long[1];
+        rwLock.readLock().lock();
+        try {
+            worldState.scanLeafValues(
+                    stateRoot,
+                    (value) -> {
+                        AccountState account = new AccountState(value);
+                        if (!Arrays.equals(account.getCodeHash(), EMPTY_DATA_HASH)) {
+                            count[0]++;
+                        }
+                    });
+        } finally {
+            rwLock.readLock().unlock();
+        }
+        return count[0];
+    }
+
+    /** Returns the given addresses that hold contracts in the world state with the given root. */
+    public Set<ByteArrayWrapper> filterContracts(
+            Collection<ByteArrayWrapper> addresses, byte[] stateRoot) {
+        AionRepositoryImpl snapshot;
+        rwLock.readLock().lock();
+        try {
+            snapshot = createSnapshot(stateRoot, pruneEnabled);
+        } finally {
+            rwLock.readLock().unlock();
+        }
+
+        Set<ByteArrayWrapper> contracts = new HashSet<>();
+        for (ByteArrayWrapper address : addresses) {
+            AccountState account = snapshot.getAccountState(Address.wrap(address.getData()));
+            if (account != null && !Arrays.equals(account.getCodeHash(), EMPTY_DATA_HASH)) {
+                contracts.add(address);
+            }
+        }
+        return contracts;
+    }
+
     private ByteArrayKeyValueDatabase selectDatabase(DatabaseType dbType) {
         switch (dbType) {
             case DETAILS:
@@ -0,0 +1,317 @@
+package org.aion.zero.impl.db;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.slf4j.Logger;
+
+/**
+ * Append-only file store for the encodings of consecutive main chain blocks, starting with the
+ * genesis block.
+ *
+ * <p>The encodings are written one after the other into fixed size segment files that are memory
+ * mapped, such that reads are served directly from the page cache without going through the key
+ * value database. {@link #get(long)} returns a view of the mapped data, while {@link
+ * #getEncoded(long)} copies the record once into the heap. A dense index file contains the
+ * location of each block, making the lookup by block number a single array access and range
+ * reads sequential.
+ *
+ * <p>Blocks may only be appended at the next number. When the main chain changes below the
+ * archived height, the archive must be truncated to the first affected number.
+ *
+ * <p>The index entries of the appended blocks are only written on {@link #flush()}, after the
+ * records they point to were written to the storage device. On open, the index is truncated to
+ * the last entry pointing to a complete record.
+ *
+ * @implNote The class is not thread safe for writes. Reads may be performed concurrently with
+ *     each other but must be synchronized externally with {@link #append(byte[])}, {@link
+ *     #truncate(long)} and {@link #close()}.
+ */
+public class BlockArchive implements Closeable {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    /** Size in bytes of each segment file. */
+    static final int SEGMENT_SIZE = 256 * 1024 * 1024;
+
+    private static final String INDEX_FILE = "index";
+    private static final String SEGMENT_FILE_FORMAT = "segment-%05d";
+
+    /** The length prefix of each record. */
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES;
+    /** Each index entry contains the segment and position of a record packed into a long. */
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES;
+
+    private final File directory;
+    private final FileChannel indexChannel;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    private long[] locations;
+    private int size;
+    /** The number of entries written to the index file. */
+    private int persistedSize;
+
+    /** Location in the last segment where the next record will be written. */
+    private int writeSegment;
+    private int writePosition;
+
+    /**
+     * Opens the archive stored in the given directory, creating it if it does not exist.
+     *
+     * @throws IOException if the files cannot be created or read
+     */
+    public BlockArchive(File directory) throws IOException {
+        this.directory = directory;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the block archive at " + directory + ".");
+        }
+
+        indexChannel = new RandomAccessFile(new File(directory, INDEX_FILE), "rw").getChannel();
+        try {
+            load();
+        } catch (IOException e) {
+            indexChannel.close();
+            throw e;
+        }
+    }
+
+    private void load() throws IOException {
+        long entries =
+                Math.min(
+                        indexChannel.size() / INDEX_ENTRY_SIZE,
+                        Integer.MAX_VALUE / INDEX_ENTRY_SIZE);
+
+        locations = new long[Math.max((int) entries, 1024)];
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) entries * INDEX_ENTRY_SIZE);
+        while (buffer.hasRemaining()) {
+            if (indexChannel.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        int read = buffer.remaining() / INDEX_ENTRY_SIZE;
+        buffer.asLongBuffer().get(locations, 0, read);
+
+        // keep the entries pointing to consecutive complete records
+        size = 0;
+        writeSegment = 0;
+        writePosition = 0;
+        while (size < read && isNextRecord(locations[size])) {
+            long location = locations[size];
+            int length = segments.get(segment(location)).getInt(position(location));
+            writeSegment = segment(location);
+            writePosition = position(location) + RECORD_HEADER_SIZE + length;
+            size++;
+        }
+
+        if (size < entries) {
+            LOG.warn("Dropped {} incomplete entries from the block archive.", entries - size);
+        }
+
+        // drop any incomplete trailing entry
+        indexChannel.truncate((long) size * INDEX_ENTRY_SIZE);
+        persistedSize = size;
+    }
+
+    /**
+     * Checks if the given location follows the last loaded record and holds a record that fits
+     * within its segment.
+     */
+    private boolean isNextRecord(long location) throws IOException {
+        int segment = segment(location);
+        int position = position(location);
+
+        boolean next =
+                (segment == writeSegment && position == writePosition)
+                        || (size > 0 && segment == writeSegment + 1 && position == 0);
+        if (!next
+                || position > SEGMENT_SIZE - RECORD_HEADER_SIZE
+                || (segment >= segments.size() && !segmentFile(segment).isFile())) {
+            return false;
+        }
+
+        int length = getSegment(segment).getInt(position);
+        return length > 0 && length <= SEGMENT_SIZE - RECORD_HEADER_SIZE - position;
+    }
+
+    /** Returns the number of blocks in the archive, i.e. the number of the next block to append. */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Appends the encoding of the next block.
+     *
+     * @param encoding the encoding of the block with number {@link #size()}
+     * @throws IOException if the data cannot be written
+     */
+    public void append(byte[] encoding) throws IOException {
+        int recordSize = RECORD_HEADER_SIZE + encoding.length;
+        if (recordSize > SEGMENT_SIZE) {
+            throw new IllegalArgumentException(
+                    "The block encoding of " + encoding.length + " bytes exceeds the segment size.");
+        }
+
+        if (writePosition + recordSize > SEGMENT_SIZE) {
+            // start a new segment
+            getSegment(writeSegment).force();
+            writeSegment++;
+            writePosition = 0;
+        }
+
+        ByteBuffer segment = getSegment(writeSegment).duplicate();
+        segment.position(writePosition);
+        segment.putInt(encoding.length);
+        segment.put(encoding);
+
+        // the index entry is written on flush, after the record it points to
+        long location = location(writeSegment, writePosition);
+        if (size == locations.length) {
+            locations = Arrays.copyOf(locations, locations.length * 2);
+        }
+        locations[size++] = location;
+        writePosition += recordSize;
+    }
+
+    /**
+     * Returns a read-only view of the encoding of the block with the given number, backed directly
+     * by the mapped file.
+     *
+     * @return the encoding of the block or {@code null} if the number is not archived
+     */
+    public ByteBuffer get(long number) {
+        if (number < 0 || number >= size) {
+            return null;
+        }
+
+        long location = locations[(int) number];
+        MappedByteBuffer segment = segments.get(segment(location));
+        int position = position(location);
+        int length = segment.getInt(position);
+
+        ByteBuffer view = segment.asReadOnlyBuffer();
+        view.position(position + RECORD_HEADER_SIZE);
+        view.limit(position + RECORD_HEADER_SIZE + length);
+        return view.slice();
+    }
+
+    /**
+     * Returns a copy of the encoding of the block with the given number.
+     *
+     * @return the encoding of the block or {@code null} if the number is not archived
+     */
+    public byte[] getEncoded(long number) {
+        ByteBuffer view = get(number);
+        if (view == null) {
+            return null;
+        }
+
+        byte[] encoding = new byte[view.remaining()];
+        view.get(encoding);
+        return encoding;
+    }
+
+    /**
+     * Removes the blocks with numbers greater or equal to the given value.
+     *
+     * @param newSize the number of blocks retained in the archive
+     * @throws IOException if the index cannot be updated
+     */
+    public void truncate(long newSize) throws IOException {
+        if (newSize < 0 || newSize >= size) {
+            return;
+        }
+
+        if (newSize < persistedSize) {
+            indexChannel.truncate(newSize * INDEX_ENTRY_SIZE);
+            persistedSize = (int) newSize;
+        }
+        size = (int) newSize;
+
+        resetWriteLocation();
+
+        LOG.info("Block archive truncated to {} blocks.", size);
+    }
+
+    /**
+     * Writes the archived data to the storage device, followed by the index entries of the blocks
+     * appended since the last flush.
+     */
+    public void flush() throws IOException {
+        if (persistedSize < size) {
+            // the earlier segments were written when the current one was started
+            getSegment(writeSegment).force();
+
+            ByteBuffer entries = ByteBuffer.allocate((size - persistedSize) * INDEX_ENTRY_SIZE);
+            entries.asLongBuffer().put(locations, persistedSize, size - persistedSize);
+            long position = (long) persistedSize * INDEX_ENTRY_SIZE;
+            while (entries.hasRemaining()) {
+                position += indexChannel.write(entries, position);
+            }
+            persistedSize = size;
+        }
+        indexChannel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            // the mapped buffers are released when garbage collected
+            segments.clear();
+            indexChannel.close();
+        }
+    }
+
+    /** Sets the location of the next record right after the last archived record. */
+    private void resetWriteLocation() {
+        if (size == 0) {
+            writeSegment = 0;
+            writePosition = 0;
+        } else {
+            long last = locations[size - 1];
+            int length = segments.get(segment(last)).getInt(position(last));
+            writeSegment = segment(last);
+            writePosition = position(last) + RECORD_HEADER_SIZE + length;
+        }
+    }
+
+    /** Returns the mapped segment with the given number, mapping it if necessary. */
+    private MappedByteBuffer getSegment(int number) throws IOException {
+        while (segments.size() <= number) {
+            try (RandomAccessFile raf = new RandomAccessFile(segmentFile(segments.size()), "rw")) {
+                // the mapping remains valid after the channel is closed
+                segments.add(raf.getChannel().map(MapMode.READ_WRITE, 0, SEGMENT_SIZE));
+            }
+        }
+        return segments.get(number);
+    }
+
+    private File segmentFile(int number) {
+        return new File(directory, String.format(SEGMENT_FILE_FORMAT, number));
+    }
+
+    private static long location(int segment, int position) {
+        return ((long) segment << 32) | (position & 0xFFFFFFFFL);
+    }
+
+    private static int segment(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int position(long location) {
+        return (int) location;
+    }
+}
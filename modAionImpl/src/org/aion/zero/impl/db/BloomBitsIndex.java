@@ -0,0 +1,341 @@
+package org.aion.zero.impl.db;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.mcf.vm.types.Bloom;
+import org.aion.vm.api.interfaces.IBloomFilter;
+import org.aion.zero.impl.types.AionBlock;
+import org.slf4j.Logger;
+
+/**
+ * Index of the main chain log blooms in which the bits are transposed per section of {@link
+ * #SECTION_SIZE} consecutive blocks.
+ *
+ * <p>For each section and each of the bloom bits the index stores a bit vector with one bit per
+ * block of the section, set when the block's log bloom has that bit set. The blocks of a section
+ * that may match a bloom filter are found by combining the vectors of the bits set in the filter,
+ * without loading any block.
+ *
+ * <p>Sections are built in the background once their last block is {@link #CONFIRMATIONS} blocks
+ * below the best block. Each section records the hash of its last block, such that a section made
+ * stale by a deeper chain reorganization is detected and built again.
+ */
+public class BloomBitsIndex {
+
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
+
+    /** Number of blocks per section. */
+    public static final int SECTION_SIZE = 4096;
+    /** Depth below the best block required for the last block of a section to be indexed. */
+    static final long CONFIRMATIONS = 256;
+
+    private static final int BLOOM_BITS = IBloomFilter.SIZE * Byte.SIZE;
+    private static final int VECTOR_LONGS = SECTION_SIZE / Long.SIZE;
+
+    // key prefixes
+    private static final byte SECTION_COUNT = 0;
+    private static final byte BIT_VECTOR = 1;
+    private static final byte SECTION_HEAD = 2;
+
+    private final ByteArrayKeyValueDatabase database;
+    private final AionBlockStore blockStore;
+
+    private final ExecutorService indexer =
+            Executors.newSingleThreadExecutor(
+                    r -> {
+                        Thread t = new Thread(r, "bloom-indexer");
+                        t.setDaemon(true);
+                        t.setPriority(Thread.MIN_PRIORITY);
+                        return t;
+                    });
+    private final AtomicBoolean indexing = new AtomicBoolean(false);
+    private volatile boolean closed = false;
+
+    /** The number of sections built, starting from the genesis block. */
+    private volatile long sections;
+
+    public BloomBitsIndex(ByteArrayKeyValueDatabase database, AionBlockStore blockStore) {
+        this.database = database;
+        this.blockStore = blockStore;
+
+        Optional<byte[]> count = database.get(new byte[] {SECTION_COUNT});
+        this.sections = count.isPresent() ? ByteBuffer.wrap(count.get()).getLong() : 0;
+    }
+
+    /** Returns the number of blocks covered by the index, starting from the genesis block. */
+    public long getIndexedBlockCount() {
+        return sections * SECTION_SIZE;
+    }
+
+    /**
+     * Schedules the indexing of the sections completed by the given best block.
+     *
+     * @param bestNumber the number of the current best block
+     */
+    public void update(long bestNumber) {
+        if (closed || completedSections(bestNumber) <= sections) {
+            return;
+        }
+
+        if (indexing.compareAndSet(false, true)) {
+            try {
+                indexer.execute(() -> buildSections(bestNumber));
+            } catch (RejectedExecutionException e) {
+                indexing.set(false);
+            }
+        }
+    }
+
+    private static long completedSections(long bestNumber) {
+        return Math.max(0, bestNumber - CONFIRMATIONS + 1) / SECTION_SIZE;
+    }
+
+    void buildSections(long bestNumber) {
+        try {
+            long target = completedSections(bestNumber);
+            while (!closed && sections < target) {
+                long start = System.currentTimeMillis();
+                long section = sections;
+                if (!buildSection(section) || !commit(section)) {
+                    return;
+                }
+
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(
+                            "Bloom bits section {} indexed in {} ms.",
+                            section,
+                            System.currentTimeMillis() - start);
+                }
+            }
+        } catch (Exception e) {
+            LOG.error("Unable to build the bloom bits index.", e);
+        } finally {
+            indexing.set(false);
+        }
+    }
+
+    /** Builds the bit vectors for the given section and stores them. */
+    private boolean buildSection(long section) {
+        long first = section * SECTION_SIZE;
+        long last = first + SECTION_SIZE - 1;
+
+        // the range read follows the parent hashes and does not include the genesis block
+        List<AionBlock> blocks = new ArrayList<>(SECTION_SIZE);
+        if (first == 0) {
+            AionBlock genesis = blockStore.getChainBlockByNumber(0);
+            List<AionBlock> range = blockStore.getBlocksByRange(1, last);
+            if (genesis == null || range == null) {
+                return false;
+            }
+            blocks.add(genesis);
+            blocks.addAll(range);
+        } else {
+            List<AionBlock> range = blockStore.getBlocksByRange(first, last);
+            if (range == null) {
+                return false;
+            }
+            blocks.addAll(range);
+        }
+
+        if (blocks.size() != SECTION_SIZE || blocks.get(SECTION_SIZE - 1).getNumber() != last) {
+            LOG.warn("Unable to index bloom bits: incomplete main chain for section {}.", section);
+            return false;
+        }
+
+        long[][] vectors = new long[BLOOM_BITS][];
+        for (int offset = 0; offset < SECTION_SIZE; offset++) {
+            byte[] bloom = blocks.get(offset).getLogBloom();
+            for (int i = 0; i < bloom.length; i++) {
+                if (bloom[i] == 0) {
+                    continue;
+                }
+                for (int j = 0; j < Byte.SIZE; j++) {
+                    if ((bloom[i] & (1 << j)) != 0) {
+                        int bit = i * Byte.SIZE + j;
+                        if (vectors[bit] == null) {
+                            vectors[bit] = new long[VECTOR_LONGS];
+                        }
+                        vectors[bit][offset / Long.SIZE] |= 1L << (offset % Long.SIZE);
+                    }
+                }
+            }
+        }
+        byte[] lastHash = blocks.get(SECTION_SIZE - 1).getHash();
+
+        // vectors without any set bit are not stored
+        Map<byte[], byte[]> batch = new HashMap<>();
+        List<byte[]> empty = new ArrayList<>();
+        for (int bit = 0; bit < BLOOM_BITS; bit++) {
+            if (vectors[bit] != null) {
+                ByteBuffer vector = ByteBuffer.allocate(VECTOR_LONGS * Long.BYTES);
+                vector.asLongBuffer().put(vectors[bit]);
+                batch.put(vectorKey(section, bit), vector.array());
+            } else {
+                // removes the vectors left from a previous build of the section
+                empty.add(vectorKey(section, bit));
+            }
+        }
+        database.deleteBatch(empty);
+        batch.put(headKey(section), lastHash);
+        database.putBatch(batch);
+        return true;
+    }
+
+    /**
+     * Collects the numbers of the blocks between {@code from} and {@code to} whose log bloom may
+     * match the given filter, limited to the blocks covered by the index.
+     *
+     * <p>A block matches when, for each group of the filter, its bloom contains at least one of
+     * the blooms in the group. Empty groups and blooms without any set bit match all blocks.
+     *
+     * @param from the first block number, inclusive
+     * @param to the last block number, inclusive
+     * @param filter the groups of blooms that must all be matched
+     * @param candidates the list to which the candidate block numbers are added in ascending order
+     * @return the number of the first block in the range that is not covered by the index, or
+     *     {@code to + 1} if the whole range is covered; the caller must check all the blocks from
+     *     that number onward itself
+     */
+    public long getCandidates(long from, long to, Bloom[][] filter, List<Long> candidates) {
+        long section = Math.max(0, from) / SECTION_SIZE;
+        long indexed = sections;
+        for (; section < indexed && section * SECTION_SIZE <= to; section++) {
+            if (!isValid(section)) {
+                // rebuilt from this section by the next update
+                invalidate(section);
+                break;
+            }
+
+            long[] matches = matchSection(section, filter);
+            long first = section * SECTION_SIZE;
+            for (int i = 0; i < VECTOR_LONGS; i++) {
+                long word = matches[i];
+                while (word != 0) {
+                    long number = first + i * Long.SIZE + Long.numberOfTrailingZeros(word);
+                    if (number >= from && number <= to) {
+                        candidates.add(number);
+                    }
+                    word &= word - 1;
+                }
+            }
+        }
+
+        return Math.min(to + 1, Math.max(from, section * SECTION_SIZE));
+    }
+
+    private long[] matchSection(long section, Bloom[][] filter) {
+        long[] result = allSet();
+        Map<Integer, long[]> vectors = new HashMap<>();
+
+        for (Bloom[] group : filter) {
+            if (group == null || group.length == 0) {
+                continue;
+            }
+
+            long[] groupResult = new long[VECTOR_LONGS];
+            for (Bloom bloom : group) {
+                long[] bloomResult = allSet();
+                byte[] data = bloom.getBloomFilterBytes();
+                for (int i = 0; i < data.length; i++) {
+                    for (int j = 0; j < Byte.SIZE; j++) {
+                        if ((data[i] & (1 << j)) != 0) {
+                            long[] vector =
+                                    vectors.computeIfAbsent(
+                                            i * Byte.SIZE + j, bit -> loadVector(section, bit));
+                            and(bloomResult, vector);
+                        }
+                    }
+                }
+                or(groupResult, bloomResult);
+            }
+            and(result, groupResult);
+        }
+        return result;
+    }
+
+    private long[] loadVector(long section, int bit) {
+        long[] vector = new long[VECTOR_LONGS];
+        Optional<byte[]> data = database.get(vectorKey(section, bit));
+        if (data.isPresent()) {
+            ByteBuffer.wrap(data.get()).asLongBuffer().get(vector);
+        }
+        return vector;
+    }
+
+    /** Checks that the section was built from the blocks that are currently on the main chain. */
+    private boolean isValid(long section) {
+        Optional<byte[]> head = database.get(headKey(section));
+        byte[] hash = blockStore.getBlockHashByNumber((section + 1) * SECTION_SIZE - 1);
+        return head.isPresent() && hash != null && Arrays.equals(head.get(), hash);
+    }
+
+    /** Marks the section as built unless the index was invalidated in the meantime. */
+    private synchronized boolean commit(long section) {
+        if (sections != section) {
+            return false;
+        }
+        sections = section + 1;
+        database.put(new byte[] {SECTION_COUNT}, encodeLong(sections));
+        return true;
+    }
+
+    private synchronized void invalidate(long section) {
+        if (section < sections) {
+            LOG.info("Bloom bits index outdated from section {}.", section);
+            sections = section;
+            database.put(new byte[] {SECTION_COUNT}, encodeLong(section));
+        }
+    }
+
+    /** Stops the indexing. The database is closed by its owner. */
+    public void close() {
+        closed = true;
+        indexer.shutdownNow();
+    }
+
+    private static long[] allSet() {
+        long[] vector = new long[VECTOR_LONGS];
+        Arrays.fill(vector, -1L);
+        return vector;
+    }
+
+    private static void and(long[] target, long[] other) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] &= other[i];
+        }
+    }
+
+    private static void or(long[] target, long[] other) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] |= other[i];
+        }
+    }
+
+    private static byte[] vectorKey(long section, int bit) {
+        return ByteBuffer.allocate(1 + Long.BYTES + Short.BYTES)
+                .put(BIT_VECTOR)
+                .putLong(section)
+                .putShort((short) bit)
+                .array();
+    }
+
+    private static byte[] headKey(long section) {
+        return ByteBuffer.allocate(1 + Long.BYTES).put(SECTION_HEAD).putLong(section).array();
+    }
+
+    private static byte[] encodeLong(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+}
@@ -0,0 +1,493 @@
+package org.aion.zero.impl.sync;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Collectors;
+import org.aion.p2p.INode;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.A0BlockHeader;
+import org.slf4j.Logger;
+
+/**
+ * Schedules the requests for the bodies of downloaded headers over a sliding window per peer.
+ *
+ * <p>Each batch of headers becomes one request for the corresponding bodies. A peer may have
+ * several requests outstanding at once, the size of its window being derived from the measured
+ * latency of its previous responses. Requests are assigned to the peer that sent the headers when
+ * it has room in its window and otherwise to the peer with the best measured throughput. Requests
+ * that are not answered in time are reassigned to a different peer.
+ *
+ * <p>A response is matched to a request outstanding for the peer that sent it by the range of
+ * hashes that was requested. Since the blocks without transactions all have the same transaction
+ * trie root, the bodies alone may match the prefix of a different request, so a response covering
+ * the whole requested range takes precedence over a partial one. When a peer answers with only
+ * part of the range, the remaining hashes are requested again.
+ *
+ * <p>The assembled blocks are released to the import queue in the order in which the headers were
+ * received from each peer, such that the import sees the same sequence as with a single request.
+ *
+ * @implNote The latency and throughput are measured here rather than taken from the {@link
+ *     SyncStats}, which only track responses when the statistics are enabled in the configuration.
+ */
+final class BodiesScheduler {
+
+    /** The maximum number of requests outstanding for a single peer. */
+    static final int MAX_OUTSTANDING_PER_PEER = 4;
+    /** The number of requests outstanding for a peer with no measured responses. */
+    static final int INITIAL_WINDOW = 2;
+    /** The response latency in milliseconds that warrants an additional outstanding request. */
+    static final long LATENCY_PER_REQUEST = 500;
+    /** The minimum time in milliseconds to wait for a response before reassigning a request. */
+    static final long MIN_REQUEST_TIMEOUT = 5_000;
+    /** The maximum number of peers that may fail a request before it is dropped. */
+    static final int MAX_ATTEMPTS = 3;
+    /** The time in milliseconds after which headers whose bodies were not received are dropped. */
+    static final long MAX_AGE = 60_000;
+
+    private static final double SMOOTHING = 0.25;
+
+    private final BlockingQueue<BlocksWrapper> downloadedBlocks;
+    private final Logger log;
+
+    // requests in the order the headers were received from each peer
+    private final Map<Integer, Deque<Request>> requestsByOrigin = new HashMap<>();
+    // requests waiting for a peer
+    private final Deque<Request> pending = new ArrayDeque<>();
+    // requests sent to each peer in the order they were sent
+    private final Map<Integer, Deque<Request>> outstanding = new HashMap<>();
+    private final Map<Integer, PeerStats> peerStats = new HashMap<>();
+
+    /** A request for the bodies of one batch of headers. */
+    static final class Request {
+        private final HeadersWrapper headers;
+        private final List<byte[]> hashes;
+        private final Set<Integer> failedPeers = new HashSet<>();
+        private final List<AionBlock> blocks = new ArrayList<>();
+        private int peerId;
+        private String displayId;
+        private long sentTime;
+        private int attempts;
+        private boolean done;
+        private boolean dropped;
+
+        private Request(HeadersWrapper headers) {
+            this.headers = headers;
+            this.hashes =
+                    headers.getHeaders().stream()
+                            .map(A0BlockHeader::getHash)
+                            .collect(Collectors.toList());
+        }
+
+        /** @return the peer that sent the headers */
+        int getOrigin() {
+            return headers.getNodeIdHash();
+        }
+
+        /** @return the display id of the peer that sent the headers */
+        String getOriginDisplayId() {
+            return headers.getDisplayId();
+        }
+
+        /** @return the headers whose bodies were not received yet */
+        List<A0BlockHeader> getHeaders() {
+            List<A0BlockHeader> list = headers.getHeaders();
+            return list.subList(blocks.size(), list.size());
+        }
+
+        /** @return the hashes of the blocks whose bodies were not received yet */
+        List<byte[]> getHashes() {
+            return hashes.subList(blocks.size(), hashes.size());
+        }
+
+        /** @return the peer to which the request is sent */
+        int getPeerId() {
+            return peerId;
+        }
+
+        /** @return the display id of the peer to which the request is sent */
+        String getDisplayId() {
+            return displayId;
+        }
+
+        /** @return the number of peers the request was sent to, including the current one */
+        int getAttempts() {
+            return attempts;
+        }
+
+        private long getFirstNumber() {
+            return headers.getHeaders().get(blocks.size()).getNumber();
+        }
+
+        private long getLastNumber() {
+            List<A0BlockHeader> list = headers.getHeaders();
+            return list.get(list.size() - 1).getNumber();
+        }
+    }
+
+    /** Smoothed measurements of the responses of a peer. */
+    private static final class PeerStats {
+        private double latency;
+        private double throughput;
+        private int samples;
+        private int timeouts;
+    }
+
+    /** @param downloadedBlocks the queue receiving the blocks ready for import */
+    BodiesScheduler(BlockingQueue<BlocksWrapper> downloadedBlocks, Logger log) {
+        this.downloadedBlocks = downloadedBlocks;
+        this.log = log;
+    }
+
+    /** Adds a request for the bodies of the given headers. */
+    synchronized void add(HeadersWrapper hw) {
+        if (hw.getHeaders().isEmpty()) {
+            return;
+        }
+
+        Request request = new Request(hw);
+        requestsByOrigin.computeIfAbsent(hw.getNodeIdHash(), k -> new ArrayDeque<>()).add(request);
+        pending.add(request);
+    }
+
+    /**
+     * Reassigns the expired requests and assigns the pending requests to the given peers within
+     * their windows.
+     *
+     * @param peers the currently active peers
+     * @param now the current time in milliseconds
+     * @return the requests to be sent, each to its assigned peer
+     */
+    synchronized List<Request> schedule(Collection<INode> peers, long now) {
+        Map<Integer, INode> active = new HashMap<>();
+        for (INode peer : peers) {
+            active.put(peer.getIdHash(), peer);
+        }
+        peerStats.keySet().retainAll(active.keySet());
+
+        expire(active.keySet(), now);
+
+        List<Request> assigned = new ArrayList<>();
+        Iterator<Request> it = pending.iterator();
+        while (it.hasNext()) {
+            Request request = it.next();
+            if (now - request.headers.getTimestamp() > MAX_AGE) {
+                it.remove();
+                drop(request);
+                continue;
+            }
+
+            INode peer = select(request, active);
+            if (peer != null) {
+                it.remove();
+                request.peerId = peer.getIdHash();
+                request.displayId = peer.getIdShort();
+                request.sentTime = now;
+                request.attempts++;
+                outstanding.computeIfAbsent(request.peerId, k -> new ArrayDeque<>()).add(request);
+                assigned.add(request);
+            }
+        }
+        return assigned;
+    }
+
+    /**
+     * Matches the given bodies to a request outstanding for the peer that sent them and releases
+     * the assembled blocks once all the preceding requests from the same origin are complete. The
+     * bodies are matched to the oldest request for which they cover the whole requested range, or
+     * failing that to the oldest request whose range they start. In the latter case the rest of
+     * the range is requested again.
+     *
+     * @param peerId the peer that sent the bodies
+     * @param displayId the display id of the peer that sent the bodies
+     * @param bodies the received bodies
+     * @param now the current time in milliseconds
+     * @return {@code true} if the bodies matched a request, {@code false} otherwise
+     */
+    boolean received(int peerId, String displayId, List<byte[]> bodies, long now) {
+        if (bodies.isEmpty()) {
+            return false;
+        }
+
+        List<Request> candidates = new ArrayList<>();
+        List<List<A0BlockHeader>> ranges = new ArrayList<>();
+        synchronized (this) {
+            Deque<Request> requests = outstanding.get(peerId);
+            if (requests == null || requests.isEmpty()) {
+                return false;
+            }
+            for (Request request : requests) {
+                List<A0BlockHeader> range = request.getHeaders();
+                if (range.size() >= bodies.size()) {
+                    candidates.add(request);
+                    ranges.add(range);
+                }
+            }
+        }
+
+        // the block assembly validates the transactions and is done outside the lock
+        Request partial = null;
+        A0BlockHeader partialFirst = null;
+        List<AionBlock> partialBlocks = null;
+        for (int i = 0; i < candidates.size(); i++) {
+            Request request = candidates.get(i);
+            List<A0BlockHeader> range = ranges.get(i);
+            if (range.size() > bodies.size() && partial != null) {
+                continue;
+            }
+
+            List<AionBlock> blocks = assemble(range, bodies);
+            if (blocks == null) {
+                continue;
+            }
+            if (range.size() == bodies.size()) {
+                return complete(request, peerId, displayId, range.get(0), blocks, now);
+            } else {
+                partial = request;
+                partialFirst = range.get(0);
+                partialBlocks = blocks;
+            }
+        }
+
+        return partial != null
+                && complete(partial, peerId, displayId, partialFirst, partialBlocks, now);
+    }
+
+    /** @return the number of requests outstanding for the given peer */
+    synchronized int getOutstanding(int peerId) {
+        Deque<Request> requests = outstanding.get(peerId);
+        return requests == null ? 0 : requests.size();
+    }
+
+    /** @return the number of requests waiting for a peer */
+    synchronized int getPending() {
+        return pending.size();
+    }
+
+    /** @return the number of requests that may be outstanding for the given peer */
+    synchronized int getWindow(int peerId) {
+        PeerStats stats = peerStats.get(peerId);
+        if (stats == null || stats.samples == 0) {
+            return INITIAL_WINDOW;
+        } else if (stats.timeouts > 0) {
+            return 1;
+        } else {
+            long window = 1 + (long) stats.latency / LATENCY_PER_REQUEST;
+            return (int) Math.min(MAX_OUTSTANDING_PER_PEER, window);
+        }
+    }
+
+    private long getTimeout(int peerId) {
+        PeerStats stats = peerStats.get(peerId);
+        if (stats == null || stats.samples == 0) {
+            return MIN_REQUEST_TIMEOUT;
+        } else {
+            return Math.max(MIN_REQUEST_TIMEOUT, (long) (4 * stats.latency));
+        }
+    }
+
+    /** Moves the requests of inactive peers and the ones not answered in time back to pending. */
+    private void expire(Set<Integer> active, long now) {
+        List<Request> expired = new ArrayList<>();
+        Iterator<Map.Entry<Integer, Deque<Request>>> peers = outstanding.entrySet().iterator();
+        while (peers.hasNext()) {
+            Map.Entry<Integer, Deque<Request>> e = peers.next();
+            int peerId = e.getKey();
+            boolean isActive = active.contains(peerId);
+            long timeout = getTimeout(peerId);
+
+            Iterator<Request> it = e.getValue().iterator();
+            while (it.hasNext()) {
+                Request request = it.next();
+                if (!isActive || now - request.sentTime > timeout) {
+                    it.remove();
+                    request.failedPeers.add(peerId);
+                    expired.add(request);
+
+                    PeerStats stats = peerStats.get(peerId);
+                    if (isActive && stats != null) {
+                        stats.timeouts++;
+                    }
+                }
+            }
+            if (e.getValue().isEmpty()) {
+                peers.remove();
+            }
+        }
+
+        // retried before the other pending requests, in the order of the block numbers
+        expired.sort((a, b) -> Long.compare(b.getFirstNumber(), a.getFirstNumber()));
+        for (Request request : expired) {
+            if (request.failedPeers.size() >= MAX_ATTEMPTS) {
+                drop(request);
+            } else {
+                pending.addFirst(request);
+            }
+        }
+
+        if (!expired.isEmpty() && log.isDebugEnabled()) {
+            log.debug("<get-bodies expired={} pending={}>", expired.size(), pending.size());
+        }
+    }
+
+    /**
+     * Selects the peer for the given request. The first attempt goes to the peer that sent the
+     * headers if it has room in its window, other attempts to the peer with the best throughput
+     * among the ones that have the blocks and did not fail the request before.
+     */
+    private INode select(Request request, Map<Integer, INode> active) {
+        INode origin = active.get(request.getOrigin());
+        if (request.attempts == 0 && origin != null && hasCapacity(origin.getIdHash())) {
+            return origin;
+        }
+
+        long last = request.getLastNumber();
+        INode best = null;
+        double bestThroughput = -1;
+        for (INode peer : active.values()) {
+            int id = peer.getIdHash();
+            if (request.failedPeers.contains(id)
+                    || peer.getBestBlockNumber() < last
+                    || !hasCapacity(id)) {
+                continue;
+            }
+
+            PeerStats stats = peerStats.get(id);
+            double throughput = stats == null ? 0 : stats.throughput;
+            if (throughput > bestThroughput) {
+                best = peer;
+                bestThroughput = throughput;
+            }
+        }
+        return best;
+    }
+
+    private boolean hasCapacity(int peerId) {
+        return getOutstanding(peerId) < getWindow(peerId);
+    }
+
+    /**
+     * Adds the given blocks to the request if it is still waiting for the range starting with the
+     * given header, otherwise the response is out of date and is discarded.
+     */
+    private synchronized boolean complete(
+            Request request,
+            int peerId,
+            String displayId,
+            A0BlockHeader first,
+            List<AionBlock> blocks,
+            long now) {
+        if (request.done || request.getHeaders().get(0) != first) {
+            return false;
+        }
+
+        Deque<Request> requests = outstanding.get(request.peerId);
+        boolean wasOutstanding = requests != null && requests.remove(request);
+        if (wasOutstanding) {
+            if (request.peerId == peerId) {
+                update(peerId, blocks.size(), now - request.sentTime);
+            }
+            if (requests.isEmpty()) {
+                outstanding.remove(request.peerId);
+            }
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "<incoming-bodies from={} size={} node={}>",
+                    blocks.get(0).getNumber(),
+                    blocks.size(),
+                    displayId);
+        }
+
+        request.blocks.addAll(blocks);
+        if (request.getHashes().isEmpty()) {
+            if (!wasOutstanding) {
+                // expired while the response was in flight
+                pending.remove(request);
+            }
+            request.done = true;
+            release(request.getOrigin());
+        } else if (wasOutstanding) {
+            // the rest of the range is retried before the other pending requests
+            pending.addFirst(request);
+        }
+        return true;
+    }
+
+    private void update(int peerId, int size, long elapsed) {
+        PeerStats stats = peerStats.computeIfAbsent(peerId, k -> new PeerStats());
+        double latency = Math.max(1, elapsed);
+        double throughput = size * 1000d / latency;
+
+        if (stats.samples == 0) {
+            stats.latency = latency;
+            stats.throughput = throughput;
+        } else {
+            stats.latency += SMOOTHING * (latency - stats.latency);
+            stats.throughput += SMOOTHING * (throughput - stats.throughput);
+        }
+        stats.samples++;
+        stats.timeouts = 0;
+    }
+
+    private void drop(Request request) {
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "<get-bodies dropped from-num={} to-num={} node={} attempts={}>",
+                    request.getFirstNumber(),
+                    request.getLastNumber(),
+                    request.headers.getDisplayId(),
+                    request.attempts);
+        }
+        request.done = true;
+        request.dropped = true;
+        release(request.getOrigin());
+    }
+
+    /** Adds the completed requests at the head of the given origin's sequence to the import. */
+    private void release(int origin) {
+        Deque<Request> requests = requestsByOrigin.get(origin);
+        if (requests == null) {
+            return;
+        }
+
+        while (!requests.isEmpty() && requests.peekFirst().done) {
+            Request request = requests.pollFirst();
+            if (!request.dropped) {
+                downloadedBlocks.add(
+                        new BlocksWrapper(origin, request.headers.getDisplayId(), request.blocks));
+            }
+        }
+
+        if (requests.isEmpty()) {
+            requestsByOrigin.remove(origin);
+        }
+    }
+
+    /**
+     * Zips the headers with the bodies, which may not outnumber the headers.
+     *
+     * @return the assembled blocks or {@code null} if any of the bodies does not match its header
+     */
+    private static List<AionBlock> assemble(List<A0BlockHeader> headers, List<byte[]> bodies) {
+        List<AionBlock> blocks = new ArrayList<>(bodies.size());
+        Iterator<A0BlockHeader> headerIt = headers.iterator();
+        for (byte[] body : bodies) {
+            AionBlock block = AionBlock.createBlockFromNetwork(headerIt.next(), body);
+            if (block == null) {
+                return null;
+            }
+            blocks.add(block);
+        }
+        return blocks;
+    }
+}
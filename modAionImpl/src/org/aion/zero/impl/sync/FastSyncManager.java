@@ -1,11 +1,18 @@
 package org.aion.zero.impl.sync;
 
+import static org.aion.crypto.HashUtil.EMPTY_TRIE_HASH;
 import static org.aion.p2p.V1Constants.BLOCKS_REQUEST_MAXIMUM_BATCH_SIZE;
+import static org.aion.p2p.V1Constants.TRIE_DATA_REQUEST_MAXIMUM_BATCH_SIZE;
 
 import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
@@ -17,16 +24,24 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.log.AionLoggerFactory;
+import org.aion.crypto.HashUtil;
 import org.aion.log.LogEnum;
+import org.aion.mcf.core.AccountState;
+import org.aion.mcf.trie.TrieImpl;
 import org.aion.mcf.valid.BlockHeaderValidator;
 import org.aion.p2p.INode;
 import org.aion.p2p.impl1.P2pMgr;
+import org.aion.rlp.CompactEncoder;
+import org.aion.rlp.RLP;
+import org.aion.rlp.RLPList;
 import org.aion.types.ByteArrayWrapper;
 import org.aion.zero.impl.AionBlockchainImpl;
 import org.aion.zero.impl.sync.msg.RequestBlocks;
+import org.aion.zero.impl.sync.msg.RequestTrieData;
 import org.aion.zero.impl.sync.msg.ResponseBlocks;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.types.A0BlockHeader;
+import org.aion.zero.types.AionTransaction;
 import org.apache.commons.collections4.map.LRUMap;
 import org.slf4j.Logger;
 
@@ -60,16 +75,47 @@ public final class FastSyncManager {
     BlockingQueue<BlocksWrapper> downloadedBlocks = new LinkedBlockingQueue<>();
     Map<ByteArrayWrapper, BlocksWrapper> receivedBlocks = new HashMap<>();
 
-    private final Map<ByteArrayWrapper, byte[]> importedTrieNodes = new ConcurrentHashMap<>();
+    /** Maximum number of trie node requests awaiting a response from a single peer. */
+    private static final int MAX_OUTSTANDING_PER_PEER = 16;
+    /** Time in milliseconds after which unanswered trie node requests are sent again. */
+    private static final long REQUEST_TIMEOUT = 10_000L;
+
+    // trie nodes still required for the state at the pivot
+    private final TrieFrontier frontier;
+    // whether the details of all the contracts in the state at the pivot have been required
+    private final AtomicBoolean requiredAllContracts = new AtomicBoolean(false);
+    private final Set<ByteArrayWrapper> requiredContracts = ConcurrentHashMap.newKeySet();
+    // the number of contracts in the state at the pivot, counted once the state is complete
+    private long contractCount = -1;
 
     public FastSyncManager(
             AionBlockchainImpl chain,
             BlockHeaderValidator<A0BlockHeader> blockHeaderValidator,
             final P2pMgr p2pMgr) {
+        this(
+                chain,
+                blockHeaderValidator,
+                p2pMgr,
+                new TrieFrontier(chain.getRepository().getFastSyncDatabase()));
+    }
+
+    @VisibleForTesting
+    FastSyncManager(
+            AionBlockchainImpl chain,
+            BlockHeaderValidator<A0BlockHeader> blockHeaderValidator,
+            final P2pMgr p2pMgr,
+            TrieFrontier frontier) {
         this.enabled = true;
         this.chain = chain;
         this.blockHeaderValidator = blockHeaderValidator;
         this.p2pMgr = p2pMgr;
+        this.frontier = frontier;
+
+        byte[] storedPivot = frontier.getPivot();
+        if (storedPivot != null) {
+            // resuming the state download from the previous run
+            this.pivot = new AionBlock(storedPivot);
+        }
     }
 
     @VisibleForTesting
@@ -77,6 +123,14 @@ public final class FastSyncManager {
         Objects.requireNonNull(pivot);
 
         this.pivot = pivot;
+
+        if (!Arrays.equals(pivot.getEncoded(), frontier.getPivot())) {
+            // the state download starts over from the new state root
+            frontier.reset(pivot.getEncoded(), pivot.getStateRoot());
+            requiredAllContracts.set(false);
+            requiredContracts.clear();
+            contractCount = -1;
+        }
     }
 
     public AionBlock getPivot() {
@@ -87,26 +141,190 @@ public final class FastSyncManager {
     ExecutorService executors =
             Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
 
-    public void addImportedNode(ByteArrayWrapper key, byte[] value, DatabaseType dbType) {
+    /**
+     * Returns the nodes from the given response that were requested and pass verification.
+     *
+     * <p>The requested node must hash to its key. The referenced nodes sent along with it are
+     * accepted only when they are reachable from the requested node through verified nodes, such
+     * that a peer cannot insert unrelated data.
+     *
+     * @param response the trie data received from a peer
+     * @return the verified nodes or an empty map if the requested node is no longer required or
+     *     is invalid
+     */
+    public Map<ByteArrayWrapper, byte[]> filterVerified(TrieNodeWrapper response) {
+        DatabaseType dbType = response.getDbType();
+        ByteArrayWrapper key = response.getNodeKey();
+        byte[] value = response.getNodeValue();
+
+        if (!enabled || !frontier.contains(dbType, key)) {
+            // not requested or already imported
+            return Collections.emptyMap();
+        }
+
+        if (!isValidNode(dbType, key, value)) {
+            log.debug(
+                    "<fast-sync invalid trie node key={} db={} peer={}>",
+                    key,
+                    dbType,
+                    response.getDisplayId());
+            frontier.retry(dbType, key);
+            return Collections.emptyMap();
+        }
+
+        Map<ByteArrayWrapper, byte[]> nodes = new HashMap<>();
+        nodes.put(key, value);
+
+        Map<ByteArrayWrapper, byte[]> referenced = response.getReferencedNodes();
+        Deque<byte[]> values = new ArrayDeque<>();
+        values.add(value);
+        while (!values.isEmpty() && !referenced.isEmpty()) {
+            for (ByteArrayWrapper childKey : getReferencedKeys(dbType, values.remove())) {
+                byte[] childValue = referenced.get(childKey);
+                if (childValue != null
+                        && !nodes.containsKey(childKey)
+                        && isValidNode(dbType, childKey, childValue)) {
+                    nodes.put(childKey, childValue);
+                    values.add(childValue);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Adds the missing nodes referenced by the given nodes to the required nodes. Must be called
+     * before the given nodes are stored, such that the download can be resumed from any point.
+     *
+     * @param nodes verified nodes that are about to be imported
+     * @param dbType the database where the nodes will be stored
+     */
+    public void addReferencedNodes(Map<ByteArrayWrapper, byte[]> nodes, DatabaseType dbType) {
+        if (!enabled) {
+            return;
+        }
+
+        if (dbType == DatabaseType.DETAILS) {
+            // contract details do not reference other nodes
+            return;
+        }
+
+        Set<ByteArrayWrapper> children = new HashSet<>();
+        Set<ByteArrayWrapper> storageRoots = new HashSet<>();
+        for (byte[] value : nodes.values()) {
+            for (ByteArrayWrapper child : getReferencedKeys(dbType, value)) {
+                if (!nodes.containsKey(child)) {
+                    children.add(child);
+                }
+            }
+            if (dbType == DatabaseType.STATE) {
+                // the account leaves reference the root of the contract storage
+                byte[] root = getStorageRoot(value);
+                if (root != null && !Arrays.equals(root, EMPTY_TRIE_HASH)) {
+                    storageRoots.add(ByteArrayWrapper.wrap(root));
+                }
+            }
+        }
+        if (!children.isEmpty()) {
+            frontier.add(dbType, chain.getMissingTrieNodes(children, dbType));
+        }
+        if (!storageRoots.isEmpty()) {
+            frontier.add(
+                    DatabaseType.STORAGE,
+                    chain.getMissingTrieNodes(storageRoots, DatabaseType.STORAGE));
+        }
+    }
+
+    /** Marks the given nodes as stored in the database. */
+    public void addImportedNodes(Collection<ByteArrayWrapper> keys, DatabaseType dbType) {
         if (enabled) {
-            importedTrieNodes.put(key, value);
+            frontier.remove(dbType, keys);
         }
     }
 
-    public boolean containsExact(ByteArrayWrapper key, byte[] value) {
-        return enabled
-                && importedTrieNodes.containsKey(key)
-                && Arrays.equals(importedTrieNodes.get(key), value);
+    /**
+     * Adds the details of the given contracts to the required data. The contract details are not
+     * considered complete until the call that provides the last contracts of the state at the
+     * pivot, which is made from the blocks once they and the world state are complete.
+     *
+     * @param addresses the addresses of contracts in the state at the pivot
+     * @param last {@code true} if no contracts remain to be provided for the current pivot
+     * @implNote The details are stored by contract address while the world state is keyed by
+     *     hashed addresses, therefore the contracts cannot be discovered from the state trie.
+     */
+    public void requireContractDetails(Collection<ByteArrayWrapper> addresses, boolean last) {
+        if (enabled) {
+            requiredContracts.addAll(addresses);
+            frontier.add(
+                    DatabaseType.DETAILS,
+                    chain.getMissingTrieNodes(addresses, DatabaseType.DETAILS));
+            if (last) {
+                requiredAllContracts.set(true);
+            }
+        }
     }
 
-    /** Changes the pivot in case of import failure. */
+    /**
+     * Requests the given node again, possibly from a different peer, after it failed to be
+     * imported. A peer sending invalid data only delays the download of the node, since every
+     * response is verified against the requested key before it is imported.
+     */
     public void handleFailedImport(
             ByteArrayWrapper key, byte[] value, DatabaseType dbType, int peerId, String peer) {
         if (enabled) {
-            // TODO: received incorrect or inconsistent state: change pivot??
-            // TODO: consider case where someone purposely sends incorrect values
-            // TODO: decide on how far back to move the pivot
+            if (log.isDebugEnabled()) {
+                log.debug("<fast-sync failed import key={} db={} peer={}>", key, dbType, peer);
+            }
+            frontier.retry(dbType, key);
+        }
+    }
+
+    private static boolean isValidNode(DatabaseType dbType, ByteArrayWrapper key, byte[] value) {
+        if (value == null || value.length == 0) {
+            return false;
         }
+
+        if (dbType == DatabaseType.DETAILS) {
+            // the details are stored under the contract address
+            try {
+                RLPList details = (RLPList) RLP.decode2(value).get(0);
+                return Arrays.equals(details.get(0).getRLPData(), key.getData());
+            } catch (Exception e) {
+                return false;
+            }
+        } else {
+            return Arrays.equals(HashUtil.h256(value), key.getData());
+        }
+    }
+
+    private static Set<ByteArrayWrapper> getReferencedKeys(DatabaseType dbType, byte[] value) {
+        if (dbType == DatabaseType.DETAILS) {
+            return Collections.emptySet();
+        }
+
+        Set<ByteArrayWrapper> keys = new HashSet<>();
+        try {
+            for (byte[] key : TrieImpl.getReferencedKeys(value)) {
+                keys.add(ByteArrayWrapper.wrap(key));
+            }
+        } catch (Exception e) {
+            // not a valid trie node
+            return Collections.emptySet();
+        }
+        return keys;
+    }
+
+    /** Returns the storage root of the account stored in the given leaf of the world state. */
+    private static byte[] getStorageRoot(byte[] node) {
+        try {
+            RLPList items = (RLPList) RLP.decode2(node).get(0);
+            if (items.size() == 2 && CompactEncoder.hasTerminator(items.get(0).getRLPData())) {
+                return new AccountState(items.get(1).getRLPData()).getStateRoot();
+            }
+        } catch (Exception e) {
+            log.debug("<fast-sync unable to decode account>", e);
+        }
+        return null;
     }
 
     /**
@@ -147,6 +365,12 @@ public final class FastSyncManager {
             return;
         }
 
+        // the contracts can be found once the blocks and world state are complete
+        if (!requiredAllContracts.get()) {
+            requireCreatedContracts();
+            return;
+        }
+
         // ensure complete contract details data was received
         if (!isCompleteContractDetails()) {
             return;
@@ -188,35 +412,125 @@ public final class FastSyncManager {
         }
     }
 
+    /**
+     * The receipts of the blocks up to the pivot are not part of the required data: the sync
+     * protocol has no message for them and the blocks after the pivot are executed on top of the
+     * world state alone, producing their own receipts.
+     */
     private boolean isCompleteReceiptData() {
-        // TODO: integrated implementation from separate branch
-        return false;
+        return pivot != null;
     }
 
     private boolean isCompleteWorldState() {
-        // TODO: implement
-        return false;
+        return pivot != null
+                && frontier.isEmpty(DatabaseType.STATE)
+                && chain.getMissingTrieNodes(
+                                List.of(ByteArrayWrapper.wrap(pivot.getStateRoot())),
+                                DatabaseType.STATE)
+                        .isEmpty();
     }
 
     private boolean isCompleteContractDetails() {
-        // TODO: implement
-        return false;
+        // an empty frontier is only meaningful once all the contracts were required
+        if (!requiredAllContracts.get() || !frontier.isEmpty(DatabaseType.DETAILS)) {
+            return false;
+        }
+
+        if (contractCount < 0) {
+            contractCount = chain.getRepository().countContracts(pivot.getStateRoot());
+        }
+        if (requiredContracts.size() < contractCount) {
+            // contracts deployed by other contracts are not found in the transactions
+            log.warn(
+                    "<fast-sync contract details incomplete required={} contracts={}>",
+                    requiredContracts.size(),
+                    contractCount);
+            return false;
+        }
+        return true;
     }
 
     private boolean isCompleteStorage() {
-        // TODO: implement
-        return false;
+        // the storage tries are required from the imported account leaves
+        return frontier.isEmpty(DatabaseType.STORAGE);
     }
 
-    public void updateRequests(
-            ByteArrayWrapper topmostKey,
-            Set<ByteArrayWrapper> referencedKeys,
-            DatabaseType dbType) {
-        if (enabled) {
-            // TODO: check what's still missing and send out requests
-            // TODO: send state request to multiple peers
+    /**
+     * Requires the details of the contracts created by the transactions of the blocks up to the
+     * pivot that still hold code in the state at the pivot. The blocks are complete at this point
+     * and the addresses are found again after a restart.
+     */
+    private void requireCreatedContracts() {
+        Set<ByteArrayWrapper> created = new HashSet<>();
+        for (long number = 1; number <= pivot.getNumber(); number++) {
+            AionBlock block = chain.getBlockStore().getChainBlockByNumber(number);
+            for (AionTransaction tx : block.getTransactionsList()) {
+                if (tx.isContractCreationTransaction()) {
+                    created.add(ByteArrayWrapper.wrap(tx.getContractAddress().toBytes()));
+                }
+            }
+        }
+
+        requireContractDetails(
+                chain.getRepository().filterContracts(created, pivot.getStateRoot()), true);
+    }
+
+    /**
+     * Re-sends the requests that timed out and requests the missing trie nodes from all the peers
+     * that have reached the pivot, keeping a bounded number of requests in flight per peer.
+     */
+    public void updateRequests() {
+        if (!enabled || pivot == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        int expired = frontier.expire(now - REQUEST_TIMEOUT);
+        if (expired > 0 && log.isDebugEnabled()) {
+            log.debug("<fast-sync trie requests expired={}>", expired);
+        }
+
+        if (frontier.hasPending()) {
+            for (INode peer : p2pMgr.getActiveNodes().values()) {
+                if (peer.getBestBlockNumber() < pivot.getNumber()) {
+                    // the peer cannot provide the state at the pivot
+                    continue;
+                }
+
+                int peerId = peer.getIdHash();
+                int available = MAX_OUTSTANDING_PER_PEER - frontier.getOutstanding(peerId);
+                for (DatabaseType dbType : DatabaseType.values()) {
+                    if (available <= 0) {
+                        break;
+                    }
+
+                    List<ByteArrayWrapper> keys = frontier.assign(dbType, peerId, available, now);
+                    for (ByteArrayWrapper key : keys) {
+                        p2pMgr.send(
+                                peerId,
+                                peer.getIdShort(),
+                                new RequestTrieData(
+                                        key.getData(),
+                                        dbType,
+                                        TRIE_DATA_REQUEST_MAXIMUM_BATCH_SIZE));
+                    }
+                    available -= keys.size();
+                }
+            }
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "<fast-sync trie nodes required state={} details={} storage={}>",
+                    frontier.size(DatabaseType.STATE),
+                    frontier.size(DatabaseType.DETAILS),
+                    frontier.size(DatabaseType.STORAGE));
+        }
 
-            // TODO: check for completeness when no requests remain
+        // check for completeness when no requests remain
+        if (frontier.isEmpty(DatabaseType.STATE)
+                && frontier.isEmpty(DatabaseType.DETAILS)
+                && frontier.isEmpty(DatabaseType.STORAGE)) {
             ensureCompleteness();
         }
     }
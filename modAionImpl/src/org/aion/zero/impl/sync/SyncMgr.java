@@ -7,15 +7,18 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -32,7 +35,6 @@ import org.aion.util.bytes.ByteUtil;
 import org.aion.util.conversions.Hex;
 import org.aion.zero.impl.AionBlockchainImpl;
 import org.aion.zero.impl.blockchain.ChainConfiguration;
-import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.types.A0BlockHeader;
 import org.apache.commons.collections4.map.LRUMap;
 import org.slf4j.Logger;
@@ -49,11 +51,10 @@ public final class SyncMgr {
     private final Map<Integer, PeerState> peerStates = new ConcurrentHashMap<>();
     // store the downloaded headers from network
     private final BlockingQueue<HeadersWrapper> downloadedHeaders = new LinkedBlockingQueue<>();
-    // store the headers whose bodies have been requested from corresponding peer
-    private final ConcurrentHashMap<Integer, HeadersWrapper> headersWithBodiesRequested =
-            new ConcurrentHashMap<>();
     // store the downloaded blocks that are ready to import
     private final BlockingQueue<BlocksWrapper> downloadedBlocks = new LinkedBlockingQueue<>();
+    // track the headers whose bodies have been requested from peers
+    private final BodiesScheduler bodiesScheduler = new BodiesScheduler(downloadedBlocks, log);
     // store the hashes of blocks which have been successfully imported
     private final Map<ByteArrayWrapper, Object> importedBlockHashes =
             Collections.synchronizedMap(new LRUMap<>(4096));
@@ -75,6 +76,21 @@ public final class SyncMgr {
                             return new Thread(r, "sync-gh-" + cnt.incrementAndGet());
                         }
                     });
+    // verifies the solutions of the received headers, apart from the common fork-join pool
+    private final ExecutorService headerValidators =
+            Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(),
+                    new ThreadFactory() {
+
+                        private AtomicInteger cnt = new AtomicInteger(0);
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread t = new Thread(r, "sync-hv-" + cnt.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        }
+                    });
 
     private Thread syncGb = null;
     private Thread syncIb = null;
@@ -188,7 +204,7 @@ public final class SyncMgr {
                                 p2pMgr,
                                 start,
                                 downloadedHeaders,
-                                headersWithBodiesRequested,
+                                bodiesScheduler,
                                 peerStates,
                                 stats,
                                 log),
@@ -276,22 +292,35 @@ public final class SyncMgr {
                     _displayId);
         }
 
+        // ignore this batch if any invalidated header
+        Optional<A0BlockHeader> invalid;
+        try {
+            invalid = findInvalid(_headers);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            return;
+        } catch (ExecutionException e) {
+            log.debug("<header-validation failed node={}>", _displayId, e.getCause());
+            return;
+        }
+        if (invalid.isPresent()) {
+            A0BlockHeader current = invalid.get();
+            log.debug("<invalid-header num={} hash={}>", current.getNumber(), current.getHash());
+
+            // Print header to allow debugging
+            log.debug("Invalid header: {}", current.toString());
+
+            return;
+        }
+
         // filter imported block headers
         List<A0BlockHeader> filtered = new ArrayList<>();
         A0BlockHeader prev = null;
         for (A0BlockHeader current : _headers) {
 
-            // ignore this batch if any invalidated header
-            if (!this.blockHeaderValidator.validate(current, log)) {
-                log.debug(
-                        "<invalid-header num={} hash={}>", current.getNumber(), current.getHash());
-
-                // Print header to allow debugging
-                log.debug("Invalid header: {}", current.toString());
-
-                return;
-            }
-
             // break if not consisting
             if (prev != null
                     && (current.getNumber() != (prev.getNumber() + 1)
@@ -321,6 +350,34 @@ public final class SyncMgr {
         }
     }
 
+    /**
+     * Validates the given headers on the validation threads. The headers are independent, so
+     * their solutions are verified in parallel.
+     *
+     * @return the first invalid header, if any
+     */
+    private Optional<A0BlockHeader> findInvalid(List<A0BlockHeader> headers)
+            throws InterruptedException, ExecutionException {
+        List<Future<Boolean>> results = new ArrayList<>(headers.size());
+        try {
+            for (A0BlockHeader header : headers) {
+                results.add(
+                        headerValidators.submit(() -> blockHeaderValidator.validate(header, log)));
+            }
+            for (int i = 0; i < headers.size(); i++) {
+                if (!results.get(i).get()) {
+                    return Optional.of(headers.get(i));
+                }
+            }
+            return Optional.empty();
+        } finally {
+            // the remaining headers are not needed once one is invalid
+            for (Future<Boolean> result : results) {
+                result.cancel(false);
+            }
+        }
+    }
+
     /**
      * @param _nodeIdHashcode int
      * @param _displayId String
@@ -329,42 +386,16 @@ public final class SyncMgr {
      */
     public void validateAndAddBlocks(
             int _nodeIdHashcode, String _displayId, final List<byte[]> _bodies) {
-
-        HeadersWrapper hw = this.headersWithBodiesRequested.remove(_nodeIdHashcode);
-        if (hw == null || _bodies == null) {
+        if (_bodies == null) {
             return;
         }
 
-        // assemble batch
-        List<A0BlockHeader> headers = hw.getHeaders();
-        List<AionBlock> blocks = new ArrayList<>(_bodies.size());
-        Iterator<A0BlockHeader> headerIt = headers.iterator();
-        Iterator<byte[]> bodyIt = _bodies.iterator();
-        while (headerIt.hasNext() && bodyIt.hasNext()) {
-            AionBlock block = AionBlock.createBlockFromNetwork(headerIt.next(), bodyIt.next());
-            if (block == null) {
-                log.error("<assemble-and-validate-blocks node={}>", _displayId);
-                break;
-            } else {
-                blocks.add(block);
-            }
-        }
-
-        int m = blocks.size();
-        if (m == 0) {
-            return;
-        }
-
-        if (log.isDebugEnabled()) {
-            log.debug(
-                    "<incoming-bodies from={} size={} node={}>",
-                    blocks.get(0).getNumber(),
-                    blocks.size(),
-                    _displayId);
+        // assembled blocks are added to the import queue by the scheduler
+        if (!bodiesScheduler.received(
+                        _nodeIdHashcode, _displayId, _bodies, System.currentTimeMillis())
+                && log.isDebugEnabled()) {
+            log.debug("<unexpected-bodies size={} node={}>", _bodies.size(), _displayId);
         }
-
-        // add batch
-        downloadedBlocks.add(new BlocksWrapper(_nodeIdHashcode, _displayId, blocks));
     }
 
     public long getNetworkBestBlockNumber() {
@@ -376,6 +407,7 @@ public final class SyncMgr {
     public synchronized void shutdown() {
         start.set(false);
         workers.shutdown();
+        headerValidators.shutdown();
 
         interruptAndWait(syncGb, 10000);
         interruptAndWait(syncIb, 10000);
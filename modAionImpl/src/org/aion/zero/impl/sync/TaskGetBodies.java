@@ -1,12 +1,13 @@
 package org.aion.zero.impl.sync;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
 import org.aion.p2p.IP2pMgr;
+import org.aion.zero.impl.sync.BodiesScheduler.Request;
 import org.aion.zero.impl.sync.PeerState.State;
 import org.aion.zero.impl.sync.msg.ReqBlocksBodies;
 import org.aion.zero.impl.sync.statistics.RequestType;
@@ -20,13 +21,16 @@ import org.slf4j.Logger;
  */
 final class TaskGetBodies implements Runnable {
 
+    // time in milliseconds between checks for expired requests when no headers arrive
+    private static final long SCHEDULE_INTERVAL = 50;
+
     private final IP2pMgr p2p;
 
     private final AtomicBoolean run;
 
     private final BlockingQueue<HeadersWrapper> downloadedHeaders;
 
-    private final ConcurrentHashMap<Integer, HeadersWrapper> headersWithBodiesRequested;
+    private final BodiesScheduler scheduler;
 
     private final Map<Integer, PeerState> peerStates;
 
@@ -38,20 +42,20 @@ final class TaskGetBodies implements Runnable {
      * @param _p2p IP2pMgr
      * @param _run AtomicBoolean
      * @param _downloadedHeaders BlockingQueue
-     * @param _headersWithBodiesRequested ConcurrentHashMap
+     * @param _scheduler BodiesScheduler
      */
     TaskGetBodies(
             final IP2pMgr _p2p,
             final AtomicBoolean _run,
             final BlockingQueue<HeadersWrapper> _downloadedHeaders,
-            final ConcurrentHashMap<Integer, HeadersWrapper> _headersWithBodiesRequested,
+            final BodiesScheduler _scheduler,
             final Map<Integer, PeerState> peerStates,
             final SyncStats _stats,
             final Logger log) {
         this.p2p = _p2p;
         this.run = _run;
         this.downloadedHeaders = _downloadedHeaders;
-        this.headersWithBodiesRequested = _headersWithBodiesRequested;
+        this.scheduler = _scheduler;
         this.peerStates = peerStates;
         this.stats = _stats;
         this.log = log;
@@ -59,44 +63,57 @@ final class TaskGetBodies implements Runnable {
 
     @Override
     public void run() {
+        List<HeadersWrapper> batch = new ArrayList<>();
         while (run.get()) {
-            HeadersWrapper hw;
             try {
-                hw = downloadedHeaders.take();
+                HeadersWrapper hw =
+                        downloadedHeaders.poll(SCHEDULE_INTERVAL, TimeUnit.MILLISECONDS);
+                if (hw != null) {
+                    batch.add(hw);
+                    downloadedHeaders.drainTo(batch);
+                }
             } catch (InterruptedException e) {
                 continue;
             }
 
-            int idHash = hw.getNodeIdHash();
-            String displayId = hw.getDisplayId();
-            List<A0BlockHeader> headers = hw.getHeaders();
-            if (headers.isEmpty()) {
-                continue;
+            for (HeadersWrapper hw : batch) {
+                scheduler.add(hw);
             }
+            batch.clear();
 
-            if (log.isDebugEnabled()) {
-                log.debug(
-                        "<get-bodies from-num={} to-num={} node={}>",
-                        headers.get(0).getNumber(),
-                        headers.get(headers.size() - 1).getNumber(),
-                        hw.getDisplayId());
+            for (Request request :
+                    scheduler.schedule(p2p.getActiveNodes().values(), System.currentTimeMillis())) {
+                send(request);
             }
+        }
+    }
+
+    private void send(Request request) {
+        String displayId = request.getDisplayId();
+        List<A0BlockHeader> headers = request.getHeaders();
 
-            p2p.send(
-                    idHash,
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "<get-bodies from-num={} to-num={} node={} attempt={}>",
+                    headers.get(0).getNumber(),
+                    headers.get(headers.size() - 1).getNumber(),
                     displayId,
-                    new ReqBlocksBodies(
-                            headers.stream().map(k -> k.getHash()).collect(Collectors.toList())));
-            stats.updateTotalRequestsToPeer(displayId, RequestType.BODIES);
-            stats.updateRequestTime(displayId, System.nanoTime(), RequestType.BODIES);
+                    request.getAttempts());
+        }
 
-            headersWithBodiesRequested.put(idHash, hw);
+        p2p.send(request.getPeerId(), displayId, new ReqBlocksBodies(request.getHashes()));
+        stats.updateTotalRequestsToPeer(displayId, RequestType.BODIES);
+        stats.updateRequestTime(displayId, System.nanoTime(), RequestType.BODIES);
 
-            PeerState peerState = peerStates.get(hw.getNodeIdHash());
+        // the import of the blocks follows the state of the peer that sent the headers
+        if (request.getAttempts() == 1) {
+            PeerState peerState = peerStates.get(request.getOrigin());
             if (peerState != null) {
                 peerState.setState(State.BODIES_REQUESTED);
             } else {
-                log.warn("Peer {} sent blocks that were not requested.", hw.getDisplayId());
+                log.warn(
+                        "Peer {} sent blocks that were not requested.",
+                        request.getOriginDisplayId());
             }
         }
     }
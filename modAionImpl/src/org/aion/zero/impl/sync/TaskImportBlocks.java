@@ -20,6 +20,7 @@ import java.util.TreeSet;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import org.aion.mcf.core.ImportResult;
@@ -63,6 +64,8 @@ final class TaskImportBlocks implements Runnable {
 
     private long lastCompactTime;
 
+    private final TransactionPrefetcher prefetcher;
+
     TaskImportBlocks(
             final AionBlockchainImpl _chain,
             final AtomicBoolean _start,
@@ -85,6 +88,9 @@ final class TaskImportBlocks implements Runnable {
         this.slowImportTime = _slowImportTime;
         this.compactFrequency = _compactFrequency;
         this.lastCompactTime = System.currentTimeMillis();
+        this.prefetcher =
+                new TransactionPrefetcher(
+                        _chain, Runtime.getRuntime().availableProcessors(), _log);
     }
 
     ExecutorService executors =
@@ -143,6 +149,7 @@ final class TaskImportBlocks implements Runnable {
                             + "] performing block imports was shutdown.");
         }
         executors.shutdown();
+        prefetcher.shutdown();
     }
 
     /**
@@ -251,7 +258,12 @@ final class TaskImportBlocks implements Runnable {
         long first = -1L, last = -1L;
         ImportResult importResult;
 
+        // verify signatures, recover senders and check headers ahead of the execution
+        List<Future<?>> prefetched = prefetcher.prefetch(batch);
+        int index = 0;
+
         for (AionBlock b : batch) {
+            prefetcher.await(prefetched.get(index++));
             try {
                 importResult = importBlock(b, displayId, givenState);
 
@@ -280,6 +292,7 @@ final class TaskImportBlocks implements Runnable {
 
                 // if any block results in NO_PARENT, all subsequent blocks will too
                 if (importResult == ImportResult.NO_PARENT) {
+                    prefetcher.awaitAll(prefetched);
                     executors.submit(
                             new TaskStorePendingBlocks(chain, batch, displayId, syncStats, log));
 
@@ -367,6 +380,9 @@ final class TaskImportBlocks implements Runnable {
             }
         }
 
+        // ensure the remaining blocks are no longer processed
+        prefetcher.awaitAll(prefetched);
+
         // check for stored blocks
         if (first < last) {
             int imported = importFromStorage(state, first, last);
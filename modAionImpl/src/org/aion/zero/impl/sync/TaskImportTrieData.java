@@ -1,23 +1,33 @@
 package org.aion.zero.impl.sync;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.BlockingQueue;
-import java.util.stream.Collectors;
-import org.aion.types.ByteArrayWrapper;
+import java.util.concurrent.TimeUnit;
 import org.aion.mcf.trie.TrieNodeResult;
+import org.aion.types.ByteArrayWrapper;
 import org.aion.util.conversions.Hex;
 import org.aion.zero.impl.AionBlockchainImpl;
 import org.slf4j.Logger;
 
 /**
- * Processes the received trie nodes that were requested. The thread is shut down once the fast sync
- * manager indicates that the full trie is the complete.
+ * Processes the received trie nodes that were requested. The nodes from multiple responses are
+ * verified and written in batches. The thread is shut down once the fast sync manager indicates
+ * that the full trie is the complete.
  *
  * @author Alexandra Roatis
  */
 final class TaskImportTrieData implements Runnable {
 
+    /** Maximum number of responses combined into a single database write. */
+    private static final int MAX_BATCH_RESPONSES = 64;
+    /** Time in milliseconds to wait for responses before re-examining the requests. */
+    private static final long POLL_INTERVAL = 1_000L;
+
     private final Logger log;
     private final FastSyncManager fastSyncMgr;
 
@@ -50,9 +60,14 @@ final class TaskImportTrieData implements Runnable {
         Thread.currentThread().setPriority(Thread.MAX_PRIORITY);
 
         while (!fastSyncMgr.isComplete()) {
-            TrieNodeWrapper tnw;
+            List<TrieNodeWrapper> responses = new ArrayList<>();
             try {
-                tnw = trieNodes.take();
+                TrieNodeWrapper tnw = trieNodes.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (tnw != null) {
+                    responses.add(tnw);
+                    // combine the queued responses into larger writes
+                    trieNodes.drainTo(responses, MAX_BATCH_RESPONSES - 1);
+                }
             } catch (InterruptedException ex) {
                 if (!fastSyncMgr.isComplete()) {
                     log.error("<import-trie-nodes: interrupted without shutdown request>", ex);
@@ -60,82 +75,76 @@ final class TaskImportTrieData implements Runnable {
                 return;
             }
 
-            // filter nodes that already match imported values
-            Map<ByteArrayWrapper, byte[]> nodes = filterImported(tnw);
-
-            // skip batch if everything already imported
-            if (nodes.isEmpty()) {
-                continue;
+            // verified nodes grouped by database
+            Map<DatabaseType, Map<ByteArrayWrapper, byte[]>> batches =
+                    new EnumMap<>(DatabaseType.class);
+            Map<ByteArrayWrapper, TrieNodeWrapper> senders = new HashMap<>();
+            for (TrieNodeWrapper tnw : responses) {
+                Map<ByteArrayWrapper, byte[]> nodes = fastSyncMgr.filterVerified(tnw);
+                if (!nodes.isEmpty()) {
+                    batches.computeIfAbsent(tnw.getDbType(), t -> new HashMap<>()).putAll(nodes);
+                    for (ByteArrayWrapper key : nodes.keySet()) {
+                        senders.put(key, tnw);
+                    }
+                }
             }
 
-            DatabaseType dbType = tnw.getDbType();
-            String peer = tnw.getDisplayId();
-            ByteArrayWrapper key;
-            byte[] value;
-            boolean failed = false;
+            for (Entry<DatabaseType, Map<ByteArrayWrapper, byte[]>> e : batches.entrySet()) {
+                importNodes(e.getValue(), e.getKey(), senders);
+            }
 
-            for (Entry<ByteArrayWrapper, byte[]> e : nodes.entrySet()) {
-                key = e.getKey();
-                value = e.getValue();
+            // reexamine missing states and make further requests
+            fastSyncMgr.updateRequests();
+        }
 
-                TrieNodeResult result = chain.importTrieNode(key.getData(), value, dbType);
+        if (log.isDebugEnabled()) {
+            log.debug("<import-trie-nodes: shutdown>");
+        }
+    }
 
-                if (result.isSuccessful()) {
-                    fastSyncMgr.addImportedNode(key, value, dbType);
+    /** Stores the given nodes with a single write and updates the required nodes. */
+    private void importNodes(
+            Map<ByteArrayWrapper, byte[]> nodes,
+            DatabaseType dbType,
+            Map<ByteArrayWrapper, TrieNodeWrapper> senders) {
+        // the referenced nodes must be tracked before their parents are stored
+        fastSyncMgr.addReferencedNodes(nodes, dbType);
+
+        Map<ByteArrayWrapper, TrieNodeResult> results = chain.importTrieNodes(nodes, dbType);
+
+        List<ByteArrayWrapper> imported = new ArrayList<>();
+        for (Entry<ByteArrayWrapper, TrieNodeResult> e : results.entrySet()) {
+            ByteArrayWrapper key = e.getKey();
+            TrieNodeResult result = e.getValue();
+
+            if (result.isSuccessful()) {
+                imported.add(key);
+            } else {
+                byte[] value = nodes.get(key);
+                TrieNodeWrapper sender = senders.get(key);
+                String peer = sender == null ? null : sender.getDisplayId();
+                if (log.isDebugEnabled()) {
                     log.debug(
-                            "<import-trie-nodes: key={}, value length={}, db={}, result={}, peer={}>",
+                            "<import-trie-nodes-failed: key={}, value={}, db={}, result={}, peer={}>",
                             key,
-                            value.length,
+                            Hex.toHexString(value),
                             dbType,
                             result,
                             peer);
-                } else {
-                    if (log.isDebugEnabled()) {
-                        log.debug(
-                                "<import-trie-nodes-failed: key={}, value={}, db={}, result={}, peer={}>",
-                                key,
-                                Hex.toHexString(value),
-                                dbType,
-                                result,
-                                peer);
-                    }
-                    fastSyncMgr.handleFailedImport(key, value, dbType, tnw.getPeerId(), peer);
-                    failed = true;
-                    // exit this loop and ignore other imports
-                    break;
                 }
-            }
-
-            if (!failed) {
-                // reexamine missing states and make further requests
-                fastSyncMgr.updateRequests(
-                        tnw.getNodeKey(), tnw.getReferencedNodes().keySet(), tnw.getDbType());
+                fastSyncMgr.handleFailedImport(
+                        key, value, dbType, sender == null ? 0 : sender.getPeerId(), peer);
             }
         }
 
-        if (log.isDebugEnabled()) {
-            log.debug("<import-trie-nodes: shutdown>");
-        }
-    }
+        fastSyncMgr.addImportedNodes(imported, dbType);
 
-    /**
-     * Filters out trie nodes that have been imported when both the key and the value match the
-     * already imported data.
-     *
-     * @param wrapper the initial set of trie nodes to be imported
-     * @return the remaining nodes after the exact matches have been filtered out
-     */
-    private Map<ByteArrayWrapper, byte[]> filterImported(TrieNodeWrapper wrapper) {
-        Map<ByteArrayWrapper, byte[]> nodes =
-                wrapper.getReferencedNodes()
-                        .entrySet()
-                        .stream()
-                        .filter(e -> !fastSyncMgr.containsExact(e.getKey(), e.getValue()))
-                        .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
-
-        if (!fastSyncMgr.containsExact(wrapper.getNodeKey(), wrapper.getNodeValue())) {
-            nodes.put(wrapper.getNodeKey(), wrapper.getNodeValue());
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "<import-trie-nodes: db={}, imported={}, failed={}>",
+                    dbType,
+                    imported.size(),
+                    results.size() - imported.size());
         }
-        return nodes;
     }
 }
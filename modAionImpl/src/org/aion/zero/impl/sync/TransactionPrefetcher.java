@@ -0,0 +1,115 @@
+package org.aion.zero.impl.sync;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.aion.zero.impl.AionBlockchainImpl;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.valid.TXValidator;
+import org.aion.zero.types.A0BlockHeader;
+import org.aion.zero.types.AionTransaction;
+import org.slf4j.Logger;
+
+/**
+ * Import pipeline stage that prepares downloaded blocks ahead of their execution. For each
+ * transaction the hash is computed, the sender is recovered and the signature is verified on a
+ * dedicated worker pool, such that the work overlaps with the import of the preceding blocks. The
+ * header checks against the parent and grandparent are run in the same tasks, using the preceding
+ * headers of the batch.
+ *
+ * <p>The transaction hash and sender are memoized by the {@link AionTransaction} objects, the
+ * validation result is cached by the {@link TXValidator} and the valid headers are recorded by the
+ * {@link AionBlockchainImpl}, so the validation and execution of the block reuse the computed
+ * values.
+ *
+ * @implNote The transactions of a block must not be accessed by the import before the
+ *     corresponding task was awaited, since the lazy parsing of transactions is not thread-safe.
+ */
+final class TransactionPrefetcher {
+
+    private final AionBlockchainImpl chain;
+    private final ExecutorService workers;
+    private final Logger log;
+
+    TransactionPrefetcher(final AionBlockchainImpl _chain, final int threads, final Logger _log) {
+        this.chain = _chain;
+        this.log = _log;
+        this.workers =
+                Executors.newFixedThreadPool(
+                        threads,
+                        new ThreadFactory() {
+
+                            private AtomicInteger cnt = new AtomicInteger(0);
+
+                            @Override
+                            public Thread newThread(Runnable r) {
+                                Thread t = new Thread(r, "sync-tx-" + cnt.incrementAndGet());
+                                t.setDaemon(true);
+                                return t;
+                            }
+                        });
+    }
+
+    /**
+     * Submits the transactions of the given blocks for processing.
+     *
+     * @param blocks the blocks that will be imported next
+     * @return the tasks processing each block in the same order as the given list
+     */
+    List<Future<?>> prefetch(List<AionBlock> blocks) {
+        List<Future<?>> tasks = new ArrayList<>(blocks.size());
+        for (int i = 0; i < blocks.size(); i++) {
+            AionBlock block = blocks.get(i);
+            // headers outside the batch are loaded from the block store
+            A0BlockHeader parent = i > 0 ? blocks.get(i - 1).getHeader() : null;
+            A0BlockHeader grandParent = i > 1 ? blocks.get(i - 2).getHeader() : null;
+            tasks.add(workers.submit(() -> prepare(block, parent, grandParent)));
+        }
+        return tasks;
+    }
+
+    private void prepare(AionBlock block, A0BlockHeader parent, A0BlockHeader grandParent) {
+        for (AionTransaction tx : block.getTransactionsList()) {
+            tx.getTransactionHash();
+            tx.getSenderAddress();
+            TXValidator.isValid(tx);
+        }
+
+        if (!block.isGenesis()) {
+            chain.prevalidate(block.getHeader(), parent, grandParent);
+        }
+    }
+
+    /**
+     * Waits for the given task to complete. Failures are only logged since the import will redo
+     * any missing work and handle the errors.
+     */
+    void await(Future<?> task) {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Transaction prefetch failed.", e);
+            }
+        }
+    }
+
+    /** Waits for all the given tasks to complete. */
+    void awaitAll(List<Future<?>> tasks) {
+        for (Future<?> task : tasks) {
+            await(task);
+        }
+    }
+
+    void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,232 @@
+package org.aion.zero.impl.sync;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.aion.types.ByteArrayWrapper;
+
+/**
+ * Keeps track of the trie nodes that are still required by the fast sync process.
+ *
+ * <p>The frontier contains the keys of nodes that are referenced by already imported nodes but are
+ * missing from the local databases. Each key is either pending, i.e. waiting to be requested, or
+ * outstanding, i.e. requested from a peer and waiting for the response. The frontier is persisted
+ * such that the download can be resumed after a restart.
+ *
+ * @implNote The keys referenced by a node must be added to the frontier before the node is stored
+ *     and the node must be removed from the frontier after it is stored. Any node present in the
+ *     database therefore has either its full subtree stored or its missing descendants recorded in
+ *     the frontier.
+ */
+final class TrieFrontier {
+
+    private static final byte[] PIVOT_KEY = new byte[] {0};
+    private static final byte[] MARKER = new byte[] {1};
+
+    private final ByteArrayKeyValueDatabase database;
+
+    private final Map<DatabaseType, LinkedHashSet<ByteArrayWrapper>> pending =
+            new EnumMap<>(DatabaseType.class);
+    private final Map<DatabaseType, Map<ByteArrayWrapper, Request>> outstanding =
+            new EnumMap<>(DatabaseType.class);
+
+    /** Peer and time of an outstanding request. */
+    private static final class Request {
+        private final int peerId;
+        private final long time;
+
+        private Request(int peerId, long time) {
+            this.peerId = peerId;
+            this.time = time;
+        }
+    }
+
+    /**
+     * Loads the frontier stored in the given database.
+     *
+     * @param database the database where the frontier is persisted
+     */
+    TrieFrontier(ByteArrayKeyValueDatabase database) {
+        this.database = database;
+
+        for (DatabaseType type : DatabaseType.values()) {
+            pending.put(type, new LinkedHashSet<>());
+            outstanding.put(type, new HashMap<>());
+        }
+
+        DatabaseType[] types = DatabaseType.values();
+        Iterator<byte[]> keys = database.keys();
+        while (keys.hasNext()) {
+            byte[] key = keys.next();
+            if (key.length > 1 && key[0] > 0 && key[0] <= types.length) {
+                byte[] nodeKey = new byte[key.length - 1];
+                System.arraycopy(key, 1, nodeKey, 0, nodeKey.length);
+                pending.get(types[key[0] - 1]).add(ByteArrayWrapper.wrap(nodeKey));
+            }
+        }
+    }
+
+    /** Returns the stored encoding of the pivot block or {@code null} if not set. */
+    synchronized byte[] getPivot() {
+        Optional<byte[]> pivot = database.get(PIVOT_KEY);
+        return pivot.orElse(null);
+    }
+
+    /**
+     * Discards the current frontier and starts a new one from the state root of the given pivot.
+     *
+     * @param pivot the encoding of the pivot block
+     * @param stateRoot the state root of the pivot block
+     */
+    synchronized void reset(byte[] pivot, byte[] stateRoot) {
+        List<byte[]> keys = new ArrayList<>();
+        for (DatabaseType type : DatabaseType.values()) {
+            for (ByteArrayWrapper key : pending.get(type)) {
+                keys.add(toStoredKey(type, key));
+            }
+            for (ByteArrayWrapper key : outstanding.get(type).keySet()) {
+                keys.add(toStoredKey(type, key));
+            }
+            pending.get(type).clear();
+            outstanding.get(type).clear();
+        }
+        database.deleteBatch(keys);
+
+        database.put(PIVOT_KEY, pivot);
+        add(DatabaseType.STATE, List.of(ByteArrayWrapper.wrap(stateRoot)));
+    }
+
+    /** Adds the given keys to the pending requests, unless they are already part of the frontier. */
+    synchronized void add(DatabaseType type, Collection<ByteArrayWrapper> keys) {
+        Map<byte[], byte[]> batch = new HashMap<>();
+        for (ByteArrayWrapper key : keys) {
+            if (!outstanding.get(type).containsKey(key) && pending.get(type).add(key)) {
+                batch.put(toStoredKey(type, key), MARKER);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            database.putBatch(batch);
+        }
+    }
+
+    /** Removes the given keys after the corresponding nodes were stored. */
+    synchronized void remove(DatabaseType type, Collection<ByteArrayWrapper> keys) {
+        List<byte[]> batch = new ArrayList<>();
+        for (ByteArrayWrapper key : keys) {
+            boolean removed = pending.get(type).remove(key);
+            removed |= outstanding.get(type).remove(key) != null;
+            if (removed) {
+                batch.add(toStoredKey(type, key));
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            database.deleteBatch(batch);
+        }
+    }
+
+    /** Checks if the node with the given key is still required. */
+    synchronized boolean contains(DatabaseType type, ByteArrayWrapper key) {
+        return pending.get(type).contains(key) || outstanding.get(type).containsKey(key);
+    }
+
+    /** Moves an outstanding key back to the pending requests, e.g. after an invalid response. */
+    synchronized void retry(DatabaseType type, ByteArrayWrapper key) {
+        if (outstanding.get(type).remove(key) != null) {
+            pending.get(type).add(key);
+        }
+    }
+
+    /**
+     * Selects pending keys to be requested from the given peer and marks them as outstanding.
+     *
+     * @param type the database of the requested keys
+     * @param peerId the peer to which the requests will be sent
+     * @param max the maximum number of keys to select
+     * @param now the current time in milliseconds
+     * @return the selected keys
+     */
+    synchronized List<ByteArrayWrapper> assign(DatabaseType type, int peerId, int max, long now) {
+        List<ByteArrayWrapper> keys = new ArrayList<>();
+        Iterator<ByteArrayWrapper> it = pending.get(type).iterator();
+        while (keys.size() < max && it.hasNext()) {
+            ByteArrayWrapper key = it.next();
+            it.remove();
+            outstanding.get(type).put(key, new Request(peerId, now));
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    /** Returns the number of outstanding requests sent to the given peer. */
+    synchronized int getOutstanding(int peerId) {
+        int count = 0;
+        for (Map<ByteArrayWrapper, Request> requests : outstanding.values()) {
+            for (Request request : requests.values()) {
+                if (request.peerId == peerId) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Moves the requests sent before the given time back to the pending requests.
+     *
+     * @return the number of expired requests
+     */
+    synchronized int expire(long deadline) {
+        int count = 0;
+        for (DatabaseType type : DatabaseType.values()) {
+            Iterator<Map.Entry<ByteArrayWrapper, Request>> it =
+                    outstanding.get(type).entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<ByteArrayWrapper, Request> e = it.next();
+                if (e.getValue().time < deadline) {
+                    it.remove();
+                    pending.get(type).add(e.getKey());
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Checks if there are pending requests for any of the databases. */
+    synchronized boolean hasPending() {
+        for (Set<ByteArrayWrapper> keys : pending.values()) {
+            if (!keys.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the number of keys still required for the given database. */
+    synchronized int size(DatabaseType type) {
+        return pending.get(type).size() + outstanding.get(type).size();
+    }
+
+    /** Checks if all the nodes for the given database were imported. */
+    synchronized boolean isEmpty(DatabaseType type) {
+        return size(type) == 0;
+    }
+
+    private static byte[] toStoredKey(DatabaseType type, ByteArrayWrapper key) {
+        byte[] nodeKey = key.getData();
+        byte[] stored = new byte[nodeKey.length + 1];
+        stored[0] = (byte) (type.ordinal() + 1);
+        System.arraycopy(nodeKey, 0, stored, 1, nodeKey.length);
+        return stored;
+    }
+}
@@ -16,7 +16,6 @@ import org.aion.zero.impl.sync.Act;
 import org.aion.zero.impl.sync.SyncMgr;
 import org.aion.zero.impl.sync.msg.ReqBlocksBodies;
 import org.aion.zero.impl.sync.msg.ResBlocksBodies;
-import org.aion.zero.impl.types.AionBlock;
 import org.apache.commons.collections4.map.LRUMap;
 import org.slf4j.Logger;
 
@@ -71,22 +70,25 @@ public final class ReqBlocksBodiesHandler extends Handler {
 
             // read from cache, then block store
             int out = 0;
-            for (byte[] hash : hashes) {
-
-                // ref for add.
-                byte[] blockBytesForadd;
-
-                byte[] blockBytes = cache.get(ByteArrayWrapper.wrap(hash));
-
-                // if cached , add.
-                if (blockBytes != null) {
-                    blockBytesForadd = blockBytes;
-                } else {
-                    AionBlock block = blockchain.getBlockByHash(hash);
+            List<byte[]> stored = null;
+            int storedOffset = 0;
+            for (int i = 0; i < hashes.size(); i++) {
+                byte[] hash = hashes.get(i);
+                byte[] blockBytesForadd = cache.get(ByteArrayWrapper.wrap(hash));
+
+                // if not cached, read the remaining bodies together, which allows consecutive
+                // main chain blocks to be read sequentially from the block store
+                if (blockBytesForadd == null) {
+                    if (stored == null) {
+                        stored =
+                                blockchain.getListOfBodiesByHashes(
+                                        hashes.subList(i, hashes.size()));
+                        storedOffset = i;
+                    }
 
-                    if (block != null) {
-                        blockBytesForadd = block.getEncodedBody();
-                        cache.put(ByteArrayWrapper.wrap(hash), block.getEncodedBody());
+                    if (i - storedOffset < stored.size()) {
+                        blockBytesForadd = stored.get(i - storedOffset);
+                        cache.put(ByteArrayWrapper.wrap(hash), blockBytesForadd);
                     } else {
                         // not found
                         break;
@@ -6,8 +6,7 @@ import org.aion.p2p.Ctrl;
 import org.aion.p2p.Msg;
 import org.aion.p2p.Ver;
 import org.aion.rlp.RLP;
-import org.aion.rlp.RLPElement;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPReader;
 import org.aion.zero.impl.sync.Act;
 
 /**
@@ -24,11 +23,14 @@ public final class ResBlocksBodies extends Msg {
     }
 
     public static ResBlocksBodies decode(final byte[] _msgBytes) {
-        RLPList paramsList = (RLPList) RLP.decode2(_msgBytes).get(0);
+        RLPReader paramsList = new RLPReader(_msgBytes).readList();
         List<byte[]> blocksBodies = new ArrayList<>();
-        for (RLPElement aParamsList : paramsList) {
-            RLPList rlpData = ((RLPList) aParamsList);
-            blocksBodies.add(rlpData.getRLPData());
+        while (paramsList.hasNext()) {
+            // the bodies are decoded when the blocks are assembled
+            if (!paramsList.isNextList()) {
+                throw new IllegalArgumentException("The block body must be a list.");
+            }
+            blocksBodies.add(paramsList.readEncoded());
         }
         return new ResBlocksBodies(blocksBodies);
     }
@@ -6,8 +6,7 @@ import org.aion.p2p.Ctrl;
 import org.aion.p2p.Msg;
 import org.aion.p2p.Ver;
 import org.aion.rlp.RLP;
-import org.aion.rlp.RLPElement;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPReader;
 import org.aion.zero.impl.sync.Act;
 import org.aion.zero.types.A0BlockHeader;
 
@@ -25,11 +24,10 @@ public final class ResBlocksHeaders extends Msg {
         if (_msgBytes == null || _msgBytes.length == 0) return null;
         else {
             try {
-                RLPList list = (RLPList) RLP.decode2(_msgBytes).get(0);
+                RLPReader list = new RLPReader(_msgBytes).readList();
                 List<A0BlockHeader> blockHeaders = new ArrayList<>();
-                for (RLPElement aList : list) {
-                    RLPList rlpData = ((RLPList) aList);
-                    blockHeaders.add(A0BlockHeader.fromRLP(rlpData, true));
+                while (list.hasNext()) {
+                    blockHeaders.add(A0BlockHeader.fromRLP(list.readList(), true));
                 }
                 return new ResBlocksHeaders(blockHeaders);
             } catch (Exception ex) {
@@ -1,17 +1,16 @@
 package org.aion.zero.impl.types;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
-import org.aion.mcf.trie.Trie;
-import org.aion.mcf.trie.TrieImpl;
+import org.aion.mcf.trie.OrderedTrieRoot;
 import org.aion.mcf.types.AbstractBlock;
 import org.aion.rlp.RLP;
-import org.aion.rlp.RLPElement;
-import org.aion.rlp.RLPList;
+import org.aion.rlp.RLPReader;
 import org.aion.types.Address;
 import org.aion.types.ByteArrayWrapper;
 import org.aion.util.bytes.ByteUtil;
@@ -30,8 +29,9 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
     /* Private */
     private byte[] rlpEncoded;
     private volatile boolean parsed = false;
+    // set when the transactions were checked against the header on assembly
+    private volatile boolean txTrieRootValidated = false;
 
-    private Trie txsState;
 
     private BigInteger td = null;
 
@@ -47,6 +47,22 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
         this.parsed = true;
     }
 
+    /**
+     * Returns a copy of the given block whose header and total difficulty can be modified without
+     * affecting the original. Unlike the copy constructor, the transactions and the encoding are
+     * shared, since they are not modified once the block is built.
+     */
+    public static AionBlock copyOf(AionBlock block) {
+        AionBlock copy = new AionBlock();
+        copy.header = new A0BlockHeader(block.getHeader());
+        copy.transactionsList.addAll(block.getTransactionsList());
+        copy.rlpEncoded = block.rlpEncoded;
+        copy.td = block.td;
+        copy.txTrieRootValidated = block.txTrieRootValidated;
+        copy.parsed = true;
+        return copy;
+    }
+
     public AionBlock(byte[] rawData) {
         this.rlpEncoded = rawData;
     }
@@ -157,16 +173,13 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
         synchronized (this) {
             if (this.parsed) return;
 
-            RLPList params = RLP.decode2(rlpEncoded);
-            RLPList block = (RLPList) params.get(0);
+            RLPReader block = new RLPReader(rlpEncoded).readList();
 
             // Parse Header
-            RLPList header = (RLPList) block.get(0);
-            this.header = new A0BlockHeader(header);
+            this.header = new A0BlockHeader(block.readList());
 
             // Parse Transactions
-            RLPList txTransactions = (RLPList) block.get(1);
-            this.parseTxs(this.header.getTxTrieRoot(), txTransactions);
+            this.parseTxs(this.header.getTxTrieRoot(), block.readList());
 
             this.parsed = true;
         }
@@ -345,7 +358,6 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
         this.getHeader().setEnergyConsumed(energyUsed);
 
         this.transactionsList = txs;
-        this.txsState = null; // wipe the txsState after setting
     }
 
     @Override
@@ -392,20 +404,21 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
         return toStringBuff.toString();
     }
 
-    private void parseTxs(RLPList txTransactions) {
+    private List<byte[]> parseTxs(RLPReader txTransactions) {
 
-        this.txsState = new TrieImpl(null);
-        for (int i = 0; i < txTransactions.size(); i++) {
-            RLPElement transactionRaw = txTransactions.get(i);
-            this.transactionsList.add(new AionTransaction(transactionRaw.getRLPData()));
-            this.txsState.update(RLP.encodeInt(i), transactionRaw.getRLPData());
+        List<byte[]> encodings = new ArrayList<>();
+        while (txTransactions.hasNext()) {
+            byte[] encoding = txTransactions.readEncoded();
+            this.transactionsList.add(new AionTransaction(encoding));
+            encodings.add(encoding);
         }
+        return encodings;
     }
 
-    private boolean parseTxs(byte[] expectedRoot, RLPList txTransactions) {
+    private boolean parseTxs(byte[] expectedRoot, RLPReader txTransactions) {
 
-        parseTxs(txTransactions);
-        String calculatedRoot = Hex.toHexString(txsState.getRootHash());
+        List<byte[]> encodings = parseTxs(txTransactions);
+        String calculatedRoot = Hex.toHexString(OrderedTrieRoot.calculate(encodings));
         if (!calculatedRoot.equals(Hex.toHexString(expectedRoot))) {
             LOG.debug(
                     "Transactions trie root validation failed for block #{}",
@@ -416,6 +429,14 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
         return true;
     }
 
+    /**
+     * Checks if the transactions trie root was computed from the transactions of this block and
+     * matched the one in the header, allowing the import to skip recomputing it.
+     */
+    public boolean isTxTrieRootValidated() {
+        return this.txTrieRootValidated;
+    }
+
     public boolean isGenesis() {
         return this.header.isGenesis();
     }
@@ -496,34 +517,33 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
         block.header = header;
         block.parsed = true;
 
-        RLPList items = (RLPList) RLP.decode2(body).get(0);
-        RLPList transactions = (RLPList) items.get(0);
+        RLPReader transactions = new RLPReader(body).readList().readList();
 
         if (!block.parseTxs(header.getTxTrieRoot(), transactions)) {
             return null;
         }
+        block.txTrieRootValidated = true;
 
         return block;
     }
 
     public static AionBlock fromRLP(byte[] rlpEncoded, boolean isUnsafe) {
-        RLPList params = RLP.decode2(rlpEncoded);
+        RLPReader params = new RLPReader(rlpEncoded);
 
-        // ensuring the expected types list before type casting
-        if (params.get(0) instanceof RLPList) {
-            RLPList blockRLP = (RLPList) params.get(0);
+        // ensuring the expected types list before reading them
+        if (params.hasNext() && params.isNextList()) {
+            RLPReader blockRLP = params.readList();
 
-            if (blockRLP.get(0) instanceof RLPList && blockRLP.get(1) instanceof RLPList) {
+            if (blockRLP.hasNext() && blockRLP.isNextList()) {
 
                 // Parse Header
-                RLPList headerRLP = (RLPList) blockRLP.get(0);
                 A0BlockHeader header;
                 try {
-                    header = A0BlockHeader.fromRLP(headerRLP, isUnsafe);
+                    header = A0BlockHeader.fromRLP(blockRLP.readList(), isUnsafe);
                 } catch (Exception e) {
                     return null;
                 }
-                if (header == null) {
+                if (header == null || !blockRLP.hasNext() || !blockRLP.isNextList()) {
                     return null;
                 }
 
@@ -532,8 +552,7 @@ public class AionBlock extends AbstractBlock<A0BlockHeader, AionTransaction> imp
                 block.parsed = true;
 
                 // Parse Transactions
-                RLPList transactions = (RLPList) blockRLP.get(1);
-                if (!block.parseTxs(header.getTxTrieRoot(), transactions)) {
+                if (!block.parseTxs(header.getTxTrieRoot(), blockRLP.readList())) {
                     return null;
                 }
 
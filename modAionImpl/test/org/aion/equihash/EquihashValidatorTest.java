@@ -1635,6 +1635,30 @@ public class EquihashValidatorTest {
         assertFalse(v.isValidSolution(solution, header, nonce));
     }
 
+    @Test
+    @Parameters(method = "blockHeaders")
+    public void testCachedSolution_wOtherSolution(A0BlockHeader blockHeader) {
+
+        byte[] solution = blockHeader.getSolution();
+        byte[] header = blockHeader.getMineHash();
+        byte[] nonce = blockHeader.getNonce();
+
+        // caches the solution for the header and nonce
+        OptimizedEquiValidator ov = new OptimizedEquiValidator(210, 9);
+        assertTrue(ov.isValidSolution(solution, header, nonce));
+
+        // a different solution for the same header and nonce does not match the cached one
+        byte[] other = Arrays.copyOf(solution, solution.length);
+        other[other.length - 1] += 1;
+        OptimizedEquiValidator cached = new OptimizedEquiValidator(210, 9);
+        assertFalse(cached.isValidSolution(other, header, nonce));
+        assertFalse(cached.isValidSolutionNative(other, header, nonce));
+
+        // the cached solution is still accepted
+        assertTrue(cached.isValidSolution(solution, header, nonce));
+        assertTrue(cached.isValidSolutionNative(solution, header, nonce));
+    }
+
     public static Object blockHeaders() {
         return TestResources.blockHeaders();
     }
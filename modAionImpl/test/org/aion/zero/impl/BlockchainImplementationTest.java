@@ -716,4 +716,35 @@ public class BlockchainImplementationTest {
         assertThat(chain.getRepository().getBlockDatabase().get(best.getParentHash()))
                 .isNotEqualTo(Optional.empty());
     }
+
+    @Test
+    public void testPrevalidate() throws HeaderStructureException {
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build();
+        StandaloneBlockchain chain = bundle.bc;
+
+        AionBlock first = chain.createNewBlock(chain.getGenesis(), Collections.emptyList(), true);
+        assertThat(chain.prevalidate(first.getHeader(), null, null)).isTrue();
+        assertThat(chain.tryToConnect(first)).isEqualTo(ImportResult.IMPORTED_BEST);
+
+        // the parent is unknown
+        A0BlockHeader orphan =
+                new A0BlockHeader.Builder()
+                        .withParentHash(HashUtil.h256(new byte[] {1}))
+                        .withNumber(2)
+                        .build();
+        assertThat(chain.prevalidate(orphan, null, null)).isFalse();
+
+        // the number does not follow the parent
+        A0BlockHeader invalid =
+                new A0BlockHeader.Builder()
+                        .withParentHash(first.getHash())
+                        .withNumber(5)
+                        .build();
+        assertThat(chain.prevalidate(invalid, first.getHeader(), chain.getGenesis().getHeader()))
+                .isFalse();
+    }
 }
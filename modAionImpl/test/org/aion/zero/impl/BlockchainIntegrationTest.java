@@ -8,6 +8,8 @@ import java.util.Collections;
 import org.aion.crypto.ECKey;
 import org.aion.crypto.HashUtil;
 import org.aion.interfaces.db.Repository;
+import org.aion.interfaces.db.RepositoryConfig;
+import org.aion.mcf.config.CfgPrune;
 import org.aion.mcf.core.ImportResult;
 import org.aion.types.Address;
 import org.aion.util.bytes.ByteUtil;
@@ -155,6 +157,118 @@ public class BlockchainIntegrationTest {
                                 .subtract(BigInteger.valueOf(100)));
     }
 
+    @Test
+    public void testExtendBlockTemplate() {
+        checkExtendBlockTemplate(new MockRepositoryConfig(new CfgPrune(false)));
+    }
+
+    @Test
+    public void testExtendBlockTemplateWithPruning() {
+        checkExtendBlockTemplate(new MockRepositoryConfig(new CfgPrune(10)));
+    }
+
+    private static void checkExtendBlockTemplate(RepositoryConfig repoConfig) {
+        final Address receiverAddress =
+                Address.wrap(
+                        ByteUtil.hexStringToBytes(
+                                "CAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFE"));
+
+        StandaloneBlockchain.Bundle bundle =
+                (new StandaloneBlockchain.Builder())
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .withRepoConfig(repoConfig)
+                        .build();
+        StandaloneBlockchain bc = bundle.bc;
+        final ECKey sender = bundle.privateKeys.get(0);
+
+        AionTransaction[] txs = new AionTransaction[3];
+        for (int i = 0; i < txs.length; i++) {
+            txs[i] =
+                    new AionTransaction(
+                            BigInteger.valueOf(i).toByteArray(),
+                            receiverAddress,
+                            BigInteger.valueOf(100).toByteArray(),
+                            ByteUtil.EMPTY_BYTE_ARRAY,
+                            21000L,
+                            1L);
+            txs[i].sign(sender);
+        }
+
+        AionBlock parent = bc.getBestBlock();
+        long time = System.currentTimeMillis() / 1000;
+        AionBlock first = bc.createBlock(parent, Arrays.asList(txs[0]), false, time);
+        // only the new transactions are executed, each time on top of the previous template
+        AionBlock second = bc.createBlock(parent, Arrays.asList(txs[0], txs[1]), false, time + 1);
+        AionBlock third = bc.createBlock(parent, Arrays.asList(txs), false, time + 2);
+
+        // the transfers do not depend on the block time, which is refreshed
+        assertThat(second.getTimestamp()).isEqualTo(first.getTimestamp() + 1);
+        assertThat(third.getTimestamp()).isEqualTo(first.getTimestamp() + 2);
+        assertThat(third.getTransactionsList()).containsExactlyElementsIn(txs).inOrder();
+        assertThat(third.getNrgConsumed()).isEqualTo(3 * first.getNrgConsumed());
+
+        // the roots of the extended template match a full execution of the block
+        StandaloneBlockchain other =
+                (new StandaloneBlockchain.Builder())
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts(bundle.privateKeys)
+                        .withRepoConfig(repoConfig)
+                        .build()
+                        .bc;
+        assertThat(other.tryToConnect(new AionBlock(third.getEncoded())))
+                .isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(other.getRepository().getBalance(receiverAddress))
+                .isEqualTo(BigInteger.valueOf(300));
+
+        // and the changes kept from building it
+        assertThat(bc.tryToConnect(third)).isEqualTo(ImportResult.IMPORTED_BEST);
+        assertThat(bc.getRepository().getRoot()).isEqualTo(other.getRepository().getRoot());
+    }
+
+    @Test
+    public void testImportSealedTemplate() {
+        final Address receiverAddress =
+                Address.wrap(
+                        ByteUtil.hexStringToBytes(
+                                "CAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFECAFE"));
+
+        StandaloneBlockchain.Bundle bundle =
+                (new StandaloneBlockchain.Builder())
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build();
+        StandaloneBlockchain bc = bundle.bc;
+        final ECKey sender = bundle.privateKeys.get(0);
+
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.valueOf(0).toByteArray(),
+                        receiverAddress,
+                        BigInteger.valueOf(100).toByteArray(),
+                        ByteUtil.EMPTY_BYTE_ARRAY,
+                        21000L,
+                        1L);
+        tx.sign(sender);
+
+        BlockContext context =
+                bc.createNewBlockContext(bc.getBestBlock(), Collections.singletonList(tx), false);
+        assertThat(context.stateDelta).isNotNull();
+        assertThat(context.summary.getReceipts()).hasSize(1);
+
+        Pair<ImportResult, AionBlockSummary> result =
+                bc.tryToConnectAndFetchSummary(context.block);
+        assertThat(result.getLeft()).isEqualTo(ImportResult.IMPORTED_BEST);
+
+        // the receipts of the template are kept instead of executing the block again
+        assertThat(result.getRight().getReceipts().get(0))
+                .isSameAs(context.summary.getReceipts().get(0));
+        assertThat(bc.getRepository().getBalance(receiverAddress))
+                .isEqualTo(BigInteger.valueOf(100));
+        assertThat(bc.getRepository().getBalance(context.block.getCoinbase()))
+                .isEqualTo(context.baseBlockReward.add(context.transactionFee));
+    }
+
     @Test
     public void testAppendIncorrectTimestampBlock() {
         StandaloneBlockchain.Bundle bundle =
@@ -0,0 +1,156 @@
+package org.aion.zero.impl.blockchain;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.aion.crypto.ECKey;
+import org.aion.interfaces.db.RepositoryCache;
+import org.aion.mcf.blockchain.TxResponse;
+import org.aion.mcf.core.ImportResult;
+import org.aion.types.Address;
+import org.aion.util.conversions.Hex;
+import org.aion.zero.impl.StandaloneBlockchain;
+import org.aion.zero.impl.config.CfgAion;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.types.AionBlockSummary;
+import org.aion.zero.impl.vm.contracts.ContractUtils;
+import org.aion.zero.types.AionTransaction;
+import org.aion.zero.types.AionTxExecSummary;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+public class AionPendingStateImplTest {
+    private static final long ENERGY_PRICE = 10_000_000_000L;
+
+    /**
+     * Checks that rebasing the pending state on a new best block gives the same state as executing
+     * the whole pool again on top of the block.
+     */
+    @Test
+    public void testRebaseStateMatchesUpdateState() throws IOException {
+        StandaloneBlockchain.Bundle bundle =
+                new StandaloneBlockchain.Builder()
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build();
+        StandaloneBlockchain bc = bundle.bc;
+        List<ECKey> keys = bundle.privateKeys;
+
+        CfgAion.inst().setGenesis(bc.getGenesis());
+
+        AionPendingStateImpl rebased =
+                AionPendingStateImpl.createForTesting(CfgAion.inst(), bc, bc.getRepository());
+        rebased.processBest(bc.getBestBlock(), Collections.emptyList());
+
+        AionTransaction deploy =
+                transaction(
+                        keys.get(0),
+                        0,
+                        null,
+                        0,
+                        ContractUtils.getContractDeployer("Ticker.sol", "Ticker"),
+                        5_000_000);
+        AionBlockSummary summary = importBlock(bc, Collections.singletonList(deploy));
+        rebased.processBest(summary.getBlock(), summary.getReceipts());
+        Address ticker = deploy.getContractAddress();
+        byte[] tick = Hex.decode("dae29f29");
+
+        // a transfer unaffected by the next block
+        addPending(rebased, transaction(keys.get(1), 0, address(keys.get(2)), 100, null, 21_000));
+        // a transfer included in the next block, followed by one from the same sender
+        AionTransaction included =
+                transaction(keys.get(3), 0, address(keys.get(4)), 100, null, 21_000);
+        addPending(rebased, included);
+        addPending(rebased, transaction(keys.get(3), 1, address(keys.get(5)), 100, null, 21_000));
+        // a transfer from the recipient of the previous transaction
+        addPending(rebased, transaction(keys.get(5), 0, address(keys.get(6)), 50, null, 21_000));
+        // a call whose result depends on the block and on the state of the contract
+        addPending(rebased, transaction(keys.get(6), 0, ticker, 0, tick, 2_000_000));
+        // a transfer to an account modified by the next block
+        addPending(rebased, transaction(keys.get(7), 0, address(keys.get(0)), 100, null, 21_000));
+        // a transfer to the coinbase
+        addPending(
+                rebased,
+                transaction(keys.get(8), 0, bc.getBestBlock().getCoinbase(), 100, null, 21_000));
+
+        summary =
+                importBlock(
+                        bc,
+                        Arrays.asList(
+                                included,
+                                transaction(keys.get(0), 1, ticker, 0, tick, 2_000_000)));
+        AionBlock block = summary.getBlock();
+
+        rebased.processBest(block, summary.getReceipts(), getTouchedAccounts(summary));
+
+        AionPendingStateImpl updated =
+                AionPendingStateImpl.createForTesting(CfgAion.inst(), bc, bc.getRepository());
+        updated.processBest(block, summary.getReceipts());
+
+        assertThat(rebased.getPendingTransactions())
+                .containsExactlyElementsIn(updated.getPendingTransactions());
+
+        Set<Address> accounts = new HashSet<>();
+        for (ECKey key : keys) {
+            accounts.add(address(key));
+        }
+        accounts.add(block.getCoinbase());
+        accounts.add(ticker);
+
+        RepositoryCache<?, ?> rebasedState = rebased.getRepository();
+        RepositoryCache<?, ?> updatedState = updated.getRepository();
+        for (Address account : accounts) {
+            assertThat(rebasedState.getBalance(account))
+                    .isEqualTo(updatedState.getBalance(account));
+            assertThat(rebasedState.getNonce(account)).isEqualTo(updatedState.getNonce(account));
+        }
+    }
+
+    private static AionBlockSummary importBlock(
+            StandaloneBlockchain bc, List<AionTransaction> txs) {
+        AionBlock parent = bc.getBestBlock();
+        AionBlock block = bc.createBlock(parent, txs, false, parent.getTimestamp());
+        assertThat(block.getTransactionsList()).hasSize(txs.size());
+
+        Pair<ImportResult, AionBlockSummary> result = bc.tryToConnectAndFetchSummary(block);
+        assertThat(result.getLeft()).isEqualTo(ImportResult.IMPORTED_BEST);
+        return result.getRight();
+    }
+
+    private static Set<Address> getTouchedAccounts(AionBlockSummary summary) {
+        Set<Address> accounts = new HashSet<>(summary.getRewards().keySet());
+        accounts.add(summary.getBlock().getCoinbase());
+        for (AionTxExecSummary txSummary : summary.getSummaries()) {
+            accounts.addAll(txSummary.getTouchedAccounts());
+        }
+        return accounts;
+    }
+
+    private static void addPending(AionPendingStateImpl pendingState, AionTransaction tx) {
+        assertThat(pendingState.addPendingTransaction(tx)).isEqualTo(TxResponse.SUCCESS);
+    }
+
+    private static Address address(ECKey key) {
+        return Address.wrap(key.getAddress());
+    }
+
+    private static AionTransaction transaction(
+            ECKey sender, long nonce, Address to, long value, byte[] data, long energy) {
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.valueOf(nonce).toByteArray(),
+                        to,
+                        BigInteger.valueOf(value).toByteArray(),
+                        data == null ? new byte[0] : data,
+                        energy,
+                        ENERGY_PRICE);
+        tx.sign(sender);
+        return tx;
+    }
+}
@@ -3,6 +3,7 @@ package org.aion.zero.impl.db;
 import static com.google.common.truth.Truth.assertThat;
 
 import java.math.BigInteger;
+import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
 
@@ -452,4 +453,71 @@ public class AionRepositoryImplTest {
         value = db.get(altNodeKey);
         assertThat(value.isPresent()).isFalse();
     }
+
+    @Test
+    public void testCommittedSnapshotIsolatedFromUncommittedChanges() {
+        AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
+        Address account = Address.wrap(ByteUtil.hexStringToBytes(value1));
+
+        RepositoryCache track = repository.startTracking();
+        track.addBalance(account, BigInteger.ONE);
+        track.flush();
+        repository.flush();
+        byte[] root = repository.getRoot();
+
+        // publish the flushed state for readers
+        repository.publishSnapshot(root);
+        AionRepositoryImpl snapshot = repository.getCommittedSnapshot();
+        assertThat(snapshot.getBalance(account)).isEqualTo(BigInteger.ONE);
+
+        track = repository.startTracking();
+        track.addBalance(account, BigInteger.ONE);
+        track.flush();
+
+        // uncommitted updates do not affect the published snapshot
+        assertThat(repository.getBalance(account)).isEqualTo(BigInteger.TWO);
+        assertThat(repository.getCommittedSnapshot()).isSameAs(snapshot);
+        assertThat(snapshot.getBalance(account)).isEqualTo(BigInteger.ONE);
+    }
+
+    @Test
+    public void testCommittedSnapshotNotPublishedOnRootChange() {
+        AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
+        Address account = Address.wrap(ByteUtil.hexStringToBytes(value1));
+        byte[] emptyRoot = repository.getRoot();
+
+        RepositoryCache track = repository.startTracking();
+        track.addBalance(account, BigInteger.ONE);
+        track.flush();
+        repository.flush();
+        byte[] root = repository.getRoot();
+        repository.publishSnapshot(root);
+        AionRepositoryImpl snapshot = repository.getCommittedSnapshot();
+
+        // roots set while importing forks or recovering the state are not visible to readers
+        repository.syncToRoot(emptyRoot);
+        assertThat(repository.getCommittedSnapshot()).isSameAs(snapshot);
+        repository.setRoot(emptyRoot);
+        assertThat(repository.getCommittedSnapshot()).isSameAs(snapshot);
+        assertThat(snapshot.getBalance(account)).isEqualTo(BigInteger.ONE);
+    }
+
+    @Test
+    public void testPrefetchAccountsDoesNotModifyState() {
+        AionRepositoryImpl repository = AionRepositoryImpl.createForTesting(repoConfig);
+        Address account = Address.wrap(ByteUtil.hexStringToBytes(value1));
+        Address missing = Address.wrap(ByteUtil.hexStringToBytes(value2));
+
+        RepositoryCache track = repository.startTracking();
+        track.addBalance(account, BigInteger.ONE);
+        track.flush();
+        repository.flush();
+        byte[] root = repository.getRoot();
+
+        repository.prefetchAccounts(List.of(account, missing));
+
+        assertThat(repository.getRoot()).isEqualTo(root);
+        assertThat(repository.getBalance(account)).isEqualTo(BigInteger.ONE);
+        assertThat(repository.hasAccountState(missing)).isFalse();
+    }
 }
@@ -0,0 +1,163 @@
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.mcf.db.DatabaseUtils.deleteRecursively;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BlockArchiveTest {
+
+    private File dir;
+    private Random random = new Random(1);
+
+    @Before
+    public void setup() {
+        dir = new File(System.getProperty("user.dir"), "tmp-" + System.currentTimeMillis());
+    }
+
+    @After
+    public void teardown() {
+        deleteRecursively(dir);
+    }
+
+    private List<byte[]> randomEncodings(int count) {
+        List<byte[]> encodings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            byte[] encoding = new byte[1 + random.nextInt(1000)];
+            random.nextBytes(encoding);
+            encodings.add(encoding);
+        }
+        return encodings;
+    }
+
+    @Test
+    public void testAppendAndGet() throws IOException {
+        List<byte[]> encodings = randomEncodings(100);
+
+        try (BlockArchive archive = new BlockArchive(dir)) {
+            assertThat(archive.size()).isEqualTo(0);
+            assertThat(archive.get(0)).isNull();
+
+            for (byte[] encoding : encodings) {
+                archive.append(encoding);
+            }
+
+            assertThat(archive.size()).isEqualTo(100);
+            for (int i = 0; i < encodings.size(); i++) {
+                assertThat(archive.getEncoded(i)).isEqualTo(encodings.get(i));
+            }
+            assertThat(archive.get(100)).isNull();
+
+            ByteBuffer view = archive.get(10);
+            assertThat(view.isReadOnly()).isTrue();
+            assertThat(view.remaining()).isEqualTo(encodings.get(10).length);
+        }
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        List<byte[]> encodings = randomEncodings(100);
+
+        try (BlockArchive archive = new BlockArchive(dir)) {
+            for (byte[] encoding : encodings) {
+                archive.append(encoding);
+            }
+        }
+
+        try (BlockArchive archive = new BlockArchive(dir)) {
+            assertThat(archive.size()).isEqualTo(100);
+            for (int i = 0; i < encodings.size(); i++) {
+                assertThat(archive.getEncoded(i)).isEqualTo(encodings.get(i));
+            }
+
+            // appending continues after the last block
+            byte[] next = randomEncodings(1).get(0);
+            archive.append(next);
+            assertThat(archive.getEncoded(100)).isEqualTo(next);
+            assertThat(archive.getEncoded(99)).isEqualTo(encodings.get(99));
+        }
+    }
+
+    @Test
+    public void testTruncate() throws IOException {
+        List<byte[]> encodings = randomEncodings(100);
+        List<byte[]> replacements = randomEncodings(20);
+
+        try (BlockArchive archive = new BlockArchive(dir)) {
+            for (byte[] encoding : encodings) {
+                archive.append(encoding);
+            }
+
+            archive.truncate(50);
+            assertThat(archive.size()).isEqualTo(50);
+            assertThat(archive.get(50)).isNull();
+
+            for (byte[] encoding : replacements) {
+                archive.append(encoding);
+            }
+        }
+
+        try (BlockArchive archive = new BlockArchive(dir)) {
+            assertThat(archive.size()).isEqualTo(70);
+            for (int i = 0; i < 50; i++) {
+                assertThat(archive.getEncoded(i)).isEqualTo(encodings.get(i));
+            }
+            for (int i = 0; i < 20; i++) {
+                assertThat(archive.getEncoded(50 + i)).isEqualTo(replacements.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testIndexWrittenOnFlush() throws IOException {
+        File index = new File(dir, "index");
+
+        try (BlockArchive archive = new BlockArchive(dir)) {
+            for (byte[] encoding : randomEncodings(10)) {
+                archive.append(encoding);
+            }
+            assertThat(index.length()).isEqualTo(0);
+
+            archive.flush();
+            assertThat(index.length()).isEqualTo(10 * Long.BYTES);
+        }
+    }
+
+    @Test
+    public void testReopenDropsIncompleteEntries() throws IOException {
+        List<byte[]> encodings = randomEncodings(10);
+
+        try (BlockArchive archive = new BlockArchive(dir)) {
+            for (byte[] encoding : encodings) {
+                archive.append(encoding);
+            }
+        }
+
+        // an entry pointing past the last record followed by a partial entry
+        try (RandomAccessFile index = new RandomAccessFile(new File(dir, "index"), "rw")) {
+            index.seek(index.length());
+            index.writeLong(1_000_000L);
+            index.write(new byte[] {1, 2, 3});
+        }
+
+        try (BlockArchive archive = new BlockArchive(dir)) {
+            assertThat(archive.size()).isEqualTo(10);
+            for (int i = 0; i < encodings.size(); i++) {
+                assertThat(archive.getEncoded(i)).isEqualTo(encodings.get(i));
+            }
+
+            byte[] next = randomEncodings(1).get(0);
+            archive.append(next);
+            assertThat(archive.getEncoded(10)).isEqualTo(next);
+        }
+    }
+}
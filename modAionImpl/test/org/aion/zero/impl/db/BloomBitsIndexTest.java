@@ -0,0 +1,129 @@
+package org.aion.zero.impl.db;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.zero.impl.db.BloomBitsIndex.SECTION_SIZE;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.aion.mcf.vm.types.Bloom;
+import org.aion.zero.impl.types.AionBlock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BloomBitsIndexTest {
+
+    private ByteArrayKeyValueDatabase database = new MockDB("bloomBits");
+    private AionBlockStore blockStore = mock(AionBlockStore.class);
+
+    private Bloom topicA = Bloom.create(new byte[] {1, 2, 3, 4, 5, 6});
+    private Bloom topicB = Bloom.create(new byte[] {7, 8, 9, 10, 11, 12});
+
+    @Before
+    public void setup() {
+        database.open();
+    }
+
+    @After
+    public void teardown() {
+        database.close();
+    }
+
+    /** Mocks two sections of main chain blocks with the given blooms at the given numbers. */
+    private void mockChain(long numberA, long numberB, long numberAB, byte[] lastHash) {
+        List<AionBlock> blocks = new ArrayList<>();
+        for (long number = 0; number < 2 * SECTION_SIZE; number++) {
+            Bloom bloom = new Bloom();
+            if (number == numberA || number == numberAB) {
+                bloom.or(topicA);
+            }
+            if (number == numberB || number == numberAB) {
+                bloom.or(topicB);
+            }
+
+            AionBlock block = mock(AionBlock.class);
+            when(block.getNumber()).thenReturn(number);
+            when(block.getLogBloom()).thenReturn(bloom.getBloomFilterBytes());
+            when(block.getHash()).thenReturn(number == SECTION_SIZE - 1 ? lastHash : new byte[32]);
+            blocks.add(block);
+        }
+
+        when(blockStore.getChainBlockByNumber(0)).thenReturn(blocks.get(0));
+        when(blockStore.getBlocksByRange(1, SECTION_SIZE - 1))
+                .thenReturn(blocks.subList(1, SECTION_SIZE));
+        when(blockStore.getBlocksByRange(SECTION_SIZE, 2 * SECTION_SIZE - 1))
+                .thenReturn(blocks.subList(SECTION_SIZE, 2 * SECTION_SIZE));
+        when(blockStore.getBlockHashByNumber(SECTION_SIZE - 1)).thenReturn(lastHash);
+        when(blockStore.getBlockHashByNumber(2 * SECTION_SIZE - 1)).thenReturn(new byte[32]);
+    }
+
+    @Test
+    public void testGetCandidates() {
+        byte[] hash = new byte[] {1};
+        mockChain(10, 20, SECTION_SIZE + 5, hash);
+
+        BloomBitsIndex index = new BloomBitsIndex(database, blockStore);
+        // only the first section is confirmed
+        index.buildSections(SECTION_SIZE + BloomBitsIndex.CONFIRMATIONS);
+        assertThat(index.getIndexedBlockCount()).isEqualTo(SECTION_SIZE);
+
+        List<Long> candidates = new ArrayList<>();
+        long unindexed =
+                index.getCandidates(0, 2 * SECTION_SIZE, new Bloom[][] {{topicA}}, candidates);
+        assertThat(candidates).containsExactly(10L);
+        assertThat(unindexed).isEqualTo(SECTION_SIZE);
+
+        // both sections indexed
+        index.buildSections(2 * SECTION_SIZE + BloomBitsIndex.CONFIRMATIONS);
+        assertThat(index.getIndexedBlockCount()).isEqualTo(2 * SECTION_SIZE);
+
+        // OR within a group
+        candidates.clear();
+        unindexed =
+                index.getCandidates(
+                        0, 2 * SECTION_SIZE - 1, new Bloom[][] {{topicA, topicB}}, candidates);
+        assertThat(candidates).containsExactly(10L, 20L, SECTION_SIZE + 5L).inOrder();
+        assertThat(unindexed).isEqualTo(2 * SECTION_SIZE);
+
+        // AND across groups, limited to the range
+        candidates.clear();
+        unindexed =
+                index.getCandidates(11, 100, new Bloom[][] {{topicA}, {topicB}}, candidates);
+        assertThat(candidates).isEmpty();
+        assertThat(unindexed).isEqualTo(101);
+
+        candidates.clear();
+        index.getCandidates(0, 2 * SECTION_SIZE, new Bloom[][] {{topicA}, {topicB}}, candidates);
+        assertThat(candidates).containsExactly(SECTION_SIZE + 5L);
+
+        // the count survives a restart
+        assertThat(new BloomBitsIndex(database, blockStore).getIndexedBlockCount())
+                .isEqualTo(2 * SECTION_SIZE);
+    }
+
+    @Test
+    public void testReorganizedSection() {
+        mockChain(10, 20, 30, new byte[] {1});
+
+        BloomBitsIndex index = new BloomBitsIndex(database, blockStore);
+        index.buildSections(2 * SECTION_SIZE + BloomBitsIndex.CONFIRMATIONS);
+        assertThat(index.getIndexedBlockCount()).isEqualTo(2 * SECTION_SIZE);
+
+        // the main chain changed within the first section
+        mockChain(40, 20, 30, new byte[] {2});
+
+        List<Long> candidates = new ArrayList<>();
+        long unindexed = index.getCandidates(0, 100, new Bloom[][] {{topicA}}, candidates);
+        assertThat(candidates).isEmpty();
+        assertThat(unindexed).isEqualTo(0);
+        assertThat(index.getIndexedBlockCount()).isEqualTo(0);
+
+        index.buildSections(2 * SECTION_SIZE + BloomBitsIndex.CONFIRMATIONS);
+        index.getCandidates(0, 100, new Bloom[][] {{topicA}}, candidates);
+        assertThat(candidates).containsExactly(30L, 40L).inOrder();
+    }
+}
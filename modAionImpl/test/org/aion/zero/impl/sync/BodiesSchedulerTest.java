@@ -0,0 +1,167 @@
+package org.aion.zero.impl.sync;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.zero.impl.sync.BodiesScheduler.INITIAL_WINDOW;
+import static org.aion.zero.impl.sync.BodiesScheduler.MIN_REQUEST_TIMEOUT;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.aion.p2p.INode;
+import org.aion.zero.exceptions.HeaderStructureException;
+import org.aion.zero.impl.sync.BodiesScheduler.Request;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.A0BlockHeader;
+import org.junit.Test;
+
+/** Unit tests for {@link BodiesScheduler}. */
+public class BodiesSchedulerTest {
+
+    private final BlockingQueue<BlocksWrapper> downloadedBlocks = new LinkedBlockingQueue<>();
+    private final BodiesScheduler scheduler =
+            new BodiesScheduler(
+                    downloadedBlocks, AionLoggerFactory.getLogger(LogEnum.SYNC.name()));
+
+    private static INode peer(int id, long best) {
+        INode peer = mock(INode.class);
+        when(peer.getIdHash()).thenReturn(id);
+        when(peer.getIdShort()).thenReturn("peer" + id);
+        when(peer.getBestBlockNumber()).thenReturn(best);
+        return peer;
+    }
+
+    private static HeadersWrapper headers(int origin, long from, int count)
+            throws HeaderStructureException {
+        List<A0BlockHeader> headers = new ArrayList<>();
+        for (long number = from; number < from + count; number++) {
+            headers.add(new A0BlockHeader.Builder().withNumber(number).build());
+        }
+        return new HeadersWrapper(origin, "peer" + origin, headers);
+    }
+
+    private static List<byte[]> bodies(Request request) {
+        List<byte[]> bodies = new ArrayList<>();
+        for (A0BlockHeader header : request.getHeaders()) {
+            bodies.add(new AionBlock(header, Collections.emptyList()).getEncodedBody());
+        }
+        return bodies;
+    }
+
+    @Test
+    public void testWindowAndInOrderRelease() throws HeaderStructureException {
+        INode origin = peer(1, 100);
+        INode other = peer(2, 100);
+        scheduler.add(headers(1, 1, 2));
+        scheduler.add(headers(1, 3, 2));
+        scheduler.add(headers(1, 5, 2));
+
+        long now = System.currentTimeMillis();
+        List<Request> sent = scheduler.schedule(List.of(origin), now);
+        assertThat(sent).hasSize(INITIAL_WINDOW);
+        assertThat(scheduler.getPending()).isEqualTo(1);
+
+        // the request that does not fit the window of the origin goes to another peer
+        List<Request> extra = scheduler.schedule(List.of(origin, other), now);
+        assertThat(extra).hasSize(1);
+        assertThat(extra.get(0).getPeerId()).isEqualTo(2);
+
+        // the last batch is held back until the previous ones are received
+        assertThat(scheduler.received(2, "peer2", bodies(extra.get(0)), now + 10)).isTrue();
+        assertThat(downloadedBlocks).isEmpty();
+
+        assertThat(scheduler.received(1, "peer1", bodies(sent.get(0)), now + 20)).isTrue();
+        assertThat(scheduler.received(1, "peer1", bodies(sent.get(1)), now + 30)).isTrue();
+        assertThat(downloadedBlocks).hasSize(3);
+
+        long expected = 1;
+        for (BlocksWrapper bw : downloadedBlocks) {
+            assertThat(bw.getNodeIdHash()).isEqualTo(1);
+            assertThat(bw.getBlocks().get(0).getNumber()).isEqualTo(expected);
+            expected += 2;
+        }
+        assertThat(scheduler.getOutstanding(1)).isEqualTo(0);
+    }
+
+    @Test
+    public void testStragglerReassigned() throws HeaderStructureException {
+        INode origin = peer(1, 100);
+        INode behind = peer(2, 1);
+        INode other = peer(3, 100);
+        scheduler.add(headers(1, 1, 2));
+
+        long now = System.currentTimeMillis();
+        List<Request> sent = scheduler.schedule(List.of(origin, behind, other), now);
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0).getPeerId()).isEqualTo(1);
+
+        // not expired yet
+        assertThat(scheduler.schedule(List.of(origin, behind, other), now + 10)).isEmpty();
+
+        // reassigned to the peer that has the blocks
+        List<Request> retried =
+                scheduler.schedule(List.of(origin, behind, other), now + MIN_REQUEST_TIMEOUT + 1);
+        assertThat(retried).hasSize(1);
+        assertThat(retried.get(0).getPeerId()).isEqualTo(3);
+        assertThat(retried.get(0).getAttempts()).isEqualTo(2);
+        assertThat(scheduler.getOutstanding(1)).isEqualTo(0);
+
+        // the late response from the first peer no longer matches a request
+        assertThat(scheduler.received(1, "peer1", bodies(sent.get(0)), now + 20)).isFalse();
+
+        assertThat(scheduler.received(3, "peer3", bodies(retried.get(0)), now + 30)).isTrue();
+        assertThat(downloadedBlocks).hasSize(1);
+    }
+
+    @Test
+    public void testResponseMatchesRequestedRange() throws HeaderStructureException {
+        INode origin = peer(1, 100);
+        scheduler.add(headers(1, 1, 3));
+        scheduler.add(headers(1, 4, 2));
+
+        long now = System.currentTimeMillis();
+        List<Request> sent = scheduler.schedule(List.of(origin), now);
+        assertThat(sent).hasSize(2);
+
+        // the empty bodies of the second request also match the start of the first one
+        assertThat(scheduler.received(1, "peer1", bodies(sent.get(1)), now + 10)).isTrue();
+        assertThat(scheduler.getOutstanding(1)).isEqualTo(1);
+        assertThat(downloadedBlocks).isEmpty();
+
+        assertThat(scheduler.received(1, "peer1", bodies(sent.get(0)), now + 20)).isTrue();
+        assertThat(downloadedBlocks).hasSize(2);
+        assertThat(downloadedBlocks.poll().getBlocks()).hasSize(3);
+        assertThat(downloadedBlocks.poll().getBlocks()).hasSize(2);
+    }
+
+    @Test
+    public void testPartialResponseRequeuesRest() throws HeaderStructureException {
+        INode origin = peer(1, 100);
+        scheduler.add(headers(1, 1, 4));
+
+        long now = System.currentTimeMillis();
+        List<Request> sent = scheduler.schedule(List.of(origin), now);
+        assertThat(sent).hasSize(1);
+
+        List<byte[]> bodies = bodies(sent.get(0));
+        assertThat(scheduler.received(1, "peer1", bodies.subList(0, 2), now + 10)).isTrue();
+        assertThat(scheduler.getOutstanding(1)).isEqualTo(0);
+        assertThat(scheduler.getPending()).isEqualTo(1);
+        assertThat(downloadedBlocks).isEmpty();
+
+        // only the rest of the range is requested again
+        List<Request> retried = scheduler.schedule(List.of(origin), now + 20);
+        assertThat(retried).hasSize(1);
+        assertThat(retried.get(0).getHashes()).hasSize(2);
+        assertThat(retried.get(0).getHeaders().get(0).getNumber()).isEqualTo(3);
+
+        assertThat(scheduler.received(1, "peer1", bodies(retried.get(0)), now + 30)).isTrue();
+        assertThat(downloadedBlocks).hasSize(1);
+        assertThat(downloadedBlocks.poll().getBlocks()).hasSize(4);
+    }
+}
@@ -5,6 +5,7 @@ import static org.aion.zero.impl.sync.msg.RequestTrieDataTest.nodeKey;
 import static org.aion.zero.impl.sync.msg.ResponseTrieDataTest.leafValue;
 import static org.aion.zero.impl.sync.msg.ResponseTrieDataTest.wrappedNodeKey;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -12,12 +13,15 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
 import org.aion.mcf.trie.TrieNodeResult;
 import org.aion.rlp.RLP;
+import org.aion.types.ByteArrayWrapper;
 import org.aion.util.conversions.Hex;
 import org.aion.zero.impl.AionBlockchainImpl;
 import org.aion.zero.impl.sync.msg.ResponseTrieData;
@@ -67,7 +71,7 @@ public class TaskImportTrieDataTest {
 
         BlockingQueue<TrieNodeWrapper> trieNodes = mock(LinkedBlockingQueue.class);
         InterruptedException exception = new InterruptedException();
-        when(trieNodes.take()).thenThrow(exception);
+        when(trieNodes.poll(anyLong(), any())).thenThrow(exception);
 
         // run task
         TaskImportTrieData task = new TaskImportTrieData(log, chain, trieNodes, fastSyncMgr);
@@ -76,10 +80,21 @@ public class TaskImportTrieDataTest {
         verify(log, times(1))
                 .error("<import-trie-nodes: interrupted without shutdown request>", exception);
         verifyZeroInteractions(chain);
-        verify(trieNodes, times(1)).take();
+        verify(trieNodes, times(1)).poll(anyLong(), any());
         verify(fastSyncMgr, times(2)).isComplete();
     }
 
+    private static TrieNodeWrapper leafNode() {
+        byte[] encoding =
+                RLP.encodeList(
+                        RLP.encodeElement(nodeKey),
+                        RLP.encodeElement(leafValue),
+                        RLP.encodeList(new byte[0]),
+                        RLP.encodeString(STATE.toString()));
+        ResponseTrieData response = ResponseTrieData.decode(encoding);
+        return new TrieNodeWrapper(peerId, displayId, response);
+    }
+
     @Test
     public void testRun_filteredNodes() throws InterruptedException {
         Logger log = mock(Logger.class);
@@ -87,30 +102,23 @@ public class TaskImportTrieDataTest {
 
         AionBlockchainImpl chain = mock(AionBlockchainImpl.class);
 
+        TrieNodeWrapper node = leafNode();
         FastSyncManager fastSyncMgr = mock(FastSyncManager.class);
         when(fastSyncMgr.isComplete()).thenReturn(false, true);
-        when(fastSyncMgr.containsExact(any(), any())).thenReturn(true);
+        when(fastSyncMgr.filterVerified(node)).thenReturn(Collections.emptyMap());
 
         BlockingQueue<TrieNodeWrapper> trieNodes = mock(LinkedBlockingQueue.class);
-        byte[] encoding =
-                RLP.encodeList(
-                        RLP.encodeElement(nodeKey),
-                        RLP.encodeElement(leafValue),
-                        RLP.encodeList(new byte[0]),
-                        RLP.encodeString(STATE.toString()));
-        ResponseTrieData response = ResponseTrieData.decode(encoding);
-        TrieNodeWrapper node = new TrieNodeWrapper(peerId, displayId, response);
-        when(trieNodes.take()).thenReturn(node);
+        when(trieNodes.poll(anyLong(), any())).thenReturn(node);
 
         // run task
         TaskImportTrieData task = new TaskImportTrieData(log, chain, trieNodes, fastSyncMgr);
         task.run();
 
-        verify(trieNodes, times(1)).take();
+        verify(trieNodes, times(1)).poll(anyLong(), any());
         verifyZeroInteractions(chain);
         verify(fastSyncMgr, times(2)).isComplete();
-        verify(fastSyncMgr, times(0)).addImportedNode(wrappedNodeKey, leafValue, STATE);
-        verify(fastSyncMgr, times(0)).updateRequests(wrappedNodeKey, Collections.emptySet(), STATE);
+        verify(fastSyncMgr, times(0)).addImportedNodes(any(), any());
+        verify(fastSyncMgr, times(1)).updateRequests();
     }
 
     @Test
@@ -120,41 +128,29 @@ public class TaskImportTrieDataTest {
         Logger log = mock(Logger.class);
         when(log.isDebugEnabled()).thenReturn(false);
 
+        Map<ByteArrayWrapper, byte[]> nodes = Map.of(wrappedNodeKey, leafValue);
+
         AionBlockchainImpl chain = mock(AionBlockchainImpl.class);
-        when(chain.importTrieNode(nodeKey, leafValue, STATE)).thenReturn(success);
+        when(chain.importTrieNodes(nodes, STATE)).thenReturn(Map.of(wrappedNodeKey, success));
 
+        TrieNodeWrapper node = leafNode();
         FastSyncManager fastSyncMgr = mock(FastSyncManager.class);
         when(fastSyncMgr.isComplete()).thenReturn(false, true);
-        when(fastSyncMgr.containsExact(any(), any())).thenReturn(false);
+        when(fastSyncMgr.filterVerified(node)).thenReturn(nodes);
 
         BlockingQueue<TrieNodeWrapper> trieNodes = mock(LinkedBlockingQueue.class);
-        byte[] encoding =
-                RLP.encodeList(
-                        RLP.encodeElement(nodeKey),
-                        RLP.encodeElement(leafValue),
-                        RLP.encodeList(new byte[0]),
-                        RLP.encodeString(STATE.toString()));
-        ResponseTrieData response = ResponseTrieData.decode(encoding);
-        TrieNodeWrapper node = new TrieNodeWrapper(peerId, displayId, response);
-        when(trieNodes.take()).thenReturn(node);
+        when(trieNodes.poll(anyLong(), any())).thenReturn(node);
 
         // run task
         TaskImportTrieData task = new TaskImportTrieData(log, chain, trieNodes, fastSyncMgr);
         task.run();
 
-        verify(log, times(1))
-                .debug(
-                        "<import-trie-nodes: key={}, value length={}, db={}, result={}, peer={}>",
-                        wrappedNodeKey,
-                        leafValue.length,
-                        STATE,
-                        success,
-                        displayId);
-        verify(trieNodes, times(1)).take();
-        verify(chain, times(1)).importTrieNode(nodeKey, leafValue, STATE);
+        verify(trieNodes, times(1)).poll(anyLong(), any());
+        verify(chain, times(1)).importTrieNodes(nodes, STATE);
         verify(fastSyncMgr, times(2)).isComplete();
-        verify(fastSyncMgr, times(1)).addImportedNode(wrappedNodeKey, leafValue, STATE);
-        verify(fastSyncMgr, times(1)).updateRequests(wrappedNodeKey, Collections.emptySet(), STATE);
+        verify(fastSyncMgr, times(1)).addReferencedNodes(nodes, STATE);
+        verify(fastSyncMgr, times(1)).addImportedNodes(List.of(wrappedNodeKey), STATE);
+        verify(fastSyncMgr, times(1)).updateRequests();
     }
 
     @Test
@@ -164,23 +160,18 @@ public class TaskImportTrieDataTest {
         Logger log = mock(Logger.class);
         when(log.isDebugEnabled()).thenReturn(true);
 
+        Map<ByteArrayWrapper, byte[]> nodes = Map.of(wrappedNodeKey, leafValue);
+
         AionBlockchainImpl chain = mock(AionBlockchainImpl.class);
-        when(chain.importTrieNode(nodeKey, leafValue, STATE)).thenReturn(fail);
+        when(chain.importTrieNodes(nodes, STATE)).thenReturn(Map.of(wrappedNodeKey, fail));
 
+        TrieNodeWrapper node = leafNode();
         FastSyncManager fastSyncMgr = mock(FastSyncManager.class);
         when(fastSyncMgr.isComplete()).thenReturn(false, true);
-        when(fastSyncMgr.containsExact(any(), any())).thenReturn(false);
+        when(fastSyncMgr.filterVerified(node)).thenReturn(nodes);
 
         BlockingQueue<TrieNodeWrapper> trieNodes = mock(LinkedBlockingQueue.class);
-        byte[] encoding =
-                RLP.encodeList(
-                        RLP.encodeElement(nodeKey),
-                        RLP.encodeElement(leafValue),
-                        RLP.encodeList(new byte[0]),
-                        RLP.encodeString(STATE.toString()));
-        ResponseTrieData response = ResponseTrieData.decode(encoding);
-        TrieNodeWrapper node = new TrieNodeWrapper(peerId, displayId, response);
-        when(trieNodes.take()).thenReturn(node);
+        when(trieNodes.poll(anyLong(), any())).thenReturn(node);
 
         // run task
         TaskImportTrieData task = new TaskImportTrieData(log, chain, trieNodes, fastSyncMgr);
@@ -194,10 +185,11 @@ public class TaskImportTrieDataTest {
                         STATE,
                         fail,
                         displayId);
-        verify(trieNodes, times(1)).take();
-        verify(chain, times(1)).importTrieNode(nodeKey, leafValue, STATE);
+        verify(trieNodes, times(1)).poll(anyLong(), any());
+        verify(chain, times(1)).importTrieNodes(nodes, STATE);
         verify(fastSyncMgr, times(2)).isComplete();
         verify(fastSyncMgr, times(1))
                 .handleFailedImport(wrappedNodeKey, leafValue, STATE, peerId, displayId);
+        verify(fastSyncMgr, times(1)).addImportedNodes(Collections.emptyList(), STATE);
     }
 }
@@ -0,0 +1,89 @@
+package org.aion.zero.impl.sync;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.zero.impl.sync.DatabaseType.STATE;
+import static org.aion.zero.impl.sync.DatabaseType.STORAGE;
+
+import java.util.List;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.aion.types.ByteArrayWrapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Unit tests for {@link TrieFrontier}. */
+public class TrieFrontierTest {
+
+    private ByteArrayKeyValueDatabase database = new MockDB("fastSync");
+
+    private static ByteArrayWrapper key(int id) {
+        byte[] key = new byte[32];
+        key[0] = (byte) id;
+        return ByteArrayWrapper.wrap(key);
+    }
+
+    @Before
+    public void setup() {
+        database.open();
+    }
+
+    @After
+    public void teardown() {
+        database.close();
+    }
+
+    @Test
+    public void testResetAndResume() {
+        byte[] pivot = new byte[] {1, 2, 3};
+
+        TrieFrontier frontier = new TrieFrontier(database);
+        assertThat(frontier.getPivot()).isNull();
+
+        frontier.reset(pivot, key(1).getData());
+        frontier.add(STORAGE, List.of(key(2), key(3)));
+        frontier.remove(STATE, List.of(key(1)));
+
+        // the frontier is restored from the database
+        frontier = new TrieFrontier(database);
+        assertThat(frontier.getPivot()).isEqualTo(pivot);
+        assertThat(frontier.isEmpty(STATE)).isTrue();
+        assertThat(frontier.size(STORAGE)).isEqualTo(2);
+        assertThat(frontier.contains(STORAGE, key(2))).isTrue();
+
+        // a new pivot discards the previous frontier
+        frontier.reset(new byte[] {4}, key(4).getData());
+        frontier = new TrieFrontier(database);
+        assertThat(frontier.isEmpty(STORAGE)).isTrue();
+        assertThat(frontier.contains(STATE, key(4))).isTrue();
+    }
+
+    @Test
+    public void testAssignAndExpire() {
+        TrieFrontier frontier = new TrieFrontier(database);
+        frontier.add(STATE, List.of(key(1), key(2), key(3)));
+
+        assertThat(frontier.assign(STATE, 7, 2, 100)).containsExactly(key(1), key(2)).inOrder();
+        assertThat(frontier.getOutstanding(7)).isEqualTo(2);
+        assertThat(frontier.hasPending()).isTrue();
+
+        // outstanding keys are not added again
+        frontier.add(STATE, List.of(key(1)));
+        assertThat(frontier.size(STATE)).isEqualTo(3);
+
+        assertThat(frontier.assign(STATE, 8, 2, 200)).containsExactly(key(3));
+        assertThat(frontier.hasPending()).isFalse();
+
+        // only the requests sent before the deadline expire
+        assertThat(frontier.expire(150)).isEqualTo(2);
+        assertThat(frontier.getOutstanding(7)).isEqualTo(0);
+        assertThat(frontier.getOutstanding(8)).isEqualTo(1);
+
+        frontier.retry(STATE, key(3));
+        assertThat(frontier.getOutstanding(8)).isEqualTo(0);
+        assertThat(frontier.size(STATE)).isEqualTo(3);
+
+        frontier.remove(STATE, List.of(key(1), key(2), key(3)));
+        assertThat(frontier.isEmpty(STATE)).isTrue();
+    }
+}
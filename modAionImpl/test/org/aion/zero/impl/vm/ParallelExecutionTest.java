@@ -0,0 +1,127 @@
+package org.aion.zero.impl.vm;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.aion.crypto.ECKey;
+import org.aion.mcf.core.ImportResult;
+import org.aion.types.Address;
+import org.aion.util.conversions.Hex;
+import org.aion.vm.BulkExecutor;
+import org.aion.zero.impl.StandaloneBlockchain;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.impl.vm.contracts.ContractUtils;
+import org.aion.zero.types.AionTransaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the speculative parallel execution of FVM transactions gives the same state as their
+ * serial execution, including when the transactions conflict.
+ */
+public class ParallelExecutionTest {
+    private static final Address TOTAL_CURRENCY =
+            Address.wrap("0000000000000000000000000000000000000000000000000000000000000100");
+    private static final Address TOKEN_BRIDGE =
+            Address.wrap("0000000000000000000000000000000000000000000000000000000000000200");
+
+    private StandaloneBlockchain serial;
+    private StandaloneBlockchain parallel;
+    private List<ECKey> keys;
+
+    @Before
+    public void setup() {
+        StandaloneBlockchain.Bundle bundle =
+                (new StandaloneBlockchain.Builder())
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts()
+                        .build();
+        serial = bundle.bc;
+        keys = bundle.privateKeys;
+        parallel =
+                (new StandaloneBlockchain.Builder())
+                        .withValidatorConfiguration("simple")
+                        .withDefaultAccounts(keys)
+                        .build()
+                        .bc;
+    }
+
+    @After
+    public void tearDown() {
+        BulkExecutor.enableParallelExecution(false);
+    }
+
+    @Test
+    public void testConflictingTransactions() throws IOException {
+        ECKey first = keys.get(0);
+        ECKey second = keys.get(1);
+        ECKey third = keys.get(2);
+        ECKey fourth = keys.get(3);
+        Address recipient = Address.wrap(second.getAddress());
+
+        AionTransaction deploy =
+                transaction(
+                        first,
+                        0,
+                        null,
+                        0,
+                        ContractUtils.getContractDeployer("Ticker.sol", "Ticker"),
+                        5_000_000);
+        importBlock(Collections.singletonList(deploy));
+        Address ticker = deploy.getContractAddress();
+
+        List<AionTransaction> txs = new ArrayList<>();
+        // transfers that depend on each other
+        txs.add(transaction(first, 1, recipient, 100, new byte[0], 21_000));
+        txs.add(transaction(second, 0, Address.wrap(third.getAddress()), 50, new byte[0], 21_000));
+        txs.add(transaction(first, 2, recipient, 200, new byte[0], 21_000));
+        // calls that increment the same counter
+        txs.add(transaction(third, 0, ticker, 0, Hex.decode("dae29f29"), 2_000_000));
+        txs.add(transaction(fourth, 0, ticker, 0, Hex.decode("dae29f29"), 2_000_000));
+        // calls to the pre-compiled contracts operating on state, followed by dependent transfers
+        txs.add(transaction(fourth, 1, TOTAL_CURRENCY, 0, new byte[] {0}, 2_000_000));
+        txs.add(transaction(third, 1, TOKEN_BRIDGE, 10, Hex.decode("0000"), 2_000_000));
+        txs.add(transaction(fourth, 2, Address.wrap(third.getAddress()), 5, new byte[0], 21_000));
+        txs.add(transaction(third, 2, TOKEN_BRIDGE, 0, new byte[0], 21_000));
+
+        importBlock(txs);
+
+        assertThat(parallel.getRepository().getRoot()).isEqualTo(serial.getRepository().getRoot());
+    }
+
+    /** Builds the block on the serial chain and imports it with parallel execution enabled. */
+    private void importBlock(List<AionTransaction> txs) {
+        AionBlock parent = serial.getBestBlock();
+        AionBlock block = serial.createBlock(parent, txs, false, parent.getTimestamp());
+        assertThat(block.getTransactionsList()).hasSize(txs.size());
+
+        BulkExecutor.enableParallelExecution(false);
+        assertThat(serial.tryToConnect(block)).isEqualTo(ImportResult.IMPORTED_BEST);
+
+        BulkExecutor.enableParallelExecution(true);
+        assertThat(parallel.tryToConnect(new AionBlock(block.getEncoded())))
+                .isEqualTo(ImportResult.IMPORTED_BEST);
+        BulkExecutor.enableParallelExecution(false);
+    }
+
+    private static AionTransaction transaction(
+            ECKey sender, long nonce, Address to, long value, byte[] data, long energy) {
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.valueOf(nonce).toByteArray(),
+                        Address.wrap(sender.getAddress()),
+                        to,
+                        BigInteger.valueOf(value).toByteArray(),
+                        data,
+                        energy,
+                        1L,
+                        (byte) 0x01);
+        tx.sign(sender);
+        return tx;
+    }
+}
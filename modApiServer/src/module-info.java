@@ -13,6 +13,7 @@ module aion.apiserver {
     requires commons.collections4;
     requires nanohttpd;
     requires undertow.core;
+    requires xnio.api;
     requires protobuf.java;
     requires commons.lang3;
     requires com.github.benmanes.caffeine;
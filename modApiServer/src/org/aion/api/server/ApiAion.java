@@ -13,6 +13,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.aion.api.server.nrgprice.NrgOracle;
@@ -26,8 +27,10 @@ import org.aion.types.Address;
 import org.aion.types.ByteArrayWrapper;
 import org.aion.crypto.ECKey;
 import org.aion.evtmgr.IEvent;
+import org.aion.evtmgr.IEventCallback;
 import org.aion.evtmgr.IEventMgr;
 import org.aion.evtmgr.IHandler;
+import org.aion.evtmgr.impl.callback.EventCallback;
 import org.aion.evtmgr.impl.es.EventExecuteService;
 import org.aion.evtmgr.impl.evt.EventBlock;
 import org.aion.evtmgr.impl.evt.EventTx;
@@ -81,6 +84,8 @@ public abstract class ApiAion extends Api {
     private byte[] currentBestBlockHash;
 
     protected EventExecuteService ees;
+    private static final int EES_WORKERS =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
 
     public ApiAion(final IAionChain _ac) {
         this.ac = _ac;
@@ -96,38 +101,50 @@ public abstract class ApiAion extends Api {
                 Collections.singletonList(new EventBlock(EventBlock.CALLBACK.ONBLOCK0)));
     }
 
-    public final class EpApi implements Runnable {
-        boolean go = true;
+    public final class EpApi implements Consumer<IEvent> {
 
         @Override
-        public void run() {
-            while (go) {
-                try {
-                    IEvent e = ees.take();
-                    if (e.getEventType() == IHandler.TYPE.BLOCK0.getValue()
-                            && e.getCallbackType() == EventBlock.CALLBACK.ONBLOCK0.getValue()) {
-                        onBlock((AionBlockSummary) e.getFuncArgs().get(0));
-                    } else if (e.getEventType() == IHandler.TYPE.TX0.getValue()) {
-                        if (e.getCallbackType() == EventTx.CALLBACK.PENDINGTXUPDATE0.getValue()) {
-                            pendingTxUpdate(
-                                    (TxReceipt) e.getFuncArgs().get(0),
-                                    GETSTATE((int) e.getFuncArgs().get(1)));
-                        } else if (e.getCallbackType()
-                                == EventTx.CALLBACK.PENDINGTXRECEIVED0.getValue()) {
-                            for (Transaction tx : (List<Transaction>) e.getFuncArgs().get(0)) {
-                                pendingTxReceived(tx);
-                            }
-                        }
-                    } else if (e.getEventType() == IHandler.TYPE.POISONPILL.getValue()) {
-                        go = false;
+        public void accept(IEvent e) {
+            if (e.getEventType() == IHandler.TYPE.BLOCK0.getValue()
+                    && e.getCallbackType() == EventBlock.CALLBACK.ONBLOCK0.getValue()) {
+                onBlock((AionBlockSummary) e.getFuncArgs().get(0));
+            } else if (e.getEventType() == IHandler.TYPE.TX0.getValue()) {
+                if (e.getCallbackType() == EventTx.CALLBACK.PENDINGTXUPDATE0.getValue()) {
+                    pendingTxUpdate(
+                            (TxReceipt) e.getFuncArgs().get(0),
+                            GETSTATE((int) e.getFuncArgs().get(1)));
+                } else if (e.getCallbackType() == EventTx.CALLBACK.PENDINGTXRECEIVED0.getValue()) {
+                    for (Transaction tx : (List<Transaction>) e.getFuncArgs().get(0)) {
+                        pendingTxReceived(tx);
                     }
-                } catch (Exception e) {
-                    LOG.debug("EpApi - excepted out", e);
                 }
             }
         }
     }
 
+    /**
+     * Maps the events of a transaction to the same partition such that its updates are processed
+     * in order. Blocks are processed by the first partition.
+     *
+     * @implNote the received transactions are split into one event per transaction by {@link
+     *     #newEventCallback()}
+     */
+    private static int partitionKey(IEvent e) {
+        if (e.getEventType() == IHandler.TYPE.TX0.getValue()) {
+            AionTransaction tx = null;
+            if (e.getCallbackType() == EventTx.CALLBACK.PENDINGTXUPDATE0.getValue()) {
+                tx = ((AionTxReceipt) e.getFuncArgs().get(0)).getTransaction();
+            } else if (e.getCallbackType() == EventTx.CALLBACK.PENDINGTXRECEIVED0.getValue()) {
+                List<AionTransaction> txs = (List<AionTransaction>) e.getFuncArgs().get(0);
+                tx = txs.isEmpty() ? null : txs.get(0);
+            }
+            if (tx != null) {
+                return Arrays.hashCode(tx.getTransactionHash());
+            }
+        }
+        return 0;
+    }
+
     protected abstract void onBlock(AionBlockSummary cbs);
 
     protected abstract void pendingTxReceived(Transaction _tx);
@@ -370,7 +387,7 @@ public abstract class ApiAion extends Api {
     }
 
     public byte[] getCode(Address addr) {
-        return this.ac.getRepository().getCode(addr);
+        return this.ac.getCommittedSnapshot().getCode(addr);
     }
 
     /* NOTE: only use this if you need receipts for one or small number transactions in a block.
@@ -524,19 +541,19 @@ public abstract class ApiAion extends Api {
 
     // Transaction Level
     public BigInteger getBalance(String _address) {
-        return this.ac.getRepository().getBalance(Address.wrap(_address));
+        return this.ac.getCommittedSnapshot().getBalance(Address.wrap(_address));
     }
 
     public BigInteger getBalance(Address _address) {
-        return this.ac.getRepository().getBalance(_address);
+        return this.ac.getCommittedSnapshot().getBalance(_address);
     }
 
     public BigInteger getNonce(String _address) {
-        return this.ac.getRepository().getNonce(Address.wrap(_address));
+        return this.ac.getCommittedSnapshot().getNonce(Address.wrap(_address));
     }
 
     public BigInteger getNonce(Address _address) {
-        return this.ac.getRepository().getNonce(_address);
+        return this.ac.getCommittedSnapshot().getNonce(_address);
     }
 
     protected ApiTxResponse sendTransaction(ArgTxCall _params) {
@@ -770,9 +787,43 @@ public abstract class ApiAion extends Api {
     }
 
     protected void startES(String thName) {
-        ees = new EventExecuteService(100_000, thName, Thread.MIN_PRIORITY, LOG);
+        ees =
+                new EventExecuteService(
+                        100_000,
+                        EES_WORKERS,
+                        EventExecuteService.DEFAULT_OFFER_TIMEOUT,
+                        thName,
+                        Thread.MIN_PRIORITY,
+                        LOG);
         ees.setFilter(setEvtfilter());
-        ees.start(new EpApi());
+        ees.setPartitioner(ApiAion::partitionKey);
+        ees.startWorkers(new EpApi());
+    }
+
+    /**
+     * Returns a callback queuing the events of the handlers for processing by {@link EpApi}. The
+     * transactions received together are queued as separate events, such that each one is
+     * processed in the partition of its own updates.
+     */
+    protected IEventCallback newEventCallback() {
+        EventCallback callback = new EventCallback(ees, LOG);
+        return (e) -> splitTransactions(e).forEach(callback::onEvent);
+    }
+
+    /** Returns one event per received transaction, or the given event for the other types. */
+    static List<IEvent> splitTransactions(IEvent e) {
+        if (e.getEventType() != IHandler.TYPE.TX0.getValue()
+                || e.getCallbackType() != EventTx.CALLBACK.PENDINGTXRECEIVED0.getValue()) {
+            return Collections.singletonList(e);
+        }
+
+        List<IEvent> events = new ArrayList<>();
+        for (Object tx : (List<?>) e.getFuncArgs().get(0)) {
+            IEvent single = new EventTx(EventTx.CALLBACK.PENDINGTXRECEIVED0);
+            single.setFuncArgs(Collections.singletonList(Collections.singletonList(tx)));
+            events.add(single);
+        }
+        return events;
     }
 
     private Set<Integer> setEvtfilter() {
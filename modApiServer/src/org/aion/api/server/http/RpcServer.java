@@ -22,6 +22,7 @@ public abstract class RpcServer {
     protected char[] sslCertPass;
 
     protected boolean stuckThreadDetectorEnabled;
+    protected boolean websocketEnabled;
 
     /**
      * to explicitly force any subclasses to check for null values, access to the following
@@ -72,6 +73,7 @@ public abstract class RpcServer {
         ioPoolSize = builder.ioPoolSize;
         requestQueueSize = builder.requestQueueSize;
         stuckThreadDetectorEnabled = builder.stuckThreadDetectorEnabled;
+        websocketEnabled = builder.websocketEnabled;
     }
 
     // want to explicitly force user of this class to check for null values here.
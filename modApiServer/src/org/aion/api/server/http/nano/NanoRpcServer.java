@@ -100,6 +100,10 @@ public class NanoRpcServer extends RpcServer {
 
             server.start(NanoHTTPD.SOCKET_READ_TIMEOUT, false);
 
+            if (websocketEnabled) {
+                LOG.warn("<rpc-server - websocket is only supported by the undertow rpc server>");
+            }
+
             LOG.info(
                     "<rpc-server - (NANO) started on {}://{}:{}>",
                     sslEnabled ? "https" : "http",
@@ -120,6 +124,7 @@ public class NanoRpcServer extends RpcServer {
             LOG.debug("Worker Thread Count: {}", tCount);
             LOG.debug("I/O Thread Count: Not Applicable");
             LOG.debug("Request Queue Size: Unbounded");
+            LOG.debug("WebSocket: Not Supported");
             LOG.debug("------------------------------------");
 
         } catch (Exception e) {
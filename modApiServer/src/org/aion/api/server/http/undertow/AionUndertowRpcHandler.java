@@ -6,10 +6,20 @@ import io.undertow.util.Headers;
 import io.undertow.util.HttpString;
 import io.undertow.util.Methods;
 import io.undertow.util.StatusCodes;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import org.aion.api.server.rpc.RpcProcessor;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.slf4j.Logger;
+import org.xnio.IoUtils;
 
 class AionUndertowRpcHandler implements HttpHandler {
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.API.name());
+
     private final boolean corsEnabled;
     private final Map<HttpString, String> corsHeaders;
     private final RpcProcessor rpcProcessor;
@@ -57,7 +67,25 @@ class AionUndertowRpcHandler implements HttpHandler {
                             _exchange
                                     .getResponseHeaders()
                                     .put(Headers.CONTENT_TYPE, "application/json");
-                            _exchange.getResponseSender().send(rpcProcessor.process(body));
+                            // the exchange is blocking (see AionUndertowRootHandler), so the
+                            // response is written to the channel as it is serialized
+                            Writer writer =
+                                    new OutputStreamWriter(
+                                            _exchange.getOutputStream(), StandardCharsets.UTF_8);
+                            try {
+                                rpcProcessor.process(body, writer);
+                                writer.close();
+                            } catch (IOException e) {
+                                LOG.debug("<rpc-server - failed to write response>", e);
+                                _exchange.setPersistent(false);
+                                IoUtils.safeClose(writer);
+                            } catch (RuntimeException e) {
+                                // the results are converted while they are written, so the
+                                // connection is closed before the response is ended, otherwise
+                                // the client would read the partial response as a complete one
+                                LOG.error("<rpc-server - failed to serialize response>", e);
+                                IoUtils.safeClose(_exchange.getConnection());
+                            }
                         });
     }
 }
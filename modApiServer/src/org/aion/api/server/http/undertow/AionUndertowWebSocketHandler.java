@@ -0,0 +1,232 @@
+package org.aion.api.server.http.undertow;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import io.undertow.websockets.WebSocketConnectionCallback;
+import io.undertow.websockets.core.AbstractReceiveListener;
+import io.undertow.websockets.core.BufferedTextMessage;
+import io.undertow.websockets.core.WebSocketCallback;
+import io.undertow.websockets.core.WebSocketChannel;
+import io.undertow.websockets.core.WebSockets;
+import io.undertow.websockets.spi.WebSocketHttpExchange;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.aion.api.server.rpc.RpcError;
+import org.aion.api.server.rpc.RpcMsg;
+import org.aion.api.server.rpc.RpcProcessor;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.slf4j.Logger;
+import org.xnio.IoUtils;
+import org.xnio.XnioExecutor;
+
+/**
+ * Serves json-rpc requests received as websocket text messages. Unlike http clients, websocket
+ * clients can subscribe to notifications (eth_subscribe), which are pushed on their connection
+ * as the events happen until they unsubscribe or the connection is closed.
+ *
+ * <p>The websocket messages do not go through the handler chain of {@link
+ * AionUndertowRootHandler}, so the same request limit and stuck thread detection are applied here
+ * to the requests dispatched to the worker threads.
+ */
+class AionUndertowWebSocketHandler implements WebSocketConnectionCallback {
+    private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.API.name());
+
+    /** The number of messages that may be waiting to be sent before the connection is closed. */
+    static final int MAX_PENDING_SENDS = 1_000;
+
+    private static final String OVERLOADED =
+            new RpcMsg(null, RpcError.SERVER_OVERLOAD).toJson().toString();
+
+    private final RpcProcessor rpcProcessor;
+    private final RequestLimitingConfiguration requestLimiting;
+    private final StuckThreadDetectorConfiguration stuckThreadDetector;
+
+    // requests of all the connections that are processed or waiting for a worker thread
+    private final AtomicInteger activeRequests = new AtomicInteger();
+
+    public AionUndertowWebSocketHandler(
+            RpcProcessor rpcProcessor,
+            RequestLimitingConfiguration requestLimiting,
+            StuckThreadDetectorConfiguration stuckThreadDetector) {
+        this.rpcProcessor = rpcProcessor;
+        this.requestLimiting = requestLimiting;
+        this.stuckThreadDetector = stuckThreadDetector;
+    }
+
+    /**
+     * Rejects the websocket upgrades sent by browser pages of origins that the cors configuration
+     * does not allow, before the handshake. Browsers do not apply cors to websockets, so otherwise
+     * any page visited by the node operator could use the rpc methods and read their results.
+     * Clients that do not send an origin, i.e. the ones that are not browsers, are accepted.
+     *
+     * @param handshake the websocket handshake handler, which passes the other requests on
+     */
+    static HttpHandler checkOrigin(HttpHandler handshake, boolean corsEnabled, String corsOrigin) {
+        return (exchange) -> {
+            String origin = exchange.getRequestHeaders().getFirst(Headers.ORIGIN);
+            if (exchange.getRequestHeaders().contains(Headers.UPGRADE)
+                    && !isAllowedOrigin(origin, corsEnabled, corsOrigin)) {
+                LOG.debug(
+                        "<rpc-server - websocket rejected peer={} origin={}>",
+                        exchange.getSourceAddress(),
+                        origin);
+                exchange.setStatusCode(StatusCodes.FORBIDDEN);
+                exchange.endExchange();
+                return;
+            }
+            handshake.handleRequest(exchange);
+        };
+    }
+
+    static boolean isAllowedOrigin(String origin, boolean corsEnabled, String corsOrigin) {
+        if (origin == null) {
+            return true;
+        } else if (!corsEnabled || corsOrigin == null) {
+            return false;
+        } else {
+            return corsOrigin.equals("*") || corsOrigin.equalsIgnoreCase(origin);
+        }
+    }
+
+    @Override
+    public void onConnect(WebSocketHttpExchange exchange, WebSocketChannel channel) {
+        // sending is asynchronous, so notifications do not hold up the event threads
+        Sender subscriber = new Sender(channel);
+
+        channel.addCloseTask(
+                (closed) -> {
+                    rpcProcessor.closeSubscriber(subscriber);
+                    LOG.debug("<rpc-server - websocket closed peer={}>", closed.getPeerAddress());
+                });
+
+        channel.getReceiveSetter()
+                .set(
+                        new AbstractReceiveListener() {
+                            @Override
+                            protected void onFullTextMessage(
+                                    WebSocketChannel channel, BufferedTextMessage message) {
+                                dispatch(channel, message.getData(), subscriber);
+                            }
+                        });
+        channel.resumeReceives();
+
+        LOG.debug("<rpc-server - websocket opened peer={}>", channel.getPeerAddress());
+    }
+
+    /**
+     * Messages are received on the io thread, so the processing is dispatched to a worker thread
+     * like the blocking http handler does, unless too many requests are already waiting.
+     */
+    private void dispatch(WebSocketChannel channel, String body, Sender subscriber) {
+        if (!acquire()) {
+            subscriber.accept(OVERLOADED);
+            return;
+        }
+
+        try {
+            channel.getWorker()
+                    .execute(
+                            () -> {
+                                try {
+                                    subscriber.accept(process(channel, body, subscriber));
+                                } finally {
+                                    activeRequests.decrementAndGet();
+                                }
+                            });
+        } catch (RejectedExecutionException e) {
+            activeRequests.decrementAndGet();
+            subscriber.accept(OVERLOADED);
+        }
+    }
+
+    /**
+     * @implNote as for the http requests, the maximum number of concurrent requests is the number
+     *     of worker threads, so the limit covers both the requests being processed and the ones
+     *     queued for a worker.
+     */
+    private boolean acquire() {
+        if (!requestLimiting.isEnabled()) {
+            activeRequests.incrementAndGet();
+            return true;
+        }
+
+        int limit = requestLimiting.getMaxConcurrentConnections() + requestLimiting.getQueueSize();
+        if (activeRequests.incrementAndGet() > limit) {
+            activeRequests.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private String process(WebSocketChannel channel, String body, Sender subscriber) {
+        if (!stuckThreadDetector.isEnabled()) {
+            return rpcProcessor.process(body, subscriber);
+        }
+
+        Thread thread = Thread.currentThread();
+        int timeout = stuckThreadDetector.getTimeoutSeconds();
+        XnioExecutor.Key check =
+                channel.getIoThread()
+                        .executeAfter(() -> warnStuck(thread, timeout), timeout, TimeUnit.SECONDS);
+        try {
+            return rpcProcessor.process(body, subscriber);
+        } finally {
+            check.remove();
+        }
+    }
+
+    private static void warnStuck(Thread thread, int timeout) {
+        Throwable trace = new Throwable();
+        trace.setStackTrace(thread.getStackTrace());
+        LOG.warn(
+                "<rpc-server - websocket request may be stuck thread={} active-for={}s>",
+                thread.getName(),
+                timeout,
+                trace);
+    }
+
+    /**
+     * Sends the responses and notifications of a connection, closing it when the client does not
+     * read them fast enough to keep the messages waiting to be sent within {@link
+     * #MAX_PENDING_SENDS}.
+     */
+    private static final class Sender implements Consumer<String>, WebSocketCallback<Void> {
+        private final WebSocketChannel channel;
+        private final AtomicInteger pendingSends = new AtomicInteger();
+
+        private Sender(WebSocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void accept(String message) {
+            if (pendingSends.incrementAndGet() > MAX_PENDING_SENDS) {
+                pendingSends.decrementAndGet();
+                if (channel.isOpen()) {
+                    LOG.debug(
+                            "<rpc-server - websocket send backlog full peer={} pending-sends={}>",
+                            channel.getPeerAddress(),
+                            MAX_PENDING_SENDS);
+                    // the close task cancels the subscriptions
+                    IoUtils.safeClose(channel);
+                }
+                return;
+            }
+            WebSockets.sendText(message, channel, this);
+        }
+
+        @Override
+        public void complete(WebSocketChannel channel, Void context) {
+            pendingSends.decrementAndGet();
+        }
+
+        @Override
+        public void onError(WebSocketChannel channel, Void context, Throwable throwable) {
+            pendingSends.decrementAndGet();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.aion.api.server.http.undertow;
 
+import io.undertow.Handlers;
 import io.undertow.Undertow;
+import io.undertow.server.HttpHandler;
 import io.undertow.util.HttpString;
 import java.io.FileInputStream;
 import java.security.KeyStore;
@@ -142,8 +144,21 @@ public class UndertowRpcServer extends RpcServer {
             AionUndertowRpcHandler rpcHandler =
                     new AionUndertowRpcHandler(corsEnabled, CORS_HEADERS, rpcProcessor);
 
-            undertowBuilder.setHandler(
-                    new AionUndertowRootHandler(rpcHandler, requestLimiting, stuckThreadDetector));
+            HttpHandler rootHandler =
+                    new AionUndertowRootHandler(rpcHandler, requestLimiting, stuckThreadDetector);
+            if (websocketEnabled) {
+                // websocket upgrade requests are handled on the io thread, before the request is
+                // dispatched to a worker; other requests are passed on to the rpc handler
+                rootHandler =
+                        AionUndertowWebSocketHandler.checkOrigin(
+                                Handlers.websocket(
+                                        new AionUndertowWebSocketHandler(
+                                                rpcProcessor, requestLimiting, stuckThreadDetector),
+                                        rootHandler),
+                                corsEnabled,
+                                corsOrigin);
+            }
+            undertowBuilder.setHandler(rootHandler);
 
             server = undertowBuilder.build();
             server.start();
@@ -170,6 +185,7 @@ public class UndertowRpcServer extends RpcServer {
             LOG.debug(
                     "Request Queue Size: {}",
                     isQueueBounded ? getRequestQueueSize().get() : "Unbounded");
+            LOG.debug("WebSocket: {}", websocketEnabled ? "Enabled" : "Not Enabled");
             LOG.debug("----------------------------------------");
 
         } catch (Exception e) {
@@ -203,19 +203,13 @@ public class ApiAion0 extends ApiAion implements IApiAion {
         }
 
         if (getMsgIdMapping().get(txHashW) != null) {
-            if (pendingStatus.remainingCapacity() == 0) {
-                pendingStatus.poll();
-                LOG.warn(
-                        "ApiAion0.onPendingTransactionUpdate - txPend ingStatus queue full, drop the first message.");
-            }
-
             if (LOG.isTraceEnabled()) {
                 LOG.trace(
                         "ApiAion0.onPendingTransactionUpdate - the pending Tx state : [{}]",
                         _state.getValue());
             }
 
-            pendingStatus.add(
+            TxPendingStatus status =
                     new TxPendingStatus(
                             txHashW,
                             getMsgIdMapping().get(txHashW).getValue(),
@@ -225,7 +219,14 @@ public class ApiAion0 extends ApiAion implements IApiAion {
                                     ((AionTxReceipt) _txRcpt).getTransactionOutput() == null
                                             ? EMPTY_BYTE_ARRAY
                                             : ((AionTxReceipt) _txRcpt).getTransactionOutput()),
-                            ((AionTxReceipt) _txRcpt).getError()));
+                            ((AionTxReceipt) _txRcpt).getError());
+
+            // updates of different transactions are received concurrently
+            while (!pendingStatus.offer(status)) {
+                pendingStatus.poll();
+                LOG.warn(
+                        "ApiAion0.onPendingTransactionUpdate - txPend ingStatus queue full, drop the first message.");
+            }
 
             if (_state.isPending()) {
                 pendingReceipts.put(txHashW, ((AionTxReceipt) _txRcpt));
@@ -234,23 +235,17 @@ public class ApiAion0 extends ApiAion implements IApiAion {
                 getMsgIdMapping().remove(txHashW);
             }
         } else {
-            if (txWait.remainingCapacity() == 0) {
+            // waiting origin Api call status been callback
+            TxWaitingMappingUpdate update =
+                    new TxWaitingMappingUpdate(
+                            txHashW, _state.getValue(), ((AionTxReceipt) _txRcpt));
+            while (!txWait.offer(update)) {
                 txWait.poll();
                 if (LOG.isTraceEnabled()) {
                     LOG.trace(
                             "ApiAion0.onPendingTransactionUpdate - txWait queue full, drop the first message.");
                 }
             }
-
-            // waiting origin Api call status been callback
-            try {
-                txWait.put(
-                        new TxWaitingMappingUpdate(
-                                txHashW, _state.getValue(), ((AionTxReceipt) _txRcpt)));
-            } catch (InterruptedException e) {
-                LOG.error(
-                        "ApiAion0.onPendingTransactionUpdate txWait.put exception", e.getMessage());
-            }
         }
     }
 
@@ -330,13 +325,13 @@ public class ApiAion0 extends ApiAion implements IApiAion {
             IHandler hdrTx =
                     this.ac.getAionHub().getEventMgr().getHandler(IHandler.TYPE.TX0.getValue());
             if (hdrTx != null) {
-                hdrTx.eventCallback(new EventCallback(ees, LOG));
+                hdrTx.eventCallback(newEventCallback());
             }
 
             IHandler hdrBlk =
                     this.ac.getAionHub().getEventMgr().getHandler(IHandler.TYPE.BLOCK0.getValue());
             if (hdrBlk != null) {
-                hdrBlk.eventCallback(new EventCallback(ees, LOG));
+                hdrBlk.eventCallback(newEventCallback());
             }
         }
     }
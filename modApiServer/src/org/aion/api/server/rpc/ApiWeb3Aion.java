@@ -12,6 +12,7 @@ import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
@@ -21,9 +22,11 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import org.aion.api.server.ApiAion;
 import org.aion.api.server.ApiTxResponse;
@@ -36,6 +39,8 @@ import org.aion.api.server.types.Fltr;
 import org.aion.api.server.types.FltrBlk;
 import org.aion.api.server.types.FltrLg;
 import org.aion.api.server.types.FltrTx;
+import org.aion.api.server.types.JsonStream;
+import org.aion.api.server.types.JsonWritable;
 import org.aion.api.server.types.NumericalValue;
 import org.aion.api.server.types.SyncInfo;
 import org.aion.api.server.types.Tx;
@@ -50,7 +55,6 @@ import org.aion.crypto.ECKey;
 import org.aion.crypto.HashUtil;
 import org.aion.evtmgr.IEventMgr;
 import org.aion.evtmgr.IHandler;
-import org.aion.evtmgr.impl.callback.EventCallback;
 import org.aion.evtmgr.impl.evt.EventTx;
 import org.aion.mcf.account.Keystore;
 import org.aion.mcf.config.CfgApi;
@@ -79,6 +83,7 @@ import org.aion.zero.impl.config.CfgConsensusPow;
 import org.aion.zero.impl.config.CfgEnergyStrategy;
 import org.aion.zero.impl.db.AionBlockStore;
 import org.aion.zero.impl.db.AionRepositoryImpl;
+import org.aion.zero.impl.db.BloomBitsIndex;
 import org.aion.zero.impl.sync.PeerState;
 import org.aion.zero.impl.types.AionBlock;
 import org.aion.zero.impl.types.AionBlockSummary;
@@ -119,8 +124,20 @@ public class ApiWeb3Aion extends ApiAion {
     private final LoadingCache<Integer, ChainHeadView> CachedRecentEntities;
     private final LoadingCache<String, MinerStatsView> MinerStats;
 
+    static final String SUB_NEW_HEADS = "newHeads";
+    static final String SUB_LOGS = "logs";
+    static final String SUB_PENDING_TXS = "newPendingTransactions";
+    // the number of subscriptions a single websocket client may hold
+    static final int MAX_SUBSCRIPTIONS = 64;
+
+    // subscriptions of the websocket clients, notified directly from the event callbacks
+    private final Map<Long, Subscription> subscriptions = new ConcurrentHashMap<>();
+
     protected void onBlock(AionBlockSummary cbs) {
         if (isFilterEnabled) {
+            if (!subscriptions.isEmpty()) {
+                notifySubscriptions(cbs);
+            }
             installedFilters
                     .keySet()
                     .forEach(
@@ -141,6 +158,9 @@ public class ApiWeb3Aion extends ApiAion {
 
     protected void pendingTxReceived(Transaction _tx) {
         if (isFilterEnabled) {
+            if (!subscriptions.isEmpty()) {
+                notifySubscriptions(_tx);
+            }
             // not absolutely neccessary to do eviction on installedFilters here, since we're doing
             // it already
             // in the onBlock event. eviction done here "just in case ..."
@@ -199,12 +219,12 @@ public class ApiWeb3Aion extends ApiAion {
             // Fill data on block and transaction events into the filters and pending receipts
             IHandler blkHr = evtMgr.getHandler(IHandler.TYPE.BLOCK0.getValue());
             if (blkHr != null) {
-                blkHr.eventCallback(new EventCallback(ees, LOG));
+                blkHr.eventCallback(newEventCallback());
             }
 
             IHandler txHr = evtMgr.getHandler(IHandler.TYPE.TX0.getValue());
             if (txHr != null) {
-                txHr.eventCallback(new EventCallback(ees, LOG));
+                txHr.eventCallback(newEventCallback());
             }
         }
 
@@ -872,7 +892,7 @@ public class ApiWeb3Aion extends ApiAion {
         }
 
         BigInteger totalDiff = this.ac.getAionHub().getBlockStore().getTotalDifficultyForHash(hash);
-        return new RpcMsg(Blk.AionBlockToJson(block, totalDiff, _fullTx));
+        return new RpcMsg(blockToJson(block, totalDiff, _fullTx));
     }
 
     public RpcMsg eth_getBlockByNumber(Object _params) {
@@ -911,7 +931,14 @@ public class ApiWeb3Aion extends ApiAion {
         blockCache.put(new ByteArrayWrapper(nb.getHash()), nb);
         BigInteger totalDiff =
                 this.ac.getAionHub().getBlockStore().getTotalDifficultyForHash(nb.getHash());
-        return new RpcMsg(Blk.AionBlockToJson(nb, totalDiff, _fullTx));
+        return new RpcMsg(blockToJson(nb, totalDiff, _fullTx));
+    }
+
+    /** Blocks with full transactions are streamed to the response instead of built in memory. */
+    private static Object blockToJson(AionBlock block, BigInteger totalDiff, boolean fullTx) {
+        return fullTx
+                ? Blk.AionBlockToJsonStream(block, totalDiff, true, null)
+                : Blk.AionBlockToJson(block, totalDiff, false);
     }
 
     public RpcMsg eth_getTransactionByHash(Object _params) {
@@ -1154,7 +1181,31 @@ public class ApiWeb3Aion extends ApiAion {
             // installation.
 
             toBlock = toBlock == null ? getBestBlock() : toBlock;
-            for (long i = fromBlock.getNumber(); i <= toBlock.getNumber(); i++) {
+            long from = fromBlock.getNumber();
+            long to = toBlock.getNumber();
+
+            BloomBitsIndex bloomBitsIndex =
+                    ac.getRepository() instanceof AionRepositoryImpl
+                            ? ((AionRepositoryImpl) ac.getRepository()).getBloomBitsIndex()
+                            : null;
+            if (bloomBitsIndex != null) {
+                // only the candidate blocks from the indexed sections are loaded
+                List<Long> candidates = new ArrayList<>();
+                long unindexed =
+                        bloomBitsIndex.getCandidates(
+                                from, to, filter.getFilterBlooms(), candidates);
+                for (long number : candidates) {
+                    if (filter.isFull()) {
+                        break;
+                    }
+                    filter.onBlock(
+                            this.ac.getBlockchain().getBlockByNumber(number),
+                            this.ac.getAionHub().getBlockchain());
+                }
+                from = unindexed;
+            }
+
+            for (long i = from; i <= to; i++) {
                 if (filter.isFull()) {
                     break;
                 }
@@ -1239,16 +1290,168 @@ public class ApiWeb3Aion extends ApiAion {
                         != null);
     }
 
-    private JSONArray buildFilterResponse(Fltr filter) {
-        Object[] events = filter.poll();
-        JSONArray response = new JSONArray();
-        for (Object event : events) {
-            if (event instanceof Evt) {
-                // put the Object we get out of the Evt object in here
-                response.put(((Evt) event).toJSON());
+    /**
+     * Subscribes the caller to notifications of the given type, pushed through the given consumer
+     * as they happen instead of being queued for {@link #eth_getFilterChanges(Object)}.
+     *
+     * <p>The supported types are {@code newHeads}, {@code logs}, with an optional filter object
+     * carrying the address and topics of the logs, and {@code newPendingTransactions}.
+     */
+    public RpcMsg eth_subscribe(Object _params, Consumer<String> subscriber) {
+        if (!isFilterEnabled) {
+            return new RpcMsg(null, RpcError.NOT_ALLOWED, "Filters over rpc disabled.");
+        }
+
+        String type;
+        JSONObject _filterObj;
+        if (_params instanceof JSONArray) {
+            type = ((JSONArray) _params).optString(0);
+            _filterObj = ((JSONArray) _params).optJSONObject(1);
+        } else if (_params instanceof JSONObject) {
+            type = ((JSONObject) _params).optString("type");
+            _filterObj = ((JSONObject) _params).optJSONObject("filter");
+        } else {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid parameters");
+        }
+
+        FltrLg filter = null;
+        switch (type) {
+            case SUB_NEW_HEADS:
+            case SUB_PENDING_TXS:
+                break;
+            case SUB_LOGS:
+                filter = new FltrLg();
+                if (_filterObj != null) {
+                    ArgFltr rf = ArgFltr.fromJSON(_filterObj);
+                    if (rf == null) {
+                        return new RpcMsg(
+                                null, RpcError.INVALID_PARAMS, "Invalid filter object provided.");
+                    }
+                    // only future logs are pushed, the block range is ignored
+                    filter.setTopics(rf.topics);
+                    filter.setContractAddress(rf.address);
+                }
+                break;
+            default:
+                return new RpcMsg(
+                        null, RpcError.INVALID_PARAMS, "Unsupported subscription type: " + type);
+        }
+
+        // the requests of a client may be processed concurrently
+        synchronized (subscriber) {
+            long count =
+                    subscriptions.values().stream().filter(s -> s.subscriber == subscriber).count();
+            if (count >= MAX_SUBSCRIPTIONS) {
+                return new RpcMsg(null, RpcError.NOT_ALLOWED, "Too many subscriptions.");
+            }
+
+            long id = fltrIndex.getAndIncrement();
+            String hexId = StringUtils.toJsonHex(id);
+            subscriptions.put(id, new Subscription(hexId, type, filter, subscriber));
+            return new RpcMsg(hexId);
+        }
+    }
+
+    /** Cancels a subscription created by the same caller through {@link #eth_subscribe}. */
+    public RpcMsg eth_unsubscribe(Object _params, Consumer<String> subscriber) {
+        if (!isFilterEnabled) {
+            return new RpcMsg(null, RpcError.NOT_ALLOWED, "Filters over rpc disabled.");
+        }
+
+        String _id;
+        if (_params instanceof JSONArray) {
+            _id = ((JSONArray) _params).get(0) + "";
+        } else if (_params instanceof JSONObject) {
+            _id = ((JSONObject) _params).get("id") + "";
+        } else {
+            return new RpcMsg(null, RpcError.INVALID_PARAMS, "Invalid parameters");
+        }
+
+        long id = StringUtils.StringHexToBigInteger(_id).longValue();
+        Subscription subscription = subscriptions.get(id);
+        return new RpcMsg(
+                subscription != null
+                        && subscription.subscriber == subscriber
+                        && subscriptions.remove(id, subscription));
+    }
+
+    /** Cancels all the subscriptions of the given caller, e.g. when its connection is closed. */
+    public void unsubscribeAll(Consumer<String> subscriber) {
+        subscriptions.values().removeIf(s -> s.subscriber == subscriber);
+    }
+
+    private void notifySubscriptions(AionBlockSummary cbs) {
+        // the header is serialized once and shared by all the newHeads subscriptions
+        String header = null;
+        for (Subscription s : subscriptions.values()) {
+            if (SUB_NEW_HEADS.equals(s.type)) {
+                if (header == null) {
+                    header =
+                            Blk.AionBlockOnlyToJson(
+                                            (AionBlock) cbs.getBlock(), cbs.getTotalDifficulty())
+                                    .toString();
+                }
+                s.push(header);
+            } else if (SUB_LOGS.equals(s.type)) {
+                s.filter.onBlock(cbs);
+                for (Object event : s.filter.poll()) {
+                    s.push(((Evt) event).toJSON().toString());
+                }
             }
         }
-        return response;
+    }
+
+    private void notifySubscriptions(Transaction _tx) {
+        String hash = null;
+        for (Subscription s : subscriptions.values()) {
+            if (SUB_PENDING_TXS.equals(s.type)) {
+                if (hash == null) {
+                    hash = JSONObject.quote(StringUtils.toJsonHex(_tx.getTransactionHash()));
+                }
+                s.push(hash);
+            }
+        }
+    }
+
+    int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    /** A subscription pushing JSON-RPC notifications to a websocket client. */
+    private static final class Subscription {
+        private final String id;
+        private final String type;
+        private final FltrLg filter;
+        private final Consumer<String> subscriber;
+
+        private Subscription(String id, String type, FltrLg filter, Consumer<String> subscriber) {
+            this.id = id;
+            this.type = type;
+            this.filter = filter;
+            this.subscriber = subscriber;
+        }
+
+        /** Sends the given serialized result wrapped in an {@code eth_subscription} message. */
+        private void push(String result) {
+            try {
+                subscriber.accept(
+                        "{\"jsonrpc\":\"2.0\",\"method\":\"eth_subscription\",\"params\":"
+                                + "{\"subscription\":\""
+                                + id
+                                + "\",\"result\":"
+                                + result
+                                + "}}");
+            } catch (Exception e) {
+                LOG.debug("<subscription push failed id={}>", id, e);
+            }
+        }
+    }
+
+    private JsonWritable buildFilterResponse(Fltr filter) {
+        Object[] events = filter.poll();
+        // each event is converted while the response is written, the events only hold references
+        // to the matched data
+        return JsonStream.array(events.length, (i) -> ((Evt) events[i]).toJSON());
     }
 
     public RpcMsg eth_getFilterChanges(Object _params) {
@@ -1387,15 +1590,16 @@ public class ApiWeb3Aion extends ApiAion {
             return new RpcMsg(null, RpcError.EXECUTION_ERROR, "Blocks requested not found.");
         }
 
-        JSONArray response = new JSONArray();
-        for (Map.Entry<AionBlock, Map.Entry<BigInteger, Boolean>> block : blocks) {
-            JSONObject b =
-                    (JSONObject)
-                            Blk.AionBlockToJson(block.getKey(), block.getValue().getKey(), _fullTx);
-            b.put("mainchain", block.getValue().getValue());
-            response.put(b);
-        }
-        return new RpcMsg(response);
+        // the blocks are converted one at a time while the response is written
+        return new RpcMsg(
+                JsonStream.array(
+                        blocks.size(),
+                        (i) ->
+                                Blk.AionBlockToJsonStream(
+                                        blocks.get(i).getKey(),
+                                        blocks.get(i).getValue().getKey(),
+                                        _fullTx,
+                                        Map.of("mainchain", blocks.get(i).getValue().getValue()))));
     }
 
     /* -------------------------------------------------------------------------
@@ -1850,7 +2054,7 @@ public class ApiWeb3Aion extends ApiAion {
 
         long latestBlkNum = this.getBestBlock().getNumber();
         AccountState accountState =
-                ((AionRepositoryImpl) this.ac.getRepository()).getAccountState(address);
+                ((AionRepositoryImpl) this.ac.getCommittedSnapshot()).getAccountState(address);
 
         BigInteger nonce = BigInteger.ZERO;
         BigInteger balance = BigInteger.ZERO;
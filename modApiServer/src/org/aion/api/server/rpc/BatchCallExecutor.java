@@ -0,0 +1,212 @@
+package org.aion.api.server.rpc;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+
+/**
+ * Runs the calls of json-rpc batch requests on a shared pool of threads.
+ *
+ * <p>Each batch collects its results through its own completion service, so concurrent batches
+ * never see each other's results. A batch keeps at most {@link #MAX_CONCURRENT_CALLS} calls in
+ * flight, which lets large batches make progress without taking over the whole pool. A call that
+ * does not complete within the timeout of its method is interrupted and answered with {@link
+ * RpcError#TIMEOUT}; its slot is given to the next call of the batch. The timeout of a call starts
+ * when it begins to run, so the time spent waiting for a thread behind the calls of other batches
+ * does not count against it.
+ *
+ * <p>The responses are returned as messages rather than json objects, so that large results are
+ * serialized only when the batch response is written.
+ */
+final class BatchCallExecutor {
+
+    /** The maximum number of calls of a single batch running at the same time. */
+    static final int MAX_CONCURRENT_CALLS = 16;
+    /** The time in milliseconds a call may run, unless its method has a specific timeout. */
+    static final long DEFAULT_CALL_TIMEOUT = 30_000;
+
+    private final Logger log;
+    private final Map<String, Long> callTimeouts;
+    private final ExecutorService executor;
+
+    /**
+     * @param callTimeouts the timeouts in milliseconds of the methods that may run for longer or
+     *     shorter than {@link #DEFAULT_CALL_TIMEOUT}
+     * @param threads the number of threads shared by all the batches
+     */
+    BatchCallExecutor(Map<String, Long> callTimeouts, int threads, Logger log) {
+        this.callTimeouts = new HashMap<>(callTimeouts);
+        this.log = log;
+
+        AtomicInteger count = new AtomicInteger(0);
+        ThreadPoolExecutor pool =
+                new ThreadPoolExecutor(
+                        threads,
+                        threads,
+                        60,
+                        TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(),
+                        r -> {
+                            Thread thread = new Thread(r, "rpc-batch-" + count.getAndIncrement());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        // idle threads are released between bursts of batch requests
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * Executes the calls of a batch and returns their responses, in the order of the calls.
+     *
+     * @param processor processes a single call, returning its response
+     * @throws InterruptedException if the thread is interrupted while waiting for the calls, which
+     *     are then cancelled
+     */
+    List<RpcMsg> execute(JSONArray calls, Function<JSONObject, RpcMsg> processor)
+            throws InterruptedException {
+        int size = calls.length();
+        RpcMsg[] responses = new RpcMsg[size];
+        CompletionService<RpcMsg> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<RpcMsg>, Call> running = new HashMap<>();
+
+        int next = 0;
+        int done = 0;
+        try {
+            while (done < size) {
+                while (next < size && running.size() < MAX_CONCURRENT_CALLS) {
+                    JSONObject request = calls.optJSONObject(next);
+                    Call call = new Call(next, request, timeoutOf(request));
+                    running.put(completion.submit(() -> call.run(processor)), call);
+                    next++;
+                }
+
+                // a call that has not started cannot expire before its full timeout
+                long wait = Long.MAX_VALUE;
+                long now = System.nanoTime();
+                for (Call call : running.values()) {
+                    wait = Math.min(wait, call.started ? call.deadline - now : call.timeout);
+                }
+
+                Future<RpcMsg> future =
+                        completion.poll(Math.max(wait, 0), TimeUnit.NANOSECONDS);
+                if (future != null) {
+                    // calls that timed out are no longer running when they complete
+                    Call call = running.remove(future);
+                    if (call != null) {
+                        responses[call.index] = resultOf(future, call);
+                        done++;
+                    }
+                } else {
+                    done += expire(running, responses);
+                }
+            }
+        } finally {
+            for (Future<RpcMsg> future : running.keySet()) {
+                future.cancel(true);
+            }
+        }
+
+        return Arrays.asList(responses);
+    }
+
+    /** Interrupts the calls past their deadline and returns how many were stopped. */
+    private int expire(Map<Future<RpcMsg>, Call> running, RpcMsg[] responses) {
+        long now = System.nanoTime();
+        int expired = 0;
+        Iterator<Map.Entry<Future<RpcMsg>, Call>> iterator = running.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Future<RpcMsg>, Call> entry = iterator.next();
+            Call call = entry.getValue();
+            if (call.started && call.deadline - now <= 0) {
+                entry.getKey().cancel(true);
+                iterator.remove();
+                responses[call.index] =
+                        new RpcMsg(null, RpcError.TIMEOUT).setId(idOf(call.request));
+                expired++;
+                log.debug("<rpc-server - batch call timed out: {}>", methodOf(call.request));
+            }
+        }
+        return expired;
+    }
+
+    private RpcMsg process(Function<JSONObject, RpcMsg> processor, JSONObject request) {
+        if (request == null) {
+            return new RpcMsg(null, RpcError.INVALID_REQUEST);
+        }
+        try {
+            return processor.apply(request);
+        } catch (Exception e) {
+            log.debug("<rpc-server - processObject failed in batch request>", e);
+            return new RpcMsg(null, RpcError.INVALID_REQUEST, "INVALID_REQUEST");
+        }
+    }
+
+    private RpcMsg resultOf(Future<RpcMsg> future, Call call) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            log.debug("<rpc-server - batch call failed>", e);
+            return new RpcMsg(null, RpcError.INTERNAL_ERROR).setId(idOf(call.request));
+        }
+    }
+
+    private long timeoutOf(JSONObject request) {
+        long timeout = callTimeouts.getOrDefault(methodOf(request), DEFAULT_CALL_TIMEOUT);
+        return TimeUnit.MILLISECONDS.toNanos(timeout);
+    }
+
+    private static String methodOf(JSONObject request) {
+        return request == null ? "" : request.optString("method");
+    }
+
+    private static Object idOf(JSONObject request) {
+        Object id = request == null ? null : request.opt("id");
+        return id == null ? JSONObject.NULL : id;
+    }
+
+    void shutdown(long timeout, TimeUnit unit) {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(timeout, unit);
+        } catch (InterruptedException ignored) {
+        }
+        // don't care about interruption on termination
+    }
+
+    private final class Call {
+        private final int index;
+        private final JSONObject request;
+        private final long timeout;
+        // set by the pool thread when the call starts, the deadline being written first
+        private volatile long deadline;
+        private volatile boolean started;
+
+        private Call(int index, JSONObject request, long timeout) {
+            this.index = index;
+            this.request = request;
+            this.timeout = timeout;
+        }
+
+        private RpcMsg run(Function<JSONObject, RpcMsg> processor) {
+            deadline = System.nanoTime() + timeout;
+            started = true;
+            return process(processor, request);
+        }
+    }
+}
@@ -37,6 +37,7 @@ public enum RpcError {
     INVALID_PARAMS(-32602, "Invalid params"),
     INTERNAL_ERROR(-32603, "Internal error"),
     SERVER_OVERLOAD(-32005, "Server under load; worker queue full"),
+    TIMEOUT(-32002, "Request timed out"),
 
     // custom error codes
     UNAUTHORIZED(1, "Unauthorized"),
@@ -3,6 +3,7 @@ package org.aion.api.server.rpc;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.aion.zero.impl.blockchain.AionImpl;
@@ -55,6 +56,19 @@ public class RpcMethods {
         return enabledEndpoints.get(name);
     }
 
+    /**
+     * Returns the method with the given name that requires a connection for pushing
+     * notifications, or {@code null} if there is no such method or it is not enabled.
+     */
+    public RpcSubscriptionMethod getSubscriptionMethod(String name) {
+        return enabledEndpoints.containsKey(name) ? subscriptionMethods.get(name) : null;
+    }
+
+    /** Cancels all the subscriptions pushing notifications to the given subscriber. */
+    public void unsubscribeAll(Consumer<String> subscriber) {
+        api.unsubscribeAll(subscriber);
+    }
+
     public void shutdown() {
         api.shutdown();
     }
@@ -118,6 +132,28 @@ public class RpcMethods {
         RpcMsg call(Object params);
     }
 
+    public interface RpcSubscriptionMethod {
+        RpcMsg call(Object params, Consumer<String> subscriber);
+    }
+
+    /**
+     * Methods pushing notifications over the connection of the caller. They are enabled through
+     * their entries in the groups, which reject calls made without such a connection.
+     */
+    private final Map<String, RpcSubscriptionMethod> subscriptionMethods =
+            Map.ofEntries(
+                    Map.entry(
+                            "eth_subscribe",
+                            (params, subscriber) -> api.eth_subscribe(params, subscriber)),
+                    Map.entry(
+                            "eth_unsubscribe",
+                            (params, subscriber) -> api.eth_unsubscribe(params, subscriber)));
+
+    private static RpcMsg subscriptionNotSupported() {
+        return new RpcMsg(
+                null, RpcError.NOT_ALLOWED, "Subscriptions are only available over websocket.");
+    }
+
     /** ops */
     private final Map<String, RpcMethod> ops =
             Map.ofEntries(
@@ -241,7 +277,9 @@ public class RpcMethods {
                     Map.entry("eth_uninstallFilter", (params) -> api.eth_uninstallFilter(params)),
                     Map.entry("eth_getFilterChanges", (params) -> api.eth_getFilterChanges(params)),
                     Map.entry("eth_getFilterLogs", (params) -> api.eth_getFilterChanges(params)),
-                    Map.entry("eth_getLogs", (params) -> api.eth_getLogs(params)));
+                    Map.entry("eth_getLogs", (params) -> api.eth_getLogs(params)),
+                    Map.entry("eth_subscribe", (params) -> subscriptionNotSupported()),
+                    Map.entry("eth_unsubscribe", (params) -> subscriptionNotSupported()));
 
     /** stratum */
     private final Map<String, RpcMethod> stratum =
@@ -1,12 +1,16 @@
 package org.aion.api.server.rpc;
 
+import java.io.IOException;
+import java.io.Writer;
+import org.aion.api.server.types.JsonStream;
+import org.aion.api.server.types.JsonWritable;
 import org.json.JSONObject;
 
 /**
  * @author ali sharif
  *     <p>Simple data structure to pass rpc messages
  */
-public class RpcMsg {
+public class RpcMsg implements JsonWritable {
     private Object result;
     private RpcError error;
     private Object errorData;
@@ -65,6 +69,24 @@ public class RpcMsg {
         return json;
     }
 
+    /**
+     * Writes the same json as {@link #toJson()}, streaming the result when it is a {@link
+     * JsonWritable} instead of building it in memory.
+     */
+    @Override
+    public void writeJson(Writer writer) throws IOException {
+        if (this.result == null) {
+            // errors are small
+            this.toJson().write(writer);
+        } else {
+            writer.write("{\"jsonrpc\":\"2.0\",\"id\":");
+            JsonStream.write(writer, this.id);
+            writer.write(",\"result\":");
+            JsonStream.write(writer, this.result);
+            writer.write('}');
+        }
+    }
+
     @Override
     public String toString() {
         return this.toJson().toString();
@@ -1,13 +1,14 @@
 package org.aion.api.server.rpc;
 
 import com.google.common.base.Stopwatch;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.CompletionService;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.aion.api.server.types.JsonStream;
+import org.aion.api.server.types.JsonWritable;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
 import org.apache.commons.lang3.StringUtils;
@@ -21,31 +22,72 @@ public class RpcProcessor {
 
     private RpcMethods apiHolder;
 
-    private ExecutorService executor;
-    private CompletionService<JSONObject> batchCallCompletionService;
+    private final BatchCallExecutor batchExecutor;
     private final int SHUTDOWN_WAIT_SECONDS = 5;
 
+    // methods that may take longer than the default timeout for calls in batch requests
+    private static final Map<String, Long> BATCH_CALL_TIMEOUTS =
+            Map.of(
+                    "eth_getLogs", 120_000L,
+                    "eth_compileSolidity", 120_000L,
+                    "eth_compileSolidityZip", 120_000L);
+
     public RpcProcessor(
             final List<String> enabledGroups,
             final List<String> enabledMethods,
             final List<String> disabledMethods) {
 
         this.apiHolder = new RpcMethods(enabledGroups, enabledMethods, disabledMethods);
-        executor =
-                Executors.newFixedThreadPool(
-                        Math.min(Runtime.getRuntime().availableProcessors() * 2, 4));
-        batchCallCompletionService = new ExecutorCompletionService<>(executor);
+        // sized like the worker pool of the http server, since batch calls are as blocking as the
+        // requests served by its workers
+        batchExecutor =
+                new BatchCallExecutor(
+                        BATCH_CALL_TIMEOUTS,
+                        Math.max(Runtime.getRuntime().availableProcessors(), 2) * 8,
+                        LOG);
     }
 
     public String process(String _requestBody) {
-        String response = composeRpcResponse(new RpcMsg(null, RpcError.INVALID_REQUEST).toString());
+        return process(_requestBody, null);
+    }
+
+    /**
+     * Processes a request received over a connection that supports notifications, such as a
+     * websocket, allowing calls to the subscription methods.
+     *
+     * @param subscriber sends the notifications of the subscriptions made by the request to the
+     *     client, or {@code null} if the connection does not support them
+     */
+    public String process(String _requestBody, Consumer<String> subscriber) {
+        JsonWritable response = respond(_requestBody, subscriber);
+        try {
+            return response.toJSONString();
+        } catch (Exception e) {
+            LOG.debug("<rpc-server - failed to write rpc response>", e);
+            return new RpcMsg(null, RpcError.INTERNAL_ERROR).toString();
+        }
+    }
+
+    /**
+     * Processes a request and writes the response to the given writer. Large results are
+     * serialized while they are written, so the response is never held in memory as a whole.
+     *
+     * @throws IOException if writing the response fails; since it may have been partially written
+     *     already, the connection should be closed
+     */
+    public void process(String _requestBody, Writer out) throws IOException {
+        respond(_requestBody, null).writeJson(out);
+    }
+
+    private JsonWritable respond(String _requestBody, Consumer<String> subscriber) {
+        JsonWritable response = new RpcMsg(null, RpcError.INVALID_REQUEST);
 
         try {
             String requestBody = _requestBody.trim();
             if (!StringUtils.isEmpty(requestBody)) {
                 char firstChar = requestBody.charAt(0);
-                if (firstChar == '{') response = handleSingle(requestBody);
-                else if (firstChar == '[') response = handleBatch(requestBody);
+                if (firstChar == '{') response = handleSingle(requestBody, subscriber);
+                else if (firstChar == '[') response = handleBatch(requestBody, subscriber);
             }
         } catch (Exception e) {
             LOG.debug("<rpc-server - failed to process rpc request body>", e);
@@ -54,18 +96,12 @@ public class RpcProcessor {
         return response;
     }
 
-    private String composeRpcResponse(String _respBody) {
-        String respBody;
-        if (_respBody == null) {
-            respBody = new RpcMsg(null, RpcError.INTERNAL_ERROR).toString();
-        } else {
-            respBody = _respBody;
-        }
-
-        return respBody;
+    /** Cancels the subscriptions of a closed connection. */
+    public void closeSubscriber(Consumer<String> subscriber) {
+        apiHolder.unsubscribeAll(subscriber);
     }
 
-    private JSONObject processObject(JSONObject body) {
+    private RpcMsg processCall(JSONObject body, Consumer<String> subscriber) {
         try {
             String method;
             Object params;
@@ -80,13 +116,20 @@ public class RpcProcessor {
                 params = body.opt("params");
             } catch (Exception e) {
                 LOG.debug("<rpc-server - invalid rpc request [0]>", e);
-                return new RpcMsg(null, RpcError.INVALID_REQUEST).toJson();
+                return new RpcMsg(null, RpcError.INVALID_REQUEST);
             }
 
             RpcMethods.RpcMethod rpc = apiHolder.get(method);
+            if (subscriber != null) {
+                RpcMethods.RpcSubscriptionMethod subscription =
+                        apiHolder.getSubscriptionMethod(method);
+                if (subscription != null) {
+                    rpc = (p) -> subscription.call(p, subscriber);
+                }
+            }
             if (rpc == null) {
                 LOG.debug("rpc-server - invalid method: {} [1]", method);
-                return new RpcMsg(null, RpcError.METHOD_NOT_FOUND).setId(id).toJson();
+                return new RpcMsg(null, RpcError.METHOD_NOT_FOUND).setId(id);
             }
 
             try {
@@ -105,21 +148,21 @@ public class RpcProcessor {
                             "<request mth=[{}] rpc-process time: [{}]>", method, timer.toString());
                 }
 
-                return response.setId(id).toJson();
+                return response.setId(id);
 
             } catch (Exception e) {
                 LOG.debug("<rpc-server - internal error [2]>", e);
-                return new RpcMsg(null, RpcError.INTERNAL_ERROR).setId(id).toJson();
+                return new RpcMsg(null, RpcError.INTERNAL_ERROR).setId(id);
             }
         } catch (Exception e) {
             LOG.debug("<rpc-server - internal error [3]>", e);
         }
 
-        return new RpcMsg(null, RpcError.INTERNAL_ERROR).toJson();
+        return new RpcMsg(null, RpcError.INTERNAL_ERROR);
     }
 
     // implementing http://www.jsonrpc.org/specification#batch
-    private String handleBatch(String _reqBody) {
+    private JsonWritable handleBatch(String _reqBody, Consumer<String> subscriber) {
         try {
             JSONArray reqBodies;
 
@@ -130,7 +173,7 @@ public class RpcProcessor {
                 // rpc call Batch, invalid JSON
                 // rpc call with an empty Array
                 LOG.debug("<rpc-server - rpc call parse error [4]>", e);
-                return composeRpcResponse(new RpcMsg(null, RpcError.PARSE_ERROR).toString());
+                return new RpcMsg(null, RpcError.PARSE_ERROR);
             }
 
             // time batch completion
@@ -138,14 +181,8 @@ public class RpcProcessor {
             Stopwatch timer = null;
             if (shouldTime) timer = Stopwatch.createStarted();
 
-            for (int i = 0; i < reqBodies.length(); i++) {
-                batchCallCompletionService.submit(new BatchCallTask(reqBodies.getJSONObject(i)));
-            }
-
-            JSONArray respBodies = new JSONArray();
-            for (int i = 0; i < reqBodies.length(); i++) {
-                respBodies.put(batchCallCompletionService.take().get());
-            }
+            List<RpcMsg> respBodies =
+                    batchExecutor.execute(reqBodies, (call) -> processCall(call, subscriber));
 
             if (shouldTime) {
                 timer.stop();
@@ -155,57 +192,33 @@ public class RpcProcessor {
                         timer.toString());
             }
 
-            String respBody = respBodies.toString();
+            if (LOG.isTraceEnabled()) LOG.trace("<rpc-server response={}>", respBodies);
 
-            if (LOG.isTraceEnabled()) LOG.trace("<rpc-server response={}>", respBody);
-
-            return composeRpcResponse(respBody);
+            // the results of the calls are serialized one at a time while they are written
+            return JsonStream.array(respBodies.size(), respBodies::get);
 
         } catch (Exception e) {
             LOG.debug("<rpc-server - internal error [6]>", e);
         }
 
-        return composeRpcResponse(new RpcMsg(null, RpcError.INTERNAL_ERROR).toString());
+        return new RpcMsg(null, RpcError.INTERNAL_ERROR);
     }
 
-    private String handleSingle(String _reqBody) {
+    private JsonWritable handleSingle(String _reqBody, Consumer<String> subscriber) {
         try {
             JSONObject obj = new JSONObject(_reqBody);
-            return composeRpcResponse(processObject(obj).toString());
+            return processCall(obj, subscriber);
         } catch (Exception e) {
             // rpc call with invalid JSON
             LOG.debug("<rpc-server - rpc call parse error [7]>", e);
         }
 
-        return composeRpcResponse(new RpcMsg(null, RpcError.PARSE_ERROR).toString());
-    }
-
-    private class BatchCallTask implements Callable<JSONObject> {
-        private JSONObject task;
-
-        public BatchCallTask(JSONObject task) {
-            this.task = task;
-        }
-
-        @Override
-        public JSONObject call() {
-            try {
-                return processObject(task);
-            } catch (Exception e) {
-                LOG.debug("<rpc-server - processObject failed in batch request>", e);
-                return new RpcMsg(null, RpcError.INVALID_REQUEST, "INVALID_REQUEST").toJson();
-            }
-        }
+        return new RpcMsg(null, RpcError.PARSE_ERROR);
     }
 
     public void shutdown() {
         apiHolder.shutdown();
 
-        executor.shutdown();
-        try {
-            executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
-        } catch (InterruptedException ignored) {
-        }
-        // don't care about interruption on termination
+        batchExecutor.shutdown(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
     }
 }
@@ -2,6 +2,7 @@ package org.aion.api.server.types;
 
 import java.math.BigInteger;
 import java.util.List;
+import java.util.Map;
 
 import org.aion.util.bytes.ByteUtil;
 import org.aion.util.string.StringUtils;
@@ -22,6 +23,44 @@ public class Blk {
             AionBlock block, BigInteger totalDifficulty, boolean fullTransaction) {
         if (block == null) return null;
 
+        JSONObject obj = headerToJson(block, totalDifficulty);
+
+        JSONArray jsonTxs = new JSONArray();
+        List<AionTransaction> txs = block.getTransactionsList();
+        for (int i = 0; i < txs.size(); i++) {
+            jsonTxs.put(transactionToJson(block, txs.get(i), i, fullTransaction));
+        }
+        obj.put("transactions", jsonTxs);
+        return obj;
+    }
+
+    /**
+     * Returns the same json as {@link #AionBlockToJson(AionBlock, BigInteger, boolean)}, but the
+     * transactions are converted one at a time while the block is written.
+     *
+     * @param extraFields additional fields of the block object, may be {@code null}
+     */
+    public static JsonWritable AionBlockToJsonStream(
+            AionBlock block,
+            BigInteger totalDifficulty,
+            boolean fullTransaction,
+            Map<String, Object> extraFields) {
+        if (block == null) return null;
+
+        JSONObject obj = headerToJson(block, totalDifficulty);
+        if (extraFields != null) {
+            extraFields.forEach(obj::put);
+        }
+
+        List<AionTransaction> txs = block.getTransactionsList();
+        return JsonStream.object(
+                obj,
+                "transactions",
+                JsonStream.array(
+                        txs.size(), i -> transactionToJson(block, txs.get(i), i, fullTransaction)));
+    }
+
+    private static JSONObject headerToJson(AionBlock block, BigInteger totalDifficulty) {
         JSONObject obj = new JSONObject();
         obj.put("number", block.getNumber());
         obj.put("hash", StringUtils.toJsonHex(block.getHash()));
@@ -48,38 +87,35 @@ public class Blk {
         //
         obj.put("extraData", StringUtils.toJsonHex(block.getExtraData()));
         obj.put("size", new NumericalValue(block.size()).toHexString());
+        return obj;
+    }
 
-        JSONArray jsonTxs = new JSONArray();
-        List<AionTransaction> txs = block.getTransactionsList();
-        for (int i = 0; i < txs.size(); i++) {
-            AionTransaction tx = txs.get(i);
-            if (fullTransaction) {
-                JSONObject jsonTx = new JSONObject();
-                jsonTx.put(
-                        "contractAddress",
-                        (tx.getContractAddress() != null)
-                                ? StringUtils.toJsonHex(tx.getContractAddress().toString())
-                                : null);
-                jsonTx.put("hash", StringUtils.toJsonHex(tx.getTransactionHash()));
-                jsonTx.put("transactionIndex", i);
-                jsonTx.put("value", StringUtils.toJsonHex(tx.getValue()));
-                jsonTx.put("nrg", tx.getEnergyLimit());
-                jsonTx.put("nrgPrice", StringUtils.toJsonHex(tx.getEnergyPrice()));
-                jsonTx.put("gas", tx.getEnergyLimit());
-                jsonTx.put("gasPrice", StringUtils.toJsonHex(tx.getEnergyPrice()));
-                jsonTx.put("nonce", ByteUtil.byteArrayToLong(tx.getNonce()));
-                jsonTx.put("from", StringUtils.toJsonHex(tx.getSenderAddress().toString()));
-                jsonTx.put("to", StringUtils.toJsonHex(tx.getDestinationAddress().toString()));
-                jsonTx.put("timestamp", block.getTimestamp());
-                jsonTx.put("input", StringUtils.toJsonHex(tx.getData()));
-                jsonTx.put("blockNumber", block.getNumber());
-                jsonTxs.put(jsonTx);
-            } else {
-                jsonTxs.put(StringUtils.toJsonHex(tx.getTransactionHash()));
-            }
+    private static Object transactionToJson(
+            AionBlock block, AionTransaction tx, int index, boolean fullTransaction) {
+        if (!fullTransaction) {
+            return StringUtils.toJsonHex(tx.getTransactionHash());
         }
-        obj.put("transactions", jsonTxs);
-        return obj;
+
+        JSONObject jsonTx = new JSONObject();
+        jsonTx.put(
+                "contractAddress",
+                (tx.getContractAddress() != null)
+                        ? StringUtils.toJsonHex(tx.getContractAddress().toString())
+                        : null);
+        jsonTx.put("hash", StringUtils.toJsonHex(tx.getTransactionHash()));
+        jsonTx.put("transactionIndex", index);
+        jsonTx.put("value", StringUtils.toJsonHex(tx.getValue()));
+        jsonTx.put("nrg", tx.getEnergyLimit());
+        jsonTx.put("nrgPrice", StringUtils.toJsonHex(tx.getEnergyPrice()));
+        jsonTx.put("gas", tx.getEnergyLimit());
+        jsonTx.put("gasPrice", StringUtils.toJsonHex(tx.getEnergyPrice()));
+        jsonTx.put("nonce", ByteUtil.byteArrayToLong(tx.getNonce()));
+        jsonTx.put("from", StringUtils.toJsonHex(tx.getSenderAddress().toString()));
+        jsonTx.put("to", StringUtils.toJsonHex(tx.getDestinationAddress().toString()));
+        jsonTx.put("timestamp", block.getTimestamp());
+        jsonTx.put("input", StringUtils.toJsonHex(tx.getData()));
+        jsonTx.put("blockNumber", block.getNumber());
+        return jsonTx;
     }
 
     @SuppressWarnings("Duplicates")
@@ -133,6 +133,15 @@ public final class FltrLg extends Fltr {
         }
     }
 
+    /**
+     * Returns the blooms matched by this filter: a block bloom must contain at least one bloom from
+     * each of the returned groups.
+     */
+    public Bloom[][] getFilterBlooms() {
+        initBlooms();
+        return filterBlooms;
+    }
+
     public boolean matchBloom(IBloomFilter blockBloom) {
         initBlooms();
         for (Bloom[] andBloom : filterBlooms) {
@@ -0,0 +1,71 @@
+package org.aion.api.server.types;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.IntFunction;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/** Builds {@link JsonWritable} values and writes json values directly to a writer. */
+public final class JsonStream {
+
+    private JsonStream() {}
+
+    /**
+     * Writes the given value, which may be a {@link JsonWritable}, an org.json object or array, a
+     * string, a number, a boolean or {@code null}.
+     */
+    public static void write(Writer writer, Object value) throws IOException {
+        if (value instanceof JsonWritable) {
+            ((JsonWritable) value).writeJson(writer);
+        } else if (value instanceof JSONObject) {
+            ((JSONObject) value).write(writer);
+        } else if (value instanceof JSONArray) {
+            ((JSONArray) value).write(writer);
+        } else if (value instanceof String) {
+            JSONObject.quote((String) value, writer);
+        } else {
+            writer.write(JSONObject.valueToString(value));
+        }
+    }
+
+    /**
+     * Returns an array whose elements are created only when they are written, so that at most one
+     * of them is held in memory at a time.
+     *
+     * @param size the number of elements
+     * @param elements creates the element at the given index
+     */
+    public static JsonWritable array(int size, IntFunction<Object> elements) {
+        return (writer) -> {
+            writer.write('[');
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                write(writer, elements.apply(i));
+            }
+            writer.write(']');
+        };
+    }
+
+    /**
+     * Returns an object with the given fields followed by one more field, typically a large value
+     * such as a {@link #array(int, IntFunction)}.
+     */
+    public static JsonWritable object(JSONObject fields, String key, Object value) {
+        return (writer) -> {
+            writer.write('{');
+            for (String name : fields.keySet()) {
+                JSONObject.quote(name, writer);
+                writer.write(':');
+                write(writer, fields.opt(name));
+                writer.write(',');
+            }
+            JSONObject.quote(key, writer);
+            writer.write(':');
+            write(writer, value);
+            writer.write('}');
+        };
+    }
+}
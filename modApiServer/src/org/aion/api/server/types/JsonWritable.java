@@ -0,0 +1,33 @@
+package org.aion.api.server.types;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import org.json.JSONString;
+
+/**
+ * A json value that is serialized while it is written, instead of being built in memory as a
+ * tree of {@link org.json.JSONObject}s and converted to a string first. Used for results that may
+ * be large, e.g. blocks with all their transactions or the logs matched by a filter.
+ *
+ * <p>When added to an org.json object, the value is converted to a string through {@link
+ * #toJSONString()}.
+ */
+@FunctionalInterface
+public interface JsonWritable extends JSONString {
+
+    /** Writes the json representation of this value. */
+    void writeJson(Writer writer) throws IOException;
+
+    @Override
+    default String toJSONString() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeJson(writer);
+        } catch (IOException e) {
+            // not thrown by a StringWriter
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+}
@@ -5,6 +5,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import io.undertow.util.FileUtils;
@@ -21,6 +22,7 @@ import org.aion.interfaces.tx.Transaction;
 import org.aion.interfaces.tx.TxReceipt;
 import org.aion.types.Address;
 import org.aion.crypto.ed25519.ECKeyEd25519;
+import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.impl.evt.EventBlock;
 import org.aion.evtmgr.impl.evt.EventDummy;
 import org.aion.evtmgr.impl.evt.EventTx;
@@ -176,6 +178,29 @@ public class ApiAionTest {
         assertTrue(api.allFlagsSet());
     }
 
+    @Test
+    public void testSplitTransactions() {
+        EventTx pendingRcvd = new EventTx(EventTx.CALLBACK.PENDINGTXRECEIVED0);
+        List<Transaction> txs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            txs.add(new AionTransaction(null));
+        }
+        pendingRcvd.setFuncArgs(Collections.singletonList(txs));
+
+        // each received transaction is queued as a separate event
+        List<IEvent> events = ApiAion.splitTransactions(pendingRcvd);
+        assertEquals(3, events.size());
+        for (int i = 0; i < 3; i++) {
+            List<?> single = (List<?>) events.get(i).getFuncArgs().get(0);
+            assertEquals(1, single.size());
+            assertSame(txs.get(i), single.get(0));
+        }
+
+        // the other events are not changed
+        EventBlock evBlock = new EventBlock(EventBlock.CALLBACK.ONBLOCK0);
+        assertEquals(Collections.singletonList(evBlock), ApiAion.splitTransactions(evBlock));
+    }
+
     @Test
     public void testGetBlock() {
         assertNotNull(api.getBlockTemplate());
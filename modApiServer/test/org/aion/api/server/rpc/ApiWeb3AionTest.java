@@ -1,16 +1,25 @@
 package org.aion.api.server.rpc;
 
 import static org.aion.util.string.StringUtils.StringHexToBigInteger;
+import static org.aion.util.string.StringUtils.toJsonHex;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.aion.crypto.ed25519.ECKeyEd25519;
 import org.aion.types.Address;
 import org.aion.mcf.account.AccountManager;
 import org.aion.mcf.account.Keystore;
 
 import org.aion.zero.impl.blockchain.AionImpl;
 import org.aion.zero.impl.blockchain.AionPendingStateImpl;
+import org.aion.zero.types.AionTransaction;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.Before;
@@ -206,4 +215,73 @@ public class ApiWeb3AionTest {
         RpcMsg rsp = web3Api.eth_getTransactionByBlockNumberAndIndex(req);
         assertEquals(JSONObject.NULL, rsp.getResult());
     }
+
+    @Test
+    public void testSubscribePendingTransactions() {
+        List<String> pushed = new ArrayList<>();
+        Consumer<String> subscriber = pushed::add;
+
+        JSONArray params = new JSONArray();
+        params.put(ApiWeb3Aion.SUB_PENDING_TXS);
+        RpcMsg rsp = web3Api.eth_subscribe(params, subscriber);
+        assertNull(rsp.getError());
+        String id = rsp.getResult().toString();
+        assertEquals(1, web3Api.getSubscriptionCount());
+
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.ZERO.toByteArray(),
+                        Address.ZERO_ADDRESS(),
+                        Address.ZERO_ADDRESS(),
+                        BigInteger.ONE.toByteArray(),
+                        new byte[0],
+                        100000,
+                        100000);
+        tx.sign(new ECKeyEd25519());
+        web3Api.pendingTxReceived(tx);
+
+        assertEquals(1, pushed.size());
+        JSONObject notification = new JSONObject(pushed.get(0));
+        assertEquals("eth_subscription", notification.getString("method"));
+        JSONObject result = notification.getJSONObject("params");
+        assertEquals(id, result.getString("subscription"));
+        assertEquals(toJsonHex(tx.getTransactionHash()), result.getString("result"));
+
+        // only the subscriber can cancel its subscription
+        JSONArray unsubscribe = new JSONArray();
+        unsubscribe.put(id);
+        assertFalse((boolean) web3Api.eth_unsubscribe(unsubscribe, (m) -> {}).getResult());
+        assertTrue((boolean) web3Api.eth_unsubscribe(unsubscribe, subscriber).getResult());
+        assertEquals(0, web3Api.getSubscriptionCount());
+    }
+
+    @Test
+    public void testSubscribeInvalidType() {
+        JSONArray params = new JSONArray();
+        params.put("foo");
+
+        RpcMsg rsp = web3Api.eth_subscribe(params, (m) -> {});
+        assertEquals(RpcError.INVALID_PARAMS, rsp.getError());
+        assertEquals(0, web3Api.getSubscriptionCount());
+    }
+
+    @Test
+    public void testSubscribeLimit() {
+        Consumer<String> subscriber = (m) -> {};
+        JSONArray params = new JSONArray();
+        params.put(ApiWeb3Aion.SUB_NEW_HEADS);
+
+        for (int i = 0; i < ApiWeb3Aion.MAX_SUBSCRIPTIONS; i++) {
+            assertNull(web3Api.eth_subscribe(params, subscriber).getError());
+        }
+        RpcMsg rsp = web3Api.eth_subscribe(params, subscriber);
+        assertEquals(RpcError.NOT_ALLOWED, rsp.getError());
+
+        // other clients are not affected
+        assertNull(web3Api.eth_subscribe(params, (m) -> {}).getError());
+        assertEquals(ApiWeb3Aion.MAX_SUBSCRIPTIONS + 1, web3Api.getSubscriptionCount());
+
+        web3Api.unsubscribeAll(subscriber);
+        assertEquals(1, web3Api.getSubscriptionCount());
+    }
 }
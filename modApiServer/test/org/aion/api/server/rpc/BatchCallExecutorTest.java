@@ -0,0 +1,141 @@
+package org.aion.api.server.rpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.aion.log.AionLoggerFactory;
+import org.aion.log.LogEnum;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+public class BatchCallExecutorTest {
+
+    private final BatchCallExecutor executor =
+            new BatchCallExecutor(
+                    Map.of("slow", 100L), 32, AionLoggerFactory.getLogger(LogEnum.API.name()));
+
+    @After
+    public void tearDown() {
+        executor.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    private static JSONArray calls(int count, String method) {
+        JSONArray calls = new JSONArray();
+        for (int i = 0; i < count; i++) {
+            JSONObject call = new JSONObject();
+            call.put("method", method);
+            call.put("id", i);
+            calls.put(call);
+        }
+        return calls;
+    }
+
+    private static RpcMsg echo(JSONObject call) {
+        return new RpcMsg(call.get("method")).setId(call.get("id"));
+    }
+
+    @Test
+    public void testResponsesInOrder() throws InterruptedException {
+        List<RpcMsg> responses = executor.execute(calls(100, "fast"), BatchCallExecutorTest::echo);
+
+        assertEquals(100, responses.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, responses.get(i).toJson().getInt("id"));
+        }
+    }
+
+    @Test
+    public void testConcurrencyCapped() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger(0);
+        AtomicInteger max = new AtomicInteger(0);
+
+        executor.execute(
+                calls(100, "fast"),
+                (call) -> {
+                    max.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(2);
+                    } catch (InterruptedException ignored) {
+                    }
+                    running.decrementAndGet();
+                    return echo(call);
+                });
+
+        assertTrue(max.get() <= BatchCallExecutor.MAX_CONCURRENT_CALLS);
+    }
+
+    @Test
+    public void testTimeout() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        JSONArray calls = calls(3, "fast");
+        JSONObject slow = new JSONObject();
+        slow.put("method", "slow");
+        slow.put("id", 3);
+        calls.put(slow);
+
+        List<RpcMsg> responses =
+                executor.execute(
+                        calls,
+                        (call) -> {
+                            if ("slow".equals(call.getString("method"))) {
+                                try {
+                                    Thread.sleep(60_000);
+                                } catch (InterruptedException e) {
+                                    interrupted.countDown();
+                                }
+                            }
+                            return echo(call);
+                        });
+
+        assertEquals(4, responses.size());
+        assertEquals("fast", responses.get(0).toJson().getString("result"));
+        JSONObject error = responses.get(3).toJson().getJSONObject("error");
+        assertEquals(RpcError.TIMEOUT.getCode(), error.getInt("code"));
+        assertEquals(3, responses.get(3).toJson().getInt("id"));
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testTimeoutStartsWhenCallRuns() throws InterruptedException {
+        BatchCallExecutor single =
+                new BatchCallExecutor(
+                        Map.of("slow", 100L), 1, AionLoggerFactory.getLogger(LogEnum.API.name()));
+        try {
+            // the last call waits for the thread longer than its timeout
+            List<RpcMsg> responses =
+                    single.execute(
+                            calls(4, "slow"),
+                            (call) -> {
+                                try {
+                                    Thread.sleep(50);
+                                } catch (InterruptedException ignored) {
+                                }
+                                return echo(call);
+                            });
+
+            for (int i = 0; i < 4; i++) {
+                assertEquals("slow", responses.get(i).toJson().getString("result"));
+            }
+        } finally {
+            single.shutdown(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testInvalidCall() throws InterruptedException {
+        JSONArray calls = calls(1, "fast");
+        calls.put("not an object");
+
+        List<RpcMsg> responses = executor.execute(calls, BatchCallExecutorTest::echo);
+
+        JSONObject error = responses.get(1).toJson().getJSONObject("error");
+        assertEquals(RpcError.INVALID_REQUEST.getCode(), error.getInt("code"));
+    }
+}
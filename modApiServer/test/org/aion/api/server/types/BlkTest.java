@@ -0,0 +1,71 @@
+package org.aion.api.server.types;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import org.aion.crypto.ed25519.ECKeyEd25519;
+import org.aion.types.Address;
+import org.aion.zero.exceptions.HeaderStructureException;
+import org.aion.zero.impl.types.AionBlock;
+import org.aion.zero.types.A0BlockHeader;
+import org.aion.zero.types.AionTransaction;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class BlkTest {
+
+    private static AionBlock block() throws HeaderStructureException {
+        AionTransaction tx =
+                new AionTransaction(
+                        BigInteger.ZERO.toByteArray(),
+                        Address.ZERO_ADDRESS(),
+                        Address.ZERO_ADDRESS(),
+                        BigInteger.ONE.toByteArray(),
+                        new byte[0],
+                        100000,
+                        100000);
+        tx.sign(new ECKeyEd25519());
+        A0BlockHeader header = new A0BlockHeader.Builder().withNumber(10).build();
+        return new AionBlock(header, List.of(tx, tx));
+    }
+
+    @Test
+    public void testStreamMatchesTree() throws HeaderStructureException {
+        AionBlock block = block();
+
+        for (boolean fullTx : new boolean[] {true, false}) {
+            Object expected = Blk.AionBlockToJson(block, BigInteger.TEN, fullTx);
+            JsonWritable streamed = Blk.AionBlockToJsonStream(block, BigInteger.TEN, fullTx, null);
+
+            assertTrue(
+                    new JSONObject(expected.toString())
+                            .similar(new JSONObject(streamed.toJSONString())));
+        }
+    }
+
+    @Test
+    public void testStreamExtraFields() throws HeaderStructureException {
+        JsonWritable streamed =
+                Blk.AionBlockToJsonStream(
+                        block(), BigInteger.TEN, false, Map.of("mainchain", true));
+
+        JSONObject json = new JSONObject(streamed.toJSONString());
+        assertTrue(json.getBoolean("mainchain"));
+        assertEquals(2, json.getJSONArray("transactions").length());
+    }
+
+    @Test
+    public void testStreamedArray() {
+        JsonWritable array =
+                JsonStream.array(3, (i) -> i == 1 ? "b" : new JSONObject().put("i", i));
+
+        JSONArray json = new JSONArray(array.toJSONString());
+        assertEquals(3, json.length());
+        assertEquals("b", json.getString(1));
+        assertEquals(2, json.getJSONObject(2).getInt("i"));
+    }
+}
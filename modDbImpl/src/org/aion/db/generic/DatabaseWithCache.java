@@ -5,12 +5,15 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 import com.google.common.primitives.Longs;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.aion.db.impl.AbstractDB;
+import org.aion.db.impl.MultiGetDatabase;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
 import org.aion.interfaces.db.PersistenceMethod;
 import org.aion.log.AionLoggerFactory;
@@ -25,7 +28,7 @@ import org.slf4j.Logger;
  * @author Alexandra Roatis
  * @implNote Assumes persistent database. Overwrite method if this is not the case.
  */
-public class DatabaseWithCache implements ByteArrayKeyValueDatabase {
+public class DatabaseWithCache implements ByteArrayKeyValueDatabase, MultiGetDatabase {
 
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
 
@@ -100,6 +103,24 @@ public class DatabaseWithCache implements ByteArrayKeyValueDatabase {
                                 // Load from the data source.
                                 return database.get(keyToLoad.getData());
                             }
+
+                            @Override
+                            public Map<ByteArrayWrapper, Optional<byte[]>> loadAll(
+                                    Iterable<? extends ByteArrayWrapper> keysToLoad) {
+                                // Load all the cache misses from the data source at once.
+                                List<byte[]> keys = new ArrayList<>();
+                                for (ByteArrayWrapper key : keysToLoad) {
+                                    keys.add(key.getData());
+                                }
+                                Map<ByteArrayWrapper, byte[]> found = database.getAll(keys);
+
+                                // The absent keys are also cached to avoid reading them again.
+                                Map<ByteArrayWrapper, Optional<byte[]>> loaded = new HashMap<>();
+                                for (ByteArrayWrapper key : keysToLoad) {
+                                    loaded.put(key, Optional.ofNullable(found.get(key)));
+                                }
+                                return loaded;
+                            }
                         });
     }
 
@@ -372,6 +393,36 @@ public class DatabaseWithCache implements ByteArrayKeyValueDatabase {
         return v;
     }
 
+    /**
+     * Returns the values present in the cache and loads all the missing ones from the database
+     * with a single batched read.
+     */
+    @Override
+    public Map<ByteArrayWrapper, byte[]> getAll(Collection<byte[]> keys) {
+        AbstractDB.check(keys);
+
+        // this runtime exception should not be caught here
+        check();
+
+        List<ByteArrayWrapper> wrappedKeys = new ArrayList<>(keys.size());
+        for (byte[] k : keys) {
+            wrappedKeys.add(ByteArrayWrapper.wrap(k));
+        }
+
+        Map<ByteArrayWrapper, byte[]> result = new HashMap<>();
+        try {
+            // gets the cached values and loads the rest from the database
+            for (Map.Entry<ByteArrayWrapper, Optional<byte[]>> entry :
+                    this.loadingCache.getAll(wrappedKeys).entrySet()) {
+                entry.getValue().ifPresent(v -> result.put(entry.getKey(), v));
+            }
+        } catch (Exception e) {
+            LOG.error("Unable to retrieve values for the given keys.", e);
+        }
+
+        return result;
+    }
+
     @Override
     public void put(byte[] k, byte[] v) {
         putToBatch(k, v);
@@ -6,10 +6,12 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.aion.db.impl.MultiGetDatabase;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
 import org.aion.interfaces.db.PersistenceMethod;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
+import org.aion.types.ByteArrayWrapper;
 import org.slf4j.Logger;
 
 /**
@@ -20,7 +22,7 @@ import org.slf4j.Logger;
  *
  * @author Alexandra Roatis
  */
-public class LockedDatabase implements ByteArrayKeyValueDatabase {
+public class LockedDatabase implements ByteArrayKeyValueDatabase, MultiGetDatabase {
 
     /** Unlocked database. */
     protected final ByteArrayKeyValueDatabase database;
@@ -227,6 +229,21 @@ public class LockedDatabase implements ByteArrayKeyValueDatabase {
         }
     }
 
+    @Override
+    public Map<ByteArrayWrapper, byte[]> getAll(Collection<byte[]> keys) {
+        // acquire read lock
+        lock.readLock().lock();
+
+        try {
+            return MultiGetDatabase.getAll(database, keys);
+        } catch (Exception e) {
+            throw e;
+        } finally {
+            // releasing read lock
+            lock.readLock().unlock();
+        }
+    }
+
     @Override
     public void put(byte[] key, byte[] value) {
         // acquire write lock
@@ -4,10 +4,12 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
+import org.aion.db.impl.MultiGetDatabase;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
 import org.aion.interfaces.db.PersistenceMethod;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
+import org.aion.types.ByteArrayWrapper;
 import org.aion.util.conversions.Hex;
 import org.slf4j.Logger;
 
@@ -16,7 +18,7 @@ import org.slf4j.Logger;
  *
  * @author Alexandra Roatis
  */
-public class TimedDatabase implements ByteArrayKeyValueDatabase {
+public class TimedDatabase implements ByteArrayKeyValueDatabase, MultiGetDatabase {
 
     /** Unlocked database. */
     protected final ByteArrayKeyValueDatabase database;
@@ -179,6 +181,24 @@ public class TimedDatabase implements ByteArrayKeyValueDatabase {
         return value;
     }
 
+    @Override
+    public Map<ByteArrayWrapper, byte[]> getAll(Collection<byte[]> keys) {
+        long t1 = System.nanoTime();
+        Map<ByteArrayWrapper, byte[]> values = MultiGetDatabase.getAll(database, keys);
+        long t2 = System.nanoTime();
+
+        LOG.debug(
+                database.toString()
+                        + " getAll("
+                        + keys.size()
+                        + " keys) in "
+                        + (t2 - t1)
+                        + " ns."
+                        + "\n\t\t\t\t\treturned values = "
+                        + values.size());
+        return values;
+    }
+
     @Override
     public void put(byte[] key, byte[] value) {
         long t1 = System.nanoTime();
@@ -4,6 +4,7 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -21,7 +22,7 @@ import org.slf4j.Logger;
  * @author Alexandra Roatis
  * @implNote Assumes persistent database. Overwrite method if this is not the case.
  */
-public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
+public abstract class AbstractDB implements ByteArrayKeyValueDatabase, MultiGetDatabase {
 
     protected static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
 
@@ -175,6 +176,34 @@ public abstract class AbstractDB implements ByteArrayKeyValueDatabase {
      */
     protected abstract byte[] getInternal(byte[] key);
 
+    @Override
+    public Map<ByteArrayWrapper, byte[]> getAll(Collection<byte[]> keys) {
+        check(keys);
+        check();
+
+        return getAllInternal(keys);
+    }
+
+    /**
+     * Database specific multi-get functionality, without locking or integrity checks required.
+     * Locking and checks are applied in {@link #getAll(Collection)}.
+     *
+     * @implNote The default implementation performs a separate lookup for each key. Overwrite
+     *     this method when the database supports batched reads.
+     * @param keys the keys for which the method must return the associated values
+     * @return the entries stored in the database for the given keys
+     */
+    protected Map<ByteArrayWrapper, byte[]> getAllInternal(Collection<byte[]> keys) {
+        Map<ByteArrayWrapper, byte[]> result = new HashMap<>();
+        for (byte[] key : keys) {
+            byte[] value = getInternal(key);
+            if (value != null) {
+                result.put(ByteArrayWrapper.wrap(key), value);
+            }
+        }
+        return result;
+    }
+
     @Override
     public void put(byte[] key, byte[] value) {
         check(key);
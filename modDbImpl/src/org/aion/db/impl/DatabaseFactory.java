@@ -34,6 +34,8 @@ public abstract class DatabaseFactory {
         public static final String DB_PATH = "db_path";
 
         public static final String CHECK_INTEGRITY = "check_integrity";
+        public static final String BLOCK_ARCHIVE = "block_archive";
+        public static final String STATE_CACHE_SIZE = "state_cache_size";
         public static final String PERSISTENT = "persistent";
 
         public static final String ENABLE_AUTO_COMMIT = "enable_auto_commit";
@@ -0,0 +1,52 @@
+package org.aion.db.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.aion.types.ByteArrayWrapper;
+
+/**
+ * Database functionality for retrieving the values of multiple keys in a single operation.
+ *
+ * <p>Implementations backed by native stores (e.g. RocksDB) perform the lookups with one call
+ * through the native interface instead of one call per key.
+ */
+public interface MultiGetDatabase {
+
+    /**
+     * Retrieves the values for the given keys.
+     *
+     * @param keys the keys for which the values must be returned
+     * @return a {@link Map} containing the entries for the keys that are present in the database;
+     *     keys without an associated value are not included
+     * @throws IllegalArgumentException if the collection contains {@code null} keys
+     * @throws RuntimeException if the data store is closed
+     */
+    Map<ByteArrayWrapper, byte[]> getAll(Collection<byte[]> keys);
+
+    /**
+     * Retrieves the values for the given keys from any database, using a batched read when the
+     * database supports it and individual reads otherwise.
+     *
+     * @param database the database to read from
+     * @param keys the keys for which the values must be returned
+     * @return a {@link Map} containing the entries for the keys that are present in the database
+     */
+    static Map<ByteArrayWrapper, byte[]> getAll(
+            ByteArrayKeyValueDatabase database, Collection<byte[]> keys) {
+        if (database instanceof MultiGetDatabase) {
+            return ((MultiGetDatabase) database).getAll(keys);
+        }
+
+        Map<ByteArrayWrapper, byte[]> result = new HashMap<>();
+        for (byte[] key : keys) {
+            Optional<byte[]> value = database.get(key);
+            if (value.isPresent()) {
+                result.put(ByteArrayWrapper.wrap(key), value.get());
+            }
+        }
+        return result;
+    }
+}
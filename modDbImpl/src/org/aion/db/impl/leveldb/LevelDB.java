@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import org.aion.types.ByteArrayWrapper;
@@ -15,6 +16,7 @@ import org.iq80.leveldb.DBException;
 import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.Options;
 import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.Snapshot;
 import org.iq80.leveldb.WriteBatch;
 
 /**
@@ -331,6 +333,31 @@ public class LevelDB extends AbstractDB {
         }
     }
 
+    @Override
+    protected Map<ByteArrayWrapper, byte[]> getAllInternal(Collection<byte[]> keys) {
+        Map<ByteArrayWrapper, byte[]> result = new HashMap<>();
+
+        // the JNI has no batched read; the snapshot gives a consistent view over all the keys
+        Snapshot snapshot = db.getSnapshot();
+        try {
+            ReadOptions readOptions = new ReadOptions().snapshot(snapshot);
+            for (byte[] key : keys) {
+                byte[] value = db.get(key, readOptions);
+                if (value != null) {
+                    result.put(ByteArrayWrapper.wrap(key), value);
+                }
+            }
+        } finally {
+            try {
+                snapshot.close();
+            } catch (IOException e) {
+                LOG.error("Unable to close snapshot.", e);
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public void putInternal(byte[] key, byte[] value) {
         db.put(key, value);
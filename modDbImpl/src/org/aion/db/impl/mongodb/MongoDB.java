@@ -1,6 +1,7 @@
 package org.aion.db.impl.mongodb;
 
 import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.in;
 
 import com.mongodb.ClientSessionOptions;
 import com.mongodb.ReadConcern;
@@ -352,6 +353,22 @@ public class MongoDB extends AbstractDB {
         }
     }
 
+    @Override
+    protected Map<ByteArrayWrapper, byte[]> getAllInternal(Collection<byte[]> keys) {
+        List<BsonBinary> ids = keys.stream().map(BsonBinary::new).collect(Collectors.toList());
+
+        // single query matching all the keys
+        Map<ByteArrayWrapper, byte[]> result = new HashMap<>();
+        for (BsonDocument document :
+                this.collection.find(this.clientSession, in(MongoConstants.ID_FIELD_NAME, ids))) {
+            result.put(
+                    ByteArrayWrapper.wrap(
+                            document.getBinary(MongoConstants.ID_FIELD_NAME).getData()),
+                    document.getBinary(MongoConstants.VALUE_FIELD_NAME).getData());
+        }
+        return result;
+    }
+
     @Override
     public void putInternal(byte[] key, byte[] value) {
         // Write this single edit in as a batch
@@ -1,9 +1,11 @@
 package org.aion.db.impl.rocksdb;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import org.aion.types.ByteArrayWrapper;
@@ -271,6 +273,23 @@ public class RocksDBWrapper extends AbstractDB {
         return null;
     }
 
+    @Override
+    protected Map<ByteArrayWrapper, byte[]> getAllInternal(Collection<byte[]> keys) {
+        Map<ByteArrayWrapper, byte[]> result = new HashMap<>();
+
+        try {
+            // single JNI call for all the keys; absent keys are not included in the result
+            Map<byte[], byte[]> values = db.multiGet(new ArrayList<>(keys));
+            for (Map.Entry<byte[], byte[]> entry : values.entrySet()) {
+                result.put(ByteArrayWrapper.wrap(entry.getKey()), entry.getValue());
+            }
+        } catch (RocksDBException e) {
+            LOG.error("Unable to get " + keys.size() + " keys. " + e);
+        }
+
+        return result;
+    }
+
     @Override
     public void putInternal(byte[] key, byte[] value) {
         try {
@@ -23,6 +23,7 @@ import org.aion.db.utils.FileUtils;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
 import org.aion.interfaces.db.PersistenceMethod;
 import org.aion.log.AionLoggerFactory;
+import org.aion.types.ByteArrayWrapper;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -735,6 +736,27 @@ public class DriverBaseTest {
         assertThat(db.isLocked()).isFalse();
     }
 
+    @Test
+    public void testGetAll() {
+        Map<byte[], byte[]> map = new HashMap<>();
+        map.put(k1, v1);
+        map.put(k2, v2);
+        db.putBatch(map);
+
+        assertThat(db).isInstanceOf(MultiGetDatabase.class);
+        Map<ByteArrayWrapper, byte[]> values =
+                ((MultiGetDatabase) db).getAll(Arrays.asList(k1, k2, k3));
+
+        // absent keys are not included
+        assertThat(values.size()).isEqualTo(2);
+        assertThat(values.get(ByteArrayWrapper.wrap(k1))).isEqualTo(v1);
+        assertThat(values.get(ByteArrayWrapper.wrap(k2))).isEqualTo(v2);
+        assertThat(values.containsKey(ByteArrayWrapper.wrap(k3))).isFalse();
+
+        // ensure unlocked
+        assertThat(db.isLocked()).isFalse();
+    }
+
     @Test
     public void testDrop() {
         // ensure existence
@@ -1,5 +1,7 @@
 package org.aion.evtmgr;
 
+import java.util.List;
+
 /** @author jay */
 public interface IHandler {
 
@@ -46,6 +48,12 @@ public interface IHandler {
 
     void onEvent(IEvent _evt);
 
+    default void onEvents(List<IEvent> _evts) {
+        for (IEvent e : _evts) {
+            onEvent(e);
+        }
+    }
+
     void eventCallback(IEventCallback _evtCallback);
 
     void start();
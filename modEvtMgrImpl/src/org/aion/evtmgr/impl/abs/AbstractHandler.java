@@ -1,9 +1,10 @@
 package org.aion.evtmgr.impl.abs;
 
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -19,7 +20,10 @@ public abstract class AbstractHandler {
 
     protected static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.EVTMGR.toString());
 
-    private Set<IEvent> events = new HashSet<>();
+    /** The maximum number of events dispatched at once. */
+    private static final int MAX_BATCH = 256;
+
+    private Set<IEvent> events = ConcurrentHashMap.newKeySet();
     private BlockingQueue<IEvent> queue = new LinkedBlockingQueue<>();
     private List<IEventCallback> eventCallback = new CopyOnWriteArrayList<>();
     private AtomicBoolean interrupt = new AtomicBoolean(false);
@@ -29,25 +33,33 @@ public abstract class AbstractHandler {
     protected Thread dispatcher =
             new Thread(
                     () -> {
+                        List<IEvent> batch = new ArrayList<>(MAX_BATCH);
                         try {
                             while (!interrupt.get()) {
-                                IEvent e = queue.take();
-                                if (e.getEventType() != EventDummy.getTypeStatic()
-                                        && events.contains(e)) {
-                                    if (LOG.isTraceEnabled()) {
-                                        LOG.trace("dispatcher e[{}]", e.getEventType());
-                                    }
-
-                                    try {
-                                        dispatch(e);
-                                    } catch (Exception ex) {
-                                        LOG.error(
-                                                "Failed to dispatch event: eventType = {}, callbackType = {}, {}",
-                                                e.getEventType(),
-                                                e.getCallbackType(),
-                                                ex.toString());
+                                // bursts of events, e.g. the transactions of a block, are
+                                // dispatched without waking up the thread for each event
+                                batch.add(queue.take());
+                                queue.drainTo(batch, MAX_BATCH - 1);
+
+                                for (IEvent e : batch) {
+                                    if (e.getEventType() != EventDummy.getTypeStatic()
+                                            && events.contains(e)) {
+                                        if (LOG.isTraceEnabled()) {
+                                            LOG.trace("dispatcher e[{}]", e.getEventType());
+                                        }
+
+                                        try {
+                                            dispatch(e);
+                                        } catch (Exception ex) {
+                                            LOG.error(
+                                                    "Failed to dispatch event: eventType = {}, callbackType = {}, {}",
+                                                    e.getEventType(),
+                                                    e.getCallbackType(),
+                                                    ex.toString());
+                                        }
                                     }
                                 }
+                                batch.clear();
                             }
 
                             if (LOG.isInfoEnabled()) {
@@ -67,7 +79,7 @@ public abstract class AbstractHandler {
         handlerType = value;
     }
 
-    public synchronized boolean addEvent(IEvent _evt) {
+    public boolean addEvent(IEvent _evt) {
         try {
             return this.events.add(_evt);
         } catch (Exception e) {
@@ -76,7 +88,7 @@ public abstract class AbstractHandler {
         }
     }
 
-    public synchronized boolean removeEvent(IEvent _evt) {
+    public boolean removeEvent(IEvent _evt) {
         try {
             return this.events.remove(_evt);
         } catch (Exception e) {
@@ -154,6 +166,14 @@ public abstract class AbstractHandler {
         }
     }
 
+    public void onEvents(List<IEvent> _evts) {
+        try {
+            this.queue.addAll(_evts);
+        } catch (Exception e) {
+            LOG.error("onEvents exception! ", e);
+        }
+    }
+
     public int getType() {
         return handlerType;
     }
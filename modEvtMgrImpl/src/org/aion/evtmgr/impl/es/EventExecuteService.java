@@ -1,45 +1,99 @@
 package org.aion.evtmgr.impl.es;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.impl.evt.EventDummy;
 import org.slf4j.Logger;
 
+/**
+ * Queues the events received from the handlers for processing on dedicated threads.
+ *
+ * <p>The events are spread over a number of partitions according to the configured partitioner,
+ * each partition being consumed by a single worker. Events mapped to the same partition, e.g. the
+ * updates of one transaction, are processed in the order they were added, while events in
+ * different partitions are processed in parallel. When a partition is full, {@link #add(IEvent)}
+ * waits up to the configured timeout for space before dropping the event.
+ */
 public class EventExecuteService {
 
-    private LinkedBlockingQueue<IEvent> callbackEvt;
+    /** The default time in milliseconds to wait for space in a full partition. */
+    public static final long DEFAULT_OFFER_TIMEOUT = 100;
+    /** The maximum number of events taken by a worker at once. */
+    static final int MAX_BATCH = 256;
+
+    private final List<LinkedBlockingQueue<IEvent>> partitions;
     private ExecutorService es;
     private static Logger LOG;
     private String thName;
     private Set<Integer> filter;
+    private final long offerTimeout;
+    private volatile ToIntFunction<IEvent> partitioner = e -> 0;
+    private final AtomicLong dropped = new AtomicLong(0);
 
     public EventExecuteService(
             final int qSize, final String threadName, final int threadPriority, final Logger log) {
+        this(qSize, 1, DEFAULT_OFFER_TIMEOUT, threadName, threadPriority, log);
+    }
+
+    /**
+     * @param qSize the capacity of each partition
+     * @param workers the number of partitions and worker threads
+     * @param offerTimeout the time in milliseconds to wait for space in a full partition before
+     *     dropping an event
+     */
+    public EventExecuteService(
+            final int qSize,
+            final int workers,
+            final long offerTimeout,
+            final String threadName,
+            final int threadPriority,
+            final Logger log) {
         if (threadName == null || log == null) {
             throw new NullPointerException();
         }
 
-        if (qSize < 100 || threadPriority < 1 || threadPriority > 10) {
+        if (qSize < 100
+                || workers < 1
+                || offerTimeout < 0
+                || threadPriority < 1
+                || threadPriority > 10) {
             throw new IllegalArgumentException();
         }
 
         LOG = log;
         thName = threadName;
+        this.offerTimeout = offerTimeout;
 
         filter = new HashSet<>();
         filter.add(0);
 
-        callbackEvt = new LinkedBlockingQueue(qSize);
+        partitions = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            partitions.add(new LinkedBlockingQueue<>(qSize));
+        }
 
+        AtomicInteger count = new AtomicInteger(0);
         es =
                 Executors.newFixedThreadPool(
-                        1,
+                        workers,
                         arg0 -> {
-                            Thread thread = new Thread(arg0, threadName);
+                            Thread thread =
+                                    new Thread(
+                                            arg0,
+                                            workers == 1
+                                                    ? threadName
+                                                    : threadName + "-" + count.getAndIncrement());
                             thread.setPriority(threadPriority);
                             return thread;
                         });
@@ -53,8 +107,65 @@ public class EventExecuteService {
         es.execute(r);
     }
 
+    /**
+     * Starts one worker per partition passing the queued events to the given consumer. The workers
+     * stop after taking the poison pill added by {@link #shutdown()}.
+     *
+     * @param consumer the event processing, called concurrently for events in different partitions
+     */
+    public void startWorkers(Consumer<IEvent> consumer) {
+        if (consumer == null) {
+            throw new NullPointerException();
+        }
+
+        for (LinkedBlockingQueue<IEvent> partition : partitions) {
+            es.execute(() -> work(partition, consumer));
+        }
+    }
+
+    private void work(LinkedBlockingQueue<IEvent> partition, Consumer<IEvent> consumer) {
+        List<IEvent> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (true) {
+                batch.add(partition.take());
+                partition.drainTo(batch, MAX_BATCH - 1);
+
+                for (IEvent e : batch) {
+                    if (e.getEventType() == EventDummy.getTypeStatic()) {
+                        return;
+                    }
+
+                    try {
+                        consumer.accept(e);
+                    } catch (Exception ex) {
+                        LOG.error(
+                                "EventExecuteService {} failed to process event: eventType = {}, callbackType = {}, {}",
+                                thName,
+                                e.getEventType(),
+                                e.getCallbackType(),
+                                ex.toString());
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("EventExecuteService {} worker interrupted.", thName);
+            }
+        }
+    }
+
+    /**
+     * Takes the next event for services with a single partition, waiting if none is available.
+     * Services with multiple partitions are consumed through {@link #startWorkers(Consumer)}.
+     */
     public IEvent take() {
+        if (partitions.size() > 1) {
+            throw new IllegalStateException(
+                    "The events of multiple partitions must be consumed by workers.");
+        }
 
+        LinkedBlockingQueue<IEvent> callbackEvt = partitions.get(0);
         if (LOG.isTraceEnabled()) {
             LOG.trace("EventExecuteService {} q#[{}]", thName, callbackEvt.size());
         }
@@ -70,7 +181,9 @@ public class EventExecuteService {
 
     /** Clear all events from queue */
     public void clear() {
-        callbackEvt.clear();
+        for (LinkedBlockingQueue<IEvent> partition : partitions) {
+            partition.clear();
+        }
     }
 
     public boolean add(IEvent event) {
@@ -81,21 +194,50 @@ public class EventExecuteService {
         int sn = (event.getEventType() << 8) + event.getCallbackType();
 
         if (filter.contains(sn)) {
-
+            LinkedBlockingQueue<IEvent> partition = partitions.get(partitionOf(event));
             try {
-                return callbackEvt.add(event);
-            } catch (IllegalStateException e) {
-                LOG.warn("ExecutorService Q is full!");
-                return false;
+                if (partition.offer(event, offerTimeout, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+
+            LOG.warn(
+                    "ExecutorService {} Q is full! Dropped {} events so far.",
+                    thName,
+                    dropped.incrementAndGet());
+            return false;
         } else {
             return false;
         }
     }
 
+    private int partitionOf(IEvent event) {
+        if (partitions.size() == 1) {
+            return 0;
+        }
+        try {
+            return Math.floorMod(partitioner.applyAsInt(event), partitions.size());
+        } catch (Exception e) {
+            // events without a valid key are still processed
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("EventExecuteService {} failed to partition event.", thName, e);
+            }
+            return 0;
+        }
+    }
+
+    /** Returns the number of events dropped because their partition was full. */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
     public void shutdown() {
-        callbackEvt.clear();
-        callbackEvt.add(new EventDummy());
+        for (LinkedBlockingQueue<IEvent> partition : partitions) {
+            partition.clear();
+            partition.add(new EventDummy());
+        }
         es.shutdown();
     }
 
@@ -103,4 +245,17 @@ public class EventExecuteService {
         this.filter = filter;
         this.filter.add(0); // Poison Pill
     }
+
+    /**
+     * Sets the function mapping events to partitions. Events with the same key are processed in
+     * order by the same worker.
+     *
+     * @param partitioner returns the key of an event, e.g. the hash code of a transaction hash
+     */
+    public void setPartitioner(ToIntFunction<IEvent> partitioner) {
+        if (partitioner == null) {
+            throw new NullPointerException();
+        }
+        this.partitioner = partitioner;
+    }
 }
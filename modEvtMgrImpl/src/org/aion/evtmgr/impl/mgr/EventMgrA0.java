@@ -1,6 +1,9 @@
 package org.aion.evtmgr.impl.mgr;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.IEventMgr;
@@ -103,6 +106,8 @@ public class EventMgrA0 extends AbstractEventMgr implements IEventMgr {
      */
     @Override
     public boolean newEvents(List<IEvent> _evt) {
+        // the events are queued once per handler, keeping their order
+        Map<IHandler, List<IEvent>> batches = new LinkedHashMap<>();
         for (IEvent e : _evt) {
             IHandler hdr = this.getHandler(e.getEventType());
             if (hdr == null) {
@@ -117,10 +122,14 @@ public class EventMgrA0 extends AbstractEventMgr implements IEventMgr {
                             e.getEventType());
                 }
 
-                hdr.onEvent(e);
+                batches.computeIfAbsent(hdr, h -> new ArrayList<>()).add(e);
             }
         }
 
+        for (Map.Entry<IHandler, List<IEvent>> batch : batches.entrySet()) {
+            batch.getKey().onEvents(batch.getValue());
+        }
+
         return true;
     }
 
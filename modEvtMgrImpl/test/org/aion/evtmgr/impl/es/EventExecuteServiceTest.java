@@ -4,8 +4,15 @@ import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.aion.evtmgr.IEvent;
 import org.aion.evtmgr.impl.evt.EventBlock;
 import org.aion.evtmgr.impl.evt.EventConsensus;
@@ -57,6 +64,79 @@ public class EventExecuteServiceTest {
         assertFalse(ees.add(new EventDummy()));
     }
 
+    @Test
+    public void testQueueFullCountsDrops() {
+        EventExecuteService ees =
+                new EventExecuteService(100, 2, 0, "test", Thread.NORM_PRIORITY, LOGGER_EVENT);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(ees.add(new EventDummy()));
+        }
+        // all the events map to the same partition by default
+        assertFalse(ees.add(new EventDummy()));
+        assertEquals(1, ees.getDroppedCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTakeWithWorkers() {
+        EventExecuteService ees =
+                new EventExecuteService(100, 2, 0, "test", Thread.NORM_PRIORITY, LOGGER_EVENT);
+        ees.take();
+    }
+
+    @Test
+    public void testPartitionedWorkers() throws InterruptedException {
+        int keys = 4;
+        int eventsPerKey = 500;
+
+        EventExecuteService ees =
+                new EventExecuteService(
+                        1000,
+                        keys,
+                        EventExecuteService.DEFAULT_OFFER_TIMEOUT,
+                        "test",
+                        Thread.NORM_PRIORITY,
+                        LOGGER_EVENT);
+        ees.setFilter(getFilter());
+        ees.setPartitioner(e -> (int) e.getFuncArgs().get(0));
+
+        Map<Integer, List<Integer>> received = new ConcurrentHashMap<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(keys * eventsPerKey);
+        ees.startWorkers(
+                e -> {
+                    int key = (int) e.getFuncArgs().get(0);
+                    received.computeIfAbsent(
+                                    key, k -> Collections.synchronizedList(new ArrayList<>()))
+                            .add((int) e.getFuncArgs().get(1));
+                    threads.add(Thread.currentThread().getName());
+                    done.countDown();
+                });
+
+        for (int i = 0; i < eventsPerKey; i++) {
+            for (int key = 0; key < keys; key++) {
+                EventTx event = new EventTx(EventTx.CALLBACK.PENDINGTXUPDATE0);
+                List<Object> args = new ArrayList<>();
+                args.add(key);
+                args.add(i);
+                event.setFuncArgs(args);
+                assertTrue(ees.add(event));
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        ees.shutdown();
+
+        // the events of each key are processed in order by a single worker
+        assertEquals(keys, threads.size());
+        for (int key = 0; key < keys; key++) {
+            List<Integer> sequence = received.get(key);
+            assertEquals(eventsPerKey, sequence.size());
+            for (int i = 0; i < eventsPerKey; i++) {
+                assertEquals(i, (int) sequence.get(i));
+            }
+        }
+    }
+
     @Test
     public void testEventNotRecognized() {
         assertFalse(eventExecuteService.add(new EventBlock(EventBlock.CALLBACK.ONBEST0)));
@@ -36,6 +36,7 @@ public final class CfgApiRpc {
         this.ioThreads = null;
         this.requestQueueSize = null; // null = unbounded queue size
         this.stuckThreadDetectorEnabled = true;
+        this.websocketEnabled = false;
         this.enabledMethods = null;
         this.disabledMethods = null;
 
@@ -58,6 +59,7 @@ public final class CfgApiRpc {
     private Integer ioThreads;
     private Integer requestQueueSize;
     private boolean stuckThreadDetectorEnabled;
+    private boolean websocketEnabled;
 
     public void fromXML(final XMLStreamReader sr) throws XMLStreamException {
         // get the attributes
@@ -185,6 +187,18 @@ public final class CfgApiRpc {
                                 }
                                 break;
                             }
+                        case "websocket-enabled":
+                            {
+                                try {
+                                    websocketEnabled = Boolean.parseBoolean(Cfg.readValue(sr));
+                                } catch (Exception e) {
+                                    System.out.println(
+                                            "failed to read config node: aion.api.rpc.websocket-enabled; using preset: "
+                                                    + websocketEnabled);
+                                    e.printStackTrace();
+                                }
+                                break;
+                            }
                         case "filters-enabled":
                             {
                                 try {
@@ -337,6 +351,10 @@ public final class CfgApiRpc {
         return stuckThreadDetectorEnabled;
     }
 
+    public boolean isWebsocketEnabled() {
+        return websocketEnabled;
+    }
+
     /**
      * @implNote this should theoretically work, but should be tested for correctness by any future
      *     consumer
@@ -361,7 +379,8 @@ public final class CfgApiRpc {
                 && Objects.equals(workerThreads, cfg.workerThreads)
                 && Objects.equals(ioThreads, cfg.ioThreads)
                 && Objects.equals(requestQueueSize, cfg.requestQueueSize)
-                && stuckThreadDetectorEnabled == cfg.stuckThreadDetectorEnabled;
+                && stuckThreadDetectorEnabled == cfg.stuckThreadDetectorEnabled
+                && websocketEnabled == cfg.websocketEnabled;
     }
 
     /**
@@ -387,6 +406,7 @@ public final class CfgApiRpc {
                 workerThreads,
                 ioThreads,
                 requestQueueSize,
-                stuckThreadDetectorEnabled);
+                stuckThreadDetectorEnabled,
+                websocketEnabled);
     }
 }
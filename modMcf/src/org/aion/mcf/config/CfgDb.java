@@ -25,6 +25,7 @@ public class CfgDb {
         public static final String BLOCK = "block";
         public static final String INDEX = "index";
         public static final String PENDING_BLOCK = "pendingBlock";
+        public static final String BLOOM_BITS = "bloomBits";
 
         public static final String CONTRACT_INDEX = "contractIndex";
         public static final String DETAILS = "details";
@@ -32,6 +33,7 @@ public class CfgDb {
 
         public static final String STATE = "state";
         public static final String STATE_ARCHIVE = "stateArchive";
+        public static final String FAST_SYNC = "fastSync";
         public static final String TRANSACTION = "transaction";
 
         public static final String TX_CACHE = "pendingtxCache";
@@ -42,6 +44,8 @@ public class CfgDb {
     private String vendor;
     private boolean compression;
     private boolean check_integrity;
+    private boolean block_archive;
+    private int state_cache_size;
     private CfgPrune prune;
     private PruneOption prune_option;
 
@@ -60,6 +64,8 @@ public class CfgDb {
         this.vendor = DBVendor.LEVELDB.toValue();
         this.compression = false;
         this.check_integrity = true;
+        this.block_archive = false;
+        this.state_cache_size = 64 * (int) Utils.MEGA_BYTE;
         this.prune = new CfgPrune(false);
         this.prune_option = PruneOption.FULL;
 
@@ -83,6 +89,14 @@ public class CfgDb {
                         case "check_integrity":
                             this.check_integrity = Boolean.parseBoolean(Cfg.readValue(sr));
                             break;
+                        case Props.BLOCK_ARCHIVE:
+                            this.block_archive = Boolean.parseBoolean(Cfg.readValue(sr));
+                            break;
+                        case Props.STATE_CACHE_SIZE:
+                            this.state_cache_size =
+                                    CfgDbDetails.parseFileSizeSafe(
+                                            Cfg.readValue(sr), this.state_cache_size);
+                            break;
                         case "state-storage":
                             setPrune(Cfg.readValue(sr));
                             break;
@@ -202,6 +216,22 @@ public class CfgDb {
             xmlWriter.writeCharacters(String.valueOf(this.check_integrity));
             xmlWriter.writeEndElement();
 
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Boolean value. Enable/disable serving old blocks from memory mapped files.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement(Props.BLOCK_ARCHIVE);
+            xmlWriter.writeCharacters(String.valueOf(this.block_archive));
+            xmlWriter.writeEndElement();
+
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeComment(
+                    "Size of the world state nodes kept in memory, e.g. 64MB or 512MB.");
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement(Props.STATE_CACHE_SIZE);
+            xmlWriter.writeCharacters(toSizeString(this.state_cache_size));
+            xmlWriter.writeEndElement();
+
             xmlWriter.writeCharacters("\r\n\t\t");
             xmlWriter.writeComment(
                     "Data pruning behavior for the state database. Options: FULL, TOP, SPREAD.");
@@ -361,12 +391,16 @@ public class CfgDb {
 
             Properties props = propSet.get(Names.DEFAULT);
             props.setProperty(Props.CHECK_INTEGRITY, String.valueOf(this.check_integrity));
+            props.setProperty(Props.BLOCK_ARCHIVE, String.valueOf(this.block_archive));
+            props.setProperty(Props.STATE_CACHE_SIZE, String.valueOf(this.state_cache_size));
             props.setProperty(Props.PERSISTENT, String.valueOf(isPersistent));
         } else {
             Properties props = new Properties();
             props.setProperty(Props.DB_TYPE, this.vendor);
             props.setProperty(Props.ENABLE_DB_COMPRESSION, String.valueOf(this.compression));
             props.setProperty(Props.CHECK_INTEGRITY, String.valueOf(this.check_integrity));
+            props.setProperty(Props.BLOCK_ARCHIVE, String.valueOf(this.block_archive));
+            props.setProperty(Props.STATE_CACHE_SIZE, String.valueOf(this.state_cache_size));
             boolean isPersistent = DBVendor.fromString(this.vendor).isFileBased();
             props.setProperty(Props.PERSISTENT, String.valueOf(isPersistent));
 
@@ -389,6 +423,11 @@ public class CfgDb {
         return propSet;
     }
 
+    /** Formats the given size in bytes such that it can be read by {@link Utils#parseSize}. */
+    private static String toSizeString(int size) {
+        return size % Utils.MEGA_BYTE == 0 ? size / Utils.MEGA_BYTE + "MB" : size + "B";
+    }
+
     private boolean heap_cache = false;
 
     public void setHeapCacheEnabled(boolean value) {
@@ -413,6 +452,8 @@ public class CfgDb {
         CfgDb cfgDb = (CfgDb) o;
         return compression == cfgDb.compression
                 && check_integrity == cfgDb.check_integrity
+                && block_archive == cfgDb.block_archive
+                && state_cache_size == cfgDb.state_cache_size
                 && expert == cfgDb.expert
                 && Objects.equal(path, cfgDb.path)
                 && Objects.equal(vendor, cfgDb.vendor)
@@ -428,6 +469,8 @@ public class CfgDb {
                 vendor,
                 compression,
                 check_integrity,
+                block_archive,
+                state_cache_size,
                 prune,
                 prune_option,
                 expert,
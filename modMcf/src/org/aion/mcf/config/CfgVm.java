@@ -11,10 +11,12 @@ import javax.xml.stream.XMLStreamWriter;
 /** Configuration section for VM */
 public class CfgVm {
     private boolean avmEnabled;
+    private boolean parallelExecution;
 
     /** construct VM configuration with default values */
     public CfgVm() {
         avmEnabled = false;
+        parallelExecution = false;
     }
 
     /** set values in this configuration from an XML */
@@ -29,6 +31,9 @@ public class CfgVm {
                         case "avm-enabled":
                             this.avmEnabled = Boolean.parseBoolean(Cfg.readValue(sr));
                             break;
+                        case "parallel-execution":
+                            this.parallelExecution = Boolean.parseBoolean(Cfg.readValue(sr));
+                            break;
                         default:
                             break;
                     }
@@ -58,6 +63,12 @@ public class CfgVm {
             xmlWriter.writeCharacters(String.valueOf(avmEnabled));
             xmlWriter.writeEndElement();
 
+            // sub-element parallel-execution
+            xmlWriter.writeCharacters("\r\n\t\t");
+            xmlWriter.writeStartElement("parallel-execution");
+            xmlWriter.writeCharacters(String.valueOf(parallelExecution));
+            xmlWriter.writeEndElement();
+
             // close element vm
             xmlWriter.writeCharacters("\r\n\t");
             xmlWriter.writeEndElement();
@@ -82,4 +93,14 @@ public class CfgVm {
     public boolean isAvmEnabled() {
         return this.avmEnabled;
     }
+
+    /** @param parallelExecution whether FVM transactions are executed speculatively in parallel */
+    public void setParallelExecution(boolean parallelExecution) {
+        this.parallelExecution = parallelExecution;
+    }
+
+    /** @return whether FVM transactions are executed speculatively in parallel */
+    public boolean isParallelExecution() {
+        return this.parallelExecution;
+    }
 }
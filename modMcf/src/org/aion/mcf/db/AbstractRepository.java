@@ -49,14 +49,19 @@ public abstract class AbstractRepository<
     protected static final String INDEX_DB = Names.INDEX;
     protected static final String BLOCK_DB = Names.BLOCK;
     protected static final String PENDING_BLOCK_DB = Names.PENDING_BLOCK;
+    protected static final String BLOOM_BITS_DB = Names.BLOOM_BITS;
     protected static final String CONTRACT_INDEX_DB = Names.CONTRACT_INDEX;
     protected static final String DETAILS_DB = Names.DETAILS;
     protected static final String STORAGE_DB = Names.STORAGE;
     protected static final String STATE_DB = Names.STATE;
     protected static final String STATE_ARCHIVE_DB = Names.STATE_ARCHIVE;
+    protected static final String FAST_SYNC_DB = Names.FAST_SYNC;
     protected static final String PENDING_TX_POOL_DB = Names.TX_POOL;
     protected static final String PENDING_TX_CACHE_DB = Names.TX_CACHE;
 
+    /** Size in bytes of the world state cache used when the configuration does not set it. */
+    protected static final long DEFAULT_STATE_CACHE_SIZE = 64 * 1024 * 1024;
+
     // State trie.
     protected Trie worldState;
 
@@ -72,8 +77,10 @@ public abstract class AbstractRepository<
     protected ByteArrayKeyValueDatabase storageDatabase;
     protected ByteArrayKeyValueDatabase indexDatabase;
     protected ByteArrayKeyValueDatabase blockDatabase;
+    protected ByteArrayKeyValueDatabase bloomBitsDatabase;
     protected ByteArrayKeyValueDatabase stateDatabase;
     protected ByteArrayKeyValueDatabase stateArchiveDatabase;
+    protected ByteArrayKeyValueDatabase fastSyncDatabase;
     protected ByteArrayKeyValueDatabase txPoolDatabase;
     protected ByteArrayKeyValueDatabase pendingTxCacheDatabase;
 
@@ -98,10 +105,16 @@ public abstract class AbstractRepository<
     // pending block store
     protected Properties pendingStoreProperties;
 
+    // fast sync progress, opened only when fast sync is used
+    protected Properties fastSyncProperties;
+
     // Flag to see if the current instance is a snapshot.
     protected boolean isSnapshot = false;
 
     protected boolean checkIntegrity = true;
+    protected boolean blockArchive = false;
+    // maximum size in bytes of the clean world state nodes kept in memory
+    protected long stateCacheSize = DEFAULT_STATE_CACHE_SIZE;
 
     /**
      * Initializes all necessary databases and caches.
@@ -162,6 +175,13 @@ public abstract class AbstractRepository<
                     Boolean.valueOf(
                             cfg.getDatabaseConfig(Names.DEFAULT)
                                     .getProperty(Props.CHECK_INTEGRITY));
+            blockArchive =
+                    Boolean.valueOf(
+                            cfg.getDatabaseConfig(Names.DEFAULT).getProperty(Props.BLOCK_ARCHIVE));
+            stateCacheSize =
+                    parseStateCacheSize(
+                            cfg.getDatabaseConfig(Names.DEFAULT)
+                                    .getProperty(Props.STATE_CACHE_SIZE));
 
             // getting state specific properties
             sharedProps = cfg.getDatabaseConfig(STATE_DB);
@@ -175,6 +195,10 @@ public abstract class AbstractRepository<
             }
             databaseGroup.add(stateDatabase);
 
+            // using state specific properties
+            sharedProps.setProperty(Props.DB_NAME, FAST_SYNC_DB);
+            this.fastSyncProperties = sharedProps;
+
             // getting transaction specific properties
             sharedProps = cfg.getDatabaseConfig(TRANSACTION_DB);
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
@@ -230,6 +254,14 @@ public abstract class AbstractRepository<
             }
             databaseGroup.add(indexDatabase);
 
+            // using index specific properties
+            sharedProps.setProperty(Props.DB_NAME, BLOOM_BITS_DB);
+            this.bloomBitsDatabase = connectAndOpen(sharedProps, LOG);
+            if (bloomBitsDatabase == null || bloomBitsDatabase.isClosed()) {
+                throw newException(BLOOM_BITS_DB, sharedProps);
+            }
+            databaseGroup.add(bloomBitsDatabase);
+
             // getting block specific properties
             sharedProps = cfg.getDatabaseConfig(BLOCK_DB);
             sharedProps.setProperty(Props.ENABLE_LOCKING, "false");
@@ -307,6 +339,29 @@ public abstract class AbstractRepository<
         }
     }
 
+    /**
+     * Opens the database storing the progress of the fast sync process.
+     *
+     * @implNote The method calling this method must handle the locking.
+     */
+    protected void openFastSyncDatabase() throws InvalidFilePathException {
+        this.fastSyncDatabase = connectAndOpen(fastSyncProperties, LOG);
+        if (fastSyncDatabase == null || fastSyncDatabase.isClosed()) {
+            throw newException(FAST_SYNC_DB, fastSyncProperties);
+        }
+        databaseGroup.add(fastSyncDatabase);
+    }
+
+    private static long parseStateCacheSize(String value) {
+        try {
+            long size = Long.parseLong(value);
+            return size > 0 ? size : DEFAULT_STATE_CACHE_SIZE;
+        } catch (NumberFormatException e) {
+            // not set, e.g. by configurations created for testing
+            return DEFAULT_STATE_CACHE_SIZE;
+        }
+    }
+
     private InvalidFilePathException newException(String dbName, Properties props) {
         return new InvalidFilePathException(
                 "The «"
@@ -0,0 +1,177 @@
+package org.aion.mcf.ds;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.aion.types.ByteArrayWrapper;
+
+/**
+ * Object data source that keeps a bounded cache of deserialized values in front of the underlying
+ * database to avoid repeatedly decoding frequently requested entries.
+ *
+ * <p>The cache is write-through: values given to {@link #put(byte[], Object)} and {@link
+ * #putToBatch(byte[], Object)} replace the cached entries and deletions invalidate them. Keys
+ * deleted in a batch are not cached again until the batch is flushed, since the database still
+ * returns their previous values. The cache size is bounded by the total length of the serialized
+ * values it retains.
+ *
+ * @param <V> the type of the stored objects
+ */
+public class CachedObjectDataSource<V> extends ObjectDataSource<V> {
+
+    private final Cache<ByteArrayWrapper, Entry<V>> cache;
+    private final UnaryOperator<V> copier;
+    // keys deleted in the current batch, which must not be cached from the database
+    private final Set<ByteArrayWrapper> pendingDeletes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a cached data source which returns the cached objects directly. Should be used only
+     * when the returned objects are not modified by the callers.
+     *
+     * @param src the underlying database
+     * @param serializer the serializer used for the stored objects
+     * @param maxWeight the maximum total size in bytes of the serialized cached values
+     */
+    public CachedObjectDataSource(
+            ByteArrayKeyValueDatabase src, Serializer<V, byte[]> serializer, long maxWeight) {
+        this(src, serializer, maxWeight, UnaryOperator.identity());
+    }
+
+    /**
+     * Creates a cached data source which returns copies of the cached objects as produced by the
+     * given copier. Should be used when the callers may modify the retrieved objects.
+     *
+     * @param src the underlying database
+     * @param serializer the serializer used for the stored objects
+     * @param maxWeight the maximum total size in bytes of the serialized cached values
+     * @param copier function used to copy the cached objects before returning them
+     */
+    public CachedObjectDataSource(
+            ByteArrayKeyValueDatabase src,
+            Serializer<V, byte[]> serializer,
+            long maxWeight,
+            UnaryOperator<V> copier) {
+        super(src, serializer);
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("The cache size must be positive.");
+        }
+        this.copier = copier;
+        this.cache =
+                CacheBuilder.newBuilder()
+                        .maximumWeight(maxWeight)
+                        .weigher((ByteArrayWrapper k, Entry<V> v) -> v.weight)
+                        .recordStats()
+                        .build();
+    }
+
+    @Override
+    public void put(byte[] key, V value) {
+        byte[] bytes = serializer.serialize(value);
+        src.put(key, bytes);
+        ByteArrayWrapper wrappedKey = ByteArrayWrapper.wrap(key);
+        if (pendingDeletes.contains(wrappedKey)) {
+            // the pending delete still applies when the batch is flushed
+            cache.invalidate(wrappedKey);
+        } else {
+            cache.put(wrappedKey, new Entry<>(copier.apply(value), bytes.length));
+        }
+    }
+
+    /** @apiNote Will throw an exception if the given value is {@code null}. */
+    @Override
+    public void putToBatch(byte[] key, V value) {
+        byte[] bytes = serializer.serialize(value);
+        src.putToBatch(key, bytes);
+        ByteArrayWrapper wrappedKey = ByteArrayWrapper.wrap(key);
+        // the put replaces the earlier delete in the batch
+        pendingDeletes.remove(wrappedKey);
+        cache.put(wrappedKey, new Entry<>(copier.apply(value), bytes.length));
+    }
+
+    @Override
+    public void deleteInBatch(byte[] key) {
+        src.deleteInBatch(key);
+        ByteArrayWrapper wrappedKey = ByteArrayWrapper.wrap(key);
+        pendingDeletes.add(wrappedKey);
+        cache.invalidate(wrappedKey);
+    }
+
+    @Override
+    public void flushBatch() {
+        super.flushBatch();
+        pendingDeletes.clear();
+    }
+
+    @Override
+    public void delete(byte[] key) {
+        src.delete(key);
+        cache.invalidate(ByteArrayWrapper.wrap(key));
+    }
+
+    @Override
+    public V get(byte[] key) {
+        ByteArrayWrapper wrappedKey = ByteArrayWrapper.wrap(key);
+        Entry<V> entry = cache.getIfPresent(wrappedKey);
+
+        if (entry == null) {
+            // Fetch the results from the database. Return null if doesn't exist.
+            Optional<byte[]> val = src.get(key);
+            if (!val.isPresent()) {
+                return null;
+            }
+
+            byte[] bytes = val.get();
+            entry = new Entry<>(serializer.deserialize(bytes), bytes.length);
+            if (entry.value == null) {
+                return null;
+            }
+            if (!pendingDeletes.contains(wrappedKey)) {
+                cache.put(wrappedKey, entry);
+            }
+        }
+
+        return copier.apply(entry.value);
+    }
+
+    /** Removes all the decoded objects from the cache. */
+    public void invalidateCache() {
+        cache.invalidateAll();
+    }
+
+    /** Returns the number of decoded objects currently held in the cache. */
+    public long getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the hit, miss and eviction statistics of the cache.
+     *
+     * @return the statistics of the underlying cache implementation
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+        pendingDeletes.clear();
+        super.close();
+    }
+
+    /** Cached object together with the size of its serialized form. */
+    private static final class Entry<V> {
+        private final V value;
+        private final int weight;
+
+        private Entry(V value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -12,8 +12,8 @@ import org.aion.interfaces.db.Flushable;
  */
 public class ObjectDataSource<V> implements Flushable, Closeable {
 
-    private ByteArrayKeyValueDatabase src;
-    private Serializer<V, byte[]> serializer;
+    protected final ByteArrayKeyValueDatabase src;
+    protected final Serializer<V, byte[]> serializer;
 
     public ObjectDataSource(ByteArrayKeyValueDatabase src, Serializer<V, byte[]> serializer) {
         this.src = src;
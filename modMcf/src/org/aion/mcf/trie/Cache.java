@@ -3,6 +3,7 @@ package org.aion.mcf.trie;
 import static org.aion.rlp.Value.fromRlpEncoded;
 import static org.aion.types.ByteArrayWrapper.wrap;
 
+import com.google.common.cache.CacheBuilder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -14,6 +15,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.aion.crypto.HashUtil;
 import org.aion.interfaces.db.ByteArrayKeyValueStore;
 import org.aion.log.AionLoggerFactory;
@@ -22,24 +24,60 @@ import org.aion.rlp.Value;
 import org.aion.types.ByteArrayWrapper;
 import org.slf4j.Logger;
 
-/** Cache class */
+/**
+ * Node cache for the trie implementation.
+ *
+ * <p>Nodes that were created or modified since the last {@link #commit(boolean)} are kept in a
+ * separate map and retained until they are written to the data source. Nodes that are already
+ * stored in the data source are held in a bounded concurrent cache from which they are evicted
+ * when the total size of their encodings exceeds the configured maximum.
+ *
+ * @implNote Reads do not acquire the cache monitor and may proceed concurrently with each other
+ *     and with the modifications of the cache. Modifications are synchronized on this object.
+ */
 public class Cache {
 
     private static final Logger LOG = AionLoggerFactory.getLogger(LogEnum.DB.name());
 
-    private ByteArrayKeyValueStore dataSource;
-    private Map<ByteArrayWrapper, Node> nodes = new LinkedHashMap<>();
-    private Set<ByteArrayWrapper> removedNodes = new HashSet<>();
-    private boolean isDirty;
+    /** Default maximum size in bytes of the clean nodes retained by the cache. */
+    public static final long DEFAULT_MAX_SIZE = 4 * 1024 * 1024;
+
+    private static final int CONCURRENCY_LEVEL = 8;
+
+    private volatile ByteArrayKeyValueStore dataSource;
+    private final long maxSize;
+    private final Map<ByteArrayWrapper, Node> dirtyNodes = new ConcurrentHashMap<>();
+    private final com.google.common.cache.Cache<ByteArrayWrapper, Node> cleanNodes;
+    private final Set<ByteArrayWrapper> removedNodes = ConcurrentHashMap.newKeySet();
+    private volatile boolean isDirty;
 
     public Cache(ByteArrayKeyValueStore dataSource) {
+        this(dataSource, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param dataSource the data source where the nodes are stored
+     * @param maxSize the maximum size in bytes of the encodings of clean nodes kept in memory
+     */
+    public Cache(ByteArrayKeyValueStore dataSource, long maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The cache size must be positive.");
+        }
         this.dataSource = dataSource;
+        this.maxSize = maxSize;
+        this.cleanNodes =
+                CacheBuilder.newBuilder()
+                        .concurrencyLevel(CONCURRENCY_LEVEL)
+                        .maximumWeight(maxSize)
+                        .weigher((ByteArrayWrapper k, Node v) -> v.getValue().encode().length)
+                        .build();
     }
 
     public synchronized void markRemoved(byte[] key) {
         ByteArrayWrapper keyW = new ByteArrayWrapper(key);
         removedNodes.add(keyW);
-        nodes.remove(keyW);
+        dirtyNodes.remove(keyW);
+        cleanNodes.invalidate(keyW);
     }
 
     /**
@@ -52,9 +90,9 @@ public class Cache {
         Value value = new Value(o);
         byte[] enc = value.encode();
         if (enc.length >= 32) {
-            byte[] sha = HashUtil.h256(value.encode());
+            byte[] sha = HashUtil.h256(enc);
             ByteArrayWrapper key = wrap(sha);
-            this.nodes.put(key, new Node(value, true));
+            this.dirtyNodes.put(key, new Node(value, true));
             this.removedNodes.remove(key);
             this.isDirty = true;
 
@@ -63,20 +101,26 @@ public class Cache {
         return value;
     }
 
-    public synchronized Value get(byte[] key) {
+    public Value get(byte[] key) {
 
         ByteArrayWrapper wrappedKey = wrap(key);
-        Node node = nodes.get(wrappedKey);
+        Node node = dirtyNodes.get(wrappedKey);
+        if (node == null) {
+            node = cleanNodes.getIfPresent(wrappedKey);
+        }
         if (node != null) {
             // cachehits++;
             return node.getValue();
         }
-        if (this.dataSource != null) {
-            Optional<byte[]> data = this.dataSource.get(key);
+        ByteArrayKeyValueStore db = this.dataSource;
+        if (db != null) {
+            Optional<byte[]> data = db.get(key);
             if (data.isPresent()) {
                 // dbhits++;
                 Value val = fromRlpEncoded(data.get());
-                nodes.put(wrappedKey, new Node(val, false));
+                // decoding is lazy and not thread-safe, so it is done before sharing the value
+                val.asObj();
+                cleanNodes.put(wrappedKey, new Node(val, false));
                 return val;
             }
         }
@@ -86,44 +130,36 @@ public class Cache {
 
     public synchronized void delete(byte[] key) {
         ByteArrayWrapper wrappedKey = wrap(key);
-        this.nodes.remove(wrappedKey);
+        this.dirtyNodes.remove(wrappedKey);
+        this.cleanNodes.invalidate(wrappedKey);
 
         if (dataSource != null) {
             this.dataSource.delete(key);
         }
     }
 
+    /**
+     * Writes the modified nodes to the data source. The written nodes are moved to the bounded
+     * cache of clean nodes unless a flush is requested, in which case they are released.
+     *
+     * @param flushCache when {@code true} the written nodes are not retained in memory
+     */
     public synchronized void commit(boolean flushCache) {
         // Don't try to commit if it isn't dirty
         if ((dataSource == null) || !this.isDirty) {
             // clear cache when flush requested
             if (flushCache) {
-                this.nodes.clear();
+                this.dirtyNodes.clear();
+                this.cleanNodes.invalidateAll();
             }
             return;
         }
 
-        // long start = System.nanoTime();
-        // int batchMemorySize = 0;
+        Map<ByteArrayWrapper, Node> committed = new HashMap<>(this.dirtyNodes);
         Map<byte[], byte[]> batch = new HashMap<>();
         List<byte[]> deleteBatch = new ArrayList<>();
-        for (ByteArrayWrapper nodeKey : this.nodes.keySet()) {
-            Node node = this.nodes.get(nodeKey);
-
-            if (node == null || node.isDirty()) {
-                byte[] value;
-                if (node != null) {
-                    node.setDirty(false);
-                    value = node.getValue().encode();
-                } else {
-                    value = null;
-                }
-
-                byte[] key = nodeKey.getData();
-
-                batch.put(key, value);
-                // batchMemorySize += length(key, value);
-            }
+        for (Entry<ByteArrayWrapper, Node> entry : committed.entrySet()) {
+            batch.put(entry.getKey().getData(), entry.getValue().getValue().encode());
         }
         for (ByteArrayWrapper removedNode : removedNodes) {
             deleteBatch.add(removedNode.getData());
@@ -131,10 +167,15 @@ public class Cache {
 
         this.dataSource.putBatch(batch);
         this.dataSource.deleteBatch(deleteBatch);
-        this.isDirty = false;
-        if (flushCache) {
-            this.nodes.clear();
+
+        // the nodes are readable from the data source before being released
+        for (Entry<ByteArrayWrapper, Node> entry : committed.entrySet()) {
+            if (!flushCache) {
+                cleanNodes.put(entry.getKey(), new Node(entry.getValue().getValue(), false));
+            }
+            dirtyNodes.remove(entry.getKey(), entry.getValue());
         }
+        this.isDirty = false;
         this.removedNodes.clear();
     }
 
@@ -144,15 +185,34 @@ public class Cache {
     //        this.isDirty = false;
     //    }
 
-    public synchronized boolean isDirty() {
+    public boolean isDirty() {
         return isDirty;
     }
 
+    /**
+     * Returns a snapshot of all the nodes currently held in memory. Modifications to the returned
+     * map are not reflected in the cache.
+     */
     public synchronized Map<ByteArrayWrapper, Node> getNodes() {
+        Map<ByteArrayWrapper, Node> nodes = new LinkedHashMap<>(cleanNodes.asMap());
+        nodes.putAll(dirtyNodes);
         return nodes;
     }
 
-    public synchronized ByteArrayKeyValueStore getDb() {
+    /**
+     * Adds the given node to the cache. Dirty nodes are retained until the next commit while clean
+     * nodes may be evicted.
+     */
+    synchronized void putNode(ByteArrayWrapper key, Node node) {
+        if (node.isDirty()) {
+            dirtyNodes.put(key, node);
+            isDirty = true;
+        } else {
+            cleanNodes.put(key, node);
+        }
+    }
+
+    public ByteArrayKeyValueStore getDb() {
         return dataSource;
     }
 
@@ -181,13 +241,8 @@ public class Cache {
 
         Map<byte[], byte[]> rows = new HashMap<>();
         if (this.dataSource == null) {
-            for (ByteArrayWrapper key : nodes.keySet()) {
-                Node node = nodes.get(key);
-                if (node == null) {
-                    rows.put(key.getData(), null);
-                } else if (!node.isDirty()) {
-                    rows.put(key.getData(), node.getValue().encode());
-                }
+            for (Entry<ByteArrayWrapper, Node> entry : cleanNodes.asMap().entrySet()) {
+                rows.put(entry.getKey().getData(), entry.getValue().getValue().encode());
             }
         } else {
             Iterator<byte[]> iterator = dataSource.keys();
@@ -208,7 +263,7 @@ public class Cache {
     }
 
     public int getSize() {
-        return nodes.size();
+        return (int) (dirtyNodes.size() + cleanNodes.size());
     }
 
     /**
@@ -220,52 +275,31 @@ public class Cache {
      *
      * @return A copy of this cache.
      */
-    public Cache copy() {
-        Cache cacheCopy = new Cache(this.dataSource);
+    public synchronized Cache copy() {
+        Cache cacheCopy = new Cache(this.dataSource, this.maxSize);
         cacheCopy.isDirty = this.isDirty;
-        cacheCopy.nodes = copyOfNodes();
-        cacheCopy.removedNodes = copyOfRemovedNodes();
+        copyNodes(this.dirtyNodes, cacheCopy.dirtyNodes);
+        copyNodes(this.cleanNodes.asMap(), cacheCopy.cleanNodes.asMap());
+        cacheCopy.removedNodes.addAll(copyOfRemovedNodes());
         return cacheCopy;
     }
 
-    private Map<ByteArrayWrapper, Node> copyOfNodes() {
-        if (this.nodes == null) {
-            return null;
+    private static void copyNodes(
+            Map<ByteArrayWrapper, Node> source, Map<ByteArrayWrapper, Node> destination) {
+        for (Entry<ByteArrayWrapper, Node> nodesEntry : source.entrySet()) {
+            byte[] keyBytes = nodesEntry.getKey().getData();
+            destination.put(
+                    new ByteArrayWrapper(Arrays.copyOf(keyBytes, keyBytes.length)),
+                    nodesEntry.getValue().copy());
         }
-
-        Map<ByteArrayWrapper, Node> nodesCopy = new HashMap<>();
-        for (Entry<ByteArrayWrapper, Node> nodesEntry : this.nodes.entrySet()) {
-            ByteArrayWrapper keyWrapper = null;
-
-            if (nodesEntry.getKey() != null) {
-                byte[] keyBytes = nodesEntry.getKey().getData();
-                keyWrapper = new ByteArrayWrapper(Arrays.copyOf(keyBytes, keyBytes.length));
-            }
-
-            nodesCopy.put(
-                    keyWrapper,
-                    (nodesEntry.getValue() == null) ? null : nodesEntry.getValue().copy());
-        }
-        return nodesCopy;
     }
 
     private Set<ByteArrayWrapper> copyOfRemovedNodes() {
-        if (this.removedNodes == null) {
-            return null;
-        }
-
         Set<ByteArrayWrapper> removedNodesCopy = new HashSet<>();
         for (ByteArrayWrapper removedNode : this.removedNodes) {
-            ByteArrayWrapper removedNodeWrapper = null;
-
-            if (removedNode != null) {
-                byte[] removedNodeBytes = removedNode.toBytes();
-                removedNodeWrapper =
-                        new ByteArrayWrapper(
-                                Arrays.copyOf(removedNodeBytes, removedNodeBytes.length));
-            }
-
-            removedNodesCopy.add(removedNodeWrapper);
+            byte[] removedNodeBytes = removedNode.toBytes();
+            removedNodesCopy.add(
+                    new ByteArrayWrapper(Arrays.copyOf(removedNodeBytes, removedNodeBytes.length)));
         }
         return removedNodesCopy;
     }
@@ -0,0 +1,179 @@
+package org.aion.mcf.trie;
+
+import static org.aion.rlp.CompactEncoder.binToNibbles;
+import static org.aion.rlp.CompactEncoder.packNibbles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import org.aion.crypto.HashUtil;
+import org.aion.rlp.RLP;
+
+/**
+ * Computes the root hash of a trie whose keys are the RLP encoded positions of the given values,
+ * as used for the transaction and receipt tries of a block.
+ *
+ * <p>The result is identical to inserting each value in a {@link TrieImpl} under the key {@code
+ * RLP.encodeInt(index)} and retrieving its {@link TrieImpl#getRootHash()}. Unlike the trie, the
+ * nodes are encoded directly from the sorted keys without going through a node cache and without
+ * creating the intermediate nodes that are replaced during successive insertions. The subtries of
+ * large inputs are encoded in parallel.
+ */
+public final class OrderedTrieRoot {
+
+    private static final int LIST_SIZE = 17;
+    private static final int HASH_SIZE = 32;
+
+    /**
+     * Minimum number of values under a branch node for its children to be encoded in parallel by
+     * the common fork-join pool.
+     */
+    private static final int PARALLEL_THRESHOLD = 256;
+
+    private static final byte[] EMPTY_ELEMENT = RLP.encodeElement(new byte[0]);
+
+    private final byte[][] keys;
+    private final byte[][] values;
+
+    private OrderedTrieRoot(List<byte[]> values) {
+        int size = values.size();
+        Integer[] order = new Integer[size];
+        byte[][] nibbles = new byte[size][];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            nibbles[i] = binToNibbles(RLP.encodeInt(i));
+        }
+        Arrays.sort(order, (a, b) -> compare(nibbles[a], nibbles[b]));
+
+        this.keys = new byte[size][];
+        this.values = new byte[size][];
+        for (int i = 0; i < size; i++) {
+            this.keys[i] = nibbles[order[i]];
+            this.values[i] = values.get(order[i]);
+        }
+    }
+
+    /**
+     * Computes the root hash of the trie mapping each position in the list to its value.
+     *
+     * @param values the values to be added to the trie; must not contain {@code null} elements
+     * @return the root hash of the trie or {@link HashUtil#EMPTY_TRIE_HASH} for an empty list
+     */
+    public static byte[] calculate(List<byte[]> values) {
+        if (values == null || values.isEmpty()) {
+            return HashUtil.EMPTY_TRIE_HASH;
+        }
+
+        OrderedTrieRoot trie = new OrderedTrieRoot(values);
+        return HashUtil.h256(trie.encodeNode(0, values.size(), 0));
+    }
+
+    /** Returns the encoding of the node covering the keys in the range [from, to). */
+    private byte[] encodeNode(int from, int to, int depth) {
+        if (to - from == 1) {
+            // leaf node
+            byte[] path = Arrays.copyOfRange(keys[from], depth, keys[from].length);
+            return RLP.encodeList(
+                    RLP.encodeElement(packNibbles(path)), RLP.encodeElement(values[from]));
+        }
+
+        // the keys are sorted so the common prefix of the range is that of its ends
+        int prefix = commonPrefixLength(keys[from], keys[to - 1], depth);
+        if (prefix > 0) {
+            // extension node
+            byte[] path = Arrays.copyOfRange(keys[from], depth, depth + prefix);
+            return RLP.encodeList(
+                    RLP.encodeElement(packNibbles(path)),
+                    reference(encodeBranch(from, to, depth + prefix)));
+        }
+
+        return encodeBranch(from, to, depth);
+    }
+
+    /** Returns the encoding of the branch node for the keys in the range [from, to). */
+    private byte[] encodeBranch(int from, int to, int depth) {
+        byte[][] children = new byte[LIST_SIZE][];
+        Arrays.fill(children, EMPTY_ELEMENT);
+
+        boolean parallel = to - from >= PARALLEL_THRESHOLD;
+        List<NodeTask> tasks = parallel ? new ArrayList<>() : null;
+
+        int start = from;
+        while (start < to) {
+            byte nibble = keys[start][depth];
+            int end = start + 1;
+            while (end < to && keys[end][depth] == nibble) {
+                end++;
+            }
+
+            if (parallel) {
+                NodeTask task = new NodeTask(start, end, depth + 1);
+                task.fork();
+                tasks.add(task);
+            } else {
+                children[nibble] = encodeChild(start, end, depth + 1);
+            }
+            start = end;
+        }
+
+        if (parallel) {
+            for (NodeTask task : tasks) {
+                children[keys[task.from][depth]] = task.join();
+            }
+        }
+
+        return RLP.encodeList(children);
+    }
+
+    /** Returns the encoding of a child entry within a branch node. */
+    private byte[] encodeChild(int from, int to, int depth) {
+        if (to - from == 1 && keys[from].length == depth) {
+            // the key ends at the parent branch so the value is stored directly
+            return RLP.encodeElement(values[from]);
+        }
+        return reference(encodeNode(from, to, depth));
+    }
+
+    /** Nodes with encodings of at least 32 bytes are referenced by hash, others are embedded. */
+    private static byte[] reference(byte[] encodedNode) {
+        if (encodedNode.length >= HASH_SIZE) {
+            return RLP.encodeElement(HashUtil.h256(encodedNode));
+        }
+        return encodedNode;
+    }
+
+    private static int commonPrefixLength(byte[] a, byte[] b, int offset) {
+        int i = offset;
+        while (i < a.length && i < b.length && a[i] == b[i]) {
+            i++;
+        }
+        return i - offset;
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return a[i] - b[i];
+            }
+        }
+        return a.length - b.length;
+    }
+
+    /** Encodes a child entry of a branch node, splitting large subtries into further tasks. */
+    private final class NodeTask extends RecursiveTask<byte[]> {
+        private final int from, to, depth;
+
+        private NodeTask(int from, int to, int depth) {
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+        }
+
+        @Override
+        protected byte[] compute() {
+            return encodeChild(from, to, depth);
+        }
+    }
+}
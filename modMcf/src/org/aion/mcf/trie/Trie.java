@@ -2,6 +2,7 @@ package org.aion.mcf.trie;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
 import org.aion.types.ByteArrayWrapper;
 
@@ -72,6 +73,13 @@ public interface Trie {
 
     int getTrieSize(byte[] stateRoot);
 
+    /**
+     * Passes the values stored in the leaves of the trie with the given root to the given action.
+     *
+     * @throws RuntimeException if a node of the trie is missing from the database
+     */
+    void scanLeafValues(byte[] stateRoot, Consumer<byte[]> action);
+
     // never used
     //    boolean validate();
 
@@ -22,6 +22,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import org.aion.crypto.HashUtil;
 import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
 import org.aion.interfaces.db.ByteArrayKeyValueStore;
@@ -70,7 +71,7 @@ public class TrieImpl implements Trie {
     private static final int MAX_SIZE = 20;
 
     // private Object prevRoot;
-    private Object root;
+    private volatile Object root;
     private Cache cache;
 
     private boolean pruningEnabled;
@@ -152,12 +153,10 @@ public class TrieImpl implements Trie {
 
     @Override
     public byte[] get(byte[] key) {
-        synchronized (cache) {
-            byte[] k = binToNibbles(key);
-            Value c = new Value(this.get(this.root, k));
+        byte[] k = binToNibbles(key);
+        Value c = new Value(this.get(this.root, k));
 
-            return c.asBytes();
-        }
+        return c.asBytes();
     }
 
     /** Insert key/value pair into trie. */
@@ -217,48 +216,46 @@ public class TrieImpl implements Trie {
 
     @Override
     public byte[] getRootHash() {
-        synchronized (cache) {
-            if (root == null
-                    || (root instanceof byte[] && ((byte[]) root).length == 0)
-                    || (root instanceof String && "".equals(root))) {
-                return EMPTY_TRIE_HASH;
-            } else if (root instanceof byte[]) {
-                return (byte[]) this.getRoot();
-            } else {
-                Value rootValue = new Value(this.getRoot());
-                return HashUtil.h256(rootValue.encode());
-            }
+        // read once since the root may be replaced concurrently by an update
+        Object currentRoot = this.root;
+        if (currentRoot == null
+                || (currentRoot instanceof byte[] && ((byte[]) currentRoot).length == 0)
+                || (currentRoot instanceof String && "".equals(currentRoot))) {
+            return EMPTY_TRIE_HASH;
+        } else if (currentRoot instanceof byte[]) {
+            return (byte[]) currentRoot;
+        } else {
+            Value rootValue = new Value(currentRoot);
+            return HashUtil.h256(rootValue.encode());
         }
     }
 
     private Object get(Object node, byte[] key) {
-        synchronized (cache) {
-            int keypos = 0;
-            while (key.length - keypos != 0 && !isEmptyNode(node)) {
-                Value currentNode = this.getNode(node);
-                if (currentNode == null) {
-                    return null;
-                }
+        int keypos = 0;
+        while (key.length - keypos != 0 && !isEmptyNode(node)) {
+            Value currentNode = this.getNode(node);
+            if (currentNode == null) {
+                return null;
+            }
 
-                if (currentNode.length() == PAIR_SIZE) {
-                    // Decode the key
-                    byte[] k = unpackToNibbles(currentNode.get(0).asBytes());
-                    Object v = currentNode.get(1).asObj();
+            if (currentNode.length() == PAIR_SIZE) {
+                // Decode the key
+                byte[] k = unpackToNibbles(currentNode.get(0).asBytes());
+                Object v = currentNode.get(1).asObj();
 
-                    if (key.length - keypos >= k.length
-                            && Arrays.equals(k, copyOfRange(key, keypos, k.length + keypos))) {
-                        node = v;
-                        keypos += k.length;
-                    } else {
-                        return "";
-                    }
+                if (key.length - keypos >= k.length
+                        && Arrays.equals(k, copyOfRange(key, keypos, k.length + keypos))) {
+                    node = v;
+                    keypos += k.length;
                 } else {
-                    node = currentNode.get(key[keypos]).asObj();
-                    keypos++;
+                    return "";
                 }
+            } else {
+                node = currentNode.get(key[keypos]).asObj();
+                keypos++;
             }
-            return node;
         }
+        return node;
     }
 
     /**
@@ -522,9 +519,8 @@ public class TrieImpl implements Trie {
     public TrieImpl copy() {
         synchronized (cache) {
             TrieImpl trie = new TrieImpl(this.cache.getDb(), this.root);
-            for (ByteArrayWrapper key : this.cache.getNodes().keySet()) {
-                Node node = this.cache.getNodes().get(key);
-                trie.cache.getNodes().put(key, node.copy());
+            for (Map.Entry<ByteArrayWrapper, Node> entry : this.cache.getNodes().entrySet()) {
+                trie.cache.putNode(entry.getKey(), entry.getValue().copy());
             }
             return trie;
         }
@@ -573,29 +569,27 @@ public class TrieImpl implements Trie {
     //    }
 
     private void scanTree(byte[] hash, ScanAction scanAction) {
-        synchronized (cache) {
-            Value node = this.getCache().get(hash);
-            if (node == null) {
-                throw new RuntimeException("Not found: " + Hex.toHexString(hash));
-            }
+        Value node = this.getCache().get(hash);
+        if (node == null) {
+            throw new RuntimeException("Not found: " + Hex.toHexString(hash));
+        }
 
-            if (node.isList()) {
-                List<Object> siblings = node.asList();
-                if (siblings.size() == PAIR_SIZE) {
-                    Value val = new Value(siblings.get(1));
-                    if (val.isHashCode() && !hasTerminator((byte[]) siblings.get(0))) {
+        if (node.isList()) {
+            List<Object> siblings = node.asList();
+            if (siblings.size() == PAIR_SIZE) {
+                Value val = new Value(siblings.get(1));
+                if (val.isHashCode() && !hasTerminator((byte[]) siblings.get(0))) {
+                    scanTree(val.asBytes(), scanAction);
+                }
+            } else {
+                for (int j = 0; j < LIST_SIZE; ++j) {
+                    Value val = new Value(siblings.get(j));
+                    if (val.isHashCode()) {
                         scanTree(val.asBytes(), scanAction);
                     }
-                } else {
-                    for (int j = 0; j < LIST_SIZE; ++j) {
-                        Value val = new Value(siblings.get(j));
-                        if (val.isHashCode()) {
-                            scanTree(val.asBytes(), scanAction);
-                        }
-                    }
                 }
-                scanAction.doOnNode(hash, node);
             }
+            scanAction.doOnNode(hash, node);
         }
     }
 
@@ -605,32 +599,30 @@ public class TrieImpl implements Trie {
         hashes.add(hash);
 
         while (!hashes.isEmpty()) {
-            synchronized (cache) {
-                byte[] myHash = hashes.remove(0);
-                Value node = this.getCache().get(myHash);
-                if (node == null) {
-                    throw new RuntimeException("Not found: " + Hex.toHexString(myHash));
-                }
+            byte[] myHash = hashes.remove(0);
+            Value node = this.getCache().get(myHash);
+            if (node == null) {
+                throw new RuntimeException("Not found: " + Hex.toHexString(myHash));
+            }
 
-                if (node.isList()) {
-                    List<Object> siblings = node.asList();
-                    if (siblings.size() == PAIR_SIZE) {
-                        Value val = new Value(siblings.get(1));
-                        if (val.isHashCode() && !hasTerminator((byte[]) siblings.get(0))) {
+            if (node.isList()) {
+                List<Object> siblings = node.asList();
+                if (siblings.size() == PAIR_SIZE) {
+                    Value val = new Value(siblings.get(1));
+                    if (val.isHashCode() && !hasTerminator((byte[]) siblings.get(0))) {
+                        // scanTree(val.asBytes(), scanAction);
+                        hashes.add(val.asBytes());
+                    }
+                } else {
+                    for (int j = 0; j < LIST_SIZE; ++j) {
+                        Value val = new Value(siblings.get(j));
+                        if (val.isHashCode()) {
                             // scanTree(val.asBytes(), scanAction);
                             hashes.add(val.asBytes());
                         }
-                    } else {
-                        for (int j = 0; j < LIST_SIZE; ++j) {
-                            Value val = new Value(siblings.get(j));
-                            if (val.isHashCode()) {
-                                // scanTree(val.asBytes(), scanAction);
-                                hashes.add(val.asBytes());
-                            }
-                        }
                     }
-                    scanAction.doOnNode(myHash, node);
                 }
+                scanAction.doOnNode(myHash, node);
             }
         }
     }
@@ -650,37 +642,35 @@ public class TrieImpl implements Trie {
         hashes.add(hash);
 
         while (!hashes.isEmpty()) {
-            synchronized (cache) {
-                byte[] myHash = hashes.remove(0);
-                Value node = this.getCache().get(myHash);
-                if (node == null) {
-                    System.out.println("Skipped key. Not found: " + Hex.toHexString(myHash));
-                } else {
-                    if (node.isList()) {
-                        List<Object> siblings = node.asList();
-                        if (siblings.size() == PAIR_SIZE) {
-                            Value val = new Value(siblings.get(1));
-                            if (val.isHashCode() && !hasTerminator((byte[]) siblings.get(0))) {
+            byte[] myHash = hashes.remove(0);
+            Value node = this.getCache().get(myHash);
+            if (node == null) {
+                System.out.println("Skipped key. Not found: " + Hex.toHexString(myHash));
+            } else {
+                if (node.isList()) {
+                    List<Object> siblings = node.asList();
+                    if (siblings.size() == PAIR_SIZE) {
+                        Value val = new Value(siblings.get(1));
+                        if (val.isHashCode() && !hasTerminator((byte[]) siblings.get(0))) {
+                            // scanTree(val.asBytes(), scanAction);
+                            byte[] valBytes = val.asBytes();
+                            if (!db.get(valBytes).isPresent()) {
+                                hashes.add(valBytes);
+                            }
+                        }
+                    } else {
+                        for (int j = 0; j < LIST_SIZE; ++j) {
+                            Value val = new Value(siblings.get(j));
+                            if (val.isHashCode()) {
                                 // scanTree(val.asBytes(), scanAction);
                                 byte[] valBytes = val.asBytes();
                                 if (!db.get(valBytes).isPresent()) {
                                     hashes.add(valBytes);
                                 }
                             }
-                        } else {
-                            for (int j = 0; j < LIST_SIZE; ++j) {
-                                Value val = new Value(siblings.get(j));
-                                if (val.isHashCode()) {
-                                    // scanTree(val.asBytes(), scanAction);
-                                    byte[] valBytes = val.asBytes();
-                                    if (!db.get(valBytes).isPresent()) {
-                                        hashes.add(valBytes);
-                                    }
-                                }
-                            }
                         }
-                        scanAction.doOnNode(myHash, node);
                     }
+                    scanAction.doOnNode(myHash, node);
                 }
             }
         }
@@ -701,7 +691,7 @@ public class TrieImpl implements Trie {
 
                 Value value = Value.fromRlpEncoded(val);
                 System.arraycopy(keysElement.getRLPData(), i * 32, key, 0, 32);
-                cache.getNodes().put(wrap(key), new Node(value));
+                cache.putNode(wrap(key), new Node(value));
             }
 
             this.deserializeRoot(root.getRLPData());
@@ -859,15 +849,27 @@ public class TrieImpl implements Trie {
         return traceAction.getCount();
     }
 
+    @Override
+    public void scanLeafValues(byte[] stateRoot, Consumer<byte[]> action) {
+        traceTrie(
+                stateRoot,
+                (hash, node) -> {
+                    if (node.isList()) {
+                        List<Object> items = node.asList();
+                        if (items.size() == PAIR_SIZE && hasTerminator((byte[]) items.get(0))) {
+                            action.accept(new Value(items.get(1)).asBytes());
+                        }
+                    }
+                });
+    }
+
     private void traceTrie(byte[] stateRoot, ScanAction action) {
-        synchronized (cache) {
-            Value value = new Value(stateRoot);
+        Value value = new Value(stateRoot);
 
-            if (value.isHashCode()) {
-                scanTreeLoop(stateRoot, action);
-            } else {
-                action.doOnNode(stateRoot, value);
-            }
+        if (value.isHashCode()) {
+            scanTreeLoop(stateRoot, action);
+        } else {
+            action.doOnNode(stateRoot, value);
         }
     }
 
@@ -898,31 +900,29 @@ public class TrieImpl implements Trie {
         ArrayList<byte[]> hashes = new ArrayList<>();
         hashes.add(hash);
 
-        synchronized (cache) {
-            int items = hashes.size();
-            for (int i = 0; i < items; i++) {
-                byte[] myHash = hashes.get(i);
-                Value node = this.getCache().get(myHash);
-                if (node == null) {
-                    // performs action for missing nodes
-                    scanAction.doOnNode(myHash, null);
-                } else {
-                    if (node.isList()) {
-                        List<Object> siblings = node.asList();
-                        if (siblings.size() == PAIR_SIZE) {
-                            Value val = new Value(siblings.get(1));
-                            if (val.isHashCode() && !hasTerminator((byte[]) siblings.get(0))) {
+        int items = hashes.size();
+        for (int i = 0; i < items; i++) {
+            byte[] myHash = hashes.get(i);
+            Value node = this.getCache().get(myHash);
+            if (node == null) {
+                // performs action for missing nodes
+                scanAction.doOnNode(myHash, null);
+            } else {
+                if (node.isList()) {
+                    List<Object> siblings = node.asList();
+                    if (siblings.size() == PAIR_SIZE) {
+                        Value val = new Value(siblings.get(1));
+                        if (val.isHashCode() && !hasTerminator((byte[]) siblings.get(0))) {
+                            hashes.add(val.asBytes());
+                            items++;
+                        }
+                    } else {
+                        for (int j = 0; j < LIST_SIZE; ++j) {
+                            Value val = new Value(siblings.get(j));
+                            if (val.isHashCode()) {
                                 hashes.add(val.asBytes());
                                 items++;
                             }
-                        } else {
-                            for (int j = 0; j < LIST_SIZE; ++j) {
-                                Value val = new Value(siblings.get(j));
-                                if (val.isHashCode()) {
-                                    hashes.add(val.asBytes());
-                                    items++;
-                                }
-                            }
                         }
                     }
                 }
@@ -936,41 +936,51 @@ public class TrieImpl implements Trie {
         ArrayList<byte[]> hashes = new ArrayList<>();
         Value node = Value.fromRlpEncoded(value);
 
-        synchronized (cache) {
-            appendHashes(node, hashes);
+        appendHashes(node, hashes);
 
-            int items = hashes.size();
-            for (int i = 0; (i < items) && (collect.getSize() < limit); i++) {
-                byte[] myHash = hashes.get(i);
-                node = this.getCache().get(myHash);
+        int items = hashes.size();
+        for (int i = 0; (i < items) && (collect.getSize() < limit); i++) {
+            byte[] myHash = hashes.get(i);
+            node = this.getCache().get(myHash);
 
-                if (node != null) {
-                    if (node.isList()) {
-                        List<Object> siblings = node.asList();
-                        if (siblings.size() == PAIR_SIZE) {
-                            Value val = new Value(siblings.get(1));
-                            if (val.isHashCode() && !hasTerminator((byte[]) siblings.get(0))) {
+            if (node != null) {
+                if (node.isList()) {
+                    List<Object> siblings = node.asList();
+                    if (siblings.size() == PAIR_SIZE) {
+                        Value val = new Value(siblings.get(1));
+                        if (val.isHashCode() && !hasTerminator((byte[]) siblings.get(0))) {
+                            hashes.add(val.asBytes());
+                            items++;
+                        }
+                    } else {
+                        for (int j = 0; j < LIST_SIZE; ++j) {
+                            Value val = new Value(siblings.get(j));
+                            if (val.isHashCode()) {
                                 hashes.add(val.asBytes());
                                 items++;
                             }
-                        } else {
-                            for (int j = 0; j < LIST_SIZE; ++j) {
-                                Value val = new Value(siblings.get(j));
-                                if (val.isHashCode()) {
-                                    hashes.add(val.asBytes());
-                                    items++;
-                                }
-                            }
                         }
                     }
-                    collect.doOnNode(myHash, node);
                 }
+                collect.doOnNode(myHash, node);
             }
         }
         return collect.getNodes();
     }
 
-    private void appendHashes(Value node, ArrayList<byte[]> hashes) {
+    /**
+     * Returns the keys of the nodes referenced directly by the given trie node value.
+     *
+     * @param value the RLP encoding of a trie node
+     * @return the keys of the child nodes that are stored separately in the database
+     */
+    public static List<byte[]> getReferencedKeys(byte[] value) {
+        ArrayList<byte[]> hashes = new ArrayList<>();
+        appendHashes(Value.fromRlpEncoded(value), hashes);
+        return hashes;
+    }
+
+    private static void appendHashes(Value node, ArrayList<byte[]> hashes) {
         if (node.isHashCode()) {
             hashes.add(node.asBytes());
         } else if (node.isList()) {
@@ -999,14 +1009,12 @@ public class TrieImpl implements Trie {
     }
 
     private void traceDiffTrie(byte[] stateRoot, ScanAction action, ByteArrayKeyValueDatabase db) {
-        synchronized (cache) {
-            Value value = new Value(stateRoot);
+        Value value = new Value(stateRoot);
 
-            if (value.isHashCode() && !db.get(value.asBytes()).isPresent()) {
-                scanTreeDiffLoop(stateRoot, action, db);
-            } else {
-                action.doOnNode(stateRoot, value);
-            }
+        if (value.isHashCode() && !db.get(value.asBytes()).isPresent()) {
+            scanTreeDiffLoop(stateRoot, action, db);
+        } else {
+            action.doOnNode(stateRoot, value);
         }
     }
 
@@ -52,6 +52,15 @@ public class KernelInterfaceForFastVM implements KernelInterface {
         return this.repositoryCache;
     }
 
+    /**
+     * Returns the repository that a pre-compiled contract reads and writes directly, without going
+     * through the methods of this kernel.
+     */
+    public RepositoryCache<AccountState, IBlockStoreBase<?, ?>>
+            getRepositoryCacheForPrecompiledContract() {
+        return this.repositoryCache;
+    }
+
     @Override
     public void createAccount(Address address) {
         this.repositoryCache.createAccount(address);
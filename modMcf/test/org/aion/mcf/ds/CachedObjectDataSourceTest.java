@@ -0,0 +1,154 @@
+package org.aion.mcf.ds;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.interfaces.db.ByteArrayKeyValueDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link CachedObjectDataSource}. */
+public class CachedObjectDataSourceTest {
+
+    private static final Serializer<String, byte[]> STRING_SERIALIZER =
+            new Serializer<>() {
+                @Override
+                public byte[] serialize(String object) {
+                    return object.getBytes(StandardCharsets.UTF_8);
+                }
+
+                @Override
+                public String deserialize(byte[] stream) {
+                    return new String(stream, StandardCharsets.UTF_8);
+                }
+            };
+
+    private static final byte[] key1 = new byte[] {1};
+    private static final byte[] key2 = new byte[] {2};
+
+    private ByteArrayKeyValueDatabase db;
+    private CachedObjectDataSource<String> source;
+
+    @Before
+    public void beforeTest() {
+        db = new MockDB("test_database");
+        db.open();
+        source = new CachedObjectDataSource<>(db, STRING_SERIALIZER, 1024);
+    }
+
+    @After
+    public void afterTest() {
+        db.close();
+    }
+
+    @Test
+    public void testGetFromDatabaseThenCache() {
+        db.put(key1, STRING_SERIALIZER.serialize("value"));
+
+        assertThat(source.get(key1)).isEqualTo("value");
+        assertThat(source.getStats().missCount()).isEqualTo(1L);
+
+        // ensure the second read does not go to the database
+        db.delete(key1);
+        assertThat(source.get(key1)).isEqualTo("value");
+        assertThat(source.getStats().hitCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testGetMissing() {
+        assertThat(source.get(key1)).isNull();
+        assertThat(source.getCacheSize()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testPutWriteThrough() {
+        source.put(key1, "value");
+
+        assertThat(db.get(key1).get()).isEqualTo(STRING_SERIALIZER.serialize("value"));
+        assertThat(source.getCacheSize()).isEqualTo(1L);
+        assertThat(source.get(key1)).isEqualTo("value");
+        assertThat(source.getStats().hitCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testPutToBatchWriteThrough() {
+        source.putToBatch(key1, "value");
+        source.flushBatch();
+
+        assertThat(db.get(key1).get()).isEqualTo(STRING_SERIALIZER.serialize("value"));
+        assertThat(source.get(key1)).isEqualTo("value");
+        assertThat(source.getStats().hitCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testDeleteInvalidates() {
+        source.put(key1, "value1");
+        source.put(key2, "value2");
+
+        source.delete(key1);
+        assertThat(source.get(key1)).isNull();
+
+        source.deleteInBatch(key2);
+        source.flushBatch();
+        assertThat(source.get(key2)).isNull();
+
+        assertThat(source.getCacheSize()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testDeleteInBatchNotCachedBeforeFlush() {
+        // the database returns the previous value until the batch is committed
+        ByteArrayKeyValueDatabase batchDb = mock(ByteArrayKeyValueDatabase.class);
+        when(batchDb.get(key1)).thenReturn(Optional.of(STRING_SERIALIZER.serialize("value")));
+        source = new CachedObjectDataSource<>(batchDb, STRING_SERIALIZER, 1024);
+
+        source.deleteInBatch(key1);
+        assertThat(source.get(key1)).isEqualTo("value");
+        assertThat(source.getCacheSize()).isEqualTo(0L);
+
+        when(batchDb.get(key1)).thenReturn(Optional.empty());
+        source.flushBatch();
+        assertThat(source.get(key1)).isNull();
+    }
+
+    @Test
+    public void testEvictionBySize() {
+        source = new CachedObjectDataSource<>(db, STRING_SERIALIZER, 100);
+
+        for (byte i = 0; i < 20; i++) {
+            source.put(new byte[] {i}, "0123456789");
+        }
+
+        assertThat(source.getCacheSize()).isAtMost(10L);
+        assertThat(source.getStats().evictionCount()).isAtLeast(10L);
+
+        // evicted values are still retrieved from the database
+        for (byte i = 0; i < 20; i++) {
+            assertThat(source.get(new byte[] {i})).isEqualTo("0123456789");
+        }
+    }
+
+    @Test
+    public void testCopierApplied() {
+        CachedObjectDataSource<String> copying =
+                new CachedObjectDataSource<>(db, STRING_SERIALIZER, 1024, s -> new String(s));
+
+        copying.put(key1, "value");
+        String first = copying.get(key1);
+        String second = copying.get(key1);
+
+        assertThat(first).isEqualTo("value");
+        assertThat(second).isEqualTo("value");
+        assertThat(first).isNotSameAs(second);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCacheSize() {
+        new CachedObjectDataSource<>(db, STRING_SERIALIZER, 0);
+    }
+}
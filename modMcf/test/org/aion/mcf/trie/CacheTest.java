@@ -0,0 +1,143 @@
+package org.aion.mcf.trie;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.aion.types.ByteArrayWrapper.wrap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.aion.db.impl.mockdb.MockDB;
+import org.aion.rlp.Value;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link Cache}. */
+public class CacheTest {
+
+    private MockDB db;
+
+    @Before
+    public void setup() {
+        db = new MockDB("test_cache");
+        db.open();
+    }
+
+    @After
+    public void teardown() {
+        db.close();
+    }
+
+    private static Object node(int i) {
+        // nodes must be at least 32 bytes long to be stored by hash
+        return new Object[] {"key-" + i, "0123456789012345678901234567890123456789"};
+    }
+
+    @Test
+    public void testDirtyNodesRetainedUntilCommit() {
+        // small size that fits only a couple of clean nodes
+        Cache cache = new Cache(db, 100);
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            keys.add((byte[]) cache.put(node(i)));
+        }
+
+        assertThat(cache.isDirty()).isTrue();
+        assertThat(cache.getSize()).isEqualTo(50);
+        assertThat(db.isEmpty()).isTrue();
+
+        cache.commit(false);
+
+        assertThat(cache.isDirty()).isFalse();
+        assertThat(cache.getSize()).isLessThan(50);
+        for (int i = 0; i < 50; i++) {
+            assertThat(db.get(keys.get(i)).isPresent()).isTrue();
+            assertThat(cache.get(keys.get(i))).isNotNull();
+        }
+    }
+
+    @Test
+    public void testCommitWithFlush() {
+        Cache cache = new Cache(db);
+        byte[] key = (byte[]) cache.put(node(0));
+
+        cache.commit(true);
+
+        assertThat(cache.getSize()).isEqualTo(0);
+        Value value = cache.get(key);
+        assertThat(value).isNotNull();
+        assertThat(value.encode()).isEqualTo(new Value(node(0)).encode());
+
+        // loaded from the database and kept as clean node
+        assertThat(cache.getSize()).isEqualTo(1);
+        assertThat(cache.getNodes().get(wrap(key)).isDirty()).isFalse();
+    }
+
+    @Test
+    public void testMarkRemoved() {
+        Cache cache = new Cache(db);
+        byte[] key = (byte[]) cache.put(node(0));
+        cache.commit(false);
+        assertThat(db.get(key).isPresent()).isTrue();
+
+        cache.markRemoved(key);
+        cache.put(node(1));
+        cache.commit(false);
+
+        assertThat(db.get(key).isPresent()).isFalse();
+        assertThat(cache.get(key)).isNull();
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        Cache cache = new Cache(db);
+        byte[] key = (byte[]) cache.put(node(0));
+
+        Cache copy = cache.copy();
+        copy.markRemoved(key);
+
+        assertThat(copy.get(key)).isNull();
+        assertThat(cache.get(key)).isNotNull();
+        assertThat(copy.isDirty()).isTrue();
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        Cache cache = new Cache(db, 1024);
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            keys.add((byte[]) cache.put(node(i)));
+        }
+        cache.commit(true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(
+                        executor.submit(
+                                () -> {
+                                    for (int i = 0; i < keys.size(); i++) {
+                                        Value value = cache.get(keys.get(i));
+                                        if (value == null || value.asList().size() != 2) {
+                                            return false;
+                                        }
+                                    }
+                                    return true;
+                                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() {
+        new Cache(db, 0);
+    }
+}
@@ -0,0 +1,68 @@
+package org.aion.mcf.trie;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.aion.crypto.HashUtil;
+import org.aion.rlp.RLP;
+import org.junit.Test;
+
+/** Tests that {@link OrderedTrieRoot} produces the same roots as {@link TrieImpl}. */
+public class OrderedTrieRootTest {
+
+    private static final Random random = new Random(42);
+
+    private static List<byte[]> randomValues(int count, int minLength, int maxLength) {
+        List<byte[]> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] value = new byte[minLength + random.nextInt(maxLength - minLength + 1)];
+            random.nextBytes(value);
+            values.add(value);
+        }
+        return values;
+    }
+
+    private static byte[] trieRoot(List<byte[]> values) {
+        TrieImpl trie = new TrieImpl(null);
+        for (int i = 0; i < values.size(); i++) {
+            trie.update(RLP.encodeInt(i), values.get(i));
+        }
+        return trie.getRootHash();
+    }
+
+    @Test
+    public void testEmpty() {
+        assertThat(OrderedTrieRoot.calculate(null)).isEqualTo(HashUtil.EMPTY_TRIE_HASH);
+        assertThat(OrderedTrieRoot.calculate(Collections.emptyList()))
+                .isEqualTo(HashUtil.EMPTY_TRIE_HASH);
+    }
+
+    @Test
+    public void testShortValues() {
+        // short values produce nodes embedded in their parents
+        for (int count = 1; count <= 300; count++) {
+            List<byte[]> values = randomValues(count, 1, 4);
+            assertThat(OrderedTrieRoot.calculate(values)).isEqualTo(trieRoot(values));
+        }
+    }
+
+    @Test
+    public void testLongValues() {
+        for (int count = 1; count <= 300; count++) {
+            List<byte[]> values = randomValues(count, 30, 200);
+            assertThat(OrderedTrieRoot.calculate(values)).isEqualTo(trieRoot(values));
+        }
+    }
+
+    @Test
+    public void testLargeInputs() {
+        // large enough for the subtries to be encoded in parallel
+        for (int count : new int[] {256, 1000, 5000}) {
+            List<byte[]> values = randomValues(count, 1, 300);
+            assertThat(OrderedTrieRoot.calculate(values)).isEqualTo(trieRoot(values));
+        }
+    }
+}
@@ -987,6 +987,30 @@ public class TrieTest {
         assertThat(missing).isEqualTo(expected);
     }
 
+    @Test
+    public void testScanLeafValues() {
+        MockDB mockDB = new MockDB("temp");
+        mockDB.open();
+        TrieImpl trie = new TrieImpl(mockDB);
+
+        // values larger than a hash, such that the leaves are not embedded in their parents
+        Set<ByteArrayWrapper> expected = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            byte[] value = HashUtil.h256(intToBytes(i));
+            value = Arrays.copyOf(value, 2 * value.length);
+            trie.update(HashUtil.h256(value), value);
+            expected.add(new ByteArrayWrapper(value));
+        }
+        trie.getCache().commit(true);
+
+        byte[] root = trie.getRootHash();
+        trie = new TrieImpl(mockDB);
+
+        Set<ByteArrayWrapper> values = new HashSet<>();
+        trie.scanLeafValues(root, (value) -> values.add(new ByteArrayWrapper(value)));
+        assertThat(values).isEqualTo(expected);
+    }
+
     @Test
     public void testGetReferencedTrieNodes() {
         MockDB mockDB = new MockDB("temp");
@@ -42,6 +42,7 @@ import org.aion.p2p.impl.zero.msg.ReqHandshake1;
 import org.aion.p2p.impl.zero.msg.ResHandshake1;
 import org.aion.p2p.impl1.tasks.MsgIn;
 import org.aion.p2p.impl1.tasks.MsgOut;
+import org.aion.p2p.impl1.tasks.MsgOutQueue;
 import org.aion.p2p.impl1.tasks.TaskClear;
 import org.aion.p2p.impl1.tasks.TaskConnectPeers;
 import org.aion.p2p.impl1.tasks.TaskInbound;
@@ -82,7 +83,7 @@ public final class P2pMgr implements IP2pMgr {
     private Selector selector;
     private ScheduledExecutorService scheduledWorkers;
     private int errTolerance;
-    private BlockingQueue<MsgOut> sendMsgQue = new LinkedBlockingQueue<>();
+    private MsgOutQueue sendMsgQue = new MsgOutQueue(WORKER);
     private BlockingQueue<MsgIn> receiveMsgQue = new LinkedBlockingQueue<>();
 
     private static ReqHandshake1 cachedReqHandshake1;
@@ -279,13 +280,17 @@ public final class P2pMgr implements IP2pMgr {
 
     @Override
     public void send(int _nodeIdHash, String _nodeIdShort, final Msg _msg) {
-        sendMsgQue.add(new MsgOut(_nodeIdHash, _nodeIdShort, _msg, Dest.ACTIVE));
+        sendMsgQue.offer(new MsgOut(_nodeIdHash, _nodeIdShort, _msg, Dest.ACTIVE));
     }
 
     @Override
     public void shutdown() {
         start.set(false);
 
+        if (selector != null) {
+            selector.wakeup();
+        }
+
         if (scheduledWorkers != null) {
             scheduledWorkers.shutdownNow();
         }
@@ -461,7 +466,8 @@ public final class P2pMgr implements IP2pMgr {
     }
 
     private TaskSend getSendInstance(int i) {
-        return new TaskSend(this, i, this.sendMsgQue, this.start, this.nodeMgr, this.selector);
+        return new TaskSend(
+                this, i, this.sendMsgQue.getLane(i), this.start, this.nodeMgr, this.selector);
     }
 
     private TaskReceive getReceiveInstance() {
@@ -2,7 +2,11 @@ package org.aion.p2p.impl1.tasks;
 
 import static org.aion.p2p.impl1.P2pMgr.p2pLOG;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -13,12 +17,21 @@ import org.aion.p2p.Header;
 /** @author chris */
 class ChannelBuffer {
 
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+    // larger inbound buffers are released once emptied instead of being kept for the next read
+    private static final int MAX_RETAINED_INBOUND = 1024 * 1024;
+    // maximum number of buffers passed to a single gathering write
+    private static final int MAX_GATHER = 64;
+
     byte[] body = null;
     Lock lock = new ReentrantLock();
     private Header header = null;
-    // buffer for buffer remaining after NIO select read.
-    private byte[] remainBuffer;
-    private int buffRemain = 0;
+    // bytes of an incomplete message remaining after NIO select read, reused between reads.
+    private ByteBuffer inbound = EMPTY;
+    // encoded messages not yet fully written to the channel, guarded by the lock.
+    private final Deque<ByteBuffer> outbound = new ArrayDeque<>();
+    private long outboundBytes = 0;
+    private long droppedOutbound = 0;
     private int nodeIdHash;
     private String displayId;
     private byte[] bsHead = new byte[Header.LEN];
@@ -53,12 +66,102 @@ class ChannelBuffer {
         this.closed.set(true);
     }
 
-    int getBuffRemain() {
-        return buffRemain;
+    /** Indicates whether bytes of an incomplete message were kept from previous reads. */
+    boolean hasPendingInbound() {
+        return inbound.position() > 0;
+    }
+
+    /**
+     * Appends the given bytes to the ones kept from previous reads.
+     *
+     * @return a buffer for reading all the pending bytes; the unread part must be handed back
+     *     through {@link #keepInbound(ByteBuffer)}
+     */
+    ByteBuffer appendInbound(ByteBuffer data) {
+        ensureInboundCapacity(inbound.position() + data.remaining());
+        inbound.put(data);
+        inbound.flip();
+        return inbound;
     }
 
-    void setBuffRemain(int buffRemain) {
-        this.buffRemain = buffRemain;
+    /** Keeps the unread bytes of the given buffer until the next read from the channel. */
+    void keepInbound(ByteBuffer data) {
+        if (data == inbound) {
+            inbound.compact();
+        } else {
+            inbound.clear();
+            ensureInboundCapacity(data.remaining());
+            inbound.put(data);
+        }
+
+        if (inbound.position() == 0 && inbound.capacity() > MAX_RETAINED_INBOUND) {
+            inbound = EMPTY;
+        }
+    }
+
+    private void ensureInboundCapacity(int capacity) {
+        if (inbound.capacity() < capacity) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(capacity, inbound.capacity() << 1));
+            inbound.flip();
+            larger.put(inbound);
+            inbound = larger;
+        }
+    }
+
+    /** Indicates whether earlier messages are still waiting to be written. Requires the lock. */
+    boolean hasPendingOutbound() {
+        return !outbound.isEmpty();
+    }
+
+    /** Returns the number of bytes waiting to be written. Requires the lock. */
+    long getPendingOutboundBytes() {
+        return outboundBytes;
+    }
+
+    /** Queues an encoded message after the ones waiting to be written. Requires the lock. */
+    void addOutbound(ByteBuffer data) {
+        outbound.add(data);
+        outboundBytes += data.remaining();
+    }
+
+    /** Counts a message dropped because too much data was waiting. Requires the lock. */
+    void incDroppedOutbound() {
+        droppedOutbound++;
+    }
+
+    /** Returns the number of messages dropped because too much data was waiting. */
+    long getDroppedOutbound() {
+        return droppedOutbound;
+    }
+
+    /**
+     * Writes the queued data in order using gathering writes until all is written or the socket
+     * send buffer is full. Requires the lock.
+     *
+     * @return {@code true} if no data remains to be written
+     */
+    boolean flushOutbound(SocketChannel sc) throws IOException {
+        ByteBuffer[] gather = new ByteBuffer[Math.min(outbound.size(), MAX_GATHER)];
+        while (!outbound.isEmpty()) {
+            int count = 0;
+            for (ByteBuffer data : outbound) {
+                if (count == gather.length) {
+                    break;
+                }
+                gather[count++] = data;
+            }
+
+            outboundBytes -= sc.write(gather, 0, count);
+
+            while (!outbound.isEmpty() && !outbound.peek().hasRemaining()) {
+                outbound.poll();
+            }
+            if (gather[count - 1].hasRemaining()) {
+                // the socket send buffer is full
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -153,14 +256,6 @@ class ChannelBuffer {
         return header == null || body == null || body.length != header.getLen();
     }
 
-    byte[] getRemainBuffer() {
-        return remainBuffer;
-    }
-
-    void setRemainBuffer(byte[] remainBuffer) {
-        this.remainBuffer = remainBuffer;
-    }
-
     public Header getHeader() {
         return header;
     }
@@ -0,0 +1,47 @@
+package org.aion.p2p.impl1.tasks;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The outgoing messages, kept in one queue per send lane.
+ *
+ * <p>Messages are placed in the queue of the lane of their destination node, such that each send
+ * thread only takes the messages it is responsible for and the messages to the same node are
+ * written in order.
+ */
+public class MsgOutQueue {
+
+    private final BlockingQueue<MsgOut>[] lanes;
+
+    @SuppressWarnings("unchecked")
+    public MsgOutQueue(int laneCount) {
+        lanes = new BlockingQueue[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new LinkedBlockingQueue<>();
+        }
+    }
+
+    /** Adds the message to the queue of the lane of its destination node. */
+    public boolean offer(MsgOut mo) {
+        return lanes[mo.getLane() % lanes.length].offer(mo);
+    }
+
+    /** Returns the queue of messages for the given send lane. */
+    public BlockingQueue<MsgOut> getLane(int lane) {
+        return lanes[lane];
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    /** Returns the total number of messages waiting to be sent. */
+    public int size() {
+        int size = 0;
+        for (BlockingQueue<MsgOut> lane : lanes) {
+            size += lane.size();
+        }
+        return size;
+    }
+}
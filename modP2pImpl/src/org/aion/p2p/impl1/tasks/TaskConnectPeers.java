@@ -7,7 +7,6 @@ import java.net.InetSocketAddress;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.p2p.INode;
 import org.aion.p2p.INodeMgr;
@@ -24,7 +23,7 @@ public class TaskConnectPeers implements Runnable {
     private final int maxActiveNodes;
     private final IP2pMgr mgr;
     private final AtomicBoolean start;
-    private final BlockingQueue<MsgOut> sendMsgQue;
+    private final MsgOutQueue sendMsgQue;
     private final Selector selector;
     private final ReqHandshake1 cachedReqHS;
 
@@ -34,7 +33,7 @@ public class TaskConnectPeers implements Runnable {
             final INodeMgr _nodeMgr,
             final int _maxActiveNodes,
             final Selector _selector,
-            final BlockingQueue<MsgOut> _sendMsgQue,
+            final MsgOutQueue _sendMsgQue,
             final ReqHandshake1 _cachedReqHS) {
 
         this.start = _start;
@@ -96,6 +95,8 @@ public class TaskConnectPeers implements Runnable {
                         }
 
                         channel.configureBlocking(false);
+                        // the registration waits for the inbound thread to leave the select
+                        this.selector.wakeup();
                         SelectionKey sk = channel.register(this.selector, SelectionKey.OP_READ);
                         ChannelBuffer rb = new ChannelBuffer();
                         rb.setDisplayId(node.getIdShort());
@@ -36,12 +36,19 @@ import org.aion.p2p.impl1.P2pMgr.Dest;
 
 public class TaskInbound implements Runnable {
 
+    /**
+     * Upper bound in milliseconds for a blocking select. Channels are registered by other threads,
+     * which wait for an ongoing selection to end, so the selection is also woken up explicitly
+     * before each registration.
+     */
+    private static final long SELECT_TIMEOUT = 100;
+
     private final IP2pMgr mgr;
     private final Selector selector;
     private final INodeMgr nodeMgr;
     private final Map<Integer, List<Handler>> handlers;
     private final AtomicBoolean start;
-    private final BlockingQueue<MsgOut> sendMsgQue;
+    private final MsgOutQueue sendMsgQue;
     private final ResHandshake1 cachedResHandshake1;
     private final BlockingQueue<MsgIn> receiveMsgQue;
 
@@ -51,7 +58,7 @@ public class TaskInbound implements Runnable {
             final AtomicBoolean _start,
             final INodeMgr _nodeMgr,
             final Map<Integer, List<Handler>> _handlers,
-            final BlockingQueue<MsgOut> _sendMsgQue,
+            final MsgOutQueue _sendMsgQue,
             final ResHandshake1 _cachedResHandshake1,
             final BlockingQueue<MsgIn> _receiveMsgQue) {
 
@@ -73,17 +80,12 @@ public class TaskInbound implements Runnable {
 
         while (start.get()) {
             try {
-                Thread.sleep(0, 1);
-
-                if (this.selector.selectNow() == 0) {
+                if (this.selector.select(SELECT_TIMEOUT) == 0) {
                     continue;
                 }
             } catch (IOException | ClosedSelectorException e) {
                 p2pLOG.debug("inbound-select-exception.", e);
                 continue;
-            } catch (InterruptedException e) {
-                p2pLOG.error("inbound thread sleep exception.", e);
-                continue;
             }
 
             try {
@@ -109,6 +111,15 @@ public class TaskInbound implements Runnable {
                             }
                             readBuffer(key, cb, readBuf);
                         }
+
+                        if (key.isValid() && key.isWritable()) {
+                            cb = (ChannelBuffer) key.attachment();
+                            if (cb == null) {
+                                p2pLOG.error("outbound exception: attachment is null");
+                                continue;
+                            }
+                            writeBuffer(key, cb);
+                        }
                     } catch (Exception e) {
                         this.mgr.closeSocket(
                                 key != null ? (SocketChannel) key.channel() : null,
@@ -175,52 +186,11 @@ public class TaskInbound implements Runnable {
         }
     }
 
-    private int readHeader(final ChannelBuffer _cb, final ByteBuffer _readBuf, int cnt) {
-
-        if (cnt < Header.LEN) {
-            return cnt;
-        }
-
-        int origPos = _readBuf.position();
-
-        int startP = origPos - cnt;
-
-        _readBuf.position(startP);
-
-        _cb.readHead(_readBuf);
-
-        _readBuf.position(origPos);
-
-        return cnt - Header.LEN;
-    }
-
-    private int readBody(final ChannelBuffer _cb, ByteBuffer _readBuf, int _cnt) {
-
-        int bodyLen = _cb.getHeader().getLen();
-
-        // some msg have nobody.
-        if (bodyLen == 0) {
-            _cb.body = new byte[0];
-            return _cnt;
-        }
-
-        if (_cnt < bodyLen) {
-            return _cnt;
-        }
-
-        int origPos = _readBuf.position();
-        int startP = origPos - _cnt;
-        _readBuf.position(startP);
-        _cb.readBody(_readBuf);
-        _readBuf.position(origPos);
-        return _cnt - bodyLen;
-    }
-
     private void readBuffer(
             final SelectionKey _sk, final ChannelBuffer _cb, final ByteBuffer _readBuf)
             throws Exception {
 
-        _readBuf.rewind();
+        _readBuf.clear();
 
         SocketChannel sc = (SocketChannel) _sk.channel();
 
@@ -228,66 +198,69 @@ public class TaskInbound implements Runnable {
         int cnt = 0;
         do {
             r = sc.read(_readBuf);
-            cnt += r;
+            if (r > 0) {
+                cnt += r;
+            }
         } while (r > 0);
 
-        if (cnt < 1) {
-            return;
-        }
+        if (cnt > 0) {
+            _readBuf.flip();
 
-        int remainBufAll = _cb.getBuffRemain() + cnt;
-        ByteBuffer bufferAll = calBuffer(_cb, _readBuf, cnt);
+            // continue an incomplete message from the previous read
+            ByteBuffer bufferAll = _cb.hasPendingInbound() ? _cb.appendInbound(_readBuf) : _readBuf;
 
-        do {
-            r = readMsg(_sk, bufferAll, remainBufAll);
-            if (remainBufAll == r) {
-                break;
-            } else {
-                remainBufAll = r;
+            while (readMsg(_sk, _cb, bufferAll)) {
+                // handle all the complete messages
             }
-        } while (r > 0);
-
-        _cb.setBuffRemain(r);
-
-        if (r != 0) {
-            // there are no perfect cycling buffer in jdk
-            // yet.
-            // simply just buff move for now.
-            // @TODO: looking for more efficient way.
 
-            int currPos = bufferAll.position();
-            _cb.setRemainBuffer(new byte[r]);
-            bufferAll.position(currPos - r);
-            bufferAll.get(_cb.getRemainBuffer());
+            _cb.keepInbound(bufferAll);
         }
 
-        _readBuf.rewind();
+        if (r < 0) {
+            // the channel would otherwise be selected as readable again immediately
+            throw new P2pException("end-of-stream");
+        }
     }
 
-    private int readMsg(SelectionKey _sk, ByteBuffer _readBuf, int _cnt) throws IOException {
-        ChannelBuffer cb = (ChannelBuffer) _sk.attachment();
-        if (cb == null) {
-            throw new P2pException("attachment is null");
-        }
+    /**
+     * Reads the next message from the buffer and handles it.
+     *
+     * @return {@code true} if a message was handled, {@code false} if the buffer does not contain
+     *     a complete message
+     */
+    private boolean readMsg(SelectionKey _sk, ChannelBuffer _cb, ByteBuffer _readBuf)
+            throws P2pException {
+        if (_cb.isHeaderNotCompleted()) {
+            if (_readBuf.remaining() < Header.LEN) {
+                return false;
+            }
 
-        int readCnt;
-        if (cb.isHeaderNotCompleted()) {
-            readCnt = readHeader(cb, _readBuf, _cnt);
-        } else {
-            readCnt = _cnt;
+            _cb.readHead(_readBuf);
+            if (_cb.isHeaderNotCompleted()) {
+                throw new P2pException("invalid-header");
+            }
         }
 
-        if (cb.isBodyNotCompleted()) {
-            readCnt = readBody(cb, _readBuf, readCnt);
+        if (_readBuf.remaining() < _cb.getHeader().getLen()) {
+            return false;
         }
 
-        if (cb.isBodyNotCompleted()) {
-            return readCnt;
-        }
+        _cb.readBody(_readBuf);
+        handleMsg(_sk, _cb);
 
-        handleMsg(_sk, cb);
+        return true;
+    }
 
-        return readCnt;
+    /** Continues writing the messages queued for a channel once it becomes writable. */
+    private void writeBuffer(final SelectionKey _sk, final ChannelBuffer _cb) throws IOException {
+        _cb.lock.lock();
+        try {
+            if (_cb.flushOutbound((SocketChannel) _sk.channel())) {
+                _sk.interestOps(_sk.interestOps() & ~SelectionKey.OP_WRITE);
+            }
+        } finally {
+            _cb.lock.unlock();
+        }
     }
 
     private void handleMsg(SelectionKey _sk, ChannelBuffer _cb) {
@@ -366,22 +339,6 @@ public class TaskInbound implements Runnable {
         }
     }
 
-    private ByteBuffer calBuffer(ChannelBuffer _cb, ByteBuffer _readBuf, int _cnt) {
-        ByteBuffer r;
-        if (_cb.getBuffRemain() != 0) {
-            byte[] alreadyRead = new byte[_cnt];
-            _readBuf.position(0);
-            _readBuf.get(alreadyRead);
-            r = ByteBuffer.allocate(_cb.getBuffRemain() + _cnt);
-            r.put(_cb.getRemainBuffer());
-            r.put(alreadyRead);
-        } else {
-            r = _readBuf;
-        }
-
-        return r;
-    }
-
     /**
      * @param _sk SelectionKey
      * @param _act ACT
@@ -4,6 +4,11 @@ import static org.aion.p2p.impl1.P2pMgr.p2pLOG;
 
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -14,6 +19,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.p2p.INode;
 import org.aion.p2p.INodeMgr;
 import org.aion.p2p.IP2pMgr;
+import org.aion.p2p.Msg;
 import org.aion.p2p.P2pConstant;
 
 public class TaskSend implements Runnable {
@@ -26,6 +32,8 @@ public class TaskSend implements Runnable {
     private final int lane;
     private final ThreadPoolExecutor tpe;
     private static final int THREAD_Q_LIMIT = 20000;
+    // maximum number of queued messages taken at once to be coalesced
+    private static final int MAX_BATCH_SIZE = 256;
 
     public TaskSend(
             final IP2pMgr _mgr,
@@ -53,58 +61,34 @@ public class TaskSend implements Runnable {
 
     @Override
     public void run() {
+        List<MsgOut> batch = new ArrayList<>();
         while (start.get()) {
             try {
-                MsgOut mo = sendMsgQue.take();
+                batch.add(sendMsgQue.take());
+                // coalesce the messages already queued to be written together per node
+                sendMsgQue.drainTo(batch, MAX_BATCH_SIZE - 1);
 
-                // if timeout , throw away this msg.
-                long now = System.currentTimeMillis();
-                if (now - mo.getTimestamp() > P2pConstant.WRITE_MSG_TIMEOUT) {
-                    if (p2pLOG.isDebugEnabled()) {
-                        p2pLOG.debug("timeout-msg to-node={} timestamp={}", mo.getDisplayId(), now);
+                Map<SelectionKey, List<Msg>> msgsByKey = new LinkedHashMap<>();
+                Map<SelectionKey, String> idsByKey = new HashMap<>();
+                for (MsgOut mo : batch) {
+                    SelectionKey sk = getSelectionKey(mo);
+                    if (sk != null) {
+                        msgsByKey.computeIfAbsent(sk, k -> new ArrayList<>()).add(mo.getMsg());
+                        idsByKey.putIfAbsent(sk, mo.getDisplayId());
                     }
-                    continue;
-                }
-
-                // if not belong to current lane, put it back.
-                if (mo.getLane() != lane) {
-                    sendMsgQue.offer(mo);
-                    continue;
-                }
-
-                INode node = null;
-                switch (mo.getDest()) {
-                    case ACTIVE:
-                        node = nodeMgr.getActiveNode(mo.getNodeId());
-                        break;
-                    case INBOUND:
-                        node = nodeMgr.getInboundNode(mo.getNodeId());
-                        break;
-                    case OUTBOUND:
-                        node = nodeMgr.getOutboundNode(mo.getNodeId());
-                        break;
                 }
 
-                if (node != null) {
-                    SelectionKey sk = node.getChannel().keyFor(selector);
-                    if (sk != null) {
-                        Object attachment = sk.attachment();
-                        if (attachment != null) {
-                            tpe.execute(
-                                    new TaskWrite(
-                                            node.getIdShort(),
-                                            node.getChannel(),
-                                            mo.getMsg(),
-                                            (ChannelBuffer) attachment,
-                                            this.mgr));
-                        }
-                    }
-                } else {
-                    if (p2pLOG.isDebugEnabled()) {
-                        p2pLOG.debug(
-                                "msg-{} ->{} node-not-exist",
-                                mo.getDest().name(),
-                                mo.getDisplayId());
+                for (Map.Entry<SelectionKey, List<Msg>> e : msgsByKey.entrySet()) {
+                    SelectionKey sk = e.getKey();
+                    Object attachment = sk.attachment();
+                    if (attachment != null) {
+                        tpe.execute(
+                                new TaskWrite(
+                                        idsByKey.get(sk),
+                                        sk,
+                                        e.getValue(),
+                                        (ChannelBuffer) attachment,
+                                        this.mgr));
                     }
                 }
             } catch (InterruptedException e) {
@@ -116,10 +100,46 @@ public class TaskSend implements Runnable {
                 if (p2pLOG.isDebugEnabled()) {
                     p2pLOG.debug("TaskSend exception.", e);
                 }
+            } finally {
+                batch.clear();
             }
         }
     }
 
+    /** Returns the selection key of the destination channel or {@code null} if not sendable. */
+    private SelectionKey getSelectionKey(MsgOut mo) {
+        // if timeout , throw away this msg.
+        long now = System.currentTimeMillis();
+        if (now - mo.getTimestamp() > P2pConstant.WRITE_MSG_TIMEOUT) {
+            if (p2pLOG.isDebugEnabled()) {
+                p2pLOG.debug("timeout-msg to-node={} timestamp={}", mo.getDisplayId(), now);
+            }
+            return null;
+        }
+
+        INode node = null;
+        switch (mo.getDest()) {
+            case ACTIVE:
+                node = nodeMgr.getActiveNode(mo.getNodeId());
+                break;
+            case INBOUND:
+                node = nodeMgr.getInboundNode(mo.getNodeId());
+                break;
+            case OUTBOUND:
+                node = nodeMgr.getOutboundNode(mo.getNodeId());
+                break;
+        }
+
+        if (node == null) {
+            if (p2pLOG.isDebugEnabled()) {
+                p2pLOG.debug("msg-{} ->{} node-not-exist", mo.getDest().name(), mo.getDisplayId());
+            }
+            return null;
+        }
+
+        return node.getChannel().keyFor(selector);
+    }
+
     // hash mapping channel id to write thread.
     static int hash2Lane(int in) {
         in ^= in >> (32 - 5);
@@ -9,13 +9,13 @@ public class TaskStatus implements Runnable {
 
     private final INodeMgr nodeMgr;
     private final String selfShortId;
-    private final BlockingQueue<MsgOut> sendMsgQue;
+    private final MsgOutQueue sendMsgQue;
     private final BlockingQueue<MsgIn> receiveMsgQue;
 
     public TaskStatus(
             final INodeMgr _nodeMgr,
             final String _selfShortId,
-            final BlockingQueue<MsgOut> _sendMsgQue,
+            final MsgOutQueue _sendMsgQue,
             final BlockingQueue<MsgIn> _receiveMsgQue) {
         this.nodeMgr = _nodeMgr;
         this.selfShortId = _selfShortId;
@@ -34,6 +34,14 @@ public class TaskStatus implements Runnable {
                     "recv queue[{}] send queue[{}]",
                     this.receiveMsgQue.size(),
                     this.sendMsgQue.size());
+
+            if (p2pLOG.isTraceEnabled()) {
+                StringBuilder lanes = new StringBuilder();
+                for (int i = 0; i < this.sendMsgQue.laneCount(); i++) {
+                    lanes.append(' ').append(this.sendMsgQue.getLane(i).size());
+                }
+                p2pLOG.trace("send lane queues[{} ]", lanes);
+            }
         } else if (p2pLOG.isInfoEnabled()) {
             p2pLOG.info(status);
         }
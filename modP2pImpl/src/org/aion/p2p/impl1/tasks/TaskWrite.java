@@ -5,32 +5,36 @@ import static org.aion.p2p.impl1.P2pMgr.p2pLOG;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.List;
 import org.aion.p2p.Header;
 import org.aion.p2p.IP2pMgr;
 import org.aion.p2p.Msg;
+import org.aion.p2p.P2pConstant;
 
 /** @author chris */
 public class TaskWrite implements Runnable {
 
     private final String nodeShortId;
+    private final SelectionKey sk;
     private final SocketChannel sc;
-    private final Msg msg;
+    private final List<Msg> msgs;
     private final ChannelBuffer channelBuffer;
     private final IP2pMgr p2pMgr;
-    private final static long MAX_BUFFER_WRITE_TIME = 1_000_000_000L;
-    private final static long MIN_TRACE_BUFFER_WRITE_TIME = 10_000_000L;
-
+    // limit on the data waiting for a slow peer, after which new messages are dropped
+    private static final long MAX_PENDING_WRITE_BYTES = P2pConstant.MAX_BODY_SIZE;
 
     TaskWrite(
             final String _nodeShortId,
-            final SocketChannel _sc,
-            final Msg _msg,
+            final SelectionKey _sk,
+            final List<Msg> _msgs,
             final ChannelBuffer _cb,
             final IP2pMgr _p2pMgr) {
         this.nodeShortId = _nodeShortId;
-        this.sc = _sc;
-        this.msg = _msg;
+        this.sk = _sk;
+        this.sc = (SocketChannel) _sk.channel();
+        this.msgs = _msgs;
         this.channelBuffer = _cb;
         this.p2pMgr = _p2pMgr;
     }
@@ -48,56 +52,24 @@ public class TaskWrite implements Runnable {
         try {
             channelBuffer.lock.lock();
 
-            /*
-             * @warning header set len (body len) before header encode
-             */
-            byte[] bodyBytes = msg.encode();
-            int bodyLen = bodyBytes == null ? 0 : bodyBytes.length;
-            Header h = msg.getHeader();
-            h.setLen(bodyLen);
-            byte[] headerBytes = h.encode();
-
-            if (p2pLOG.isTraceEnabled()) {
-                p2pLOG.trace(
-                        "write id:{} {}-{}-{}",
-                        nodeShortId,
-                        h.getVer(),
-                        h.getCtrl(),
-                        h.getAction());
-            }
-
-            ByteBuffer buf = ByteBuffer.allocate(headerBytes.length + bodyLen);
-            buf.put(headerBytes);
-            if (bodyBytes != null) {
-                buf.put(bodyBytes);
+            for (Msg msg : msgs) {
+                queue(msg);
             }
-            buf.flip();
 
-            long t1 = System.nanoTime(), t2;
-            int wrote = 0;
             try {
-                do {
-                    int result = sc.write(buf);
-                    wrote += result;
-
-                    if (result == 0) {
-                        // @Attention:  very important sleep , otherwise when NIO write buffer full,
-                        // without sleep will hangup this thread.
-                        Thread.sleep(0, 1);
+                if (!channelBuffer.flushOutbound(sc)) {
+                    // the NIO write buffer is full, the inbound selector thread continues writing
+                    // when the channel becomes writable
+                    sk.interestOps(sk.interestOps() | SelectionKey.OP_WRITE);
+                    sk.selector().wakeup();
+
+                    if (p2pLOG.isTraceEnabled()) {
+                        p2pLOG.trace(
+                                "msg write pending: id {} pending {}",
+                                nodeShortId,
+                                channelBuffer.getPendingOutboundBytes());
                     }
-
-                    t2 = System.nanoTime() - t1;
-                } while (buf.hasRemaining() && (t2 < MAX_BUFFER_WRITE_TIME));
-
-                if (p2pLOG.isTraceEnabled() && (t2 > MIN_TRACE_BUFFER_WRITE_TIME)) {
-                    p2pLOG.trace(
-                            "msg write: id {} size {} time {} ms length {}",
-                            nodeShortId,
-                            wrote,
-                            t2,
-                            buf.array().length);
                 }
-
             } catch (ClosedChannelException ex1) {
                 if (p2pLOG.isDebugEnabled()) {
                     p2pLOG.debug("closed-channel-exception node=" + this.nodeShortId, ex1);
@@ -109,17 +81,14 @@ public class TaskWrite implements Runnable {
                     p2pLOG.debug(
                             "write-msg-io-exception node="
                                     + this.nodeShortId
-                                    + " headerBytes="
-                                    + String.valueOf(headerBytes.length)
-                                    + " bodyLen="
-                                    + String.valueOf(bodyLen)
-                                    + " time="
-                                    + String.valueOf(System.nanoTime() - t1)
-                                    + "ns",
+                                    + " msgs="
+                                    + String.valueOf(msgs.size())
+                                    + " pending="
+                                    + String.valueOf(channelBuffer.getPendingOutboundBytes()),
                             ex2);
                 }
 
-                if (ex2.getMessage().equals("Broken pipe")) {
+                if ("Broken pipe".equals(ex2.getMessage())) {
                     channelBuffer.setClosed();
                 }
             }
@@ -129,4 +98,43 @@ public class TaskWrite implements Runnable {
             channelBuffer.lock.unlock();
         }
     }
+
+    /** Encodes the message and queues it for writing, unless the peer is too far behind. */
+    private void queue(Msg msg) {
+        /*
+         * @warning header set len (body len) before header encode
+         */
+        byte[] bodyBytes = msg.encode();
+        int bodyLen = bodyBytes == null ? 0 : bodyBytes.length;
+        Header h = msg.getHeader();
+        h.setLen(bodyLen);
+        byte[] headerBytes = h.encode();
+
+        if (p2pLOG.isTraceEnabled()) {
+            p2pLOG.trace("write id:{} {}-{}-{}", nodeShortId, h.getVer(), h.getCtrl(), h.getAction());
+        }
+
+        if (channelBuffer.hasPendingOutbound()
+                && channelBuffer.getPendingOutboundBytes() + headerBytes.length + bodyLen
+                        > MAX_PENDING_WRITE_BYTES) {
+            channelBuffer.incDroppedOutbound();
+            if (p2pLOG.isDebugEnabled()) {
+                p2pLOG.debug(
+                        "write-queue-full node={} pending={} dropped={} {}-{}-{}",
+                        nodeShortId,
+                        channelBuffer.getPendingOutboundBytes(),
+                        channelBuffer.getDroppedOutbound(),
+                        h.getVer(),
+                        h.getCtrl(),
+                        h.getAction());
+            }
+            return;
+        }
+
+        // the header and body are written with a single gathering write, without copying
+        channelBuffer.addOutbound(ByteBuffer.wrap(headerBytes));
+        if (bodyLen > 0) {
+            channelBuffer.addOutbound(ByteBuffer.wrap(bodyBytes));
+        }
+    }
 }
@@ -6,10 +6,20 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
@@ -149,6 +159,72 @@ public class ChannelBufferTest {
         assertNull(cb.body);
     }
 
+    @Test
+    public void testInboundKeptBetweenReads() {
+        byte[] data = new byte[LEN + 100];
+        r.nextBytes(data);
+
+        // first read ends in the middle of the data
+        ByteBuffer first = ByteBuffer.wrap(data, 0, 30);
+        assertFalse(cb.hasPendingInbound());
+        cb.keepInbound(first);
+        assertTrue(cb.hasPendingInbound());
+
+        ByteBuffer all = cb.appendInbound(ByteBuffer.wrap(data, 30, data.length - 30));
+        assertEquals(data.length, all.remaining());
+
+        byte[] read = new byte[LEN];
+        all.get(read);
+        assertArrayEquals(Arrays.copyOfRange(data, 0, LEN), read);
+
+        // the unread bytes are moved to the start of the same buffer
+        cb.keepInbound(all);
+        ByteBuffer rest = cb.appendInbound(ByteBuffer.allocate(0));
+        assertSame(all, rest);
+        assertEquals(100, rest.remaining());
+        read = new byte[100];
+        rest.get(read);
+        assertArrayEquals(Arrays.copyOfRange(data, LEN, data.length), read);
+
+        cb.keepInbound(rest);
+        assertFalse(cb.hasPendingInbound());
+    }
+
+    @Test
+    public void testFlushOutbound() throws IOException {
+        SocketChannel sc = mock(SocketChannel.class);
+        // the socket accepts at most 10 bytes per write
+        when(sc.write(any(ByteBuffer[].class), anyInt(), anyInt()))
+                .thenAnswer(
+                        invocation -> {
+                            ByteBuffer[] srcs = invocation.getArgument(0);
+                            int offset = invocation.getArgument(1);
+                            int length = invocation.getArgument(2);
+                            int written = 0;
+                            for (int i = offset; i < offset + length && written < 10; i++) {
+                                while (srcs[i].hasRemaining() && written < 10) {
+                                    srcs[i].get();
+                                    written++;
+                                }
+                            }
+                            return (long) written;
+                        });
+
+        cb.addOutbound(ByteBuffer.allocate(6));
+        cb.addOutbound(ByteBuffer.allocate(8));
+        assertTrue(cb.hasPendingOutbound());
+        assertEquals(14, cb.getPendingOutboundBytes());
+
+        // both buffers are part of the same write, which fills the socket
+        assertFalse(cb.flushOutbound(sc));
+        verify(sc, atLeastOnce()).write(any(ByteBuffer[].class), eq(0), eq(2));
+        assertEquals(4, cb.getPendingOutboundBytes());
+
+        assertTrue(cb.flushOutbound(sc));
+        assertFalse(cb.hasPendingOutbound());
+        assertEquals(0, cb.getPendingOutboundBytes());
+    }
+
     @Test
     public void testShouldRoute() throws InterruptedException {
         assertTrue(cb.shouldRoute(1, 1));
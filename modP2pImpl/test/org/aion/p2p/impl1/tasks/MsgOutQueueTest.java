@@ -0,0 +1,46 @@
+package org.aion.p2p.impl1.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.aion.p2p.Msg;
+import org.aion.p2p.impl1.P2pMgr;
+import org.aion.p2p.impl1.P2pMgr.Dest;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class MsgOutQueueTest {
+
+    @Mock private Msg msg;
+
+    private Random r = new Random();
+
+    @Before
+    public void Setup() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void testOfferToNodeLane() {
+        MsgOutQueue queue = new MsgOutQueue(P2pMgr.WORKER);
+        assertEquals(P2pMgr.WORKER, queue.laneCount());
+
+        int id = r.nextInt();
+        MsgOut first = new MsgOut(id, "1", msg, Dest.ACTIVE);
+        MsgOut second = new MsgOut(id, "1", msg, Dest.ACTIVE);
+        assertTrue(queue.offer(first));
+        assertTrue(queue.offer(second));
+        assertEquals(2, queue.size());
+
+        // the messages to the same node are kept in order in the lane of the node
+        int lane = TaskSend.hash2Lane(id);
+        assertEquals(2, queue.getLane(lane).size());
+        assertSame(first, queue.getLane(lane).poll());
+        assertSame(second, queue.getLane(lane).poll());
+        assertEquals(0, queue.size());
+    }
+}
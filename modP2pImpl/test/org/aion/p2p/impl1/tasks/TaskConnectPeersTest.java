@@ -18,7 +18,6 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.aion.log.AionLoggerFactory;
 import org.aion.log.LogEnum;
@@ -40,7 +39,7 @@ public class TaskConnectPeersTest {
 
     @Mock private IP2pMgr p2pMgr;
 
-    @Mock private BlockingQueue<MsgOut> sendMsgQue;
+    @Mock private MsgOutQueue sendMsgQue;
 
     @Mock private ReqHandshake1 rhs;
 
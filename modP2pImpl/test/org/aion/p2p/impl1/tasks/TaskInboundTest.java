@@ -4,6 +4,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
@@ -46,7 +47,7 @@ public class TaskInboundTest {
 
     @Mock private IP2pMgr p2pMgr;
 
-    @Mock private BlockingQueue<MsgOut> msgOutQue;
+    @Mock private MsgOutQueue msgOutQue;
 
     @Mock private BlockingQueue<MsgIn> msgInQue;
 
@@ -139,7 +140,7 @@ public class TaskInboundTest {
                 new TaskInbound(p2pMgr, selector, atb, nodeMgr, hldrMap, msgOutQue, rhs1, msgInQue);
         assertNotNull(ti);
 
-        when(selector.selectNow()).thenReturn(0);
+        when(selector.select(anyLong())).thenReturn(0);
 
         Thread t = new Thread(ti);
         t.start();
@@ -158,7 +159,7 @@ public class TaskInboundTest {
                 new TaskInbound(p2pMgr, selector, atb, nodeMgr, hldrMap, msgOutQue, rhs1, msgInQue);
         assertNotNull(ti);
 
-        doThrow(ClosedSelectorException.class).when(selector).selectNow();
+        doThrow(ClosedSelectorException.class).when(selector).select(anyLong());
 
         Thread t = new Thread(ti);
         t.start();
@@ -178,7 +179,7 @@ public class TaskInboundTest {
                 new TaskInbound(p2pMgr, selector, atb, nodeMgr, hldrMap, msgOutQue, rhs1, msgInQue);
         assertNotNull(ti);
 
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
         when(selector.selectedKeys()).thenThrow(ClosedSelectorException.class);
 
         Thread t = new Thread(ti);
@@ -212,7 +213,7 @@ public class TaskInboundTest {
 
         when(sk3.attachment()).thenReturn(cb);
 
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
 
         Set<SelectionKey> ss = new LinkedHashSet<>();
         ss.add(sk);
@@ -248,7 +249,7 @@ public class TaskInboundTest {
         when(p2pMgr.isSyncSeedsOnly()).thenReturn(true);
         when(nodeMgr.isSeedIp(anyString())).thenReturn(true);
 
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
 
         Set<SelectionKey> ss = new LinkedHashSet<>();
         ss.add(sk2);
@@ -283,7 +284,7 @@ public class TaskInboundTest {
         when(nodeMgr.isSeedIp(anyString())).thenReturn(false);
         when(p2pMgr.getOutGoingIP()).thenReturn("0.0.0.0");
 
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
 
         Set<SelectionKey> ss = new LinkedHashSet<>();
         ss.add(sk2);
@@ -323,7 +324,7 @@ public class TaskInboundTest {
 
         when(sc.register(any(), anyInt())).thenReturn(sk);
 
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
 
         Set<SelectionKey> ss = new LinkedHashSet<>();
         ss.add(sk);
@@ -354,7 +355,7 @@ public class TaskInboundTest {
         when(sk.isValid()).thenReturn(true);
         when(sk.isReadable()).thenReturn(true);
         when(sk.attachment()).thenReturn(cb);
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
 
         Set<SelectionKey> ss = new LinkedHashSet<>();
         ss.add(sk);
@@ -389,7 +390,7 @@ public class TaskInboundTest {
         when(sk.isValid()).thenReturn(true);
         when(sk.isReadable()).thenReturn(true);
         when(sk.attachment()).thenReturn(cb);
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
 
         Set<SelectionKey> ss = new LinkedHashSet<>();
         ss.add(sk);
@@ -420,9 +421,9 @@ public class TaskInboundTest {
         int remain = r.nextInt(10000);
         when(sc.read(any(ByteBuffer.class))).thenReturn(read).thenReturn(0);
 
-        // settings for calBuffer
-        when(cb.getBuffRemain()).thenReturn(remain);
-        when(cb.getRemainBuffer()).thenReturn(new byte[remain]);
+        // settings for the pending inbound bytes
+        when(cb.hasPendingInbound()).thenReturn(true);
+        when(cb.appendInbound(any(ByteBuffer.class))).thenReturn(ByteBuffer.allocate(remain));
 
         // settings for readMsg
         when(cb.isHeaderNotCompleted()).thenReturn(true);
@@ -436,7 +437,7 @@ public class TaskInboundTest {
         when(sk.isValid()).thenReturn(true);
         when(sk.isReadable()).thenReturn(true);
         when(sk.attachment()).thenReturn(cb);
-        when(selector.selectNow()).thenReturn(1);
+        when(selector.select(anyLong())).thenReturn(1);
 
         Set<SelectionKey> ss = new LinkedHashSet<>();
         ss.add(sk);
@@ -20,7 +20,7 @@ import org.mockito.MockitoAnnotations;
 
 public class TaskStatusTest {
 
-    @Mock private BlockingQueue<MsgOut> msgOutQue;
+    @Mock private MsgOutQueue msgOutQue;
 
     @Mock private BlockingQueue<MsgIn> msgInQue;
 
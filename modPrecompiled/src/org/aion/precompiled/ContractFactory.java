@@ -1,7 +1,10 @@
 package org.aion.precompiled;
 
+import org.aion.interfaces.db.RepositoryCache;
 import org.aion.types.Address;
 import org.aion.mcf.config.CfgFork;
+import org.aion.mcf.core.AccountState;
+import org.aion.mcf.db.IBlockStoreBase;
 import org.aion.mcf.vm.types.KernelInterfaceForFastVM;
 import org.aion.precompiled.contracts.ATB.TokenBridgeContract;
 import org.aion.precompiled.contracts.Blake2bHashContract;
@@ -66,7 +69,7 @@ public class ContractFactory {
                 TokenBridgeContract contract =
                         new TokenBridgeContract(
                                 context,
-                                ((KernelInterfaceForFastVM) track).getRepositoryCache(),
+                                repositoryOf(track),
                                 Address.wrap(ADDR_TOKEN_BRIDGE_INITIAL_OWNER),
                                 Address.wrap(ADDR_TOKEN_BRIDGE));
 
@@ -87,7 +90,7 @@ public class ContractFactory {
                 return fork_032
                         ? null
                         : new TotalCurrencyContract(
-                                ((KernelInterfaceForFastVM) track).getRepositoryCache(),
+                                repositoryOf(track),
                                 context.getSenderAddress(),
                                 Address.wrap(ADDR_OWNER));
             default:
@@ -95,6 +98,12 @@ public class ContractFactory {
         }
     }
 
+    /** Returns the repository that the pre-compiled contracts operating on state use directly. */
+    private static RepositoryCache<AccountState, IBlockStoreBase<?, ?>> repositoryOf(
+            KernelInterface track) {
+        return ((KernelInterfaceForFastVM) track).getRepositoryCacheForPrecompiledContract();
+    }
+
     /**
      * Returns true if address is the address of a pre-compiled contract and false otherwise.
      *
@@ -0,0 +1,253 @@
+package org.aion.rlp;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.aion.util.bytes.ByteUtil;
+import org.aion.util.conversions.Hex;
+
+/**
+ * Cursor over the elements of an RLP encoding that does not copy the encoded data.
+ *
+ * <p>Each read advances the cursor over one element and records the bounds of its payload within
+ * the backing array, available through {@link #getOffset()} and {@link #getLength()} until the
+ * next read. Lists are read as a new cursor over their payload, so nested elements are only decoded
+ * when accessed, and elements that are not needed can be skipped without decoding them.
+ *
+ * <p>Unlike {@link RLP#decode2(byte[])}, which builds the whole element tree with copies of all
+ * the items, a reader only allocates the values explicitly requested by the caller.
+ */
+public final class RLPReader {
+
+    private static final int OFFSET_SHORT_ITEM = 0x80;
+    private static final int OFFSET_LONG_ITEM = 0xb7;
+    private static final int OFFSET_SHORT_LIST = 0xc0;
+    private static final int OFFSET_LONG_LIST = 0xf7;
+
+    private final byte[] data;
+    private final int limit;
+    private int position;
+
+    // bounds of the element read last
+    private int encodedOffset;
+    private int offset;
+    private int length;
+
+    /** Creates a cursor over all the elements encoded in the given array. */
+    public RLPReader(byte[] data) {
+        this(data, 0, data == null ? 0 : data.length);
+    }
+
+    /**
+     * Creates a cursor over the elements encoded in the given range of the array.
+     *
+     * @param data the backing array
+     * @param offset the position of the first element
+     * @param length the number of bytes covered by the cursor
+     */
+    public RLPReader(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || (data == null ? 0 : data.length) - offset < length) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.data = data == null ? ByteUtil.EMPTY_BYTE_ARRAY : data;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Creates a cursor over the remaining bytes of the given buffer. The buffer contents are not
+     * copied if it is backed by an accessible array.
+     */
+    public static RLPReader wrap(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return new RLPReader(
+                    buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            byte[] copy = new byte[buffer.remaining()];
+            buffer.duplicate().get(copy);
+            return new RLPReader(copy);
+        }
+    }
+
+    /** Returns the array into which the offsets refer. */
+    public byte[] getData() {
+        return data;
+    }
+
+    /** Checks if there are more elements to read. */
+    public boolean hasNext() {
+        return position < limit;
+    }
+
+    /** Checks if the next element is a list. */
+    public boolean isNextList() {
+        checkNext();
+        return (data[position] & 0xFF) >= OFFSET_SHORT_LIST;
+    }
+
+    /** Returns the position of the payload of the element read last. */
+    public int getOffset() {
+        return offset;
+    }
+
+    /** Returns the length of the payload of the element read last. */
+    public int getLength() {
+        return length;
+    }
+
+    /** Returns the position of the encoding, including the prefix, of the element read last. */
+    public int getEncodedOffset() {
+        return encodedOffset;
+    }
+
+    /** Returns the length of the encoding, including the prefix, of the element read last. */
+    public int getEncodedLength() {
+        return offset + length - encodedOffset;
+    }
+
+    /**
+     * Advances over the next element, which may be an item or a list, without decoding it.
+     *
+     * @return {@code true} if the element is a list, {@code false} otherwise
+     */
+    public boolean next() {
+        checkNext();
+        encodedOffset = position;
+        int type = data[position] & 0xFF;
+        boolean list = type >= OFFSET_SHORT_LIST;
+
+        if (type < OFFSET_SHORT_ITEM) {
+            // single byte item
+            offset = position;
+            length = 1;
+        } else if (type <= OFFSET_LONG_ITEM) {
+            offset = position + 1;
+            length = type - OFFSET_SHORT_ITEM;
+        } else if (type < OFFSET_SHORT_LIST) {
+            int lengthOfLength = type - OFFSET_LONG_ITEM;
+            offset = position + 1 + lengthOfLength;
+            length = readLength(position + 1, lengthOfLength);
+        } else if (type <= OFFSET_LONG_LIST) {
+            offset = position + 1;
+            length = type - OFFSET_SHORT_LIST;
+        } else {
+            int lengthOfLength = type - OFFSET_LONG_LIST;
+            offset = position + 1 + lengthOfLength;
+            length = readLength(position + 1, lengthOfLength);
+        }
+
+        if (length < 0 || offset > limit || limit - offset < length) {
+            throw error("element exceeds the available data");
+        }
+        position = offset + length;
+        return list;
+    }
+
+    /** Skips the given number of elements. */
+    public void skip(int count) {
+        for (int i = 0; i < count; i++) {
+            next();
+        }
+    }
+
+    /** Reads the next element, which must be a list, and returns a cursor over its elements. */
+    public RLPReader readList() {
+        if (!next()) {
+            throw error("expected a list");
+        }
+        return new RLPReader(data, offset, length);
+    }
+
+    /**
+     * Advances over the next element, which must be an item. Its payload is available through
+     * {@link #getOffset()} and {@link #getLength()}.
+     */
+    public void readItem() {
+        if (next()) {
+            throw error("expected an item");
+        }
+    }
+
+    /** Reads the next item and returns a copy of its payload. */
+    public byte[] readBytes() {
+        readItem();
+        return length == 0
+                ? ByteUtil.EMPTY_BYTE_ARRAY
+                : Arrays.copyOfRange(data, offset, offset + length);
+    }
+
+    /** Reads the next item and returns a read-only view of its payload. */
+    public ByteBuffer readBuffer() {
+        readItem();
+        return ByteBuffer.wrap(data, offset, length).slice().asReadOnlyBuffer();
+    }
+
+    /** Reads the next element and returns a copy of its encoding, including the prefix. */
+    public byte[] readEncoded() {
+        next();
+        return Arrays.copyOfRange(data, encodedOffset, offset + length);
+    }
+
+    /** Reads the next item as an unsigned number of at most 8 bytes. */
+    public long readLong() {
+        readItem();
+        if (length > Long.BYTES) {
+            throw error("item too long for a long value");
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            value = (value << 8) | (data[i] & 0xFF);
+        }
+        return value;
+    }
+
+    /** Reads the next item as an unsigned number of at most 4 bytes. */
+    public int readInt() {
+        long value = readLong();
+        if (length > Integer.BYTES) {
+            throw error("item too long for an int value");
+        }
+        return (int) value;
+    }
+
+    /** Reads the next item as an unsigned number. */
+    public BigInteger readBigInteger() {
+        readItem();
+        return length == 0
+                ? BigInteger.ZERO
+                : new BigInteger(1, Arrays.copyOfRange(data, offset, offset + length));
+    }
+
+    /** Reads the next item and checks if it is equal to the given bytes without copying it. */
+    public boolean readEquals(byte[] expected) {
+        readItem();
+        return Arrays.equals(data, offset, offset + length, expected, 0, expected.length);
+    }
+
+    private int readLength(int pos, int lengthOfLength) {
+        if (lengthOfLength > Integer.BYTES || pos + lengthOfLength > limit) {
+            throw error("invalid length prefix");
+        }
+        int value = 0;
+        for (int i = pos; i < pos + lengthOfLength; i++) {
+            value = (value << 8) | (data[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private void checkNext() {
+        if (position >= limit) {
+            throw error("no more elements");
+        }
+    }
+
+    private IllegalArgumentException error(String reason) {
+        int from = Math.min(position, limit);
+        return new IllegalArgumentException(
+                "RLP wrong encoding, "
+                        + reason
+                        + " ("
+                        + Hex.toHexString(data, from, Math.min(limit - from, 1024))
+                        + ")");
+    }
+}
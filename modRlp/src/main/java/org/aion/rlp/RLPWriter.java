@@ -0,0 +1,217 @@
+package org.aion.rlp;
+
+import static org.aion.rlp.Utils.asUnsignedByteArray;
+
+import java.math.BigInteger;
+
+/**
+ * Writes RLP encodings directly into a pre-sized array.
+ *
+ * <p>The size of the encoding is computed up front with the {@code sizeOf} methods, after which
+ * the elements are written in order. A list is written as its header, from the total size of its
+ * encoded elements, followed by the elements themselves. This avoids the intermediate arrays
+ * created when nesting the results of {@link RLP#encodeElement(byte[])} in {@link
+ * RLP#encodeList(byte[]...)}. The produced encodings are identical to the ones of the
+ * corresponding {@link RLP} methods.
+ */
+public final class RLPWriter {
+
+    private static final int SIZE_THRESHOLD = 56;
+    private static final int OFFSET_SHORT_ITEM = 0x80;
+    private static final int OFFSET_LONG_ITEM = 0xb7;
+    private static final int OFFSET_SHORT_LIST = 0xc0;
+    private static final int OFFSET_LONG_LIST = 0xf7;
+
+    private final byte[] buffer;
+    private int position;
+
+    /** Creates a writer for an encoding of exactly the given size. */
+    public RLPWriter(int size) {
+        this.buffer = new byte[size];
+        this.position = 0;
+    }
+
+    /** Creates a writer into the given array, starting at the given position. */
+    public RLPWriter(byte[] buffer, int offset) {
+        if (offset < 0 || offset > buffer.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.buffer = buffer;
+        this.position = offset;
+    }
+
+    // SIZES
+
+    /** Returns the size of the encoding of the given bytes as an item. */
+    public static int sizeOfElement(byte[] data) {
+        if (data == null || data.length == 0) {
+            return 1;
+        } else if (data.length == 1 && (data[0] & 0xFF) < OFFSET_SHORT_ITEM) {
+            return 1;
+        } else if (data.length < SIZE_THRESHOLD) {
+            return 1 + data.length;
+        } else {
+            return 1 + bytesOfLength(data.length) + data.length;
+        }
+    }
+
+    /** Returns the size of the encoding of the given byte, as done by {@link RLP#encodeByte}. */
+    public static int sizeOfByte(byte value) {
+        return (value & 0xFF) <= 0x7F ? 1 : 2;
+    }
+
+    /** Returns the size of the encoding of the given value, as done by {@link RLP#encodeLong}. */
+    public static int sizeOfLong(long value) {
+        if ((value & 0x00000000FFFFFFFFL) != value) {
+            return 1 + Long.BYTES;
+        } else if (value < OFFSET_SHORT_ITEM) {
+            return 1;
+        } else {
+            return 1 + bytesOfLength(value);
+        }
+    }
+
+    /**
+     * Returns the size of the encoding of the given value, as done by {@link
+     * RLP#encodeBigInteger}.
+     */
+    public static int sizeOfBigInteger(BigInteger value) {
+        if (value.signum() == 0) {
+            return 1;
+        } else if (value.signum() < 0) {
+            return sizeOfElement(asUnsignedByteArray(value));
+        } else if (value.bitLength() <= 7) {
+            return 1;
+        } else {
+            int length = (value.bitLength() + 7) / Byte.SIZE;
+            return length < SIZE_THRESHOLD ? 1 + length : 1 + bytesOfLength(length) + length;
+        }
+    }
+
+    /** Returns the size of the encoding of a list with the given total size of its elements. */
+    public static int sizeOfList(int payloadSize) {
+        return payloadSize < SIZE_THRESHOLD
+                ? 1 + payloadSize
+                : 1 + bytesOfLength(payloadSize) + payloadSize;
+    }
+
+    // WRITES
+
+    /** Writes the given bytes as an item, as done by {@link RLP#encodeElement(byte[])}. */
+    public RLPWriter writeElement(byte[] data) {
+        if (data == null || data.length == 0) {
+            buffer[position++] = (byte) OFFSET_SHORT_ITEM;
+        } else if (data.length == 1 && (data[0] & 0xFF) < OFFSET_SHORT_ITEM) {
+            buffer[position++] = data[0];
+        } else {
+            writeHeader(data.length, OFFSET_SHORT_ITEM, OFFSET_LONG_ITEM);
+            System.arraycopy(data, 0, buffer, position, data.length);
+            position += data.length;
+        }
+        return this;
+    }
+
+    /** Writes the given byte, as done by {@link RLP#encodeByte(byte)}. */
+    public RLPWriter writeByte(byte value) {
+        if (value == 0) {
+            buffer[position++] = (byte) OFFSET_SHORT_ITEM;
+        } else if ((value & 0xFF) <= 0x7F) {
+            buffer[position++] = value;
+        } else {
+            buffer[position++] = (byte) (OFFSET_SHORT_ITEM + 1);
+            buffer[position++] = value;
+        }
+        return this;
+    }
+
+    /** Writes the given value, as done by {@link RLP#encodeLong(long)}. */
+    public RLPWriter writeLong(long value) {
+        if (value == 0) {
+            buffer[position++] = (byte) OFFSET_SHORT_ITEM;
+        } else if ((value & 0x00000000FFFFFFFFL) == value && value < OFFSET_SHORT_ITEM) {
+            buffer[position++] = (byte) value;
+        } else {
+            int length =
+                    (value & 0x00000000FFFFFFFFL) == value ? bytesOfLength(value) : Long.BYTES;
+            buffer[position++] = (byte) (OFFSET_SHORT_ITEM + length);
+            writeBigEndian(value, length);
+        }
+        return this;
+    }
+
+    /** Writes the given value, as done by {@link RLP#encodeBigInteger(BigInteger)}. */
+    public RLPWriter writeBigInteger(BigInteger value) {
+        if (value.signum() == 0) {
+            buffer[position++] = (byte) OFFSET_SHORT_ITEM;
+            return this;
+        } else {
+            return writeElement(asUnsignedByteArray(value));
+        }
+    }
+
+    /**
+     * Writes the header of a list, as done by {@link RLP#encodeListHeader(int)}. It must be
+     * followed by elements of the given total size.
+     */
+    public RLPWriter writeListHeader(int payloadSize) {
+        writeHeader(payloadSize, OFFSET_SHORT_LIST, OFFSET_LONG_LIST);
+        return this;
+    }
+
+    /** Writes an already encoded element. */
+    public RLPWriter writeEncoded(byte[] encoded) {
+        System.arraycopy(encoded, 0, buffer, position, encoded.length);
+        position += encoded.length;
+        return this;
+    }
+
+    /** Returns the position of the next write. */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the encoding, which must fill the whole array.
+     *
+     * @throws IllegalStateException when the written data does not match the size of the array
+     */
+    public byte[] getEncoded() {
+        if (position != buffer.length) {
+            throw new IllegalStateException(
+                    "RLP encoding of size "
+                            + position
+                            + " written into "
+                            + buffer.length
+                            + " bytes.");
+        }
+        return buffer;
+    }
+
+    private void writeHeader(int length, int shortOffset, int longOffset) {
+        if (length < SIZE_THRESHOLD) {
+            buffer[position++] = (byte) (shortOffset + length);
+        } else {
+            int byteNum = bytesOfLength(length);
+            buffer[position++] = (byte) (longOffset + byteNum);
+            writeBigEndian(length, byteNum);
+        }
+    }
+
+    private void writeBigEndian(long value, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            buffer[position + i] = (byte) value;
+            value >>>= 8;
+        }
+        position += length;
+    }
+
+    /** Returns the number of bytes needed to represent the given non-negative value. */
+    private static int bytesOfLength(long value) {
+        int byteNum = 0;
+        while (value != 0) {
+            ++byteNum;
+            value >>>= 8;
+        }
+        return byteNum;
+    }
+}
@@ -0,0 +1,96 @@
+package org.aion.rlp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class RLPReaderTest {
+
+    private static byte[] bytes(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    @Test
+    public void testReadMatchesDecode2() {
+        byte[] large = bytes(300);
+        byte[] encoded =
+                RLP.encodeList(
+                        RLP.encodeElement(bytes(32)),
+                        RLP.encodeLong(0x1234567L),
+                        RLP.encodeList(RLP.encodeElement(large), RLP.encodeByte((byte) 0)),
+                        RLP.encodeBigInteger(BigInteger.TEN.pow(30)),
+                        RLP.encodeElement(new byte[] {5}));
+        RLPList decoded = (RLPList) RLP.decode2(encoded).get(0);
+
+        RLPReader reader = new RLPReader(encoded);
+        RLPReader list = reader.readList();
+        assertThat(reader.hasNext()).isFalse();
+        assertThat(reader.getEncodedLength()).isEqualTo(encoded.length);
+
+        assertThat(list.readBytes()).isEqualTo(decoded.get(0).getRLPData());
+        assertThat(list.readLong()).isEqualTo(0x1234567L);
+
+        assertThat(list.isNextList()).isTrue();
+        RLPReader nested = list.readList();
+        assertThat(nested.readBytes()).isEqualTo(large);
+        assertThat(nested.readBytes()).isEmpty();
+        assertThat(nested.hasNext()).isFalse();
+
+        assertThat(list.readBigInteger()).isEqualTo(BigInteger.TEN.pow(30));
+        assertThat(list.readInt()).isEqualTo(5);
+        assertThat(list.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testViewsAndSkip() {
+        byte[] hash = bytes(32);
+        byte[] encoded =
+                RLP.encodeList(
+                        RLP.encodeList(RLP.encodeElement(bytes(100))), RLP.encodeElement(hash));
+
+        RLPReader list = new RLPReader(encoded).readList();
+        // the nested list is skipped without being decoded
+        list.skip(1);
+
+        list.readItem();
+        assertThat(list.getData()).isSameAs(encoded);
+        assertThat(list.getLength()).isEqualTo(32);
+        assertThat(Arrays.copyOfRange(encoded, list.getOffset(), list.getOffset() + 32))
+                .isEqualTo(hash);
+        assertThat(list.getEncodedLength()).isEqualTo(33);
+    }
+
+    @Test
+    public void testReadFromBuffer() {
+        byte[] encoded = RLP.encodeList(RLP.encodeElement(bytes(10)));
+        ByteBuffer buffer = ByteBuffer.allocate(encoded.length + 4);
+        buffer.putInt(7).put(encoded).flip().position(Integer.BYTES);
+
+        RLPReader list = RLPReader.wrap(buffer).readList();
+        assertThat(list.readEquals(bytes(10))).isTrue();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedEncoding() {
+        byte[] encoded = RLP.encodeList(RLP.encodeElement(bytes(100)));
+        new RLPReader(Arrays.copyOf(encoded, encoded.length - 1)).readList();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testItemAsList() {
+        new RLPReader(RLP.encodeElement(bytes(10))).readList();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoMoreElements() {
+        RLPReader list = new RLPReader(RLP.encodeList()).readList();
+        list.readItem();
+    }
+}
@@ -0,0 +1,87 @@
+package org.aion.rlp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.math.BigInteger;
+import org.junit.Test;
+
+public class RLPWriterTest {
+
+    private static final long[] LONGS = {
+        0L, 1L, 0x7FL, 0x80L, 0xFFL, 0x100L, 0x7FFFL, 0x8000L, 0xFFFFL, 0x10000L, 0xFFFFFFL,
+        0x1000000L, 0xFFFFFFFFL, 0x100000000L, Long.MAX_VALUE, -1L
+    };
+
+    private static byte[] bytes(int length, int value) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (value + i);
+        }
+        return data;
+    }
+
+    @Test
+    public void testElementsMatchRLP() {
+        byte[][] elements = {
+            null, new byte[0], new byte[] {0}, new byte[] {0x7F}, new byte[] {(byte) 0x80},
+            bytes(55, 1), bytes(56, 1), bytes(300, 1), bytes(70_000, 1)
+        };
+
+        for (byte[] element : elements) {
+            RLPWriter writer = new RLPWriter(RLPWriter.sizeOfElement(element));
+            assertThat(writer.writeElement(element).getEncoded())
+                    .isEqualTo(RLP.encodeElement(element));
+        }
+    }
+
+    @Test
+    public void testNumbersMatchRLP() {
+        for (long value : LONGS) {
+            RLPWriter writer = new RLPWriter(RLPWriter.sizeOfLong(value));
+            assertThat(writer.writeLong(value).getEncoded()).isEqualTo(RLP.encodeLong(value));
+
+            BigInteger big = BigInteger.valueOf(value);
+            writer = new RLPWriter(RLPWriter.sizeOfBigInteger(big));
+            assertThat(writer.writeBigInteger(big).getEncoded())
+                    .isEqualTo(RLP.encodeBigInteger(big));
+        }
+
+        for (int value = -128; value < 128; value++) {
+            RLPWriter writer = new RLPWriter(RLPWriter.sizeOfByte((byte) value));
+            assertThat(writer.writeByte((byte) value).getEncoded())
+                    .isEqualTo(RLP.encodeByte((byte) value));
+        }
+    }
+
+    @Test
+    public void testListMatchesRLP() {
+        byte[] small = bytes(20, 3);
+        byte[] large = bytes(100, 7);
+
+        int payload =
+                RLPWriter.sizeOfElement(small)
+                        + RLPWriter.sizeOfLong(1_000_000L)
+                        + RLPWriter.sizeOfList(RLPWriter.sizeOfElement(large))
+                        + RLPWriter.sizeOfList(0);
+        RLPWriter writer = new RLPWriter(RLPWriter.sizeOfList(payload));
+        writer.writeListHeader(payload)
+                .writeElement(small)
+                .writeLong(1_000_000L)
+                .writeListHeader(RLPWriter.sizeOfElement(large))
+                .writeElement(large)
+                .writeListHeader(0);
+
+        byte[] expected =
+                RLP.encodeList(
+                        RLP.encodeElement(small),
+                        RLP.encodeLong(1_000_000L),
+                        RLP.encodeList(RLP.encodeElement(large)),
+                        RLP.encodeList());
+        assertThat(writer.getEncoded()).isEqualTo(expected);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testIncompleteEncoding() {
+        new RLPWriter(2).writeByte((byte) 1).getEncoded();
+    }
+}
@@ -5,7 +5,6 @@ import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -14,6 +13,7 @@ import java.util.Map.Entry;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -60,12 +60,18 @@ public abstract class AbstractTxPool<TX extends Transaction> {
     private final SortedMap<Long, LinkedHashSet<ByteArrayWrapper>> timeView =
             Collections.synchronizedSortedMap(new TreeMap<>());
     /**
-     * feeView : SortedMap<BigInteger, LinkedHashSet<TxPoolList<ByteArrayWrapper>>> @BigInteger
-     * energy cost = energy consumption * energy price @LinkedHashSet<TxPoolList<ByteArrayWrapper>>
-     * the TxPoolList of the first transaction hash
+     * feeView : SortedMap<BigInteger, FeeLevel> @BigInteger energy cost = energy consumption *
+     * energy price @FeeLevel the TxDependLists with the given fee ordered by timestamp
      */
-    private final SortedMap<BigInteger, Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>>
-            feeView = Collections.synchronizedSortedMap(new TreeMap<>(Collections.reverseOrder()));
+    private final SortedMap<BigInteger, FeeLevel> feeView =
+            new ConcurrentSkipListMap<>(Collections.reverseOrder());
+    /**
+     * feeViewByAccount : Map<Address, Map<ByteArrayWrapper, BigInteger>> @Address account
+     * address @Map the first transaction hash and fee of each TxDependList of the account in the
+     * feeView
+     */
+    private final Map<Address, Map<ByteArrayWrapper, BigInteger>> feeViewByAccount =
+            new HashMap<>();
     /**
      * accountView : Map<ByteArrayWrapper, AccountState> @ByteArrayWrapper account
      * address @AccountState
@@ -97,11 +103,57 @@ public abstract class AbstractTxPool<TX extends Transaction> {
         return this.mainMap;
     }
 
-    protected SortedMap<BigInteger, Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>>
-            getFeeView() {
+    protected SortedMap<BigInteger, FeeLevel> getFeeView() {
         return this.feeView;
     }
 
+    private void addToFeeView(Address acc, BigInteger fee, TxDependList<ByteArrayWrapper> txl) {
+        ByteArrayWrapper firstTx = txl.getTxList().get(0);
+        synchronized (this.feeView) {
+            this.feeView.computeIfAbsent(fee, k -> new FeeLevel()).put(firstTx, txl);
+
+            Map<ByteArrayWrapper, BigInteger> accFees =
+                    this.feeViewByAccount.computeIfAbsent(acc, k -> new HashMap<>());
+            BigInteger previousFee = accFees.put(firstTx, fee);
+            if (previousFee != null && !previousFee.equals(fee)) {
+                removeFromFeeLevel(previousFee, firstTx);
+            }
+        }
+    }
+
+    private void removeFromFeeView(Address acc, BigInteger fee, ByteArrayWrapper firstTx) {
+        synchronized (this.feeView) {
+            removeFromFeeLevel(fee, firstTx);
+
+            Map<ByteArrayWrapper, BigInteger> accFees = this.feeViewByAccount.get(acc);
+            if (accFees != null && accFees.remove(firstTx) != null && accFees.isEmpty()) {
+                this.feeViewByAccount.remove(acc);
+            }
+        }
+    }
+
+    /** Removes all the TxDependLists of the given account from the feeView. */
+    protected void removeFromFeeView(Address acc) {
+        synchronized (this.feeView) {
+            Map<ByteArrayWrapper, BigInteger> accFees = this.feeViewByAccount.remove(acc);
+            if (accFees != null) {
+                for (Entry<ByteArrayWrapper, BigInteger> e : accFees.entrySet()) {
+                    removeFromFeeLevel(e.getValue(), e.getKey());
+                }
+            }
+        }
+    }
+
+    private void removeFromFeeLevel(BigInteger fee, ByteArrayWrapper firstTx) {
+        FeeLevel level = this.feeView.get(fee);
+        if (level != null) {
+            level.remove(firstTx);
+            if (level.isEmpty()) {
+                this.feeView.remove(fee);
+            }
+        }
+    }
+
     protected AccountState getAccView(Address acc) {
 
         this.accountView.computeIfAbsent(acc, k -> new AccountState());
@@ -134,7 +186,10 @@ public abstract class AbstractTxPool<TX extends Transaction> {
     public void clear() {
         this.mainMap.clear();
         this.timeView.clear();
-        this.feeView.clear();
+        synchronized (this.feeView) {
+            this.feeView.clear();
+            this.feeViewByAccount.clear();
+        }
         this.accountView.clear();
         this.poolStateView.clear();
         this.outDated.clear();
@@ -350,27 +405,17 @@ public abstract class AbstractTxPool<TX extends Transaction> {
                                 txNonceStart = txNonceStart.add(BigInteger.valueOf(seqTxCountMax));
                             } else {
                                 // remove old poolState in the feeMap
-                                if (this.feeView.get(ps.getFee()) != null) {
-
-                                    if (e.getValue().getMap().get(ps.firstNonce) != null) {
-                                        this.feeView
-                                                .get(ps.getFee())
-                                                .remove(
-                                                        e.getValue()
-                                                                .getMap()
-                                                                .get(ps.firstNonce)
-                                                                .getKey());
-                                    }
-
-                                    if (LOG.isTraceEnabled()) {
-                                        LOG.trace(
-                                                "AbstractTxPool.updateAccPoolState remove fn [{}]",
-                                                ps.firstNonce.toString());
-                                    }
+                                if (e.getValue().getMap().get(ps.firstNonce) != null) {
+                                    removeFromFeeView(
+                                            e.getKey(),
+                                            ps.getFee(),
+                                            e.getValue().getMap().get(ps.firstNonce).getKey());
+                                }
 
-                                    if (this.feeView.get(ps.getFee()).isEmpty()) {
-                                        this.feeView.remove(ps.getFee());
-                                    }
+                                if (LOG.isTraceEnabled()) {
+                                    LOG.trace(
+                                            "AbstractTxPool.updateAccPoolState remove fn [{}]",
+                                            ps.firstNonce.toString());
                                 }
                             }
                         }
@@ -552,25 +597,12 @@ public abstract class AbstractTxPool<TX extends Transaction> {
                         txl.setTimeStamp(timestamp);
                     }
 
-                    if (this.feeView.get(ps.fee) == null) {
-                        Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> set =
-                                new LinkedHashMap<>();
-                        set.put(txl.getTxList().get(0), txl);
-
-                        if (LOG.isTraceEnabled()) {
-                            LOG.trace("updateFeeMap new feeView put fee[{}]", ps.fee);
-                        }
-
-                        this.feeView.put(ps.fee, set);
-                    } else {
-
-                        if (LOG.isTraceEnabled()) {
-                            LOG.trace("updateFeeMap update feeView put fee[{}]", ps.fee);
-                        }
-
-                        this.feeView.get(ps.fee).put(txl.getTxList().get(0), txl);
+                    if (LOG.isTraceEnabled()) {
+                        LOG.trace("updateFeeMap feeView put fee[{}]", ps.fee);
                     }
 
+                    addToFeeView(e.getKey(), ps.fee, txl);
+
                     ps.setInFeePool();
                 }
             }
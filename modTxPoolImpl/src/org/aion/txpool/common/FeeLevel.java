@@ -0,0 +1,87 @@
+package org.aion.txpool.common;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.aion.types.ByteArrayWrapper;
+
+/**
+ * The transaction sequences that share the same average fee in the pool's fee view.
+ *
+ * <p>The sequences are kept ordered by the timestamp of their first transaction and, for equal
+ * timestamps, by insertion order, such that the pool snapshot can iterate them directly instead of
+ * sorting them on each call. The sequences are indexed by the hash of their first transaction.
+ */
+public class FeeLevel {
+
+    private final Map<ByteArrayWrapper, Key> keys = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Key, TxDependList<ByteArrayWrapper>> ordered =
+            new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong(0);
+
+    /**
+     * Adds the given sequence, replacing any previous sequence starting with the same transaction.
+     *
+     * @param firstTx the hash of the first transaction in the sequence
+     * @param txl the sequence of transactions
+     */
+    public synchronized void put(ByteArrayWrapper firstTx, TxDependList<ByteArrayWrapper> txl) {
+        Key previous = keys.remove(firstTx);
+        if (previous != null) {
+            ordered.remove(previous);
+        }
+
+        Key key = new Key(txl.getTimeStamp(), sequence.getAndIncrement());
+        keys.put(firstTx, key);
+        ordered.put(key, txl);
+    }
+
+    /**
+     * Removes the sequence starting with the given transaction.
+     *
+     * @return the removed sequence or {@code null} if it was not found
+     */
+    public synchronized TxDependList<ByteArrayWrapper> remove(ByteArrayWrapper firstTx) {
+        Key key = keys.remove(firstTx);
+        return key == null ? null : ordered.remove(key);
+    }
+
+    public boolean contains(ByteArrayWrapper firstTx) {
+        return keys.containsKey(firstTx);
+    }
+
+    /**
+     * Returns the sequences in ascending order of their timestamps. The returned view is weakly
+     * consistent and may be iterated while the level is being modified.
+     */
+    public Collection<TxDependList<ByteArrayWrapper>> values() {
+        return ordered.values();
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public boolean isEmpty() {
+        return keys.isEmpty();
+    }
+
+    private static final class Key implements Comparable<Key> {
+        private final BigInteger timestamp;
+        private final long sequence;
+
+        private Key(BigInteger timestamp, long sequence) {
+            this.timestamp = timestamp == null ? BigInteger.ZERO : timestamp;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int cmp = timestamp.compareTo(other.timestamp);
+            return cmp != 0 ? cmp : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -13,15 +13,13 @@ import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
-import java.util.stream.Collectors;
 import org.aion.interfaces.tx.Transaction;
 import org.aion.types.Address;
 import org.aion.types.ByteArrayWrapper;
 import org.aion.txpool.ITxPool;
 import org.aion.txpool.common.AbstractTxPool;
 import org.aion.txpool.common.AccountState;
+import org.aion.txpool.common.FeeLevel;
 import org.aion.txpool.common.TxDependList;
 import org.aion.util.bytes.ByteUtil;
 import org.aion.util.time.TimeInstant;
@@ -81,12 +79,13 @@ public class TxPoolA0<TX extends Transaction> extends AbstractTxPool<TX> impleme
      */
     public List<BigInteger> getNonceList(Address acc) {
 
-        List<BigInteger> nl = Collections.synchronizedList(new ArrayList<>());
         lock.readLock().lock();
-        this.getAccView(acc).getMap().entrySet().parallelStream().forEach(e -> nl.add(e.getKey()));
-        lock.readLock().unlock();
-
-        return nl.parallelStream().sorted().collect(Collectors.toList());
+        try {
+            // the account keeps its transactions sorted by nonce
+            return new ArrayList<>(this.getAccView(acc).getMap().keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     @Override
@@ -101,11 +100,8 @@ public class TxPoolA0<TX extends Transaction> extends AbstractTxPool<TX> impleme
      * @return
      */
     public List<BigInteger> getFeeList() {
-        List<BigInteger> nl = Collections.synchronizedList(new ArrayList<>());
-
-        this.getFeeView().entrySet().parallelStream().forEach(e -> nl.add(e.getKey()));
-
-        return nl.parallelStream().sorted(Collections.reverseOrder()).collect(Collectors.toList());
+        // the fee view is kept sorted from the highest fee
+        return new ArrayList<>(this.getFeeView().keySet());
     }
 
     @Override
@@ -207,32 +203,7 @@ public class TxPoolA0<TX extends Transaction> extends AbstractTxPool<TX> impleme
             }
             lock.writeLock().unlock();
 
-            Set<BigInteger> fee = Collections.synchronizedSet(new HashSet<>());
-            if (this.getPoolStateView(en1.getKey()) != null) {
-                this.getPoolStateView(en1.getKey())
-                        .parallelStream()
-                        .forEach(ps -> fee.add(ps.getFee()));
-            }
-
-            fee.parallelStream()
-                    .forEach(
-                            bi -> {
-                                if (this.getFeeView().get(bi) != null) {
-                                    this.getFeeView()
-                                            .get(bi)
-                                            .entrySet()
-                                            .removeIf(
-                                                    byteArrayWrapperTxDependListEntry ->
-                                                            byteArrayWrapperTxDependListEntry
-                                                                    .getValue()
-                                                                    .getAddress()
-                                                                    .equals(en1.getKey()));
-
-                                    if (this.getFeeView().get(bi).isEmpty()) {
-                                        this.getFeeView().remove(bi);
-                                    }
-                                }
-                            });
+            this.removeFromFeeView(en1.getKey());
 
             as.setDirty();
         }
@@ -315,36 +286,8 @@ public class TxPoolA0<TX extends Transaction> extends AbstractTxPool<TX> impleme
 
             // remove the all transactions belong to the given address in the feeView
             Address address = tx.getSenderAddress();
-            Set<BigInteger> fee = Collections.synchronizedSet(new HashSet<>());
-            if (!checkedAddress.contains(address)) {
-
-                if (this.getPoolStateView(tx.getSenderAddress()) != null) {
-                    this.getPoolStateView(tx.getSenderAddress())
-                            .parallelStream()
-                            .forEach(ps -> fee.add(ps.getFee()));
-                }
-
-                fee.parallelStream()
-                        .forEach(
-                                bi -> {
-                                    if (this.getFeeView().get(bi) != null) {
-                                        this.getFeeView()
-                                                .get(bi)
-                                                .entrySet()
-                                                .removeIf(
-                                                        byteArrayWrapperTxDependListEntry ->
-                                                                byteArrayWrapperTxDependListEntry
-                                                                        .getValue()
-                                                                        .getAddress()
-                                                                        .equals(address));
-
-                                        if (this.getFeeView().get(bi).isEmpty()) {
-                                            this.getFeeView().remove(bi);
-                                        }
-                                    }
-                                });
-
-                checkedAddress.add(address);
+            if (checkedAddress.add(address)) {
+                this.removeFromFeeView(address);
             }
 
             AccountState as = this.getAccView(tx.getSenderAddress());
@@ -452,26 +395,17 @@ public class TxPoolA0<TX extends Transaction> extends AbstractTxPool<TX> impleme
         Set<ByteArrayWrapper> snapshotSet = new HashSet<>();
         Map<ByteArrayWrapper, Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>> nonPickedTx =
                 new HashMap<>();
-        for (Entry<BigInteger, Map<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>> e :
-                this.getFeeView().entrySet()) {
+        for (Entry<BigInteger, FeeLevel> e : this.getFeeView().entrySet()) {
 
             if (LOG.isTraceEnabled()) {
                 LOG.trace("snapshot  fee[{}]", e.getKey().toString());
             }
 
-            SortedMap<BigInteger, Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>>>
-                    timeTxDep = Collections.synchronizedSortedMap(new TreeMap<>());
-            for (Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> pair :
-                    e.getValue().entrySet()) {
-                BigInteger ts = pair.getValue().getTimeStamp();
-                while (timeTxDep.get(ts.add(BigInteger.ONE)) != null) {
-                    ts = ts.add(BigInteger.ONE);
-                }
-                timeTxDep.put(ts, pair);
-            }
+            // the fee level keeps the lists ordered by timestamp
+            for (TxDependList<ByteArrayWrapper> txDepList : e.getValue().values()) {
+                Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> pair =
+                        new AbstractMap.SimpleEntry<>(txDepList.getTxList().get(0), txDepList);
 
-            for (Entry<ByteArrayWrapper, TxDependList<ByteArrayWrapper>> pair :
-                    timeTxDep.values()) {
                 // Check the small nonce tx must been picked before put the high nonce tx
                 ByteArrayWrapper dependTx = pair.getValue().getDependTx();
                 if (dependTx == null || snapshotSet.contains(dependTx)) {
@@ -598,19 +532,15 @@ public class TxPoolA0<TX extends Transaction> extends AbstractTxPool<TX> impleme
     private void removeTimeoutTxn() {
 
         long ts = TimeInstant.now().toEpochSec() - txn_timeout;
-        List<TX> txl = Collections.synchronizedList(new ArrayList<>());
+        List<TX> txl = new ArrayList<>();
 
-        this.getTimeView()
-                .entrySet()
-                .parallelStream()
-                .forEach(
-                        e -> {
-                            if (e.getKey() < ts) {
-                                for (ByteArrayWrapper bw : e.getValue()) {
-                                    txl.add(this.getMainMap().get(bw).getTx());
-                                }
-                            }
-                        });
+        synchronized (this.getTimeView()) {
+            for (Set<ByteArrayWrapper> hashes : this.getTimeView().headMap(ts).values()) {
+                for (ByteArrayWrapper bw : hashes) {
+                    txl.add(this.getMainMap().get(bw).getTx());
+                }
+            }
+        }
 
         if (txl.isEmpty()) {
             return;
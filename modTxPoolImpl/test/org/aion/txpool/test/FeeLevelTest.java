@@ -0,0 +1,64 @@
+package org.aion.txpool.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import org.aion.txpool.common.FeeLevel;
+import org.aion.txpool.common.TxDependList;
+import org.aion.types.ByteArrayWrapper;
+import org.junit.Test;
+
+public class FeeLevelTest {
+
+    private static TxDependList<ByteArrayWrapper> txList(int id, long timestamp) {
+        TxDependList<ByteArrayWrapper> txl = new TxDependList<>();
+        txl.addTx(hash(id));
+        txl.setTimeStamp(BigInteger.valueOf(timestamp));
+        return txl;
+    }
+
+    private static ByteArrayWrapper hash(int id) {
+        return ByteArrayWrapper.wrap(new byte[] {(byte) id});
+    }
+
+    @Test
+    public void testOrderedByTimestamp() {
+        FeeLevel level = new FeeLevel();
+        level.put(hash(1), txList(1, 30));
+        level.put(hash(2), txList(2, 10));
+        level.put(hash(3), txList(3, 20));
+        // same timestamp keeps the insertion order
+        level.put(hash(4), txList(4, 10));
+
+        List<ByteArrayWrapper> order = new ArrayList<>();
+        for (TxDependList<ByteArrayWrapper> txl : level.values()) {
+            order.add(txl.getTxList().get(0));
+        }
+
+        assertEquals(4, level.size());
+        assertEquals(List.of(hash(2), hash(4), hash(3), hash(1)), order);
+    }
+
+    @Test
+    public void testReplaceAndRemove() {
+        FeeLevel level = new FeeLevel();
+        level.put(hash(1), txList(1, 10));
+
+        TxDependList<ByteArrayWrapper> replacement = txList(1, 20);
+        level.put(hash(1), replacement);
+        assertEquals(1, level.size());
+        assertSame(replacement, level.values().iterator().next());
+
+        assertSame(replacement, level.remove(hash(1)));
+        assertNull(level.remove(hash(1)));
+        assertFalse(level.contains(hash(1)));
+        assertTrue(level.isEmpty());
+        assertTrue(level.values().isEmpty());
+    }
+}
@@ -0,0 +1,209 @@
+package org.aion.vm;
+
+import java.math.BigInteger;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.aion.interfaces.db.RepositoryCache;
+import org.aion.mcf.core.AccountState;
+import org.aion.mcf.db.IBlockStoreBase;
+import org.aion.mcf.vm.types.KernelInterfaceForFastVM;
+import org.aion.types.Address;
+
+/**
+ * A {@link KernelInterfaceForFastVM} that records every account it reads or writes.
+ *
+ * <p>Used by the {@link BulkExecutor} when speculatively executing transactions in parallel to
+ * determine whether a transaction accessed state that was modified by a transaction preceding it
+ * in the block. The accessed accounts are shared with all the child kernels created by this
+ * kernel, so that internal transactions are also tracked.
+ *
+ * <p>Pre-compiled contracts that operate on state use the repository directly, so their accesses
+ * cannot be tracked. The kernel only records that such a contract was given the repository.
+ */
+final class AccessTrackingKernelInterface extends KernelInterfaceForFastVM {
+    private final Set<Address> accessedAccounts;
+    private final AtomicBoolean untrackedAccess;
+    private final boolean allowNonceIncrement, isLocalCall;
+
+    /**
+     * @param repositoryCache the repository used for executing the transaction
+     * @param allowNonceIncrement whether or not to increment the sender's nonce
+     * @param isLocalCall whether or not the call is a network or local call
+     * @param accessedAccounts the set where the accessed accounts get recorded; must be thread-safe
+     */
+    AccessTrackingKernelInterface(
+            RepositoryCache<AccountState, IBlockStoreBase<?, ?>> repositoryCache,
+            boolean allowNonceIncrement,
+            boolean isLocalCall,
+            Set<Address> accessedAccounts) {
+        this(
+                repositoryCache,
+                allowNonceIncrement,
+                isLocalCall,
+                accessedAccounts,
+                new AtomicBoolean(false));
+    }
+
+    private AccessTrackingKernelInterface(
+            RepositoryCache<AccountState, IBlockStoreBase<?, ?>> repositoryCache,
+            boolean allowNonceIncrement,
+            boolean isLocalCall,
+            Set<Address> accessedAccounts,
+            AtomicBoolean untrackedAccess) {
+        super(repositoryCache, allowNonceIncrement, isLocalCall);
+        this.allowNonceIncrement = allowNonceIncrement;
+        this.isLocalCall = isLocalCall;
+        this.accessedAccounts = accessedAccounts;
+        this.untrackedAccess = untrackedAccess;
+    }
+
+    /** Returns the accounts read or written by this kernel and all its children. */
+    Set<Address> getAccessedAccounts() {
+        return accessedAccounts;
+    }
+
+    /**
+     * Returns {@code true} if this kernel or one of its children gave its repository to a
+     * pre-compiled contract, whose reads and writes are then missing from the accessed accounts.
+     */
+    boolean hasUntrackedAccess() {
+        return untrackedAccess.get();
+    }
+
+    @Override
+    public RepositoryCache<AccountState, IBlockStoreBase<?, ?>>
+            getRepositoryCacheForPrecompiledContract() {
+        untrackedAccess.set(true);
+        return super.getRepositoryCacheForPrecompiledContract();
+    }
+
+    @Override
+    public AccessTrackingKernelInterface makeChildKernelInterface() {
+        return new AccessTrackingKernelInterface(
+                getRepositoryCache().startTracking(),
+                this.allowNonceIncrement,
+                this.isLocalCall,
+                this.accessedAccounts,
+                this.untrackedAccess);
+    }
+
+    @Override
+    public void createAccount(Address address) {
+        accessedAccounts.add(address);
+        super.createAccount(address);
+    }
+
+    @Override
+    public boolean hasAccountState(Address address) {
+        accessedAccounts.add(address);
+        return super.hasAccountState(address);
+    }
+
+    @Override
+    public void putCode(Address address, byte[] code) {
+        accessedAccounts.add(address);
+        super.putCode(address, code);
+    }
+
+    @Override
+    public byte[] getCode(Address address) {
+        accessedAccounts.add(address);
+        return super.getCode(address);
+    }
+
+    @Override
+    public void putObjectGraph(Address contract, byte[] graph) {
+        accessedAccounts.add(contract);
+        super.putObjectGraph(contract, graph);
+    }
+
+    @Override
+    public byte[] getObjectGraph(Address contract) {
+        accessedAccounts.add(contract);
+        return super.getObjectGraph(contract);
+    }
+
+    @Override
+    public void putStorage(Address address, byte[] key, byte[] value) {
+        accessedAccounts.add(address);
+        super.putStorage(address, key, value);
+    }
+
+    @Override
+    public void removeStorage(Address address, byte[] key) {
+        accessedAccounts.add(address);
+        super.removeStorage(address, key);
+    }
+
+    @Override
+    public byte[] getStorage(Address address, byte[] key) {
+        accessedAccounts.add(address);
+        return super.getStorage(address, key);
+    }
+
+    @Override
+    public void deleteAccount(Address address) {
+        accessedAccounts.add(address);
+        super.deleteAccount(address);
+    }
+
+    @Override
+    public BigInteger getBalance(Address address) {
+        accessedAccounts.add(address);
+        return super.getBalance(address);
+    }
+
+    @Override
+    public void adjustBalance(Address address, BigInteger delta) {
+        accessedAccounts.add(address);
+        super.adjustBalance(address, delta);
+    }
+
+    @Override
+    public BigInteger getNonce(Address address) {
+        accessedAccounts.add(address);
+        return super.getNonce(address);
+    }
+
+    @Override
+    public void incrementNonce(Address address) {
+        accessedAccounts.add(address);
+        super.incrementNonce(address);
+    }
+
+    @Override
+    public void deductEnergyCost(Address address, BigInteger energyCost) {
+        accessedAccounts.add(address);
+        super.deductEnergyCost(address, energyCost);
+    }
+
+    @Override
+    public void refundAccount(Address address, BigInteger amount) {
+        accessedAccounts.add(address);
+        super.refundAccount(address, amount);
+    }
+
+    @Override
+    public void payMiningFee(Address miner, BigInteger fee) {
+        accessedAccounts.add(miner);
+        super.payMiningFee(miner, fee);
+    }
+
+    @Override
+    public boolean accountNonceEquals(Address address, BigInteger nonce) {
+        accessedAccounts.add(address);
+        return super.accountNonceEquals(address, nonce);
+    }
+
+    @Override
+    public boolean accountBalanceIsAtLeast(Address address, BigInteger amount) {
+        accessedAccounts.add(address);
+        return super.accountBalanceIsAtLeast(address, amount);
+    }
+
+    @Override
+    public boolean destinationAddressIsSafeForThisVM(Address address) {
+        accessedAccounts.add(address);
+        return super.destinationAddressIsSafeForThisVM(address);
+    }
+}
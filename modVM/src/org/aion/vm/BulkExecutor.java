@@ -3,7 +3,17 @@ package org.aion.vm;
 import static org.aion.mcf.valid.TransactionTypeRule.isValidAVMContractDeployment;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.aion.fastvm.FastVmResultCode;
 import org.aion.fastvm.SideEffects;
 import org.aion.interfaces.db.Repository;
@@ -53,6 +63,9 @@ import org.slf4j.Logger;
  *     and only a repositoryChild is set. A repositoryChild is required for the actual
  *     BulkExecutor's logic, whereas repository is only used by the post-execution logic.
  *     <p>The {@code execute()} method is thread-safe.
+ *     <p>If parallel execution is enabled, contiguous FVM-bound transactions are executed
+ *     speculatively in parallel and conflicting transactions are re-executed in block order. The
+ *     ordering promise above still holds in this mode.
  */
 public class BulkExecutor {
     private static final Object LOCK = new Object();
@@ -63,6 +76,39 @@ public class BulkExecutor {
         avmEnabled = isEnabled;
     }
 
+    private static volatile ExecutorService parallelExecutor = null;
+
+    /**
+     * Enables or disables the speculative parallel execution of contiguous FVM-bound transactions.
+     *
+     * <p>When enabled, the transactions in a batch are first executed in parallel against the state
+     * preceding the batch while recording the accounts they access. Their results are then applied
+     * in block order and any transaction that accessed an account modified by a preceding
+     * transaction is re-executed on the updated state, so that the ordering promise of this class
+     * is preserved.
+     */
+    public static synchronized void enableParallelExecution(boolean isEnabled) {
+        if (isEnabled && parallelExecutor == null) {
+            parallelExecutor =
+                    Executors.newFixedThreadPool(
+                            Runtime.getRuntime().availableProcessors(),
+                            new ThreadFactory() {
+
+                                private AtomicInteger cnt = new AtomicInteger(0);
+
+                                @Override
+                                public Thread newThread(Runnable r) {
+                                    Thread t = new Thread(r, "vm-exec-" + cnt.incrementAndGet());
+                                    t.setDaemon(true);
+                                    return t;
+                                }
+                            });
+        } else if (!isEnabled && parallelExecutor != null) {
+            parallelExecutor.shutdown();
+            parallelExecutor = null;
+        }
+    }
+
     private Repository repository;
     private RepositoryCache<AccountState, IBlockStoreBase<?, ?>> repositoryChild;
     private PostExecutionWork postExecutionWork;
@@ -71,6 +117,9 @@ public class BulkExecutor {
     private boolean isLocalCall;
     private boolean allowNonceIncrement;
     private long blockRemainingEnergy;
+    // the accounts accessed by the executed transactions, when requested
+    private Set<Address> accessedAccounts = null;
+    private boolean untrackedAccess = false;
 
     /**
      * Constructs a new bulk executor that will execute the transactions contained in the provided
@@ -145,6 +194,29 @@ public class BulkExecutor {
                 work);
     }
 
+    /**
+     * Records the accounts read or written by the transactions executed after this call into the
+     * given set, including the accounts that are only read, for example through the {@code
+     * BALANCE} and {@code EXTCODESIZE} opcodes. The fees that this executor pays to the block
+     * coinbase are not recorded.
+     *
+     * <p>The accesses of AVM-bound transactions and of the pre-compiled contracts that operate on
+     * state cannot be recorded, which is reported by {@link #hasUntrackedAccess()}.
+     *
+     * @param accounts the set where the accessed accounts get recorded; must be thread-safe
+     */
+    public void trackAccessedAccounts(Set<Address> accounts) {
+        this.accessedAccounts = accounts;
+    }
+
+    /**
+     * Returns {@code true} if accessed accounts are being recorded and an executed transaction
+     * accessed accounts that could not be recorded.
+     */
+    public boolean hasUntrackedAccess() {
+        return untrackedAccess;
+    }
+
     public List<AionTxExecSummary> execute() throws VMException {
         synchronized (LOCK) {
             List<AionTxExecSummary> summaries = new ArrayList<>();
@@ -159,6 +231,7 @@ public class BulkExecutor {
 
                 KernelInterface vmKernel;
                 if (transactionIsForAionVirtualMachine(firstTransactionInNextBatch)) {
+                    untrackedAccess |= this.accessedAccounts != null;
                     vmKernel =
                             new KernelInterfaceForAVM(
                                     this.repositoryChild.startTracking(),
@@ -169,21 +242,40 @@ public class BulkExecutor {
                     nextBatchToExecute =
                             fetchNextBatchOfTransactionsForAionVirtualMachine(currentIndex);
                 } else {
+                    nextBatchToExecute =
+                            fetchNextBatchOfTransactionsForFastVirtualMachine(currentIndex);
+
+                    ExecutorService executor = parallelExecutor;
+                    if (executor != null && !this.isLocalCall && nextBatchToExecute.size() > 1) {
+                        summaries.addAll(
+                                executeTransactionsInParallel(nextBatchToExecute, executor));
+                        currentIndex += nextBatchToExecute.size();
+                        continue;
+                    }
+
                     vmKernel =
-                            new KernelInterfaceForFastVM(
-                                    this.repositoryChild.startTracking(),
-                                    this.allowNonceIncrement,
-                                    this.isLocalCall);
+                            this.accessedAccounts == null
+                                    ? new KernelInterfaceForFastVM(
+                                            this.repositoryChild.startTracking(),
+                                            this.allowNonceIncrement,
+                                            this.isLocalCall)
+                                    : new AccessTrackingKernelInterface(
+                                            this.repositoryChild.startTracking(),
+                                            this.allowNonceIncrement,
+                                            this.isLocalCall,
+                                            this.accessedAccounts);
                     virtualMachineForNextBatch =
                             VirtualMachineProvider.getVirtualMachineInstance(VM.FVM, vmKernel);
-                    nextBatchToExecute =
-                            fetchNextBatchOfTransactionsForFastVirtualMachine(currentIndex);
                 }
 
                 // Execute the next batch of transactions using the specified virtual machine.
                 summaries.addAll(
                         executeTransactions(
                                 virtualMachineForNextBatch, nextBatchToExecute, vmKernel));
+                if (vmKernel instanceof AccessTrackingKernelInterface) {
+                    untrackedAccess |=
+                            ((AccessTrackingKernelInterface) vmKernel).hasUntrackedAccess();
+                }
                 currentIndex += nextBatchToExecute.size();
             }
 
@@ -206,50 +298,168 @@ public class BulkExecutor {
 
         int length = resultsAsFutures.length;
         for (int i = 0; i < length; i++) {
-            TransactionResult result = resultsAsFutures[i].get();
+            summaries.add(
+                    processTransactionResult(
+                            transactions.get(i), contexts[i], resultsAsFutures[i].get()));
+        }
 
-            if (result.getResultCode().isFatal()) {
-                throw new VMException(result.toString());
-            }
+        return summaries;
+    }
 
-            KernelInterface kernelFromVM = result.getKernelInterface();
+    /**
+     * Speculatively executes the given FVM-bound transactions in parallel on separate tracking
+     * repositories and applies their results in block order.
+     *
+     * <p>All the speculative executions are completed before any result is applied, so they all
+     * observe the state preceding the batch. A speculative result is used only if none of the
+     * accounts accessed during its execution were modified by the transactions applied before it.
+     * Otherwise, the transaction is re-executed on the current state.
+     *
+     * <p>The accesses of the pre-compiled contracts that operate on state are not tracked. A
+     * transaction that calls one is always re-executed, and so are all the transactions after it,
+     * since the accounts it modified are unknown.
+     */
+    private List<AionTxExecSummary> executeTransactionsInParallel(
+            ExecutionBatch details, ExecutorService executor) throws VMException {
+        List<AionTransaction> transactions = details.getTransactions();
+        TransactionContext[] contexts = details.getExecutionContexts();
+        int length = transactions.size();
 
-            AionTransaction transaction = transactions.get(i);
+        // 1. Execute all the transactions against the state preceding the batch.
+        List<Future<TransactionResult>> futures = new ArrayList<>(length);
+        List<AccessTrackingKernelInterface> kernels = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            AccessTrackingKernelInterface kernel = newAccessTrackingKernel();
             TransactionContext context = contexts[i];
+            kernels.add(kernel);
+            futures.add(executor.submit(() -> runOnFastVirtualMachine(kernel, context)));
+        }
+
+        List<TransactionResult> results = new ArrayList<>(length);
+        for (Future<TransactionResult> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new VMException("Interrupted during parallel transaction execution.");
+            } catch (ExecutionException e) {
+                throw new VMException(e.getCause().toString());
+            }
+        }
 
-            // 1. Check the block energy limit & reject if necessary.
-            long energyUsed = computeEnergyUsed(transaction.getEnergyLimit(), result);
-            if (energyUsed > this.blockRemainingEnergy) {
-                result.setResultCode(FastVmResultCode.INVALID_NRG_LIMIT);
-                result.setReturnData(ByteUtil.EMPTY_BYTE_ARRAY);
+        // 2. Apply the results in block order, re-executing the conflicting transactions.
+        List<AionTxExecSummary> summaries = new ArrayList<>();
+        Set<Address> modifiedAccounts = new HashSet<>();
+        Address coinbase = this.executionBatch.getBlock().getCoinbase();
+        boolean untrackedModifications = false;
+        int reExecuted = 0;
 
-                if (transactionIsForAionVirtualMachine(transaction)) {
-                    ((AvmTransactionResult) result).setEnergyUsed(transaction.getEnergyLimit());
-                } else {
-                    result.setEnergyRemaining(0);
-                }
+        for (int i = 0; i < length; i++) {
+            AionTransaction transaction = transactions.get(i);
+            TransactionContext context = contexts[i];
+            TransactionResult result = results.get(i);
+            AccessTrackingKernelInterface kernel = kernels.get(i);
+
+            if (untrackedModifications
+                    || kernel.hasUntrackedAccess()
+                    || !Collections.disjoint(kernel.getAccessedAccounts(), modifiedAccounts)) {
+                // the speculative execution read stale state, re-run with a fresh context
+                context =
+                        new ExecutionBatch(
+                                        this.executionBatch.getBlock(),
+                                        Collections.singletonList(transaction))
+                                .getExecutionContexts()[0];
+                kernel = newAccessTrackingKernel();
+                result = runOnFastVirtualMachine(kernel, context);
+                reExecuted++;
+            }
+            Set<Address> accessedAccounts = kernel.getAccessedAccounts();
+            untrackedModifications |= kernel.hasUntrackedAccess();
+            if (this.accessedAccounts != null) {
+                this.accessedAccounts.addAll(accessedAccounts);
             }
 
-            // 2. build the transaction summary and update the repository (the one backing
-            // this.kernel) with the contents of kernelFromVM accordingly.
-            AionTxExecSummary summary =
-                    buildSummaryAndUpdateRepository(transaction, context, kernelFromVM, result);
+            AionTxExecSummary summary = processTransactionResult(transaction, context, result);
 
-            // 3. Do any post execution work and update the remaining block energy.
-            this.blockRemainingEnergy -=
-                    this.postExecutionWork.doPostExecutionWork(
-                            this.repository,
-                            this.repositoryChild,
-                            summary,
-                            transaction,
-                            this.blockRemainingEnergy);
+            // the flushed repositories contain all the accessed accounts, not only the modified ones
+            modifiedAccounts.addAll(accessedAccounts);
+            modifiedAccounts.addAll(summary.getDeletedAccounts());
+            modifiedAccounts.add(transaction.getSenderAddress());
+            modifiedAccounts.add(coinbase);
 
             summaries.add(summary);
         }
 
+        untrackedAccess |= this.accessedAccounts != null && untrackedModifications;
+
+        if (this.logger.isDebugEnabled()) {
+            this.logger.debug(
+                    "Executed {} transactions in parallel, {} re-executed due to conflicts.",
+                    length,
+                    reExecuted);
+        }
+
         return summaries;
     }
 
+    private AccessTrackingKernelInterface newAccessTrackingKernel() {
+        return new AccessTrackingKernelInterface(
+                this.repositoryChild.startTracking(),
+                this.allowNonceIncrement,
+                this.isLocalCall,
+                ConcurrentHashMap.newKeySet());
+    }
+
+    private static TransactionResult runOnFastVirtualMachine(
+            KernelInterface kernel, TransactionContext context) {
+        VirtualMachine fastVirtualMachine =
+                VirtualMachineProvider.getVirtualMachineInstance(VM.FVM, kernel);
+        return fastVirtualMachine.run(kernel, new TransactionContext[] {context})[0].get();
+    }
+
+    /**
+     * Checks the block energy limit, builds the summary, updates the repository and does the
+     * post-execution work for the given transaction result.
+     */
+    private AionTxExecSummary processTransactionResult(
+            AionTransaction transaction, TransactionContext context, TransactionResult result)
+            throws VMException {
+        if (result.getResultCode().isFatal()) {
+            throw new VMException(result.toString());
+        }
+
+        KernelInterface kernelFromVM = result.getKernelInterface();
+
+        // 1. Check the block energy limit & reject if necessary.
+        long energyUsed = computeEnergyUsed(transaction.getEnergyLimit(), result);
+        if (energyUsed > this.blockRemainingEnergy) {
+            result.setResultCode(FastVmResultCode.INVALID_NRG_LIMIT);
+            result.setReturnData(ByteUtil.EMPTY_BYTE_ARRAY);
+
+            if (transactionIsForAionVirtualMachine(transaction)) {
+                ((AvmTransactionResult) result).setEnergyUsed(transaction.getEnergyLimit());
+            } else {
+                result.setEnergyRemaining(0);
+            }
+        }
+
+        // 2. build the transaction summary and update the repository (the one backing
+        // this.kernel) with the contents of kernelFromVM accordingly.
+        AionTxExecSummary summary =
+                buildSummaryAndUpdateRepository(transaction, context, kernelFromVM, result);
+
+        // 3. Do any post execution work and update the remaining block energy.
+        this.blockRemainingEnergy -=
+                this.postExecutionWork.doPostExecutionWork(
+                        this.repository,
+                        this.repositoryChild,
+                        summary,
+                        transaction,
+                        this.blockRemainingEnergy);
+
+        return summary;
+    }
+
     private AionTxExecSummary buildSummaryAndUpdateRepository(
             AionTransaction transaction,
             TransactionContext context,